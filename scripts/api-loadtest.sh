@@ -0,0 +1,36 @@
+#!/bin/sh
+# Load test of the HTTP API: starts ApiServer on the in-memory backend with a generated
+# dataset, drives it with ApiLoadGenerator and prints sustained requests/s and latencies.
+#
+#   scripts/api-loadtest.sh [clients=16] [seconds=30] [warmup=5]
+#
+# PRODUCTS (default 5000), THREADS (server workers, default 16) and PORT (default 8089)
+# can be set in the environment. Run from the project root after `mvn package`.
+set -e
+
+PRODUCTS=${PRODUCTS:-5000}
+THREADS=${THREADS:-16}
+PORT=${PORT:-8089}
+
+mvn -q -B dependency:build-classpath -Dmdep.outputFile=target/classpath.txt
+CP="target/classes:$(cat target/classpath.txt)"
+SNAPSHOT=target/loadtest.snap
+
+# Generate the dataset into a throwaway H2 database and snapshot it for the in-memory backend
+rm -rf target/loadtest-db "$SNAPSHOT"
+mkdir -p target/loadtest-db
+(cd target/loadtest-db && java -cp "../../$CP" com.inventorymrp.DatasetTool \
+    products="$PRODUCTS" days=30 perDay=100 orders=100 endDate=2024-12-31 > /dev/null \
+    && java -cp "../../$CP" com.inventorymrp.SnapshotTool export "../../$SNAPSHOT" > /dev/null)
+
+java -Dinventorymrp.backend=memory -Dinventorymrp.snapshot="$SNAPSHOT" \
+    -Dinventorymrp.metrics.file=target/loadtest-server-metrics.txt \
+    -cp "$CP" com.inventorymrp.api.ApiServer port="$PORT" threads="$THREADS" &
+SERVER=$!
+trap 'kill $SERVER 2>/dev/null' EXIT
+
+until curl -sf "http://localhost:$PORT/api/health" > /dev/null; do
+    sleep 0.5
+done
+
+java -cp "$CP" com.inventorymrp.api.ApiLoadGenerator url="http://localhost:$PORT" "$@"
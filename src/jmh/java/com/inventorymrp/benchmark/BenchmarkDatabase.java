@@ -0,0 +1,140 @@
+package com.inventorymrp.benchmark;
+
+import com.inventorymrp.dao.BOMItemDAO;
+import com.inventorymrp.dao.InventoryTransactionDAO;
+import com.inventorymrp.dao.ProductDAO;
+import com.inventorymrp.dao.PurchaseOrderDAO;
+import com.inventorymrp.model.BOMItem;
+import com.inventorymrp.model.Product;
+import com.inventorymrp.service.DatasetGenerator;
+import com.inventorymrp.util.DatabaseUtil;
+import org.sql2o.Sql2o;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A fresh in-memory H2 database per benchmark trial, with the DAOs on it and a BOM
+ * of the requested shape.
+ */
+class BenchmarkDatabase {
+    private static final AtomicInteger databases = new AtomicInteger();
+
+    final Sql2o sql2o;
+    final ProductDAO productDAO;
+    final BOMItemDAO bomItemDAO;
+    final InventoryTransactionDAO transactionDAO;
+    final PurchaseOrderDAO purchaseOrderDAO;
+    final List<Long> productIds = new ArrayList<>();
+    Long topProductId;
+
+    BenchmarkDatabase() {
+        // Multi-threaded benchmarks wait for row locks rather than fail after H2's default second
+        String url = "jdbc:h2:mem:bench" + databases.incrementAndGet() + ";DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000";
+        sql2o = DatabaseUtil.getSql2o(url, "sa", "");
+        DatabaseUtil.initializeDatabase(url, "sa", "");
+        productDAO = new ProductDAO(sql2o);
+        bomItemDAO = new BOMItemDAO(sql2o);
+        transactionDAO = new InventoryTransactionDAO(sql2o);
+        purchaseOrderDAO = new PurchaseOrderDAO(sql2o);
+    }
+
+    /**
+     * Shapes of benchmark BOMs:
+     * <ul>
+     *   <li>deep: a chain of 60 assemblies, each with one purchased part, so 120 paths
+     *       from the top product over 60 levels</li>
+     *   <li>wide: one assembly with 1000 purchased parts, 1000 paths of one level</li>
+     *   <li>shared: 5 levels of 5 assemblies, each using all 5 of the level below, so
+     *       every sub-assembly is reached many times and there are 3125 paths to the
+     *       bottom level from only 125 BOM lines</li>
+     *   <li>generated: a {@link DatasetGenerator} dataset of 5000 products, 4 levels
+     *       with fan-out 5, 30% shared components and 90 days of history</li>
+     * </ul>
+     */
+    BenchmarkDatabase withBom(String shape) {
+        switch (shape) {
+            case "deep": {
+                Product parent = product("TOP", true);
+                topProductId = parent.getId();
+                List<BOMItem> lines = new ArrayList<>();
+                for (int level = 1; level <= 60; level++) {
+                    Product child = product("ASM-" + level, level < 60);
+                    Product part = product("PART-" + level, false);
+                    lines.add(new BOMItem(parent.getId(), child.getId(), BigDecimal.ONE));
+                    lines.add(new BOMItem(parent.getId(), part.getId(), new BigDecimal("2")));
+                    parent = child;
+                }
+                bomItemDAO.createAll(lines);
+                break;
+            }
+            case "wide": {
+                Product top = product("TOP", true);
+                topProductId = top.getId();
+                List<BOMItem> lines = new ArrayList<>();
+                for (int i = 1; i <= 1000; i++) {
+                    lines.add(new BOMItem(top.getId(), product("PART-" + i, false).getId(), new BigDecimal("3")));
+                }
+                bomItemDAO.createAll(lines);
+                break;
+            }
+            case "shared": {
+                Product top = product("TOP", true);
+                topProductId = top.getId();
+                List<Product> above = List.of(top);
+                List<BOMItem> lines = new ArrayList<>();
+                for (int level = 1; level <= 5; level++) {
+                    List<Product> current = new ArrayList<>();
+                    for (int i = 1; i <= 5; i++) {
+                        current.add(product("L" + level + "-" + i, level < 5));
+                    }
+                    for (Product parent : above) {
+                        for (Product child : current) {
+                            lines.add(new BOMItem(parent.getId(), child.getId(), BigDecimal.ONE));
+                        }
+                    }
+                    above = current;
+                }
+                bomItemDAO.createAll(lines);
+                break;
+            }
+            case "generated": {
+                DatasetGenerator.Summary summary = new DatasetGenerator(productDAO, bomItemDAO, transactionDAO,
+                        purchaseOrderDAO).generate(new DatasetGenerator.Settings()
+                        .products(5000).depth(4).fanOut(5).shareRatio(0.3).historyDays(90).transactionsPerDay(200)
+                        .endDate(LocalDate.of(2025, 1, 1)));
+                topProductId = summary.getTopAssemblyIds().get(0);
+                productIds.addAll(productDAO.findIdsByCode().values());
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Unknown BOM shape: " + shape);
+        }
+        return this;
+    }
+
+    private Product product(String code, boolean assembly) {
+        Product product = new Product(code, code);
+        product.setIsAssembly(assembly);
+        product.setNonPurchase(assembly);
+        product.setStockQuantity(assembly ? 0 : 50);
+        product.setOrderLeadTime(assembly ? 1.0 : 5.0);
+        product.setItemLeadTime(0.01);
+        product.setUnitCost(new BigDecimal("1.50"));
+        productDAO.create(product);
+        productIds.add(product.getId());
+        return product;
+    }
+
+    void close() throws SQLException {
+        try (org.sql2o.Connection con = sql2o.open();
+             Statement statement = con.getJdbcConnection().createStatement()) {
+            statement.execute("SHUTDOWN");
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.inventorymrp.benchmark;
+
+import com.inventorymrp.dao.RowMappers;
+import com.inventorymrp.model.BOMItem;
+import com.inventorymrp.model.Product;
+import com.inventorymrp.service.InventoryService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sql2o.Connection;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DAO reads and writes and stock movements on the H2 backend, over the products of
+ * a wide BOM (1001 products), and every product and BOM line mapped by sql2o's
+ * reflective mapper against the hand-written {@link RowMappers}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DaoBenchmark {
+    // The column aliases the DAOs used with executeAndFetch(Class) before RowMappers
+    private static final String REFLECTIVE_PRODUCTS =
+        "SELECT id, code, name, description, unit, unit_cost AS unitCost, stock_quantity AS stockQuantity, " +
+        "reorder_level AS reorderLevel, order_lead_time AS orderLeadTime, item_lead_time AS itemLeadTime, " +
+        "is_assembly AS isAssembly, non_purchase AS nonPurchase, created_at AS createdAt, " +
+        "updated_at AS updatedAt, version FROM products";
+    private static final String REFLECTIVE_BOM_ITEMS =
+        "SELECT id, parent_product_id AS parentProductId, child_product_id AS childProductId, quantity, unit, " +
+        "sequence_number AS sequenceNumber, created_at AS createdAt, updated_at AS updatedAt FROM bom_items";
+
+    private BenchmarkDatabase database;
+    private InventoryService inventoryService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = new BenchmarkDatabase().withBom("wide");
+        inventoryService = new InventoryService(database.productDAO, database.transactionDAO);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        database.close();
+    }
+
+    private Long randomProductId() {
+        List<Long> ids = database.productIds;
+        return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+    }
+
+    @Benchmark
+    public Product findById() {
+        return database.productDAO.findById(randomProductId());
+    }
+
+    @Benchmark
+    public Product findByCode() {
+        return database.productDAO.findByCode("PART-" + (1 + ThreadLocalRandom.current().nextInt(1000)));
+    }
+
+    @Benchmark
+    public List<Product> findAllProducts() {
+        return database.productDAO.findAll();
+    }
+
+    @Benchmark
+    public List<BOMItem> findBomByParent() {
+        return database.bomItemDAO.findByParentProductId(database.topProductId);
+    }
+
+    @Benchmark
+    public void updateProduct() {
+        Product product = database.productDAO.findById(randomProductId());
+        product.setDescription("Benchmark " + System.nanoTime());
+        database.productDAO.update(product);
+    }
+
+    @Benchmark
+    public void stockMovement(Blackhole blackhole) {
+        Long productId = randomProductId();
+        inventoryService.addStock(productId, 2, "Benchmark receipt");
+        inventoryService.removeStock(productId, 1, "Benchmark issue");
+        blackhole.consume(productId);
+    }
+
+    @Benchmark
+    public List<Product> mapProductsReflective() {
+        try (Connection con = database.sql2o.open()) {
+            return con.createQuery(REFLECTIVE_PRODUCTS).executeAndFetch(Product.class);
+        }
+    }
+
+    @Benchmark
+    public List<Product> mapProductsRowMapper() {
+        try (Connection con = database.sql2o.open()) {
+            return con.createQuery("SELECT " + RowMappers.PRODUCT_COLUMNS + " FROM products")
+                .executeAndFetch(RowMappers.PRODUCT);
+        }
+    }
+
+    @Benchmark
+    public List<BOMItem> mapBomItemsReflective() {
+        try (Connection con = database.sql2o.open()) {
+            return con.createQuery(REFLECTIVE_BOM_ITEMS).executeAndFetch(BOMItem.class);
+        }
+    }
+
+    @Benchmark
+    public List<BOMItem> mapBomItemsRowMapper() {
+        try (Connection con = database.sql2o.open()) {
+            return con.createQuery("SELECT " + RowMappers.BOM_ITEM_COLUMNS + " FROM bom_items")
+                .executeAndFetch(RowMappers.BOM_ITEM);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.inventorymrp.benchmark;
+
+import com.inventorymrp.dao.PageRequest;
+import com.inventorymrp.dao.ProductDAO;
+import com.inventorymrp.model.InventoryTransaction;
+import com.inventorymrp.model.InventoryTransactionView;
+import com.inventorymrp.model.Product;
+import com.inventorymrp.model.PurchaseOrder;
+import com.inventorymrp.model.PurchaseOrderView;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * The inventory and purchase order listings with their product codes and names,
+ * over 100,000 transactions and 100,000 orders of a wide BOM's 1001 products:
+ * every row with a product lookup per row (uncached, so each is a round trip), with
+ * one batched lookup, or joined in the query; and one 200-row panel page from the
+ * middle of the listing, with a batched lookup or joined.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class ListingBenchmark {
+    private static final int ROWS = 100_000;
+    private static final int PAGE_OFFSET = 50_000;
+    private static final int PAGE_SIZE = 200;
+
+    private BenchmarkDatabase database;
+    private ProductDAO uncachedProductDAO;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = new BenchmarkDatabase().withBom("wide");
+        uncachedProductDAO = new ProductDAO(database.sql2o, null);
+        long firstProductId = database.productIds.get(0);
+        int products = database.productIds.size();
+        try (org.sql2o.Connection con = database.sql2o.open()) {
+            con.createQuery("INSERT INTO inventory_transactions (product_id, transaction_type, quantity, " +
+                            "reference, transaction_date) " +
+                            "SELECT :first + MOD(x, :products), CASEWHEN(MOD(x, 3) = 0, 'OUT', 'IN'), " +
+                            "1 + MOD(x, 50), CONCAT('REF-', x), " +
+                            "DATEADD('MINUTE', -x, TIMESTAMP '2025-01-01 00:00:00') " +
+                            "FROM SYSTEM_RANGE(1, :rows)")
+                .addParameter("first", firstProductId)
+                .addParameter("products", products)
+                .addParameter("rows", ROWS)
+                .executeUpdate();
+            con.createQuery("INSERT INTO purchase_orders (product_id, quantity, status, order_date, " +
+                            "expected_delivery_date, supplier) " +
+                            "SELECT :first + MOD(x, :products), 1 + MOD(x, 100), " +
+                            "CASEWHEN(MOD(x, 4) = 0, 'RECEIVED', 'PENDING'), " +
+                            "DATEADD('DAY', -MOD(x, 365), DATE '2025-01-01'), " +
+                            "DATEADD('DAY', 7 - MOD(x, 365), DATE '2025-01-01'), CONCAT('Supplier ', MOD(x, 20)) " +
+                            "FROM SYSTEM_RANGE(1, :rows)")
+                .addParameter("first", firstProductId)
+                .addParameter("products", products)
+                .addParameter("rows", ROWS)
+                .executeUpdate();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        database.close();
+    }
+
+    @Benchmark
+    public void transactionsPerRowLookup(Blackhole blackhole) {
+        for (InventoryTransaction t : database.transactionDAO.findAll()) {
+            Product product = uncachedProductDAO.findById(t.getProductId());
+            blackhole.consume(product.getCode() + " - " + product.getName());
+        }
+    }
+
+    @Benchmark
+    public void transactionsBatchedLookup(Blackhole blackhole) {
+        List<InventoryTransaction> transactions = database.transactionDAO.findAll();
+        Map<Long, Product> products = uncachedProductDAO.findByIds(
+            transactions.stream().map(InventoryTransaction::getProductId).collect(Collectors.toSet()));
+        for (InventoryTransaction t : transactions) {
+            Product product = products.get(t.getProductId());
+            blackhole.consume(product.getCode() + " - " + product.getName());
+        }
+    }
+
+    @Benchmark
+    public void transactionsJoined(Blackhole blackhole) {
+        for (InventoryTransactionView t : database.transactionDAO.findViewPage(PageRequest.ALL, 0, ROWS)) {
+            blackhole.consume(t.getProductCode() + " - " + t.getProductName());
+        }
+    }
+
+    @Benchmark
+    public Map<Long, Product> transactionPageBatchedLookup() {
+        List<InventoryTransaction> page = database.transactionDAO.findPage(PageRequest.ALL, PAGE_OFFSET, PAGE_SIZE);
+        return uncachedProductDAO.findByIds(
+            page.stream().map(InventoryTransaction::getProductId).collect(Collectors.toSet()));
+    }
+
+    @Benchmark
+    public List<InventoryTransactionView> transactionPageJoined() {
+        return database.transactionDAO.findViewPage(PageRequest.ALL, PAGE_OFFSET, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public void purchaseOrdersPerRowLookup(Blackhole blackhole) {
+        for (PurchaseOrder po : database.purchaseOrderDAO.findAll()) {
+            Product product = uncachedProductDAO.findById(po.getProductId());
+            blackhole.consume(product.getCode() + " - " + product.getName());
+        }
+    }
+
+    @Benchmark
+    public void purchaseOrdersBatchedLookup(Blackhole blackhole) {
+        List<PurchaseOrder> purchaseOrders = database.purchaseOrderDAO.findAll();
+        Map<Long, Product> products = uncachedProductDAO.findByIds(
+            purchaseOrders.stream().map(PurchaseOrder::getProductId).collect(Collectors.toSet()));
+        for (PurchaseOrder po : purchaseOrders) {
+            Product product = products.get(po.getProductId());
+            blackhole.consume(product.getCode() + " - " + product.getName());
+        }
+    }
+
+    @Benchmark
+    public void purchaseOrdersJoined(Blackhole blackhole) {
+        for (PurchaseOrderView po : database.purchaseOrderDAO.findViewPage(PageRequest.ALL, 0, ROWS)) {
+            blackhole.consume(po.getProductCode() + " - " + po.getProductName());
+        }
+    }
+
+    @Benchmark
+    public Map<Long, Product> purchaseOrderPageBatchedLookup() {
+        List<PurchaseOrder> page = database.purchaseOrderDAO.findPage(PageRequest.ALL, PAGE_OFFSET, PAGE_SIZE);
+        return uncachedProductDAO.findByIds(
+            page.stream().map(PurchaseOrder::getProductId).collect(Collectors.toSet()));
+    }
+
+    @Benchmark
+    public List<PurchaseOrderView> purchaseOrderPageJoined() {
+        return database.purchaseOrderDAO.findViewPage(PageRequest.ALL, PAGE_OFFSET, PAGE_SIZE);
+    }
+}
@@ -0,0 +1,58 @@
+package com.inventorymrp.benchmark;
+
+import com.inventorymrp.model.PurchaseOrder;
+import com.inventorymrp.service.MRPService;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MRPService over BOMs of different shapes, read through the H2 DAOs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MRPBenchmark {
+    @Param({"deep", "wide", "shared", "generated"})
+    public String shape;
+
+    private BenchmarkDatabase database;
+    private MRPService mrpService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = new BenchmarkDatabase().withBom(shape);
+        mrpService = new MRPService(database.productDAO, database.bomItemDAO, database.purchaseOrderDAO);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        database.close();
+    }
+
+    @Benchmark
+    public Map<Long, Integer> explosion() {
+        return mrpService.calculateMaterialRequirements(database.topProductId, 10);
+    }
+
+    @Benchmark
+    public double leadTimeRecursive() {
+        return mrpService.calculateLeadTimeRecursive(database.topProductId, 10, false);
+    }
+
+    @Benchmark
+    public Map<Long, MRPService.MaterialAvailability> materialAvailability() {
+        return mrpService.checkMaterialAvailability(database.topProductId, 10);
+    }
+
+    @Benchmark
+    public List<PurchaseOrder> generatePurchaseOrders() {
+        return mrpService.generatePurchaseOrders(database.topProductId, 100);
+    }
+}
@@ -0,0 +1,63 @@
+package com.inventorymrp.benchmark;
+
+import com.inventorymrp.dao.OptimisticLockException;
+import com.inventorymrp.model.Product;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Eight threads editing the reorder level of one product through ProductDAO, each
+ * reloading and retrying when its version is stale, as the product dialog does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@Threads(8)
+public class ProductEditBenchmark {
+    private BenchmarkDatabase database;
+    private Long productId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = new BenchmarkDatabase();
+        productId = database.productDAO.create(new Product("EDIT", "Contended")).getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        database.close();
+    }
+
+    /**
+     * Optimistic lock conflicts retried, reported alongside the edit rate.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Conflicts {
+        public long conflicts;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            conflicts = 0;
+        }
+    }
+
+    @Benchmark
+    public void contendedEdit(Conflicts conflicts) {
+        while (true) {
+            Product product = database.productDAO.findById(productId, true);
+            product.setReorderLevel(product.getReorderLevel() + 1);
+            try {
+                database.productDAO.update(product);
+                return;
+            } catch (OptimisticLockException e) {
+                conflicts.conflicts++;
+            }
+        }
+    }
+}
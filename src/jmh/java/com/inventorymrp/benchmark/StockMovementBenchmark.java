@@ -0,0 +1,93 @@
+package com.inventorymrp.benchmark;
+
+import com.inventorymrp.model.Product;
+import com.inventorymrp.service.InventoryService;
+import com.inventorymrp.service.StockMovementJournal;
+import com.inventorymrp.util.StripedLock;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stock movements posted by 8 threads through the H2 DAOs: receipts on one hot
+ * product and on 200 products picked with a Zipf distribution (exponent 1.1), with
+ * serialization left to the database, with striped locks, or through the group-commit
+ * journal.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@Threads(8)
+public class StockMovementBenchmark {
+    private static final int PRODUCTS = 200;
+
+    @Param({"database", "striped", "journal"})
+    public String serialization;
+
+    private BenchmarkDatabase database;
+    private StockMovementJournal journal;
+    private InventoryService inventoryService;
+    private Long hotProductId;
+    private Long[] productIds;
+    private double[] zipfCdf;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = new BenchmarkDatabase();
+        productIds = new Long[PRODUCTS];
+        for (int i = 0; i < PRODUCTS; i++) {
+            productIds[i] = database.productDAO.create(new Product("SKU-" + i, "SKU " + i)).getId();
+        }
+        hotProductId = productIds[0];
+        StripedLock locks = "database".equals(serialization) ? null : new StripedLock(64);
+        journal = "journal".equals(serialization)
+                ? new StockMovementJournal(database.transactionDAO, 1000, 256, 2) : null;
+        inventoryService = new InventoryService(database.productDAO, database.transactionDAO, locks, journal);
+
+        zipfCdf = new double[PRODUCTS];
+        double sum = 0;
+        for (int k = 0; k < PRODUCTS; k++) {
+            sum += 1.0 / Math.pow(k + 1, 1.1);
+            zipfCdf[k] = sum;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        if (journal != null) {
+            journal.close();
+        }
+        database.close();
+    }
+
+    /**
+     * Each thread's own random source, so picking a product is not contended.
+     */
+    @State(Scope.Thread)
+    public static class Picker {
+        private final Random random = new Random(42L);
+
+        int next(double[] cdf) {
+            int idx = Arrays.binarySearch(cdf, random.nextDouble() * cdf[cdf.length - 1]);
+            return idx >= 0 ? idx : Math.min(cdf.length - 1, -idx - 1);
+        }
+    }
+
+    @Benchmark
+    public void hotProductReceipt() {
+        inventoryService.addStock(hotProductId, 1, "scan");
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void zipfianReceipt(Picker picker) {
+        inventoryService.addStock(productIds[picker.next(zipfCdf)], 1, "zipf");
+    }
+}
@@ -0,0 +1,66 @@
+package com.inventorymrp;
+
+import com.inventorymrp.dao.ProductRepository;
+import com.inventorymrp.dao.Repositories;
+import com.inventorymrp.service.DatasetGenerator;
+
+import java.time.LocalDate;
+
+/**
+ * Command line generation of a synthetic dataset into an empty database.
+ *
+ * <pre>
+ *   DatasetTool [name=value ...]
+ *     seed=42 products=1000 depth=4 fanOut=5 share=0.3 fractional=0.2
+ *     days=365 perDay=20 orders=100 endDate=yyyy-MM-dd batch=5000
+ * </pre>
+ */
+public class DatasetTool {
+    public static void main(String[] args) {
+        DatasetGenerator.Settings settings = new DatasetGenerator.Settings();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                usage("Expected name=value: " + arg);
+            }
+            String value = arg.substring(eq + 1);
+            switch (arg.substring(0, eq)) {
+                case "seed": settings.seed(Long.parseLong(value)); break;
+                case "products": settings.products(Integer.parseInt(value)); break;
+                case "depth": settings.depth(Integer.parseInt(value)); break;
+                case "fanOut": settings.fanOut(Integer.parseInt(value)); break;
+                case "share": settings.shareRatio(Double.parseDouble(value)); break;
+                case "fractional": settings.fractionalRatio(Double.parseDouble(value)); break;
+                case "days": settings.historyDays(Integer.parseInt(value)); break;
+                case "perDay": settings.transactionsPerDay(Integer.parseInt(value)); break;
+                case "orders": settings.openPurchaseOrders(Integer.parseInt(value)); break;
+                case "endDate": settings.endDate(LocalDate.parse(value)); break;
+                case "batch": settings.batchSize(Integer.parseInt(value)); break;
+                default: usage("Unknown setting: " + arg);
+            }
+        }
+
+        Repositories.initialize();
+        ProductRepository productDAO = Repositories.products();
+        if (productDAO.count() > 0) {
+            System.err.println("The database already holds products; generate into an empty database");
+            System.exit(1);
+        }
+        DatasetGenerator generator = new DatasetGenerator();
+        long[] lastReport = {System.nanoTime()};
+        generator.setProgressListener(progress -> {
+            if (System.nanoTime() - lastReport[0] > 5_000_000_000L) {
+                lastReport[0] = System.nanoTime();
+                System.out.println("  " + progress);
+            }
+        });
+        System.out.println("Generated " + generator.generate(settings));
+    }
+
+    private static void usage(String message) {
+        System.err.println(message);
+        System.err.println("Usage: DatasetTool [seed=42] [products=1000] [depth=4] [fanOut=5] [share=0.3] "
+                + "[fractional=0.2] [days=365] [perDay=20] [orders=100] [endDate=yyyy-MM-dd] [batch=5000]");
+        System.exit(2);
+    }
+}
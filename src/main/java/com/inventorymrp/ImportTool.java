@@ -0,0 +1,51 @@
+package com.inventorymrp;
+
+import com.inventorymrp.dao.Repositories;
+import com.inventorymrp.service.CsvImportService;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Command line bulk import from CSV files.
+ *
+ * <pre>
+ *   products file.csv [chunkSize]   import products, opening balances included
+ *   bom file.csv [chunkSize]        import BOM lines between existing products
+ * </pre>
+ */
+public class ImportTool {
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: ImportTool products|bom file.csv [chunkSize]");
+            System.exit(2);
+        }
+
+        Repositories.initialize();
+        int chunkSize = args.length > 2 ? Integer.parseInt(args[2]) : CsvImportService.DEFAULT_CHUNK_SIZE;
+        CsvImportService importService = new CsvImportService(Repositories.products(), Repositories.bomItems(), chunkSize);
+        importService.setProgressListener(progress -> System.out.println(progress.getRowsRead() + " rows read, "
+                + progress.getRowsImported() + " imported, " + progress.getRowsPerSecond() + " rows/s"));
+        Path file = Paths.get(args[1]);
+
+        CsvImportService.ImportResult result;
+        switch (args[0]) {
+            case "products":
+                result = importService.importProducts(file);
+                break;
+            case "bom":
+                result = importService.importBomItems(file);
+                break;
+            default:
+                System.err.println("Unknown command: " + args[0]);
+                System.exit(2);
+                return;
+        }
+        System.out.println(result);
+        result.getRejectedRows().forEach(System.out::println);
+        if (result.getRejectedCount() > result.getRejectedRows().size()) {
+            System.out.println("... " + (result.getRejectedCount() - result.getRejectedRows().size()) + " more");
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.inventorymrp;
+
+import com.inventorymrp.dao.DailyMovementDAO;
+import com.inventorymrp.dao.ProductDAO;
+import com.inventorymrp.model.Product;
+import com.inventorymrp.service.StockLedgerService;
+import com.inventorymrp.service.TransactionArchiveService;
+import com.inventorymrp.util.DatabaseUtil;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command line maintenance for the stock ledger.
+ *
+ * <pre>
+ *   snapshot [yyyy-MM-ddTHH:mm:ss]   snapshot all balances (default: now)
+ *   daily yyyy-MM-dd                 daily snapshots from that date up to today
+ *   asof yyyy-MM-ddTHH:mm:ss         print every product's balance at that time
+ *   rebuild [threads]                regenerate products.stock_quantity from the ledger
+ *   archive yyyy-MM                  archive transactions of closed months through that month
+ *   totals                           recompute the daily movement totals from the ledger
+ * </pre>
+ */
+public class LedgerTool {
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.err.println("Usage: LedgerTool snapshot [asOf] | daily from | asof time | rebuild [threads] | archive month | totals");
+            System.exit(2);
+        }
+
+        DatabaseUtil.initializeDatabase();
+        StockLedgerService ledgerService = new StockLedgerService();
+
+        switch (args[0]) {
+            case "snapshot": {
+                LocalDateTime asOf = args.length > 1 ? LocalDateTime.parse(args[1]) : LocalDateTime.now();
+                int written = ledgerService.takeSnapshots(asOf);
+                System.out.println("Wrote " + written + " snapshots as of " + asOf);
+                break;
+            }
+            case "daily": {
+                LocalDate from = LocalDate.parse(args[1]);
+                int written = ledgerService.takeDailySnapshots(from, LocalDate.now());
+                System.out.println("Wrote " + written + " daily snapshots since " + from);
+                break;
+            }
+            case "asof": {
+                LocalDateTime asOf = LocalDateTime.parse(args[1]);
+                Map<Long, Product> products = new HashMap<>();
+                for (Product product : new ProductDAO().findAll()) {
+                    products.put(product.getId(), product);
+                }
+                for (Map.Entry<Long, Integer> balance : ledgerService.getBalancesAsOf(asOf).entrySet()) {
+                    Product product = products.get(balance.getKey());
+                    System.out.println((product != null ? product.getCode() : balance.getKey()) + "\t" + balance.getValue());
+                }
+                break;
+            }
+            case "rebuild": {
+                int threads = args.length > 1 ? Integer.parseInt(args[1])
+                                               : Runtime.getRuntime().availableProcessors();
+                long start = System.nanoTime();
+                List<Long> corrected = ledgerService.rebuildStockQuantities(threads);
+                long millis = (System.nanoTime() - start) / 1_000_000;
+                System.out.println("Rebuilt stock quantities in " + millis + " ms, corrected "
+                        + corrected.size() + " products" + (corrected.isEmpty() ? "" : ": " + corrected));
+                break;
+            }
+            case "archive": {
+                YearMonth month = YearMonth.parse(args[1]);
+                int archived = new TransactionArchiveService().archiveMonthsThrough(month);
+                System.out.println("Archived " + archived + " transactions through " + month);
+                break;
+            }
+            case "totals": {
+                int written = new DailyMovementDAO().rebuild();
+                System.out.println("Rebuilt " + written + " daily movement totals");
+                break;
+            }
+            default:
+                System.err.println("Unknown command: " + args[0]);
+                System.exit(2);
+        }
+    }
+}
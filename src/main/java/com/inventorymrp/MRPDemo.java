@@ -1,12 +1,12 @@
 package com.inventorymrp;
 
-import com.inventorymrp.dao.BOMItemDAO;
-import com.inventorymrp.dao.ProductDAO;
+import com.inventorymrp.dao.BOMItemRepository;
+import com.inventorymrp.dao.ProductRepository;
+import com.inventorymrp.dao.Repositories;
 import com.inventorymrp.model.BOMItem;
 import com.inventorymrp.model.Product;
 import com.inventorymrp.service.InventoryService;
 import com.inventorymrp.service.MRPService;
-import com.inventorymrp.util.DatabaseUtil;
 
 import java.math.BigDecimal;
 import java.util.Map;
@@ -18,12 +18,12 @@ public class MRPDemo {
     public static void main(String[] args) {
         System.out.println("=== Inventory Management with MRP Demo ===\n");
         
-        // Initialize database
-        DatabaseUtil.initializeDatabase();
+        // Initialize the storage backend (database unless -Dinventorymrp.backend=memory)
+        Repositories.initialize();
         
         // Initialize services
-        ProductDAO productDAO = new ProductDAO();
-        BOMItemDAO bomItemDAO = new BOMItemDAO();
+        ProductRepository productDAO = Repositories.products();
+        BOMItemRepository bomItemDAO = Repositories.bomItems();
         InventoryService inventoryService = new InventoryService();
         MRPService mrpService = new MRPService();
         
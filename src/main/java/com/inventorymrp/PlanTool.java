@@ -0,0 +1,55 @@
+package com.inventorymrp;
+
+import com.inventorymrp.service.BatchPlanner;
+import com.inventorymrp.util.DatabaseUtil;
+
+/**
+ * Command line batch MRP regeneration into the plan tables, e.g. nightly.
+ *
+ * <pre>
+ *   PlanTool [name=value ...]
+ *     threads=N quantity=1 prefix=CODE topLevel=false batch=5000
+ * </pre>
+ */
+public class PlanTool {
+    public static void main(String[] args) {
+        BatchPlanner.Settings settings = new BatchPlanner.Settings();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                usage("Expected name=value: " + arg);
+            }
+            String value = arg.substring(eq + 1);
+            switch (arg.substring(0, eq)) {
+                case "threads": settings.threads(Integer.parseInt(value)); break;
+                case "quantity": settings.demandQuantity(Integer.parseInt(value)); break;
+                case "prefix": settings.codePrefix(value); break;
+                case "topLevel": settings.topLevelOnly(Boolean.parseBoolean(value)); break;
+                case "batch": settings.batchSize(Integer.parseInt(value)); break;
+                default: usage("Unknown setting: " + arg);
+            }
+        }
+
+        DatabaseUtil.initializeDatabase();
+        BatchPlanner planner = new BatchPlanner();
+        long[] lastReport = {System.nanoTime()};
+        planner.setProgressListener(progress -> {
+            if (System.nanoTime() - lastReport[0] > 5_000_000_000L) {
+                lastReport[0] = System.nanoTime();
+                System.out.println("  " + progress.getPlanned() + "/" + progress.getAssemblies() + " assemblies, "
+                        + progress.getLines() + " lines");
+            }
+        });
+        BatchPlanner.Summary summary = planner.regenerate(settings);
+        System.out.println("Planned " + summary);
+        if (!summary.getFailedAssemblyIds().isEmpty()) {
+            System.out.println("Failed assemblies: " + summary.getFailedAssemblyIds());
+        }
+    }
+
+    private static void usage(String message) {
+        System.err.println(message);
+        System.err.println("Usage: PlanTool [threads=N] [quantity=1] [prefix=CODE] [topLevel=false] [batch=5000]");
+        System.exit(2);
+    }
+}
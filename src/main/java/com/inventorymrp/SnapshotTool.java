@@ -0,0 +1,66 @@
+package com.inventorymrp;
+
+import com.inventorymrp.dao.BOMItemDAO;
+import com.inventorymrp.dao.ProductDAO;
+import com.inventorymrp.dao.PurchaseOrderDAO;
+import com.inventorymrp.dao.memory.InMemoryStore;
+import com.inventorymrp.dao.memory.StoreSnapshot;
+import com.inventorymrp.util.DatabaseUtil;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Command line export and import of planning snapshots for database-less planning nodes.
+ *
+ * <pre>
+ *   export file.snap   write products, BOM lines and open purchase orders from the database
+ *   info file.snap     print what a snapshot holds and how long it takes to load
+ *   import file.snap   load a snapshot into an empty database
+ * </pre>
+ *
+ * A node started with -Dinventorymrp.backend=memory -Dinventorymrp.snapshot=file.snap
+ * loads the snapshot at startup.
+ */
+public class SnapshotTool {
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: SnapshotTool export file | info file | import file");
+            System.exit(2);
+        }
+        Path file = Paths.get(args[1]);
+
+        switch (args[0]) {
+            case "export": {
+                DatabaseUtil.initializeDatabase();
+                long start = System.nanoTime();
+                StoreSnapshot.Summary summary = StoreSnapshot.export(file,
+                        new ProductDAO(), new BOMItemDAO(), new PurchaseOrderDAO());
+                long millis = (System.nanoTime() - start) / 1_000_000;
+                System.out.println("Exported " + summary + " to " + file + " in " + millis + " ms");
+                break;
+            }
+            case "info": {
+                System.out.println(StoreSnapshot.readSummary(file));
+                long start = System.nanoTime();
+                StoreSnapshot.load(file, new InMemoryStore());
+                long millis = (System.nanoTime() - start) / 1_000_000;
+                System.out.println("Loads in " + millis + " ms");
+                break;
+            }
+            case "import": {
+                DatabaseUtil.initializeDatabase();
+                long start = System.nanoTime();
+                StoreSnapshot.Summary summary = StoreSnapshot.importInto(file,
+                        new ProductDAO(), new BOMItemDAO(), new PurchaseOrderDAO());
+                long millis = (System.nanoTime() - start) / 1_000_000;
+                System.out.println("Imported " + summary + " from " + file + " in " + millis + " ms");
+                break;
+            }
+            default:
+                System.err.println("Unknown command: " + args[0]);
+                System.exit(2);
+        }
+    }
+}
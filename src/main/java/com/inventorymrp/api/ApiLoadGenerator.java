@@ -0,0 +1,190 @@
+package com.inventorymrp.api;
+
+import com.inventorymrp.util.Json;
+import com.inventorymrp.util.Metrics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Closed-loop load against a running {@link ApiServer}: each client thread sends its
+ * next request as soon as the previous one is answered, for a fixed time. The mix is
+ * 80% product reads, 10% stock receipts and 10% material requirements of an assembly.
+ * Prints sustained requests per second; latency per request type follows in the
+ * metrics report at exit.
+ *
+ * <pre>
+ *   ApiLoadGenerator [url=http://localhost:8080] [clients=16] [seconds=30] [warmup=5]
+ * </pre>
+ */
+public class ApiLoadGenerator {
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final String url;
+    private final List<Long> productIds = new ArrayList<>();
+    private final List<Long> assemblyIds = new ArrayList<>();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    public ApiLoadGenerator(String url) {
+        this.url = url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+
+    /**
+     * Read the ids of all products, a page at a time.
+     */
+    void loadProductIds() throws IOException, InterruptedException {
+        while (true) {
+            HttpResponse<String> response = client.send(
+                    HttpRequest.newBuilder(URI.create(url + "/api/products?limit=1000&offset=" + productIds.size()))
+                            .build(),
+                    HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IOException("GET /api/products returned " + response.statusCode());
+            }
+            List<?> page = (List<?>) ((Map<?, ?>) Json.parse(response.body())).get("products");
+            if (page.isEmpty()) {
+                break;
+            }
+            for (Object element : page) {
+                Map<?, ?> product = (Map<?, ?>) element;
+                Long id = ((BigDecimal) product.get("id")).longValue();
+                productIds.add(id);
+                if (Boolean.TRUE.equals(product.get("isAssembly"))) {
+                    assemblyIds.add(id);
+                }
+            }
+        }
+        if (productIds.isEmpty()) {
+            throw new IOException("The server has no products; generate a dataset first");
+        }
+    }
+
+    /**
+     * Run the mix on clients threads until deadline (System.nanoTime()).
+     */
+    void run(int clients, long deadline, boolean measured) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(clients);
+        for (int i = 0; i < clients; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    while (System.nanoTime() < deadline) {
+                        send(measured);
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }, "load-client-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        done.await();
+    }
+
+    private void send(boolean measured) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int pick = random.nextInt(10);
+        String name;
+        HttpRequest request;
+        if (pick == 0 && !assemblyIds.isEmpty()) {
+            name = "GET /api/mrp/requirements";
+            request = HttpRequest.newBuilder(URI.create(url + "/api/mrp/requirements?productId="
+                    + assemblyIds.get(random.nextInt(assemblyIds.size())) + "&quantity=" + (1 + random.nextInt(10))))
+                    .build();
+        } else if (pick == 1) {
+            name = "POST /api/movements";
+            String body = "{\"productId\":" + productIds.get(random.nextInt(productIds.size()))
+                    + ",\"type\":\"IN\",\"quantity\":1,\"reference\":\"LOAD\"}";
+            request = HttpRequest.newBuilder(URI.create(url + "/api/movements"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+        } else {
+            name = "GET /api/products/{}";
+            request = HttpRequest.newBuilder(URI.create(url + "/api/products/"
+                    + productIds.get(random.nextInt(productIds.size())))).build();
+        }
+        try {
+            int status = measured
+                    ? Metrics.time(name, () -> exchange(request))
+                    : exchange(request);
+            if (measured) {
+                requests.increment();
+                if (status != 200) {
+                    errors.increment();
+                }
+            }
+        } catch (UncheckedIOException e) {
+            if (measured) {
+                requests.increment();
+                errors.increment();
+            }
+        }
+    }
+
+    private int exchange(HttpRequest request) {
+        try {
+            return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new IOException("Interrupted", e));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        String url = "http://localhost:8080";
+        int clients = 16;
+        int seconds = 30;
+        int warmup = 5;
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                usage("Expected name=value: " + arg);
+            }
+            String value = arg.substring(eq + 1);
+            switch (arg.substring(0, eq)) {
+                case "url": url = value; break;
+                case "clients": clients = Integer.parseInt(value); break;
+                case "seconds": seconds = Integer.parseInt(value); break;
+                case "warmup": warmup = Integer.parseInt(value); break;
+                default: usage("Unknown setting: " + arg);
+            }
+        }
+
+        ApiLoadGenerator generator = new ApiLoadGenerator(url);
+        generator.loadProductIds();
+        System.out.println("Loaded " + generator.productIds.size() + " products (" + generator.assemblyIds.size()
+                + " assemblies); warming up for " + warmup + " s");
+        generator.run(clients, System.nanoTime() + warmup * 1_000_000_000L, false);
+
+        Metrics.setEnabled(true);
+        long start = System.nanoTime();
+        generator.run(clients, start + seconds * 1_000_000_000L, true);
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        long total = generator.requests.sum();
+        System.out.println(String.format("%d requests in %.1f s with %d clients: %.0f requests/s, %d errors",
+                total, elapsed, clients, total / elapsed, generator.errors.sum()));
+    }
+
+    private static void usage(String message) {
+        System.err.println(message);
+        System.err.println("Usage: ApiLoadGenerator [url=http://localhost:8080] [clients=16] [seconds=30] [warmup=5]");
+        System.exit(2);
+    }
+}
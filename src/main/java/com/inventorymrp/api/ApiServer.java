@@ -0,0 +1,536 @@
+package com.inventorymrp.api;
+
+import com.inventorymrp.dao.BOMItemRepository;
+import com.inventorymrp.dao.PageRequest;
+import com.inventorymrp.dao.ProductRepository;
+import com.inventorymrp.dao.Repositories;
+import com.inventorymrp.model.BOMItem;
+import com.inventorymrp.model.Product;
+import com.inventorymrp.model.PurchaseOrder;
+import com.inventorymrp.service.InventoryService;
+import com.inventorymrp.service.MRPService;
+import com.inventorymrp.service.MRPService.MaterialAvailability;
+import com.inventorymrp.service.StockLedgerService;
+import com.inventorymrp.util.Json;
+import com.inventorymrp.util.Metrics;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Headless JSON API over the JDK's built-in HTTP server: stock movements, product
+ * and BOM queries and MRP calculations, for scanners and MES integration.
+ *
+ * <pre>
+ *   ApiServer [port=8080] [threads=16] [queue=256]
+ *
+ *   GET  /api/health
+ *   GET  /api/products?offset=0&amp;limit=100
+ *   GET  /api/products/{id}
+ *   GET  /api/products/code/{code}
+ *   GET  /api/products/{id}/bom                   components of an assembly
+ *   GET  /api/products/{id}/where-used            assemblies using a product
+ *   POST /api/movements                           {"productId":1,"type":"IN|OUT|ADJUSTMENT","quantity":5,"reference":"..."}
+ *   GET  /api/mrp/requirements?productId=&amp;quantity=
+ *   GET  /api/mrp/availability?productId=&amp;quantity=
+ *   GET  /api/mrp/purchase-orders?productId=&amp;quantity=   proposed, not saved
+ *   GET  /api/mrp/lead-time?productId=&amp;quantity=&amp;excludeStock=true
+ *   GET  /api/metrics                             per-route, service and repository statistics
+ * </pre>
+ *
+ * Requests run on a fixed pool of worker threads fed by a bounded queue; when the
+ * queue is full the accepting thread handles the request itself, which stops it
+ * accepting more until it is done. Errors are returned as {"error": "..."} with
+ * status 400 (bad input), 404 (unknown route or product), 409 (insufficient stock) or
+ * 422 (the product's BOM contains a cycle);
+ * unexpected failures are logged to stderr and returned as a plain 500.
+ */
+public class ApiServer {
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final ProductRepository productDAO;
+    private final BOMItemRepository bomItemDAO;
+    private final InventoryService inventoryService;
+    private final MRPService mrpService;
+    private final List<Route> routes = new ArrayList<>();
+    private HttpServer server;
+    private ThreadPoolExecutor executor;
+
+    public ApiServer() {
+        this(Repositories.products(), Repositories.bomItems(), new InventoryService(), new MRPService());
+    }
+
+    public ApiServer(ProductRepository productDAO, BOMItemRepository bomItemDAO,
+                     InventoryService inventoryService, MRPService mrpService) {
+        this.productDAO = productDAO;
+        this.bomItemDAO = bomItemDAO;
+        this.inventoryService = inventoryService;
+        this.mrpService = mrpService;
+
+        route("GET", "/api/health", request -> Collections.singletonMap("status", "ok"));
+        route("GET", "/api/products", this::listProducts);
+        route("GET", "/api/products/(\\d+)", request -> productJson(product(request.pathLong(1))));
+        route("GET", "/api/products/code/([^/]+)", this::productByCode);
+        route("GET", "/api/products/(\\d+)/bom",
+              request -> bomJson(bomItemDAO.findByParentProductId(product(request.pathLong(1)).getId())));
+        route("GET", "/api/products/(\\d+)/where-used",
+              request -> bomJson(bomItemDAO.findByChildProductId(product(request.pathLong(1)).getId())));
+        route("POST", "/api/movements", this::postMovement);
+        route("GET", "/api/mrp/requirements", planning(this::requirements));
+        route("GET", "/api/mrp/availability", planning(this::availability));
+        route("GET", "/api/mrp/purchase-orders", planning(this::purchaseOrders));
+        route("GET", "/api/mrp/lead-time", planning(this::leadTime));
+        route("GET", "/api/metrics", request -> metricsJson());
+    }
+
+    private void route(String method, String pattern, Function<Request, Object> handler) {
+        routes.add(new Route(method, pattern, handler));
+    }
+
+    /**
+     * Wraps an MRP handler so that a cyclic BOM is reported as 422 rather than 500.
+     */
+    private static Function<Request, Object> planning(Function<Request, Object> handler) {
+        return request -> {
+            try {
+                return handler.apply(request);
+            } catch (IllegalStateException e) {
+                throw new ApiException(422, e.getMessage());
+            }
+        };
+    }
+
+    /**
+     * Start serving on port (0 for any free port).
+     * @param threads worker threads
+     * @param queueCapacity requests waiting for a worker before the accepting thread serves them itself
+     */
+    public void start(int port, int threads, int queueCapacity) throws IOException {
+        AtomicInteger workerNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread thread = new Thread(r, "api-worker-" + workerNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        // Small responses otherwise wait ~40 ms for the client's delayed ACK (Nagle); read once, at first use
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext("/api/", this::dispatch);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public void stop() {
+        if (server != null) {
+            server.stop(1);
+            executor.shutdown();
+        }
+    }
+
+    private void dispatch(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getRawPath();
+            boolean pathMatched = false;
+            for (Route route : routes) {
+                Matcher matcher = route.pattern.matcher(path);
+                if (!matcher.matches()) {
+                    continue;
+                }
+                pathMatched = true;
+                if (route.method.equals(exchange.getRequestMethod())) {
+                    respond(exchange, route, new Request(exchange, matcher));
+                    return;
+                }
+            }
+            send(exchange, pathMatched ? 405 : 404, error(pathMatched ? "Method not allowed" : "Not found: " + path));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void respond(HttpExchange exchange, Route route, Request request) throws IOException {
+        Object body;
+        int status = 200;
+        try {
+            body = Metrics.time(route.name, () -> route.handler.apply(request));
+        } catch (ApiException e) {
+            status = e.status;
+            body = error(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            // Malformed numbers and JSON
+            status = 400;
+            body = error(e.getMessage());
+        } catch (RuntimeException e) {
+            System.err.println(route.name + " failed:");
+            e.printStackTrace();
+            status = 500;
+            body = error("Internal server error");
+        }
+        send(exchange, status, body);
+    }
+
+    private static void send(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = Json.write(body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static Map<String, Object> error(String message) {
+        return Collections.singletonMap("error", message);
+    }
+
+    private Product product(Long id) {
+        Product product = productDAO.findById(id);
+        if (product == null) {
+            throw new ApiException(404, "Product not found: " + id);
+        }
+        return product;
+    }
+
+    private Object listProducts(Request request) {
+        int offset = Math.max(0, request.intParam("offset", 0));
+        int limit = Math.max(0, Math.min(request.intParam("limit", 100), MAX_PAGE_SIZE));
+        List<Object> page = new ArrayList<>();
+        for (Product product : productDAO.findPage(PageRequest.ALL, offset, limit)) {
+            page.add(productJson(product));
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("total", productDAO.count(PageRequest.ALL));
+        result.put("offset", offset);
+        result.put("products", page);
+        return result;
+    }
+
+    private Object productByCode(Request request) {
+        String code = URLDecoder.decode(request.path(1), StandardCharsets.UTF_8);
+        Product product = productDAO.findByCode(code);
+        if (product == null) {
+            throw new ApiException(404, "Product not found: " + code);
+        }
+        return productJson(product);
+    }
+
+    private Object postMovement(Request request) {
+        Map<?, ?> body = request.jsonBody();
+        Long productId = longValue(body, "productId");
+        Integer quantity = intValue(body, "quantity");
+        Object type = body.get("type");
+        Object referenceValue = body.get("reference");
+        String reference = referenceValue != null ? referenceValue.toString() : "API";
+        if ("ADJUSTMENT".equals(type) ? quantity < 0 : quantity <= 0) {
+            throw new ApiException(400, "Invalid quantity: " + quantity);
+        }
+        try {
+            if ("IN".equals(type)) {
+                inventoryService.addStock(productId, quantity, reference);
+            } else if ("OUT".equals(type)) {
+                inventoryService.removeStock(productId, quantity, reference);
+            } else if ("ADJUSTMENT".equals(type)) {
+                inventoryService.adjustStock(productId, quantity, reference);
+            } else {
+                throw new ApiException(400, "type must be IN, OUT or ADJUSTMENT");
+            }
+        } catch (IllegalStateException e) {
+            throw new ApiException(409, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            throw new ApiException(404, e.getMessage());
+        }
+        Product product = productDAO.findById(productId, true);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("productId", productId);
+        result.put("stockQuantity", product != null ? product.getStockQuantity() : null);
+        return result;
+    }
+
+    private static int demand(Request request) {
+        int quantity = request.intParam("quantity", 1);
+        if (quantity <= 0) {
+            throw new ApiException(400, "Invalid quantity: " + quantity);
+        }
+        return quantity;
+    }
+
+    private Object requirements(Request request) {
+        Long productId = product(request.longParam("productId")).getId();
+        Map<Long, Integer> requirements =
+            mrpService.calculateMaterialRequirements(productId, demand(request));
+        List<Object> lines = new ArrayList<>();
+        for (Map.Entry<Long, Integer> entry : requirements.entrySet()) {
+            Map<String, Object> line = new LinkedHashMap<>();
+            line.put("productId", entry.getKey());
+            line.put("quantity", entry.getValue());
+            lines.add(line);
+        }
+        return Collections.singletonMap("requirements", lines);
+    }
+
+    private Object availability(Request request) {
+        Long productId = product(request.longParam("productId")).getId();
+        List<Object> lines = new ArrayList<>();
+        for (MaterialAvailability availability
+                : mrpService.checkMaterialAvailability(productId, demand(request)).values()) {
+            Map<String, Object> line = new LinkedHashMap<>();
+            line.put("productId", availability.getProductId());
+            line.put("code", availability.getProductCode());
+            line.put("name", availability.getProductName());
+            line.put("required", availability.getRequiredQuantity());
+            line.put("available", availability.getAvailableQuantity());
+            line.put("shortage", availability.getShortage());
+            line.put("sufficient", availability.getSufficient());
+            lines.add(line);
+        }
+        return Collections.singletonMap("availability", lines);
+    }
+
+    private Object purchaseOrders(Request request) {
+        Long productId = product(request.longParam("productId")).getId();
+        List<Object> orders = new ArrayList<>();
+        for (PurchaseOrder po : mrpService.generatePurchaseOrders(productId, demand(request))) {
+            Map<String, Object> order = new LinkedHashMap<>();
+            order.put("productId", po.getProductId());
+            order.put("quantity", po.getQuantity());
+            order.put("expectedDeliveryDate", po.getExpectedDeliveryDate());
+            order.put("reference", po.getReference());
+            orders.add(order);
+        }
+        return Collections.singletonMap("purchaseOrders", orders);
+    }
+
+    private Object leadTime(Request request) {
+        Long productId = product(request.longParam("productId")).getId();
+        boolean excludeStock = Boolean.parseBoolean(request.param("excludeStock", "true"));
+        double days = mrpService.calculateLeadTimeRecursive(productId, demand(request), excludeStock);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("productId", productId);
+        result.put("leadTimeDays", days);
+        return result;
+    }
+
+    private static Object metricsJson() {
+        List<Object> operations = new ArrayList<>();
+        for (Metrics.OperationSnapshot op : Metrics.snapshot()) {
+            Map<String, Object> line = new LinkedHashMap<>();
+            line.put("name", op.getName());
+            line.put("count", op.getCount());
+            line.put("errors", op.getErrors());
+            line.put("inFlight", op.getInFlight());
+            line.put("meanMicros", op.getMeanNanos() / 1e3);
+            line.put("p50Micros", op.getPercentileNanos(50) / 1e3);
+            line.put("p99Micros", op.getPercentileNanos(99) / 1e3);
+            line.put("maxMicros", op.getMaxNanos() / 1e3);
+            operations.add(line);
+        }
+        return Collections.singletonMap("operations", operations);
+    }
+
+    private static Map<String, Object> productJson(Product product) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", product.getId());
+        json.put("code", product.getCode());
+        json.put("name", product.getName());
+        json.put("description", product.getDescription());
+        json.put("unit", product.getUnit());
+        json.put("unitCost", product.getUnitCost());
+        json.put("stockQuantity", product.getStockQuantity());
+        json.put("reorderLevel", product.getReorderLevel());
+        json.put("orderLeadTime", product.getOrderLeadTime());
+        json.put("itemLeadTime", product.getItemLeadTime());
+        json.put("isAssembly", product.getIsAssembly());
+        json.put("nonPurchase", product.getNonPurchase());
+        json.put("version", product.getVersion());
+        return json;
+    }
+
+    private static List<Object> bomJson(List<BOMItem> bomItems) {
+        List<Object> lines = new ArrayList<>();
+        for (BOMItem bomItem : bomItems) {
+            Map<String, Object> line = new LinkedHashMap<>();
+            line.put("id", bomItem.getId());
+            line.put("parentProductId", bomItem.getParentProductId());
+            line.put("childProductId", bomItem.getChildProductId());
+            line.put("childCode", bomItem.getChildProduct() != null ? bomItem.getChildProduct().getCode() : null);
+            line.put("quantity", bomItem.getQuantity());
+            line.put("unit", bomItem.getUnit());
+            line.put("sequenceNumber", bomItem.getSequenceNumber());
+            lines.add(line);
+        }
+        return lines;
+    }
+
+    private static Long longValue(Map<?, ?> body, String name) {
+        Object value = body.get(name);
+        if (!(value instanceof BigDecimal)) {
+            throw new ApiException(400, name + " must be a number");
+        }
+        try {
+            return ((BigDecimal) value).longValueExact();
+        } catch (ArithmeticException e) {
+            throw new ApiException(400, name + " must be an integer");
+        }
+    }
+
+    private static int intValue(Map<?, ?> body, String name) {
+        try {
+            return Math.toIntExact(longValue(body, name));
+        } catch (ArithmeticException e) {
+            throw new ApiException(400, name + " is out of range");
+        }
+    }
+
+    /**
+     * Error response with a status code, thrown by handlers.
+     */
+    private static class ApiException extends RuntimeException {
+        private final int status;
+
+        ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private static final class Route {
+        private final String method;
+        private final Pattern pattern;
+        // Name under which the route's requests are measured, e.g. "GET /api/products/{id}"
+        private final String name;
+        private final Function<Request, Object> handler;
+
+        Route(String method, String pattern, Function<Request, Object> handler) {
+            this.method = method;
+            this.pattern = Pattern.compile(pattern);
+            this.name = method + " " + pattern.replaceAll("\\([^)]*\\)", "{}");
+            this.handler = handler;
+        }
+    }
+
+    /**
+     * Path groups, query parameters and body of a request.
+     */
+    private static final class Request {
+        private final HttpExchange exchange;
+        private final Matcher path;
+        private final Map<String, String> query = new HashMap<>();
+
+        Request(HttpExchange exchange, Matcher path) {
+            this.exchange = exchange;
+            this.path = path;
+            String rawQuery = exchange.getRequestURI().getRawQuery();
+            if (rawQuery != null) {
+                for (String pair : rawQuery.split("&")) {
+                    int eq = pair.indexOf('=');
+                    if (eq > 0) {
+                        query.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                                  URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+                    }
+                }
+            }
+        }
+
+        String path(int group) {
+            return path.group(group);
+        }
+
+        long pathLong(int group) {
+            return Long.parseLong(path.group(group));
+        }
+
+        String param(String name, String defaultValue) {
+            return query.getOrDefault(name, defaultValue);
+        }
+
+        int intParam(String name, int defaultValue) {
+            String value = query.get(name);
+            return value != null ? Integer.parseInt(value) : defaultValue;
+        }
+
+        long longParam(String name) {
+            String value = query.get(name);
+            if (value == null) {
+                throw new ApiException(400, "Missing parameter: " + name);
+            }
+            return Long.parseLong(value);
+        }
+
+        Map<?, ?> jsonBody() {
+            try (InputStream in = exchange.getRequestBody()) {
+                Object body = Json.parse(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+                if (!(body instanceof Map)) {
+                    throw new ApiException(400, "Expected a JSON object");
+                }
+                return (Map<?, ?>) body;
+            } catch (IOException e) {
+                throw new ApiException(400, "Could not read request body: " + e.getMessage());
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = 8080;
+        int threads = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+        int queue = 256;
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                usage("Expected name=value: " + arg);
+            }
+            int value = Integer.parseInt(arg.substring(eq + 1));
+            switch (arg.substring(0, eq)) {
+                case "port": port = value; break;
+                case "threads": threads = value; break;
+                case "queue": queue = value; break;
+                default: usage("Unknown setting: " + arg);
+            }
+        }
+
+        // Route, service and repository statistics for /api/metrics; on before the repositories are created
+        Metrics.setEnabled(true);
+        Repositories.initialize();
+        if (!Repositories.isInMemory()) {
+            new StockLedgerService().startDailyCheckpoints();
+        }
+        ApiServer server = new ApiServer();
+        server.start(port, threads, queue);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop, "api-shutdown"));
+        System.out.println("Serving on http://localhost:" + server.getPort() + "/api/ with " + threads
+                           + " workers (" + (Repositories.isInMemory() ? "in-memory" : "H2") + " backend)");
+    }
+
+    private static void usage(String message) {
+        System.err.println(message);
+        System.err.println("Usage: ApiServer [port=8080] [threads=N] [queue=256]");
+        System.exit(2);
+    }
+}
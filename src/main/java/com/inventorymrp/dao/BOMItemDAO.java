@@ -4,21 +4,39 @@ import com.inventorymrp.model.BOMItem;
 import com.inventorymrp.model.Product;
 import com.inventorymrp.util.DatabaseUtil;
 import org.sql2o.Connection;
+import org.sql2o.Query;
+import org.sql2o.ResultSetHandler;
+import org.sql2o.ResultSetIterable;
 import org.sql2o.Sql2o;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 /**
  * Data Access Object for BOMItem entity.
  */
-public class BOMItemDAO {
+public class BOMItemDAO implements BOMItemRepository {
+    private static final String INSERT_SQL =
+            "INSERT INTO bom_items (parent_product_id, child_product_id, quantity, " +
+            "unit, sequence_number, created_at, updated_at) " +
+            "VALUES (:parentProductId, :childProductId, :quantity, " +
+            ":unit, :sequenceNumber, :createdAt, :updatedAt)";
+    // Parent ids bound per IN list by findExplosion
+    private static final int IN_LIST_SIZE = 1000;
+
     private final Sql2o sql2o;
     private final ProductDAO productDAO;
 
     public BOMItemDAO() {
         this.sql2o = DatabaseUtil.getSql2o();
-        this.productDAO = new ProductDAO(sql2o);
+        this.productDAO = new ProductDAO(sql2o, DatabaseUtil.getProductCache());
     }
 
     public BOMItemDAO(Sql2o sql2o) {
@@ -27,13 +45,8 @@ public class BOMItemDAO {
     }
 
     public BOMItem create(BOMItem bomItem) {
-        String sql = "INSERT INTO bom_items (parent_product_id, child_product_id, quantity, " +
-                     "unit, sequence_number, created_at, updated_at) " +
-                     "VALUES (:parentProductId, :childProductId, :quantity, " +
-                     ":unit, :sequenceNumber, :createdAt, :updatedAt)";
-        
         try (Connection con = sql2o.open()) {
-            long id = con.createQuery(sql, true)
+            long id = con.createQuery(INSERT_SQL, true)
                 .bind(bomItem)
                 .executeUpdate()
                 .getKey(Long.class);
@@ -42,69 +55,170 @@ public class BOMItemDAO {
         }
     }
 
+    /**
+     * Insert BOM items as one JDBC batch in one database transaction.
+     */
+    public List<BOMItem> createAll(List<BOMItem> bomItems) {
+        if (bomItems.isEmpty()) {
+            return bomItems;
+        }
+        try (Connection con = sql2o.beginTransaction()) {
+            Query insert = con.createQuery(INSERT_SQL, true);
+            for (BOMItem bomItem : bomItems) {
+                insert.bind(bomItem).addToBatch();
+            }
+            List<Long> keys = insert.executeBatch().getKeys(Long.class);
+            for (int i = 0; i < bomItems.size(); i++) {
+                bomItems.get(i).setId(keys.get(i));
+            }
+            con.commit();
+        }
+        return bomItems;
+    }
+
     public BOMItem findById(Long id) {
-        String sql = "SELECT id, parent_product_id as parentProductId, child_product_id as childProductId, " +
-                     "quantity, unit, sequence_number as sequenceNumber " +
-                     "FROM bom_items WHERE id = :id";
+        String sql = "SELECT " + RowMappers.BOM_ITEM_COLUMNS + " FROM bom_items " +
+                     "WHERE id = :id";
         try (Connection con = sql2o.open()) {
             BOMItem bomItem = con.createQuery(sql)
                 .addParameter("id", id)
-                .executeAndFetchFirst(BOMItem.class);
+                .executeAndFetchFirst(RowMappers.BOM_ITEM);
             
             if (bomItem != null) {
-                enrichWithProducts(bomItem);
+                enrichWithProducts(Collections.singletonList(bomItem));
             }
             return bomItem;
         }
     }
 
     public List<BOMItem> findByParentProductId(Long parentProductId) {
-        String sql = "SELECT id, parent_product_id as parentProductId, child_product_id as childProductId, " +
-                     "quantity, unit, sequence_number as sequenceNumber " +
-                     "FROM bom_items WHERE parent_product_id = :parentProductId ORDER BY sequence_number";
+        String sql = "SELECT " + RowMappers.BOM_ITEM_COLUMNS + " FROM bom_items " +
+                     "WHERE parent_product_id = :parentProductId ORDER BY sequence_number";
         try (Connection con = sql2o.open()) {
             List<BOMItem> bomItems = con.createQuery(sql)
                 .addParameter("parentProductId", parentProductId)
-                .executeAndFetch(BOMItem.class);
+                .executeAndFetch(RowMappers.BOM_ITEM);
             
-            for (BOMItem bomItem : bomItems) {
-                enrichWithProducts(bomItem);
-            }
+            enrichWithProducts(bomItems);
             return bomItems;
         }
     }
 
     public List<BOMItem> findByChildProductId(Long childProductId) {
-        String sql = "SELECT id, parent_product_id as parentProductId, child_product_id as childProductId, " +
-                     "quantity, unit, sequence_number as sequenceNumber " +
-                     "FROM bom_items WHERE child_product_id = :childProductId ORDER BY sequence_number";
+        String sql = "SELECT " + RowMappers.BOM_ITEM_COLUMNS + " FROM bom_items " +
+                     "WHERE child_product_id = :childProductId ORDER BY sequence_number";
         try (Connection con = sql2o.open()) {
             List<BOMItem> bomItems = con.createQuery(sql)
                 .addParameter("childProductId", childProductId)
-                .executeAndFetch(BOMItem.class);
+                .executeAndFetch(RowMappers.BOM_ITEM);
             
-            for (BOMItem bomItem : bomItems) {
-                enrichWithProducts(bomItem);
-            }
+            enrichWithProducts(bomItems);
             return bomItems;
         }
     }
 
     public List<BOMItem> findAll() {
-        String sql = "SELECT id, parent_product_id as parentProductId, child_product_id as childProductId, " +
-                     "quantity, unit, sequence_number as sequenceNumber " +
-                     "FROM bom_items ORDER BY parent_product_id, sequence_number";
+        String sql = "SELECT " + RowMappers.BOM_ITEM_COLUMNS + " FROM bom_items " +
+                     "ORDER BY parent_product_id, sequence_number";
         try (Connection con = sql2o.open()) {
             List<BOMItem> bomItems = con.createQuery(sql)
-                .executeAndFetch(BOMItem.class);
+                .executeAndFetch(RowMappers.BOM_ITEM);
             
-            for (BOMItem bomItem : bomItems) {
-                enrichWithProducts(bomItem);
-            }
+            enrichWithProducts(bomItems);
+            return bomItems;
+        }
+    }
+
+    public int count(PageRequest request) {
+        String sql = "SELECT COUNT(*) FROM bom_items" + where(request);
+        try (Connection con = sql2o.open()) {
+            return Paging.bind(con.createQuery(sql), request)
+                .executeScalar(Integer.class);
+        }
+    }
+
+    /**
+     * A page of BOM items filtered, sorted and limited by the query, with the
+     * products of the page attached.
+     */
+    public List<BOMItem> findPage(PageRequest request, int offset, int limit) {
+        String sql = "SELECT " + RowMappers.BOM_ITEM_COLUMNS + " FROM bom_items" + where(request) +
+                     Paging.orderBy(request, Paging.BOM_ITEM_SORTS, "parent_product_id, sequence_number, id") +
+                     " LIMIT :limit OFFSET :offset";
+        try (Connection con = sql2o.open()) {
+            List<BOMItem> bomItems = Paging.bind(con.createQuery(sql), request, offset, limit)
+                .executeAndFetch(RowMappers.BOM_ITEM);
+
+            enrichWithProducts(bomItems);
             return bomItems;
         }
     }
 
+    private static String where(PageRequest request) {
+        return request.getFilter() == null ? "" :
+               " WHERE parent_product_id IN (SELECT id FROM products WHERE LOWER(code) LIKE :filter) " +
+               "OR child_product_id IN (SELECT id FROM products WHERE LOWER(code) LIKE :filter)";
+    }
+
+    /**
+     * Every BOM item below a product with one query per BOM level, each level joined
+     * to its child products so the walk only continues through assemblies. Products
+     * already visited are not expanded again, so shared sub-assemblies are read once
+     * and a cycle cannot loop.
+     */
+    public List<BOMItem> findExplosion(Long productId) {
+        return findExplosion(productId, new AtomicInteger());
+    }
+
+    /**
+     * As {@link #findExplosion(Long)}, adding the queries it runs to statements.
+     */
+    public List<BOMItem> findExplosion(Long productId, AtomicInteger statements) {
+        String sql = "SELECT b.id, b.parent_product_id, b.child_product_id, b.quantity, b.unit, " +
+                     "b.sequence_number, b.created_at, b.updated_at, c.is_assembly " +
+                     "FROM bom_items b JOIN products c ON c.id = b.child_product_id " +
+                     "WHERE b.parent_product_id IN (:parents) " +
+                     "ORDER BY b.parent_product_id, b.sequence_number";
+        List<BOMItem> result = new ArrayList<>();
+        Set<Long> visited = new HashSet<>();
+        List<Long> level = new ArrayList<>();
+        visited.add(productId);
+        level.add(productId);
+        try (Connection con = sql2o.open()) {
+            while (!level.isEmpty()) {
+                List<Long> next = new ArrayList<>();
+                for (int from = 0; from < level.size(); from += IN_LIST_SIZE) {
+                    con.createQuery(sql)
+                        .addParameter("parents", level.subList(from, Math.min(level.size(), from + IN_LIST_SIZE)))
+                        .executeAndFetch((ResultSetHandler<Void>) rs -> {
+                            BOMItem bomItem = RowMappers.BOM_ITEM.handle(rs);
+                            result.add(bomItem);
+                            if (rs.getBoolean(9) && visited.add(bomItem.getChildProductId())) {
+                                next.add(bomItem.getChildProductId());
+                            }
+                            return null;
+                        });
+                    statements.incrementAndGet();
+                }
+                level = next;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Stream all BOM items from a lazy result set, without attaching products.
+     */
+    public void scanAll(Consumer<BOMItem> action) {
+        String sql = "SELECT " + RowMappers.BOM_ITEM_COLUMNS + " FROM bom_items";
+        try (Connection con = sql2o.open();
+             ResultSetIterable<BOMItem> items = con.createQuery(sql).executeAndFetchLazy(RowMappers.BOM_ITEM)) {
+            for (BOMItem bomItem : items) {
+                action.accept(bomItem);
+            }
+        }
+    }
+
     public void update(BOMItem bomItem) {
         bomItem.setUpdatedAt(LocalDateTime.now());
         String sql = "UPDATE bom_items SET parent_product_id = :parentProductId, " +
@@ -137,15 +251,27 @@ public class BOMItemDAO {
         }
     }
 
-    private void enrichWithProducts(BOMItem bomItem) {
-        if (bomItem != null) {
-            if (bomItem.getParentProductId() != null) {
-                bomItem.setParentProduct(productDAO.findById(bomItem.getParentProductId()));
-            }
-            if (bomItem.getChildProductId() != null) {
-                bomItem.setChildProduct(productDAO.findById(bomItem.getChildProductId()));
-            }
+    /**
+     * Attach parent and child products, loaded together rather than per item.
+     */
+    private void enrichWithProducts(List<BOMItem> bomItems) {
+        if (bomItems.isEmpty()) {
+            return;
+        }
+        Set<Long> ids = new HashSet<>();
+        for (BOMItem bomItem : bomItems) {
+            ids.add(bomItem.getParentProductId());
+            ids.add(bomItem.getChildProductId());
         }
+        Map<Long, Product> products = productDAO.findByIds(ids);
+        for (BOMItem bomItem : bomItems) {
+            bomItem.setParentProduct(copy(products.get(bomItem.getParentProductId())));
+            bomItem.setChildProduct(copy(products.get(bomItem.getChildProductId())));
+        }
+    }
+
+    private static Product copy(Product product) {
+        return product != null ? new Product(product) : null;
     }
 
     public int count() {
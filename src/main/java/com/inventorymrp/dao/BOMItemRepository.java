@@ -0,0 +1,116 @@
+package com.inventorymrp.dao;
+
+import com.inventorymrp.model.BOMItem;
+import com.inventorymrp.model.Product;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Storage of BOM items, implemented by {@link BOMItemDAO} and by the in-memory
+ * backend. Items are returned with their parent and child products attached.
+ */
+public interface BOMItemRepository {
+    BOMItem create(BOMItem bomItem);
+
+    /**
+     * Create several BOM items, for bulk loads. {@link BOMItemDAO} inserts them as
+     * one JDBC batch in one database transaction.
+     */
+    default List<BOMItem> createAll(List<BOMItem> bomItems) {
+        for (BOMItem bomItem : bomItems) {
+            create(bomItem);
+        }
+        return bomItems;
+    }
+
+    BOMItem findById(Long id);
+
+    /**
+     * Components of an assembly ordered by sequence number.
+     */
+    List<BOMItem> findByParentProductId(Long parentProductId);
+
+    List<BOMItem> findByChildProductId(Long childProductId);
+
+    /**
+     * Every BOM item below a product, following assemblies to any depth, each once and
+     * ordered by sequence number within a parent. Products need not be attached.
+     * {@link BOMItemDAO} reads one BOM level per query instead of one assembly per query.
+     */
+    default List<BOMItem> findExplosion(Long productId) {
+        List<BOMItem> result = new ArrayList<>();
+        Set<Long> visited = new HashSet<>();
+        Deque<Long> pending = new ArrayDeque<>();
+        visited.add(productId);
+        pending.add(productId);
+        while (!pending.isEmpty()) {
+            for (BOMItem bomItem : findByParentProductId(pending.poll())) {
+                result.add(bomItem);
+                Product child = bomItem.getChildProduct();
+                if ((child == null || Boolean.TRUE.equals(child.getIsAssembly()))
+                        && visited.add(bomItem.getChildProductId())) {
+                    pending.add(bomItem.getChildProductId());
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * As {@link #findExplosion(Long)}, adding the SQL statements it executes to
+     * statements. The in-memory backend executes none.
+     */
+    default List<BOMItem> findExplosion(Long productId, AtomicInteger statements) {
+        return findExplosion(productId);
+    }
+
+    /**
+     * All items ordered by parent product id, then sequence number.
+     */
+    List<BOMItem> findAll();
+
+    /**
+     * Number of items whose parent or child product code contains request's filter.
+     */
+    default int count(PageRequest request) {
+        return Paging.count(findAll(), item -> matches(item, request));
+    }
+
+    /**
+     * Items whose parent or child product code contains request's filter, in request's
+     * order, from offset and at most limit of them, with their products attached.
+     * @throws IllegalArgumentException if request sorts on an unknown property
+     */
+    default List<BOMItem> findPage(PageRequest request, int offset, int limit) {
+        return Paging.page(findAll(), request, item -> matches(item, request),
+                           Paging.BOM_ITEM_SORTS, BOMItem::getId, offset, limit);
+    }
+
+    private static boolean matches(BOMItem item, PageRequest request) {
+        return request.matches(item.getParentProduct() != null ? item.getParentProduct().getCode() : null,
+                               item.getChildProduct() != null ? item.getChildProduct().getCode() : null);
+    }
+
+    /**
+     * Pass every BOM item to action without attaching products or building a list,
+     * so bulk jobs can walk all BOM lines in bounded memory.
+     */
+    default void scanAll(Consumer<BOMItem> action) {
+        findAll().forEach(action);
+    }
+
+    void update(BOMItem bomItem);
+
+    void delete(Long id);
+
+    void deleteByParentProductId(Long parentProductId);
+
+    int count();
+}
@@ -0,0 +1,163 @@
+package com.inventorymrp.dao;
+
+import com.inventorymrp.model.DailyMovement;
+import com.inventorymrp.model.InventoryTransaction;
+import com.inventorymrp.util.DatabaseUtil;
+import org.sql2o.Connection;
+import org.sql2o.Query;
+import org.sql2o.ResultSetHandler;
+import org.sql2o.Sql2o;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Data Access Object for daily_stock_movements, the per-product, per-day totals
+ * of inventory_transactions. {@link InventoryTransactionDAO} keeps the totals up to
+ * date in the same database transaction as every ledger insert; {@link #rebuild}
+ * recomputes them from the ledger in bulk.
+ */
+public class DailyMovementDAO {
+    private static final String MERGE_SQL =
+            "MERGE INTO daily_stock_movements d " +
+            "USING (VALUES (CAST(:productId AS BIGINT), CAST(:movementDate AS DATE), CAST(:inQuantity AS INT), " +
+            "  CAST(:outQuantity AS INT), CAST(:adjustmentQuantity AS INT), CAST(:count AS INT))) " +
+            "  v (product_id, movement_date, in_quantity, out_quantity, adjustment_quantity, transaction_count) " +
+            "ON d.product_id = v.product_id AND d.movement_date = v.movement_date " +
+            "WHEN MATCHED THEN UPDATE SET in_quantity = d.in_quantity + v.in_quantity, " +
+            "  out_quantity = d.out_quantity + v.out_quantity, " +
+            "  adjustment_quantity = d.adjustment_quantity + v.adjustment_quantity, " +
+            "  transaction_count = d.transaction_count + v.transaction_count " +
+            "WHEN NOT MATCHED THEN INSERT (product_id, movement_date, in_quantity, out_quantity, " +
+            "  adjustment_quantity, transaction_count) VALUES (v.product_id, v.movement_date, " +
+            "  v.in_quantity, v.out_quantity, v.adjustment_quantity, v.transaction_count)";
+
+    private static final String COLUMNS =
+            "product_id, movement_date, in_quantity, out_quantity, adjustment_quantity, transaction_count";
+
+    private static final ResultSetHandler<DailyMovement> DAILY_MOVEMENT = rs -> {
+        DailyMovement m = new DailyMovement();
+        m.setProductId(RowMappers.getLong(rs, 1));
+        m.setMovementDate(RowMappers.getDate(rs, 2));
+        m.setInQuantity(RowMappers.getInt(rs, 3));
+        m.setOutQuantity(RowMappers.getInt(rs, 4));
+        m.setAdjustmentQuantity(RowMappers.getInt(rs, 5));
+        m.setTransactionCount(RowMappers.getInt(rs, 6));
+        return m;
+    };
+
+    private final Sql2o sql2o;
+
+    public DailyMovementDAO() {
+        this.sql2o = DatabaseUtil.getSql2o();
+    }
+
+    public DailyMovementDAO(Sql2o sql2o) {
+        this.sql2o = sql2o;
+    }
+
+    /**
+     * Add (sign 1) or remove (sign -1) transactions from the daily totals on the
+     * given connection, as one JDBC batch. Callers hold the products row lock of
+     * each transaction's product, which serializes concurrent merges into the same row.
+     */
+    static void apply(Connection con, Collection<InventoryTransaction> transactions, int sign) {
+        if (transactions.isEmpty()) {
+            return;
+        }
+        Query merge = con.createQuery(MERGE_SQL);
+        for (InventoryTransaction t : transactions) {
+            String type = t.getTransactionType();
+            int quantity = sign * t.getQuantity();
+            merge.addParameter("productId", t.getProductId())
+                .addParameter("movementDate", t.getTransactionDate().toLocalDate())
+                .addParameter("inQuantity", "IN".equals(type) ? quantity : 0)
+                .addParameter("outQuantity", "OUT".equals(type) ? quantity : 0)
+                .addParameter("adjustmentQuantity", "ADJUSTMENT".equals(type) ? quantity : 0)
+                .addParameter("count", sign)
+                .addToBatch();
+        }
+        merge.executeBatch();
+    }
+
+    /**
+     * Daily totals of a product for days in [from, to], oldest first. A null bound is open.
+     */
+    public List<DailyMovement> findByProductId(Long productId, LocalDate from, LocalDate to) {
+        String sql = "SELECT " + COLUMNS + " FROM daily_stock_movements " +
+                     "WHERE product_id = :productId" +
+                     (from != null ? " AND movement_date >= :from" : "") +
+                     (to != null ? " AND movement_date <= :to" : "") +
+                     " ORDER BY movement_date";
+        try (Connection con = sql2o.open()) {
+            Query query = con.createQuery(sql).addParameter("productId", productId);
+            if (from != null) {
+                query.addParameter("from", from);
+            }
+            if (to != null) {
+                query.addParameter("to", to);
+            }
+            return query.executeAndFetch(DAILY_MOVEMENT);
+        }
+    }
+
+    /**
+     * Total OUT quantity per product for days in [from, to], keyed by product id,
+     * largest consumers first. Products without consumption are omitted.
+     */
+    public Map<Long, Integer> findConsumptionTotals(LocalDate from, LocalDate to) {
+        String sql = "SELECT product_id, SUM(out_quantity) AS total FROM daily_stock_movements " +
+                     "WHERE movement_date BETWEEN :from AND :to " +
+                     "GROUP BY product_id HAVING SUM(out_quantity) > 0 " +
+                     "ORDER BY total DESC, product_id";
+        Map<Long, Integer> totals = new LinkedHashMap<>();
+        try (Connection con = sql2o.open()) {
+            con.createQuery(sql)
+                .addParameter("from", from)
+                .addParameter("to", to)
+                .executeAndFetch((ResultSetHandler<Void>) rs -> {
+                    totals.put(rs.getLong(1), rs.getInt(2));
+                    return null;
+                });
+        }
+        return totals;
+    }
+
+    /**
+     * Recompute all daily totals from the ledger, archived transactions included.
+     * Every product row is locked for the duration, so no movement commits halfway.
+     * @return number of daily rows written
+     */
+    public int rebuild() {
+        String insertSql = "INSERT INTO daily_stock_movements (" + COLUMNS + ") " +
+                           "SELECT product_id, CAST(transaction_date AS DATE), " +
+                           "SUM(CASE WHEN transaction_type = 'IN' THEN quantity ELSE 0 END), " +
+                           "SUM(CASE WHEN transaction_type = 'OUT' THEN quantity ELSE 0 END), " +
+                           "SUM(CASE WHEN transaction_type = 'ADJUSTMENT' THEN quantity ELSE 0 END), " +
+                           "COUNT(*) " +
+                           "FROM " + TransactionArchiveDAO.LEDGER_VIEW + " " +
+                           "GROUP BY product_id, CAST(transaction_date AS DATE)";
+        try (Connection con = sql2o.beginTransaction()) {
+            con.createQuery("SELECT id FROM products FOR UPDATE")
+                .executeScalarList(Long.class);
+            con.createQuery("DELETE FROM daily_stock_movements")
+                .executeUpdate();
+            int written = con.createQuery(insertSql)
+                .executeUpdate()
+                .getResult();
+            con.commit();
+            return written;
+        }
+    }
+
+    public int count() {
+        String sql = "SELECT COUNT(*) FROM daily_stock_movements";
+        try (Connection con = sql2o.open()) {
+            return con.createQuery(sql)
+                .executeScalar(Integer.class);
+        }
+    }
+}
@@ -1,98 +1,418 @@
 package com.inventorymrp.dao;
 
 import com.inventorymrp.model.InventoryTransaction;
+import com.inventorymrp.model.InventoryTransactionView;
 import com.inventorymrp.util.DatabaseUtil;
 import org.sql2o.Connection;
+import org.sql2o.Query;
 import org.sql2o.Sql2o;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Data Access Object for InventoryTransaction entity.
+ * Stock movements are recorded together with the products.stock_quantity change
+ * in a single database transaction, see {@link #recordMovement}.
+ * The finders, counts and pages read archived transactions too: the ranged finders
+ * only when the range reaches back into the archive, see {@link TransactionArchiveDAO}.
  */
-public class InventoryTransactionDAO {
+public class InventoryTransactionDAO implements InventoryTransactionRepository {
+    /** SQL expression for a row's stock delta, see {@link InventoryTransaction#getSignedQuantity()}. */
+    public static final String SIGNED_QUANTITY_SQL =
+            "CASE WHEN transaction_type = 'OUT' THEN -quantity ELSE quantity END";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO inventory_transactions (product_id, transaction_type, quantity, " +
+            "reference, transaction_date, created_at) " +
+            "VALUES (:productId, :transactionType, :quantity, :reference, " +
+            ":transactionDate, :createdAt)";
+
     private final Sql2o sql2o;
+    private final ProductCache productCache;
 
     public InventoryTransactionDAO() {
         this.sql2o = DatabaseUtil.getSql2o();
+        this.productCache = DatabaseUtil.getProductCache();
     }
 
     public InventoryTransactionDAO(Sql2o sql2o) {
+        this(sql2o, null);
+    }
+
+    /**
+     * @param productCache product cache to invalidate when stock changes, or null
+     */
+    public InventoryTransactionDAO(Sql2o sql2o, ProductCache productCache) {
         this.sql2o = sql2o;
+        this.productCache = productCache;
     }
 
+    /**
+     * Record a transaction, apply it to the product's stock and add it to its daily
+     * total in one database transaction, like {@link #recordMovement} without the
+     * non-negative guard. The stock update takes the product's row lock, so a first
+     * merge into a day's totals cannot race another.
+     * @throws IllegalArgumentException if the product does not exist
+     */
     public InventoryTransaction create(InventoryTransaction transaction) {
-        String sql = "INSERT INTO inventory_transactions (product_id, transaction_type, quantity, " +
-                     "reference, transaction_date, created_at) " +
-                     "VALUES (:productId, :transactionType, :quantity, :reference, " +
-                     ":transactionDate, :createdAt)";
-        
-        try (Connection con = sql2o.open()) {
-            long id = con.createQuery(sql, true)
-                .bind(transaction)
-                .executeUpdate()
-                .getKey(Long.class);
-            transaction.setId(id);
-            return transaction;
+        try (Connection con = sql2o.beginTransaction()) {
+            if (applyStockChange(con, transaction.getProductId(), transaction.getSignedQuantity(), true) == 0) {
+                con.rollback();
+                throw new IllegalArgumentException("Product not found: " + transaction.getProductId());
+            }
+            create(con, transaction);
+            con.commit();
+        }
+        invalidateProduct(transaction.getProductId());
+        return transaction;
+    }
+
+    /**
+     * Insert a transaction on the given connection, so it can join a caller's database
+     * transaction. Also adds it to the daily totals, see {@link DailyMovementDAO}.
+     * The stock quantity is left to the caller.
+     */
+    InventoryTransaction create(Connection con, InventoryTransaction transaction) {
+        stamp(List.of(transaction));
+        long id = con.createQuery(INSERT_SQL, true)
+            .bind(transaction)
+            .executeUpdate()
+            .getKey(Long.class);
+        transaction.setId(id);
+        DailyMovementDAO.apply(con, List.of(transaction), 1);
+        return transaction;
+    }
+
+    /**
+     * Atomically apply a stock movement and record it. The stock change is a single
+     * "stock_quantity = stock_quantity + delta" update committed in the same database
+     * transaction as the transaction insert, so concurrent movements cannot lose updates.
+     * @param allowNegative if false, the movement is refused when it would take stock below zero
+     * @return false if nothing was recorded, because the product does not exist or the
+     * non-negative guard refused the movement
+     */
+    public boolean recordMovement(InventoryTransaction transaction, boolean allowNegative) {
+        try (Connection con = sql2o.beginTransaction()) {
+            if (applyStockChange(con, transaction.getProductId(), transaction.getSignedQuantity(), allowNegative) == 0) {
+                con.rollback();
+                return false;
+            }
+            create(con, transaction);
+            con.commit();
+        }
+        invalidateProduct(transaction.getProductId());
+        return true;
+    }
+
+    /**
+     * Add delta to a product's stock with a single guarded update, locking its row.
+     * @return 0 if the product does not exist or the non-negative guard refused the change
+     */
+    private static int applyStockChange(Connection con, Long productId, int delta, boolean allowNegative) {
+        String sql = "UPDATE products SET stock_quantity = COALESCE(stock_quantity, 0) + :delta, " +
+                     "updated_at = :updatedAt, version = version + 1 WHERE id = :id" +
+                     (allowNegative ? "" : " AND COALESCE(stock_quantity, 0) + :delta >= 0");
+        return con.createQuery(sql)
+            .addParameter("delta", delta)
+            .addParameter("updatedAt", LocalDateTime.now())
+            .addParameter("id", productId)
+            .executeUpdate()
+            .getResult();
+    }
+
+    /**
+     * Apply a batch of stock movements in one database transaction, as JDBC batches:
+     * one batch of guarded stock updates, then one batch of inserts for the accepted
+     * movements. Movements are applied in list order, so the non-negative guard sees
+     * the effect of earlier movements in the same batch.
+     * @param allowNegative per movement, whether it may take stock below zero
+     * @return per movement, whether it was applied (false if the product does not
+     * exist or the guard refused it)
+     */
+    public boolean[] recordMovements(List<InventoryTransaction> transactions, boolean[] allowNegative) {
+        boolean[] applied = new boolean[transactions.size()];
+        if (transactions.isEmpty()) {
+            return applied;
+        }
+        String sql = "UPDATE products SET stock_quantity = COALESCE(stock_quantity, 0) + :delta, " +
+                     "updated_at = :updatedAt, version = version + 1 WHERE id = :id " +
+                     "AND (:allowNegative OR COALESCE(stock_quantity, 0) + :delta >= 0)";
+        LocalDateTime now = LocalDateTime.now();
+        List<InventoryTransaction> accepted = new ArrayList<>();
+        try (Connection con = sql2o.beginTransaction()) {
+            Query update = con.createQuery(sql);
+            for (int i = 0; i < transactions.size(); i++) {
+                InventoryTransaction t = transactions.get(i);
+                update.addParameter("delta", t.getSignedQuantity())
+                    .addParameter("updatedAt", now)
+                    .addParameter("id", t.getProductId())
+                    .addParameter("allowNegative", allowNegative[i])
+                    .addToBatch();
+            }
+            int[] counts = update.executeBatch().getBatchResult();
+            for (int i = 0; i < transactions.size(); i++) {
+                applied[i] = counts[i] > 0;
+                if (applied[i]) {
+                    accepted.add(transactions.get(i));
+                }
+            }
+
+            insertBatch(con, accepted);
+            con.commit();
+        }
+
+        Set<Long> touched = new LinkedHashSet<>();
+        for (InventoryTransaction t : accepted) {
+            touched.add(t.getProductId());
         }
+        for (Long productId : touched) {
+            invalidateProduct(productId);
+        }
+        return applied;
     }
 
+    /**
+     * Insert transactions on the given connection as one JDBC batch, assign their ids
+     * and add them to the daily totals. Stock quantities are left to the caller.
+     * @throws IllegalStateException if the driver does not return a key for every row
+     */
+    static void insertBatch(Connection con, List<InventoryTransaction> transactions) {
+        if (transactions.isEmpty()) {
+            return;
+        }
+        stamp(transactions);
+        Query insert = con.createQuery(INSERT_SQL, true);
+        for (InventoryTransaction t : transactions) {
+            insert.bind(t).addToBatch();
+        }
+        List<Long> keys = insert.executeBatch().getKeys(Long.class);
+        if (keys.size() != transactions.size()) {
+            throw new IllegalStateException("Expected " + transactions.size() + " generated keys, got " + keys.size());
+        }
+        for (int i = 0; i < transactions.size(); i++) {
+            transactions.get(i).setId(keys.get(i));
+        }
+        DailyMovementDAO.apply(con, transactions, 1);
+    }
+
+    /**
+     * Date undated transactions now. Inserts call this inside their database
+     * transaction, after taking the product row lock, so a movement never carries
+     * a date at or before a snapshot it was not counted in, see
+     * {@link StockLedgerDAO#createSnapshots}.
+     */
+    private static void stamp(List<InventoryTransaction> transactions) {
+        LocalDateTime now = LocalDateTime.now();
+        for (InventoryTransaction t : transactions) {
+            if (t.getTransactionDate() == null) {
+                t.setTransactionDate(now);
+            }
+        }
+    }
+
+    /**
+     * Atomically set a product's stock to newQuantity and record the difference
+     * as an ADJUSTMENT. The product row is locked while the difference is computed.
+     * @return the recorded transaction, or null if the product does not exist
+     */
+    public InventoryTransaction recordAdjustment(Long productId, Integer newQuantity, String reference) {
+        InventoryTransaction transaction;
+        try (Connection con = sql2o.beginTransaction()) {
+            Integer current = con.createQuery("SELECT COALESCE(stock_quantity, 0) FROM products " +
+                                              "WHERE id = :id FOR UPDATE")
+                .addParameter("id", productId)
+                .executeScalar(Integer.class);
+            if (current == null) {
+                con.rollback();
+                return null;
+            }
+            con.createQuery("UPDATE products SET stock_quantity = :quantity, updated_at = :updatedAt, " +
+                            "version = version + 1 WHERE id = :id")
+                .addParameter("quantity", newQuantity)
+                .addParameter("updatedAt", LocalDateTime.now())
+                .addParameter("id", productId)
+                .executeUpdate();
+
+            transaction = new InventoryTransaction(productId, "ADJUSTMENT", newQuantity - current);
+            transaction.setReference(reference);
+            create(con, transaction);
+            con.commit();
+        }
+        invalidateProduct(productId);
+        return transaction;
+    }
+
+    private void invalidateProduct(Long productId) {
+        if (productCache != null) {
+            productCache.invalidate(productId);
+        }
+    }
+
+    /**
+     * Find a transaction by id, looking in the archive if it is no longer hot.
+     */
     public InventoryTransaction findById(Long id) {
-        String sql = "SELECT id, product_id as productId, transaction_type as transactionType, " +
-                     "quantity, reference, transaction_date as transactionDate, " +
-                     "created_at as createdAt " +
-                     "FROM inventory_transactions WHERE id = :id";
+        String sql = "SELECT " + RowMappers.INVENTORY_TRANSACTION_COLUMNS + " FROM inventory_transactions " +
+                     "WHERE id = :id";
+        String archiveSql = "SELECT " + RowMappers.INVENTORY_TRANSACTION_COLUMNS +
+                            " FROM inventory_transactions_archive WHERE id = :id";
         try (Connection con = sql2o.open()) {
-            return con.createQuery(sql)
+            InventoryTransaction transaction = con.createQuery(sql)
                 .addParameter("id", id)
-                .executeAndFetchFirst(InventoryTransaction.class);
+                .executeAndFetchFirst(RowMappers.INVENTORY_TRANSACTION);
+            if (transaction == null) {
+                transaction = con.createQuery(archiveSql)
+                    .addParameter("id", id)
+                    .executeAndFetchFirst(RowMappers.INVENTORY_TRANSACTION);
+            }
+            return transaction;
         }
     }
 
+    /**
+     * Every transaction of a product, archived ones included, newest first.
+     */
     public List<InventoryTransaction> findByProductId(Long productId) {
-        String sql = "SELECT id, product_id as productId, transaction_type as transactionType, " +
-                     "quantity, reference, transaction_date as transactionDate, " +
-                     "created_at as createdAt " +
-                     "FROM inventory_transactions WHERE product_id = :productId " +
-                     "ORDER BY transaction_date DESC";
+        return findByProductId(productId, null, null);
+    }
+
+    /**
+     * Every transaction, archived ones included, newest first.
+     */
+    public List<InventoryTransaction> findAll() {
+        return findByDateRange(null, null);
+    }
+
+    public int count(PageRequest request) {
+        String sql = "SELECT COUNT(*) FROM " + TransactionArchiveDAO.LEDGER_VIEW + where(request);
         try (Connection con = sql2o.open()) {
-            return con.createQuery(sql)
-                .addParameter("productId", productId)
-                .executeAndFetch(InventoryTransaction.class);
+            return Paging.bind(con.createQuery(sql), request)
+                .executeScalar(Integer.class);
         }
     }
 
-    public List<InventoryTransaction> findAll() {
-        String sql = "SELECT id, product_id as productId, transaction_type as transactionType, " +
-                     "quantity, reference, transaction_date as transactionDate, " +
-                     "created_at as createdAt " +
-                     "FROM inventory_transactions ORDER BY transaction_date DESC";
+    /**
+     * A page of transactions, archived ones included, filtered, sorted and limited
+     * by the query. Pages read the ledger view without first looking up the archive
+     * watermark, so a page stays one statement.
+     */
+    public List<InventoryTransaction> findPage(PageRequest request, int offset, int limit) {
+        String sql = "SELECT " + RowMappers.INVENTORY_TRANSACTION_COLUMNS + " FROM " +
+                     TransactionArchiveDAO.LEDGER_VIEW + where(request) +
+                     Paging.orderBy(request, Paging.TRANSACTION_SORTS, "transaction_date DESC, id DESC") +
+                     " LIMIT :limit OFFSET :offset";
         try (Connection con = sql2o.open()) {
-            return con.createQuery(sql)
-                .executeAndFetch(InventoryTransaction.class);
+            return Paging.bind(con.createQuery(sql), request, offset, limit)
+                .executeAndFetch(RowMappers.INVENTORY_TRANSACTION);
         }
     }
 
+    /**
+     * As findPage, joined with products so the page and its product codes and
+     * names come back in one query. The page is cut before the join, so only its
+     * rows are joined however deep it lies.
+     */
+    public List<InventoryTransactionView> findViewPage(PageRequest request, int offset, int limit) {
+        String sql = "SELECT " + RowMappers.INVENTORY_TRANSACTION_VIEW_COLUMNS + " FROM (" +
+                     "SELECT " + RowMappers.INVENTORY_TRANSACTION_COLUMNS + " FROM " +
+                     TransactionArchiveDAO.LEDGER_VIEW + where(request) +
+                     Paging.orderBy(request, Paging.TRANSACTION_SORTS, "transaction_date DESC, id DESC") +
+                     " LIMIT :limit OFFSET :offset) t LEFT JOIN products p ON p.id = t.product_id" +
+                     Paging.orderBy(request, Paging.TRANSACTION_SORTS, "t.transaction_date DESC, t.id DESC", "t.");
+        try (Connection con = sql2o.open()) {
+            return Paging.bind(con.createQuery(sql), request, offset, limit)
+                .executeAndFetch(RowMappers.INVENTORY_TRANSACTION_VIEW);
+        }
+    }
+
+    private static String where(PageRequest request) {
+        return request.getFilter() == null ? "" :
+               " WHERE LOWER(transaction_type) LIKE :filter OR LOWER(reference) LIKE :filter";
+    }
+
+    /**
+     * Every transaction of a type, archived ones included, newest first.
+     */
     public List<InventoryTransaction> findByType(String transactionType) {
-        String sql = "SELECT id, product_id as productId, transaction_type as transactionType, " +
-                     "quantity, reference, transaction_date as transactionDate, " +
-                     "created_at as createdAt " +
-                     "FROM inventory_transactions WHERE transaction_type = :type " +
-                     "ORDER BY transaction_date DESC";
+        return findByType(transactionType, null, null);
+    }
+
+    /**
+     * Transactions of a product dated in [from, to), newest first. A null bound is open.
+     * Reads the archive too when from lies before the archive watermark.
+     */
+    public List<InventoryTransaction> findByProductId(Long productId, LocalDateTime from, LocalDateTime to) {
+        return findInRange("product_id = :productId", "productId", productId, from, to);
+    }
+
+    /**
+     * Transactions of a type dated in [from, to), newest first. A null bound is open.
+     * Reads the archive too when from lies before the archive watermark.
+     */
+    public List<InventoryTransaction> findByType(String transactionType, LocalDateTime from, LocalDateTime to) {
+        return findInRange("transaction_type = :type", "type", transactionType, from, to);
+    }
+
+    /**
+     * Transactions dated in [from, to), newest first. A null bound is open.
+     * Reads the archive too when from lies before the archive watermark.
+     */
+    public List<InventoryTransaction> findByDateRange(LocalDateTime from, LocalDateTime to) {
+        return findInRange("1 = 1", null, null, from, to);
+    }
+
+    private List<InventoryTransaction> findInRange(String condition, String name, Object value,
+                                                   LocalDateTime from, LocalDateTime to) {
         try (Connection con = sql2o.open()) {
-            return con.createQuery(sql)
-                .addParameter("type", transactionType)
-                .executeAndFetch(InventoryTransaction.class);
+            String sql = "SELECT " + RowMappers.INVENTORY_TRANSACTION_COLUMNS + " FROM " +
+                         TransactionArchiveDAO.ledgerSource(con, from) + " " +
+                         "WHERE " + condition +
+                         (from != null ? " AND transaction_date >= :from" : "") +
+                         (to != null ? " AND transaction_date < :to" : "") +
+                         " ORDER BY transaction_date DESC";
+            Query query = con.createQuery(sql);
+            if (name != null) {
+                query.addParameter(name, value);
+            }
+            if (from != null) {
+                query.addParameter("from", from);
+            }
+            if (to != null) {
+                query.addParameter("to", to);
+            }
+            return query.executeAndFetch(RowMappers.INVENTORY_TRANSACTION);
         }
     }
 
+    /**
+     * Remove an unarchived transaction and reverse it on the product's stock and
+     * daily totals in one database transaction.
+     */
     public void delete(Long id) {
+        String selectSql = "SELECT " + RowMappers.INVENTORY_TRANSACTION_COLUMNS + " FROM inventory_transactions " +
+                           "WHERE id = :id FOR UPDATE";
         String sql = "DELETE FROM inventory_transactions WHERE id = :id";
-        try (Connection con = sql2o.open()) {
+        InventoryTransaction transaction;
+        try (Connection con = sql2o.beginTransaction()) {
+            transaction = con.createQuery(selectSql)
+                .addParameter("id", id)
+                .executeAndFetchFirst(RowMappers.INVENTORY_TRANSACTION);
+            if (transaction == null) {
+                con.rollback();
+                return;
+            }
+            applyStockChange(con, transaction.getProductId(), -transaction.getSignedQuantity(), true);
             con.createQuery(sql)
                 .addParameter("id", id)
                 .executeUpdate();
+            DailyMovementDAO.apply(con, List.of(transaction), -1);
+            con.commit();
         }
+        invalidateProduct(transaction.getProductId());
     }
 
     public int count() {
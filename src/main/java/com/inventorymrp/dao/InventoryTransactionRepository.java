@@ -0,0 +1,107 @@
+package com.inventorymrp.dao;
+
+import com.inventorymrp.model.InventoryTransaction;
+import com.inventorymrp.model.InventoryTransactionView;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * The stock movement ledger, implemented by {@link InventoryTransactionDAO} and by
+ * the in-memory backend. A movement and the stock change it causes are applied
+ * atomically. Lists are ordered by transaction date, newest first.
+ */
+public interface InventoryTransactionRepository {
+    /**
+     * Record a transaction and apply it to the product's stock, like recordMovement
+     * without the non-negative guard.
+     * @throws IllegalArgumentException if the product does not exist
+     */
+    InventoryTransaction create(InventoryTransaction transaction);
+
+    /**
+     * Atomically apply a stock movement and record it.
+     * @param allowNegative if false, the movement is refused when it would take stock below zero
+     * @return false if nothing was recorded, because the product does not exist or the
+     * non-negative guard refused the movement
+     */
+    boolean recordMovement(InventoryTransaction transaction, boolean allowNegative);
+
+    /**
+     * Apply a batch of stock movements in list order.
+     * @param allowNegative per movement, whether it may take stock below zero
+     * @return per movement, whether it was applied
+     */
+    boolean[] recordMovements(List<InventoryTransaction> transactions, boolean[] allowNegative);
+
+    /**
+     * Atomically set a product's stock to newQuantity and record the difference
+     * as an ADJUSTMENT.
+     * @return the recorded transaction, or null if the product does not exist
+     */
+    InventoryTransaction recordAdjustment(Long productId, Integer newQuantity, String reference);
+
+    InventoryTransaction findById(Long id);
+
+    /**
+     * Every transaction of a product, archived ones included.
+     */
+    List<InventoryTransaction> findByProductId(Long productId);
+
+    /**
+     * Every transaction, archived ones included.
+     */
+    List<InventoryTransaction> findAll();
+
+    /**
+     * Number of transactions, archived ones included, whose type or reference contains
+     * request's filter.
+     */
+    default int count(PageRequest request) {
+        return Paging.count(findAll(), t -> request.matches(t.getTransactionType(), t.getReference()));
+    }
+
+    /**
+     * Transactions whose type or reference contains request's filter, in request's
+     * order, from offset and at most limit of them, archived ones included.
+     * @throws IllegalArgumentException if request sorts on an unknown property
+     */
+    default List<InventoryTransaction> findPage(PageRequest request, int offset, int limit) {
+        return Paging.page(findAll(), request, t -> request.matches(t.getTransactionType(), t.getReference()),
+                           Paging.TRANSACTION_SORTS, InventoryTransaction::getId, offset, limit);
+    }
+
+    /**
+     * As {@link #findPage(PageRequest, int, int)}, with each transaction's product
+     * code and name, for listings. InventoryTransactionDAO joins the products in
+     * the same query.
+     */
+    List<InventoryTransactionView> findViewPage(PageRequest request, int offset, int limit);
+
+    /**
+     * Every transaction of a type, archived ones included.
+     */
+    List<InventoryTransaction> findByType(String transactionType);
+
+    /**
+     * Transactions of a product dated in [from, to). A null bound is open.
+     */
+    List<InventoryTransaction> findByProductId(Long productId, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Transactions of a type dated in [from, to). A null bound is open.
+     */
+    List<InventoryTransaction> findByType(String transactionType, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Transactions dated in [from, to). A null bound is open.
+     */
+    List<InventoryTransaction> findByDateRange(LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Remove a transaction from the ledger and reverse it on the product's stock.
+     */
+    void delete(Long id);
+
+    int count();
+}
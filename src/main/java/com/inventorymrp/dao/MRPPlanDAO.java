@@ -0,0 +1,187 @@
+package com.inventorymrp.dao;
+
+import com.inventorymrp.model.PlanLine;
+import com.inventorymrp.model.PlanRun;
+import com.inventorymrp.util.DatabaseUtil;
+import org.sql2o.Connection;
+import org.sql2o.Query;
+import org.sql2o.ResultSetHandler;
+import org.sql2o.Sql2o;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Data Access Object for the batch MRP plan: mrp_plan_runs and the mrp_plan_lines
+ * each run writes. Lines are inserted while a run is RUNNING; completing a run
+ * deletes the runs before it, so readers of the latest COMPLETED run always see
+ * one whole plan.
+ */
+public class MRPPlanDAO {
+    private static final String RUN_COLUMNS =
+            "id, started_at, finished_at, status, demand_quantity, assembly_filter, assembly_count, line_count";
+
+    private static final String LINE_COLUMNS =
+            "run_id, assembly_id, product_id, required_quantity, available_quantity, shortage, " +
+            "order_quantity, expected_delivery_date";
+
+    private static final String INSERT_LINE_SQL =
+            "INSERT INTO mrp_plan_lines (" + LINE_COLUMNS + ") " +
+            "VALUES (:runId, :assemblyId, :productId, :requiredQuantity, :availableQuantity, :shortage, " +
+            ":orderQuantity, :expectedDeliveryDate)";
+
+    private static final ResultSetHandler<PlanRun> PLAN_RUN = rs -> {
+        PlanRun r = new PlanRun();
+        r.setId(RowMappers.getLong(rs, 1));
+        r.setStartedAt(RowMappers.getDateTime(rs, 2));
+        r.setFinishedAt(RowMappers.getDateTime(rs, 3));
+        r.setStatus(rs.getString(4));
+        r.setDemandQuantity(RowMappers.getInt(rs, 5));
+        r.setAssemblyFilter(rs.getString(6));
+        r.setAssemblyCount(RowMappers.getInt(rs, 7));
+        r.setLineCount(RowMappers.getInt(rs, 8));
+        return r;
+    };
+
+    private static final ResultSetHandler<PlanLine> PLAN_LINE = rs -> {
+        PlanLine l = new PlanLine();
+        l.setRunId(RowMappers.getLong(rs, 1));
+        l.setAssemblyId(RowMappers.getLong(rs, 2));
+        l.setProductId(RowMappers.getLong(rs, 3));
+        l.setRequiredQuantity(RowMappers.getInt(rs, 4));
+        l.setAvailableQuantity(RowMappers.getInt(rs, 5));
+        l.setShortage(RowMappers.getInt(rs, 6));
+        l.setOrderQuantity(RowMappers.getInt(rs, 7));
+        l.setExpectedDeliveryDate(RowMappers.getDate(rs, 8));
+        return l;
+    };
+
+    private final Sql2o sql2o;
+
+    public MRPPlanDAO() {
+        this.sql2o = DatabaseUtil.getSql2o();
+    }
+
+    public MRPPlanDAO(Sql2o sql2o) {
+        this.sql2o = sql2o;
+    }
+
+    /**
+     * Record a new RUNNING run.
+     * @return its id, to write lines under
+     */
+    public long startRun(int demandQuantity, String assemblyFilter) {
+        String sql = "INSERT INTO mrp_plan_runs (started_at, status, demand_quantity, assembly_filter) " +
+                     "VALUES (:startedAt, 'RUNNING', :demandQuantity, :assemblyFilter)";
+        try (Connection con = sql2o.open()) {
+            return con.createQuery(sql, true)
+                .addParameter("startedAt", LocalDateTime.now())
+                .addParameter("demandQuantity", demandQuantity)
+                .addParameter("assemblyFilter", assemblyFilter)
+                .executeUpdate()
+                .getKey(Long.class);
+        }
+    }
+
+    /**
+     * Insert plan lines as one JDBC batch in one database transaction.
+     */
+    public void insertLines(List<PlanLine> lines) {
+        if (lines.isEmpty()) {
+            return;
+        }
+        try (Connection con = sql2o.beginTransaction()) {
+            Query insert = con.createQuery(INSERT_LINE_SQL);
+            for (PlanLine line : lines) {
+                insert.bind(line).addToBatch();
+            }
+            insert.executeBatch();
+            con.commit();
+        }
+    }
+
+    /**
+     * Mark a run COMPLETED and delete every run started before it, with their lines,
+     * in one transaction.
+     */
+    public void completeRun(long runId, int assemblyCount, int lineCount) {
+        String completeSql = "UPDATE mrp_plan_runs SET status = 'COMPLETED', finished_at = :finishedAt, " +
+                             "assembly_count = :assemblyCount, line_count = :lineCount WHERE id = :id";
+        try (Connection con = sql2o.beginTransaction()) {
+            con.createQuery(completeSql)
+                .addParameter("finishedAt", LocalDateTime.now())
+                .addParameter("assemblyCount", assemblyCount)
+                .addParameter("lineCount", lineCount)
+                .addParameter("id", runId)
+                .executeUpdate();
+            con.createQuery("DELETE FROM mrp_plan_lines WHERE run_id < :id")
+                .addParameter("id", runId)
+                .executeUpdate();
+            con.createQuery("DELETE FROM mrp_plan_runs WHERE id < :id")
+                .addParameter("id", runId)
+                .executeUpdate();
+            con.commit();
+        }
+    }
+
+    /**
+     * Mark a run FAILED and delete the lines it wrote.
+     */
+    public void failRun(long runId) {
+        try (Connection con = sql2o.beginTransaction()) {
+            con.createQuery("DELETE FROM mrp_plan_lines WHERE run_id = :id")
+                .addParameter("id", runId)
+                .executeUpdate();
+            con.createQuery("UPDATE mrp_plan_runs SET status = 'FAILED', finished_at = :finishedAt WHERE id = :id")
+                .addParameter("finishedAt", LocalDateTime.now())
+                .addParameter("id", runId)
+                .executeUpdate();
+            con.commit();
+        }
+    }
+
+    public PlanRun findRun(long runId) {
+        String sql = "SELECT " + RUN_COLUMNS + " FROM mrp_plan_runs WHERE id = :id";
+        try (Connection con = sql2o.open()) {
+            return con.createQuery(sql)
+                .addParameter("id", runId)
+                .executeAndFetchFirst(PLAN_RUN);
+        }
+    }
+
+    /**
+     * The current plan's run, or null if no run has completed.
+     */
+    public PlanRun findLatestCompletedRun() {
+        String sql = "SELECT " + RUN_COLUMNS + " FROM mrp_plan_runs WHERE status = 'COMPLETED' " +
+                     "ORDER BY id DESC LIMIT 1";
+        try (Connection con = sql2o.open()) {
+            return con.createQuery(sql)
+                .executeAndFetchFirst(PLAN_RUN);
+        }
+    }
+
+    /**
+     * Lines of a run, by assembly id and product id.
+     */
+    public List<PlanLine> findLines(long runId) {
+        String sql = "SELECT " + LINE_COLUMNS + " FROM mrp_plan_lines WHERE run_id = :runId " +
+                     "ORDER BY assembly_id, product_id";
+        try (Connection con = sql2o.open()) {
+            return con.createQuery(sql)
+                .addParameter("runId", runId)
+                .executeAndFetch(PLAN_LINE);
+        }
+    }
+
+    public List<PlanLine> findLinesByAssemblyId(long runId, Long assemblyId) {
+        String sql = "SELECT " + LINE_COLUMNS + " FROM mrp_plan_lines " +
+                     "WHERE run_id = :runId AND assembly_id = :assemblyId ORDER BY product_id";
+        try (Connection con = sql2o.open()) {
+            return con.createQuery(sql)
+                .addParameter("runId", runId)
+                .addParameter("assemblyId", assemblyId)
+                .executeAndFetch(PLAN_LINE);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.inventorymrp.dao;
+
+/**
+ * Thrown when an update is based on a version of a row that has been changed
+ * since it was read. The caller should reload the row and retry or give up.
+ */
+public class OptimisticLockException extends RuntimeException {
+    private final String entity;
+    private final Long id;
+    private final Long expectedVersion;
+
+    public OptimisticLockException(String entity, Long id, Long expectedVersion) {
+        super(entity + " " + id + " was changed by someone else since it was loaded (version "
+              + expectedVersion + "); reload it and try again");
+        this.entity = entity;
+        this.id = id;
+        this.expectedVersion = expectedVersion;
+    }
+
+    public String getEntity() {
+        return entity;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getExpectedVersion() {
+        return expectedVersion;
+    }
+}
@@ -0,0 +1,77 @@
+package com.inventorymrp.dao;
+
+import java.util.Locale;
+
+/**
+ * Filter and order of a paged listing, see for example
+ * {@link ProductRepository#findPage(PageRequest, int, int)}.
+ * The filter is a case-insensitive substring of the text fields each repository
+ * documents; sortBy names a property of the listed model, such as "code" or
+ * "transactionDate". Rows that sort equal are ordered by id, so pages are stable.
+ */
+public final class PageRequest {
+    /** Everything, in the repository's findAll order. */
+    public static final PageRequest ALL = new PageRequest(null, null, false);
+
+    private final String filter;
+    private final String sortBy;
+    private final boolean descending;
+
+    /**
+     * @param filter text to match, null or blank for all rows
+     * @param sortBy property to sort on, null for the findAll order
+     */
+    public PageRequest(String filter, String sortBy, boolean descending) {
+        this.filter = filter == null || filter.isBlank() ? null : filter.trim().toLowerCase(Locale.ROOT);
+        this.sortBy = sortBy;
+        this.descending = descending;
+    }
+
+    /** Lower-case filter text, or null. */
+    public String getFilter() {
+        return filter;
+    }
+
+    public String getSortBy() {
+        return sortBy;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    public PageRequest withFilter(String filter) {
+        return new PageRequest(filter, sortBy, descending);
+    }
+
+    public PageRequest withSort(String sortBy, boolean descending) {
+        return new PageRequest(filter, sortBy, descending);
+    }
+
+    /**
+     * Whether any of values contains the filter, ignoring case.
+     */
+    public boolean matches(String... values) {
+        if (filter == null) {
+            return true;
+        }
+        for (String value : values) {
+            if (value != null && value.toLowerCase(Locale.ROOT).contains(filter)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The filter as a LIKE pattern for LOWER(column), with LIKE wildcards in it escaped.
+     */
+    public String likePattern() {
+        return "%" + filter.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+
+    @Override
+    public String toString() {
+        return "filter=" + filter + ", sortBy=" + sortBy + (descending ? " desc" : "");
+    }
+}
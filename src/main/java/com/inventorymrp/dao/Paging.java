@@ -0,0 +1,162 @@
+package com.inventorymrp.dao;
+
+import com.inventorymrp.model.BOMItem;
+import com.inventorymrp.model.InventoryTransaction;
+import com.inventorymrp.model.Product;
+import com.inventorymrp.model.PurchaseOrder;
+import org.sql2o.Query;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static java.util.Map.entry;
+
+/**
+ * Support for {@link PageRequest} listings: the sort keys of each model, the
+ * repositories' default findPage over findAll, and the DAOs' ORDER BY clauses
+ * and query parameters.
+ * Nulls sort first ascending and last descending, as in H2.
+ */
+final class Paging {
+    static final Map<String, Comparator<Product>> PRODUCT_SORTS = Map.ofEntries(
+            entry("id", by(Product::getId)),
+            entry("code", by(Product::getCode)),
+            entry("name", by(Product::getName)),
+            entry("unit", by(Product::getUnit)),
+            entry("unitCost", by(Product::getUnitCost)),
+            entry("stockQuantity", by(Product::getStockQuantity)),
+            entry("reorderLevel", by(Product::getReorderLevel)),
+            entry("orderLeadTime", by(Product::getOrderLeadTime)),
+            entry("itemLeadTime", by(Product::getItemLeadTime)),
+            entry("isAssembly", by(Product::getIsAssembly)),
+            entry("nonPurchase", by(Product::getNonPurchase)));
+
+    static final Map<String, Comparator<BOMItem>> BOM_ITEM_SORTS = Map.ofEntries(
+            entry("id", by(BOMItem::getId)),
+            entry("parentProductId", by(BOMItem::getParentProductId)),
+            entry("childProductId", by(BOMItem::getChildProductId)),
+            entry("quantity", by(BOMItem::getQuantity)),
+            entry("unit", by(BOMItem::getUnit)),
+            entry("sequenceNumber", by(BOMItem::getSequenceNumber)));
+
+    static final Map<String, Comparator<InventoryTransaction>> TRANSACTION_SORTS = Map.ofEntries(
+            entry("id", by(InventoryTransaction::getId)),
+            entry("productId", by(InventoryTransaction::getProductId)),
+            entry("transactionType", by(InventoryTransaction::getTransactionType)),
+            entry("quantity", by(InventoryTransaction::getQuantity)),
+            entry("reference", by(InventoryTransaction::getReference)),
+            entry("transactionDate", by(InventoryTransaction::getTransactionDate)));
+
+    static final Map<String, Comparator<PurchaseOrder>> PURCHASE_ORDER_SORTS = Map.ofEntries(
+            entry("id", by(PurchaseOrder::getId)),
+            entry("productId", by(PurchaseOrder::getProductId)),
+            entry("quantity", by(PurchaseOrder::getQuantity)),
+            entry("status", by(PurchaseOrder::getStatus)),
+            entry("orderDate", by(PurchaseOrder::getOrderDate)),
+            entry("expectedDeliveryDate", by(PurchaseOrder::getExpectedDeliveryDate)),
+            entry("supplier", by(PurchaseOrder::getSupplier)),
+            entry("reference", by(PurchaseOrder::getReference)));
+
+    private Paging() {
+    }
+
+    private static <T, U extends Comparable<? super U>> Comparator<T> by(Function<T, U> key) {
+        return Comparator.comparing(key, Comparator.nullsFirst(Comparator.naturalOrder()));
+    }
+
+    static <T> int count(List<T> rows, Predicate<T> matches) {
+        int count = 0;
+        for (T row : rows) {
+            if (matches.test(row)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * A page of rows, which are in findAll order, filtered and sorted in memory.
+     */
+    static <T> List<T> page(List<T> rows, PageRequest request, Predicate<T> matches,
+                            Map<String, Comparator<T>> sorts, Function<T, Long> id, int offset, int limit) {
+        List<T> selected = new ArrayList<>();
+        for (T row : rows) {
+            if (matches.test(row)) {
+                selected.add(row);
+            }
+        }
+        if (request.getSortBy() != null) {
+            Comparator<T> order = sort(sorts, request.getSortBy());
+            selected.sort((request.isDescending() ? order.reversed() : order).thenComparing(id));
+        }
+        int from = Math.min(Math.max(0, offset), selected.size());
+        return new ArrayList<>(selected.subList(from, Math.min(from + Math.max(0, limit), selected.size())));
+    }
+
+    /**
+     * The ORDER BY clause of a request, sorting on the request's property's column,
+     * or by defaultOrder when it has none.
+     */
+    static String orderBy(PageRequest request, Map<String, ?> sorts, String defaultOrder) {
+        return orderBy(request, sorts, defaultOrder, "");
+    }
+
+    /**
+     * As {@link #orderBy(PageRequest, Map, String)} for a join, with the columns of
+     * the listed table qualified by alias, e.g. "t.".
+     */
+    static String orderBy(PageRequest request, Map<String, ?> sorts, String defaultOrder, String alias) {
+        if (request.getSortBy() == null) {
+            return " ORDER BY " + defaultOrder;
+        }
+        sort(sorts, request.getSortBy());
+        return " ORDER BY " + alias + column(request.getSortBy()) + (request.isDescending() ? " DESC" : "") +
+               ", " + alias + "id";
+    }
+
+    /**
+     * Bind the :filter, :offset and :limit parameters of a page query.
+     */
+    static Query bind(Query query, PageRequest request, int offset, int limit) {
+        bind(query, request);
+        return query.addParameter("offset", Math.max(0, offset))
+                    .addParameter("limit", Math.max(0, limit));
+    }
+
+    /**
+     * Bind the :filter parameter of a query, which only has one if request filters.
+     */
+    static Query bind(Query query, PageRequest request) {
+        if (request.getFilter() != null) {
+            query.addParameter("filter", request.likePattern());
+        }
+        return query;
+    }
+
+    private static <S> S sort(Map<String, S> sorts, String sortBy) {
+        S sort = sorts.get(sortBy);
+        if (sort == null) {
+            throw new IllegalArgumentException("Cannot sort on " + sortBy);
+        }
+        return sort;
+    }
+
+    /**
+     * Column of a camelCase property, e.g. stock_quantity for stockQuantity.
+     */
+    private static String column(String property) {
+        StringBuilder column = new StringBuilder();
+        for (char c : property.toCharArray()) {
+            if (Character.isUpperCase(c)) {
+                column.append('_').append(Character.toLowerCase(c));
+            } else {
+                column.append(c);
+            }
+        }
+        return column.toString();
+    }
+}
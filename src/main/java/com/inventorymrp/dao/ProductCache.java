@@ -0,0 +1,179 @@
+package com.inventorymrp.dao;
+
+import com.inventorymrp.model.Product;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, thread-safe read-through cache of products keyed by id, used behind ProductDAO.
+ * Entries are split over lock-striped LRU segments and expire after a fixed TTL.
+ * Products are copied on the way in and out, so callers may freely modify what they get.
+ */
+public class ProductCache {
+    private static final int SEGMENT_COUNT = 16;
+
+    private final Segment[] segments;
+    private final long ttlNanos;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maxSize maximum number of cached products (approximate, split over segments)
+     * @param ttlMillis time to live of an entry in milliseconds, 0 for no expiry
+     */
+    public ProductCache(int maxSize, long ttlMillis) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+        }
+        int segmentSize = Math.max(1, (maxSize + SEGMENT_COUNT - 1) / SEGMENT_COUNT);
+        this.segments = new Segment[SEGMENT_COUNT];
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment(segmentSize);
+        }
+        this.ttlNanos = ttlMillis > 0 ? ttlMillis * 1_000_000L : 0L;
+    }
+
+    /**
+     * Returns a copy of the cached product, or null on a miss.
+     */
+    public Product get(Long id) {
+        Segment segment = segmentFor(id);
+        Product product;
+        synchronized (segment) {
+            Entry entry = segment.map.get(id);
+            if (entry != null && ttlNanos > 0 && System.nanoTime() - entry.loadedAt > ttlNanos) {
+                segment.map.remove(id);
+                entry = null;
+            }
+            product = entry != null ? entry.product : null;
+        }
+        if (product == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return new Product(product);
+    }
+
+    /**
+     * Returns the invalidation stamp of the segment holding id. Pass it to
+     * {@link #putIfUnchanged} so a load racing with a write cannot cache a stale row.
+     */
+    public long stamp(Long id) {
+        Segment segment = segmentFor(id);
+        synchronized (segment) {
+            return segment.invalidations;
+        }
+    }
+
+    /**
+     * Caches a copy of the product unless its segment was invalidated since stamp was taken.
+     */
+    public void putIfUnchanged(Product product, long stamp) {
+        if (product == null || product.getId() == null) {
+            return;
+        }
+        Segment segment = segmentFor(product.getId());
+        synchronized (segment) {
+            if (segment.invalidations == stamp) {
+                segment.map.put(product.getId(), new Entry(new Product(product), System.nanoTime()));
+            }
+        }
+    }
+
+    public void invalidate(Long id) {
+        if (id == null) {
+            return;
+        }
+        Segment segment = segmentFor(id);
+        synchronized (segment) {
+            segment.invalidations++;
+            segment.map.remove(id);
+        }
+    }
+
+    public void invalidateAll() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.invalidations++;
+                segment.map.clear();
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.map.size();
+            }
+        }
+        return size;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public double getHitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    private Segment segmentFor(Long id) {
+        int h = id.hashCode();
+        h ^= (h >>> 16);
+        return segments[h & (SEGMENT_COUNT - 1)];
+    }
+
+    @Override
+    public String toString() {
+        return "ProductCache{" +
+                "size=" + size() +
+                ", hits=" + getHitCount() +
+                ", misses=" + getMissCount() +
+                ", evictions=" + getEvictionCount() +
+                ", hitRate=" + String.format("%.3f", getHitRate()) +
+                '}';
+    }
+
+    private static final class Entry {
+        final Product product;
+        final long loadedAt;
+
+        Entry(Product product, long loadedAt) {
+            this.product = product;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    private final class Segment {
+        final Map<Long, Entry> map;
+        long invalidations;
+
+        Segment(int capacity) {
+            this.map = new LinkedHashMap<Long, Entry>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                    if (size() > capacity) {
+                        evictions.increment();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+    }
+}
@@ -1,130 +1,328 @@
 package com.inventorymrp.dao;
 
+import com.inventorymrp.model.InventoryTransaction;
 import com.inventorymrp.model.Product;
 import com.inventorymrp.util.DatabaseUtil;
 import org.sql2o.Connection;
+import org.sql2o.Query;
+import org.sql2o.ResultSetHandler;
 import org.sql2o.Sql2o;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Data Access Object for Product entity.
+ * findById is served from an optional shared {@link ProductCache}, which every
+ * write through this DAO invalidates.
+ * stock_quantity is derived from the inventory_transactions ledger: create and update
+ * record any stock they set as an ADJUSTMENT in the same database transaction.
+ * Every write to a product row, stock movements included, increments its version;
+ * {@link #update} only applies if the version is the one the caller loaded.
  */
-public class ProductDAO {
+public class ProductDAO implements ProductRepository {
+    private static final String INSERT_SQL =
+            "INSERT INTO products (code, name, description, unit, unit_cost, " +
+            "stock_quantity, reorder_level, order_lead_time, item_lead_time, is_assembly, non_purchase, " +
+            " created_at, updated_at) " +
+            "VALUES (:code, :name, :description, :unit, :unitCost, " +
+            ":stockQuantity, :reorderLevel, :orderLeadTime, :itemLeadTime, :isAssembly, :nonPurchase, " +
+            ":createdAt, :updatedAt)";
+    // Ids bound per IN list by findByIds
+    private static final int IN_LIST_SIZE = 1000;
+
     private final Sql2o sql2o;
+    private final ProductCache cache;
 
     public ProductDAO() {
         this.sql2o = DatabaseUtil.getSql2o();
+        this.cache = DatabaseUtil.getProductCache();
     }
 
     public ProductDAO(Sql2o sql2o) {
+        this(sql2o, null);
+    }
+
+    /**
+     * @param cache product cache shared by all DAOs on this database, or null to disable caching
+     */
+    public ProductDAO(Sql2o sql2o, ProductCache cache) {
         this.sql2o = sql2o;
+        this.cache = cache;
+    }
+
+    public ProductCache getCache() {
+        return cache;
     }
 
     public Product create(Product product) {
-        String sql = "INSERT INTO products (code, name, description, unit, unit_cost, " +
-                     "stock_quantity, reorder_level, order_lead_time, item_lead_time, is_assembly, non_purchase, " +
-                     " created_at, updated_at) " +
-                     "VALUES (:code, :name, :description, :unit, :unitCost, " +
-                     ":stockQuantity, :reorderLevel, :orderLeadTime, :itemLeadTime, :isAssembly, :nonPurchase, " +
-                     ":createdAt, :updatedAt)";
-        
-        try (Connection con = sql2o.open()) {
-            long id = con.createQuery(sql, true)
+        try (Connection con = sql2o.beginTransaction()) {
+            long id = con.createQuery(INSERT_SQL, true)
                 .bind(product)
                 .executeUpdate()
                 .getKey(Long.class);
             product.setId(id);
-            return product;
+            product.setVersion(0L);
+            int opening = product.getStockQuantity() != null ? product.getStockQuantity() : 0;
+            recordStockChange(con, id, opening, "Opening balance");
+            con.commit();
         }
+        invalidate(product.getId());
+        return product;
     }
 
+    /**
+     * Insert products in one database transaction as JDBC batches: the product rows,
+     * then their opening balance ADJUSTMENTs.
+     */
+    public List<Product> createAll(List<Product> products) {
+        if (products.isEmpty()) {
+            return products;
+        }
+        try (Connection con = sql2o.beginTransaction()) {
+            Query insert = con.createQuery(INSERT_SQL, true);
+            for (Product product : products) {
+                insert.bind(product).addToBatch();
+            }
+            List<Long> keys = insert.executeBatch().getKeys(Long.class);
+            List<InventoryTransaction> openings = new ArrayList<>();
+            for (int i = 0; i < products.size(); i++) {
+                Product product = products.get(i);
+                product.setId(keys.get(i));
+                product.setVersion(0L);
+                int opening = product.getStockQuantity() != null ? product.getStockQuantity() : 0;
+                if (opening != 0) {
+                    InventoryTransaction transaction = new InventoryTransaction(product.getId(), "ADJUSTMENT", opening);
+                    transaction.setReference("Opening balance");
+                    openings.add(transaction);
+                }
+            }
+            InventoryTransactionDAO.insertBatch(con, openings);
+            con.commit();
+        }
+        return products;
+    }
+
+    /**
+     * Find a product by id, served from the cache when one is configured.
+     */
     public Product findById(Long id) {
-        String sql = "SELECT id, code, name, description, unit, " +
-                     "unit_cost as unitCost, stock_quantity as stockQuantity, " +
-                     "reorder_level as reorderLevel, order_lead_time as orderLeadTime, " +
-                     "item_lead_time as itemLeadTime, is_assembly as isAssembly, " +
-                     "non_purchase as nonPurchase " +
-                     "FROM products WHERE id = :id";
+        return findById(id, false);
+    }
+
+    /**
+     * Find a product by id.
+     * @param consistent bypass the cache and read the current row, for stock-critical reads
+     */
+    public Product findById(Long id, boolean consistent) {
+        if (cache == null || id == null) {
+            return load(id);
+        }
+        if (!consistent) {
+            Product cached = cache.get(id);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        long stamp = cache.stamp(id);
+        Product product = load(id);
+        cache.putIfUnchanged(product, stamp);
+        return product;
+    }
+
+    private Product load(Long id) {
+        String sql = "SELECT " + RowMappers.PRODUCT_COLUMNS + " FROM products " +
+                     "WHERE id = :id";
         try (Connection con = sql2o.open()) {
             return con.createQuery(sql)
                 .addParameter("id", id)
-                .executeAndFetchFirst(Product.class);
+                .executeAndFetchFirst(RowMappers.PRODUCT);
+        }
+    }
+
+    /**
+     * Products with the given ids keyed by id, cached ones from the cache and the rest
+     * with one query per 1000 ids.
+     */
+    public Map<Long, Product> findByIds(Collection<Long> ids) {
+        return findByIds(ids, new AtomicInteger());
+    }
+
+    /**
+     * As {@link #findByIds(Collection)}, adding the queries it runs to statements.
+     */
+    public Map<Long, Product> findByIds(Collection<Long> ids, AtomicInteger statements) {
+        Map<Long, Product> products = new HashMap<>();
+        Map<Long, Long> stamps = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long id : new LinkedHashSet<>(ids)) {
+            Product cached = cache != null && id != null ? cache.get(id) : null;
+            if (cached != null) {
+                products.put(id, cached);
+            } else if (id != null) {
+                if (cache != null) {
+                    stamps.put(id, cache.stamp(id));
+                }
+                missing.add(id);
+            }
+        }
+        if (missing.isEmpty()) {
+            return products;
+        }
+        String sql = "SELECT " + RowMappers.PRODUCT_COLUMNS + " FROM products " +
+                     "WHERE id IN (:ids)";
+        try (Connection con = sql2o.open()) {
+            for (int from = 0; from < missing.size(); from += IN_LIST_SIZE) {
+                List<Product> loaded = con.createQuery(sql)
+                    .addParameter("ids", missing.subList(from, Math.min(missing.size(), from + IN_LIST_SIZE)))
+                    .executeAndFetch(RowMappers.PRODUCT);
+                statements.incrementAndGet();
+                for (Product product : loaded) {
+                    products.put(product.getId(), product);
+                    if (cache != null) {
+                        cache.putIfUnchanged(product, stamps.get(product.getId()));
+                    }
+                }
+            }
         }
+        return products;
     }
 
     public Product findByCode(String code) {
-        String sql = "SELECT id, code, name, description, unit, " +
-                     "unit_cost as unitCost, stock_quantity as stockQuantity, " +
-                     "reorder_level as reorderLevel, order_lead_time as orderLeadTime, " +
-                     "item_lead_time as itemLeadTime, is_assembly as isAssembly, " +
-                     "non_purchase as nonPurchase " +
-                     "FROM products WHERE code = :code";
+        String sql = "SELECT " + RowMappers.PRODUCT_COLUMNS + " FROM products " +
+                     "WHERE code = :code";
         try (Connection con = sql2o.open()) {
             return con.createQuery(sql)
                 .addParameter("code", code)
-                .executeAndFetchFirst(Product.class);
+                .executeAndFetchFirst(RowMappers.PRODUCT);
+        }
+    }
+
+    public Map<String, Long> findIdsByCode() {
+        String sql = "SELECT code, id FROM products";
+        Map<String, Long> ids = new HashMap<>();
+        try (Connection con = sql2o.open()) {
+            con.createQuery(sql)
+                .executeAndFetch((ResultSetHandler<Void>) rs -> {
+                    ids.put(rs.getString(1), rs.getLong(2));
+                    return null;
+                });
         }
+        return ids;
     }
 
     public List<Product> findAll() {
-        String sql = "SELECT id, code, name, description, unit, " +
-                     "unit_cost as unitCost, stock_quantity as stockQuantity, " +
-                     "reorder_level as reorderLevel, order_lead_time as orderLeadTime, " +
-                     "item_lead_time as itemLeadTime, is_assembly as isAssembly, " +
-                     "non_purchase as nonPurchase, " +
-                     "FROM products ORDER BY code";
+        String sql = "SELECT " + RowMappers.PRODUCT_COLUMNS + " FROM products " +
+                     "ORDER BY code";
         try (Connection con = sql2o.open()) {
             return con.createQuery(sql)
-                .executeAndFetch(Product.class);
+                .executeAndFetch(RowMappers.PRODUCT);
+        }
+    }
+
+    public int count(PageRequest request) {
+        String sql = "SELECT COUNT(*) FROM products" + where(request);
+        try (Connection con = sql2o.open()) {
+            return Paging.bind(con.createQuery(sql), request)
+                .executeScalar(Integer.class);
         }
     }
 
+    /**
+     * A page of products filtered, sorted and limited by the query.
+     */
+    public List<Product> findPage(PageRequest request, int offset, int limit) {
+        String sql = "SELECT " + RowMappers.PRODUCT_COLUMNS + " FROM products" + where(request) +
+                     Paging.orderBy(request, Paging.PRODUCT_SORTS, "code, id") +
+                     " LIMIT :limit OFFSET :offset";
+        try (Connection con = sql2o.open()) {
+            return Paging.bind(con.createQuery(sql), request, offset, limit)
+                .executeAndFetch(RowMappers.PRODUCT);
+        }
+    }
+
+    private static String where(PageRequest request) {
+        return request.getFilter() == null ? "" : " WHERE LOWER(code) LIKE :filter OR LOWER(name) LIKE :filter";
+    }
+
     public List<Product> findAssemblies() {
-        String sql = "SELECT id, code, name, description, unit, " +
-                     "unit_cost as unitCost, stock_quantity as stockQuantity, " +
-                     "reorder_level as reorderLevel, order_lead_time as orderLeadTime, " +
-                     "item_lead_time as itemLeadTime, is_assembly as isAssembly, " +
-                     "non_purchase as nonPurchase " +
-                     "FROM products WHERE is_assembly = true ORDER BY code";
+        String sql = "SELECT " + RowMappers.PRODUCT_COLUMNS + " FROM products " +
+                     "WHERE is_assembly = true ORDER BY code";
         try (Connection con = sql2o.open()) {
             return con.createQuery(sql)
-                .executeAndFetch(Product.class);
+                .executeAndFetch(RowMappers.PRODUCT);
         }
     }
 
     public List<Product> findComponents() {
-        String sql = "SELECT id, code, name, description, unit, " +
-                     "unit_cost as unitCost, stock_quantity as stockQuantity, " +
-                     "reorder_level as reorderLevel, order_lead_time as orderLeadTime, " +
-                     "item_lead_time as itemLeadTime, is_assembly as isAssembly, " +
-                     "non_purchase as nonPurchase " +
-                     "FROM products WHERE is_assembly = false ORDER BY code";
+        String sql = "SELECT " + RowMappers.PRODUCT_COLUMNS + " FROM products " +
+                     "WHERE is_assembly = false ORDER BY code";
         try (Connection con = sql2o.open()) {
             return con.createQuery(sql)
-                .executeAndFetch(Product.class);
+                .executeAndFetch(RowMappers.PRODUCT);
         }
     }
 
+    /**
+     * Overwrite a product with the given state, provided nobody changed it since
+     * it was loaded. On success the product's version is incremented.
+     * @throws OptimisticLockException if the stored version differs from product.getVersion()
+     */
     public void update(Product product) {
         product.setUpdatedAt(LocalDateTime.now());
         String sql = "UPDATE products SET code = :code, name = :name, description = :description, " +
                      "unit = :unit, unit_cost = :unitCost, stock_quantity = :stockQuantity, " +
                      "reorder_level = :reorderLevel, order_lead_time = :orderLeadTime, " +
                      "item_lead_time = :itemLeadTime, is_assembly = :isAssembly," +
-                     "non_purchase = :nonPurchase, updated_at = :updatedAt " +
-                     "WHERE id = :id";
+                     "non_purchase = :nonPurchase, updated_at = :updatedAt, version = version + 1 " +
+                     "WHERE id = :id AND version = :version";
         
-        try (Connection con = sql2o.open()) {
-            con.createQuery(sql)
+        try (Connection con = sql2o.beginTransaction()) {
+            Integer previous = con.createQuery("SELECT COALESCE(stock_quantity, 0) FROM products " +
+                                               "WHERE id = :id FOR UPDATE")
+                .addParameter("id", product.getId())
+                .executeScalar(Integer.class);
+            int updated = con.createQuery(sql)
                 .bind(product)
-                .executeUpdate();
+                .executeUpdate()
+                .getResult();
+            if (updated == 0 && previous != null) {
+                con.rollback();
+                invalidate(product.getId());
+                throw new OptimisticLockException("Product", product.getId(), product.getVersion());
+            }
+            if (previous != null && product.getStockQuantity() != null) {
+                recordStockChange(con, product.getId(), product.getStockQuantity() - previous, "Product edit");
+            }
+            con.commit();
+            if (updated > 0) {
+                product.setVersion(product.getVersion() + 1);
+            }
+        }
+        invalidate(product.getId());
+    }
+
+    private void recordStockChange(Connection con, Long productId, int difference, String reference) {
+        if (difference != 0) {
+            InventoryTransaction transaction = new InventoryTransaction(productId, "ADJUSTMENT", difference);
+            transaction.setReference(reference);
+            new InventoryTransactionDAO(sql2o).create(con, transaction);
         }
     }
 
+    /**
+     * Overwrite the stored stock quantity without recording a ledger entry.
+     * Only for regenerating stock_quantity from the ledger; movements go through InventoryService.
+     */
     public void updateStockQuantity(Long productId, Integer newQuantity) {
-        String sql = "UPDATE products SET stock_quantity = :quantity, updated_at = :updatedAt WHERE id = :id";
+        String sql = "UPDATE products SET stock_quantity = :quantity, updated_at = :updatedAt, " +
+                     "version = version + 1 WHERE id = :id";
         try (Connection con = sql2o.open()) {
             con.createQuery(sql)
                 .addParameter("id", productId)
@@ -132,14 +330,46 @@ public class ProductDAO {
                 .addParameter("updatedAt", LocalDateTime.now())
                 .executeUpdate();
         }
+        invalidate(productId);
     }
 
+    /**
+     * Delete a product and its stock history in one transaction: its ledger rows,
+     * archived and hot, and period summaries; daily totals and snapshots cascade.
+     * @throws IllegalStateException if a BOM line or purchase order still uses the product
+     */
     public void delete(Long id) {
-        String sql = "DELETE FROM products WHERE id = :id";
-        try (Connection con = sql2o.open()) {
-            con.createQuery(sql)
+        String usesSql = "SELECT (SELECT COUNT(*) FROM bom_items " +
+                         "WHERE parent_product_id = :id OR child_product_id = :id) + " +
+                         "(SELECT COUNT(*) FROM purchase_orders WHERE product_id = :id)";
+        try (Connection con = sql2o.beginTransaction()) {
+            int uses = con.createQuery(usesSql)
+                .addParameter("id", id)
+                .executeScalar(Integer.class);
+            if (uses > 0) {
+                throw new IllegalStateException("Product " + id + " is still used by " + uses +
+                                                " BOM lines or purchase orders");
+            }
+            for (String table : new String[] {"inventory_transactions", "inventory_transactions_archive",
+                                              "inventory_period_summaries"}) {
+                con.createQuery("DELETE FROM " + table + " WHERE product_id = :id")
+                    .addParameter("id", id)
+                    .executeUpdate();
+            }
+            con.createQuery("DELETE FROM products WHERE id = :id")
                 .addParameter("id", id)
                 .executeUpdate();
+            con.commit();
+        }
+        invalidate(id);
+    }
+
+    /**
+     * Drop a product from the cache, for writes made outside this DAO.
+     */
+    public void invalidate(Long id) {
+        if (cache != null) {
+            cache.invalidate(id);
         }
     }
 
@@ -0,0 +1,120 @@
+package com.inventorymrp.dao;
+
+import com.inventorymrp.model.Product;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Storage of products, implemented by {@link ProductDAO} and by the in-memory
+ * backend. Creating or editing a product records any stock it sets as an
+ * ADJUSTMENT in the transaction ledger.
+ */
+public interface ProductRepository {
+    Product create(Product product);
+
+    /**
+     * Create several products, for bulk loads. {@link ProductDAO} inserts them as
+     * JDBC batches in one database transaction.
+     */
+    default List<Product> createAll(List<Product> products) {
+        for (Product product : products) {
+            create(product);
+        }
+        return products;
+    }
+
+    Product findById(Long id);
+
+    /**
+     * @param consistent bypass any cache and read the current state, for stock-critical reads
+     */
+    Product findById(Long id, boolean consistent);
+
+    /**
+     * Products with the given ids keyed by id; ids without a product are left out.
+     * {@link ProductDAO} loads them with one query per 1000 ids instead of one per product.
+     */
+    default Map<Long, Product> findByIds(Collection<Long> ids) {
+        Map<Long, Product> products = new LinkedHashMap<>();
+        for (Long id : ids) {
+            Product product = id != null ? findById(id) : null;
+            if (product != null) {
+                products.put(id, product);
+            }
+        }
+        return products;
+    }
+
+    /**
+     * As {@link #findByIds(Collection)}, adding the SQL statements it executes to
+     * statements. The in-memory backend executes none.
+     */
+    default Map<Long, Product> findByIds(Collection<Long> ids, AtomicInteger statements) {
+        return findByIds(ids);
+    }
+
+    Product findByCode(String code);
+
+    /**
+     * All products ordered by code.
+     */
+    List<Product> findAll();
+
+    /**
+     * Number of products whose code or name contains request's filter.
+     */
+    default int count(PageRequest request) {
+        return Paging.count(findAll(), p -> request.matches(p.getCode(), p.getName()));
+    }
+
+    /**
+     * Products whose code or name contains request's filter, in request's order,
+     * from offset and at most limit of them, for listings too large to load whole.
+     * {@link ProductDAO} filters, sorts and pages in the query; by default findAll
+     * is filtered and sorted in memory.
+     * @throws IllegalArgumentException if request sorts on an unknown property
+     */
+    default List<Product> findPage(PageRequest request, int offset, int limit) {
+        return Paging.page(findAll(), request, p -> request.matches(p.getCode(), p.getName()),
+                           Paging.PRODUCT_SORTS, Product::getId, offset, limit);
+    }
+
+    /**
+     * Id of every product keyed by code, for resolving codes in bulk.
+     */
+    default Map<String, Long> findIdsByCode() {
+        Map<String, Long> ids = new LinkedHashMap<>();
+        for (Product product : findAll()) {
+            ids.put(product.getCode(), product.getId());
+        }
+        return ids;
+    }
+
+    List<Product> findAssemblies();
+
+    List<Product> findComponents();
+
+    /**
+     * Overwrite a product, provided its stored version still equals product.getVersion().
+     * Stock movements count as changes. On success the product's version is incremented.
+     * @throws OptimisticLockException if the product was changed since it was loaded
+     */
+    void update(Product product);
+
+    /**
+     * Overwrite the stored stock quantity without recording a ledger entry.
+     */
+    void updateStockQuantity(Long productId, Integer newQuantity);
+
+    /**
+     * Delete a product with its stock movements.
+     * @throws IllegalStateException if a BOM line or purchase order still uses the product
+     */
+    void delete(Long id);
+
+    int count();
+}
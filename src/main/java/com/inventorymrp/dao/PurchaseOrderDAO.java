@@ -1,8 +1,10 @@
 package com.inventorymrp.dao;
 
 import com.inventorymrp.model.PurchaseOrder;
+import com.inventorymrp.model.PurchaseOrderView;
 import com.inventorymrp.util.DatabaseUtil;
 import org.sql2o.Connection;
+import org.sql2o.Query;
 import org.sql2o.Sql2o;
 
 import java.time.LocalDateTime;
@@ -10,8 +12,15 @@ import java.util.List;
 
 /**
  * Data Access Object for PurchaseOrder entity.
+ * Updates are compare-and-set on the row version, see {@link #update}.
  */
-public class PurchaseOrderDAO {
+public class PurchaseOrderDAO implements PurchaseOrderRepository {
+    private static final String INSERT_SQL =
+        "INSERT INTO purchase_orders (product_id, quantity, status, order_date, " +
+        "expected_delivery_date, supplier, reference, created_at, updated_at) " +
+        "VALUES (:productId, :quantity, :status, :orderDate, " +
+        ":expectedDeliveryDate, :supplier, :reference, :createdAt, :updatedAt)";
+
     private final Sql2o sql2o;
 
     public PurchaseOrderDAO() {
@@ -23,88 +32,152 @@ public class PurchaseOrderDAO {
     }
 
     public PurchaseOrder create(PurchaseOrder purchaseOrder) {
-        String sql = "INSERT INTO purchase_orders (product_id, quantity, status, order_date, " +
-                     "expected_delivery_date, supplier, reference, created_at, updated_at) " +
-                     "VALUES (:productId, :quantity, :status, :orderDate, " +
-                     ":expectedDeliveryDate, :supplier, :reference, :createdAt, :updatedAt)";
-        
         try (Connection con = sql2o.open()) {
-            long id = con.createQuery(sql, true)
+            long id = con.createQuery(INSERT_SQL, true)
                 .bind(purchaseOrder)
                 .executeUpdate()
                 .getKey(Long.class);
             purchaseOrder.setId(id);
+            purchaseOrder.setVersion(0L);
             return purchaseOrder;
         }
     }
 
+    /**
+     * Insert purchase orders as one JDBC batch in one database transaction.
+     */
+    public List<PurchaseOrder> createAll(List<PurchaseOrder> purchaseOrders) {
+        if (purchaseOrders.isEmpty()) {
+            return purchaseOrders;
+        }
+        try (Connection con = sql2o.beginTransaction()) {
+            Query insert = con.createQuery(INSERT_SQL, true);
+            for (PurchaseOrder purchaseOrder : purchaseOrders) {
+                insert.bind(purchaseOrder).addToBatch();
+            }
+            List<Long> keys = insert.executeBatch().getKeys(Long.class);
+            for (int i = 0; i < purchaseOrders.size(); i++) {
+                purchaseOrders.get(i).setId(keys.get(i));
+                purchaseOrders.get(i).setVersion(0L);
+            }
+            con.commit();
+        }
+        return purchaseOrders;
+    }
+
     public PurchaseOrder findById(Long id) {
-        String sql = "SELECT id, product_id as productId, " 
-            + "quantity, "
-            + "status, "
-            + "order_date as orderDate, "
-            + "expected_delivery_date as expectedDeliveryDate, "
-            + "supplier, "
-            + "reference, "
-            + "created_at as createdAt, "
-            + "updated_at as updatedAt "
-        	+ "FROM purchase_orders WHERE id = :id";
+        String sql = "SELECT " + RowMappers.PURCHASE_ORDER_COLUMNS + " FROM purchase_orders " +
+                     "WHERE id = :id";
         try (Connection con = sql2o.open()) {
             return con.createQuery(sql)
                 .addParameter("id", id)
-                .executeAndFetchFirst(PurchaseOrder.class);
+                .executeAndFetchFirst(RowMappers.PURCHASE_ORDER);
         }
     }
 
     public List<PurchaseOrder> findByProductId(Long productId) {
-        String sql = "SELECT * FROM purchase_orders WHERE product_id = :productId " +
+        String sql = "SELECT " + RowMappers.PURCHASE_ORDER_COLUMNS + " FROM purchase_orders " +
+                     "WHERE product_id = :productId " +
                      "ORDER BY order_date DESC";
         try (Connection con = sql2o.open()) {
             return con.createQuery(sql)
                 .addParameter("productId", productId)
-                .executeAndFetch(PurchaseOrder.class);
+                .executeAndFetch(RowMappers.PURCHASE_ORDER);
         }
     }
 
     public List<PurchaseOrder> findByStatus(String status) {
-        String sql = "SELECT * FROM purchase_orders WHERE status = :status " +
+        String sql = "SELECT " + RowMappers.PURCHASE_ORDER_COLUMNS + " FROM purchase_orders " +
+                     "WHERE status = :status " +
                      "ORDER BY order_date DESC";
         try (Connection con = sql2o.open()) {
             return con.createQuery(sql)
                 .addParameter("status", status)
-                .executeAndFetch(PurchaseOrder.class);
+                .executeAndFetch(RowMappers.PURCHASE_ORDER);
         }
     }
 
     public List<PurchaseOrder> findAll() {
-        String sql = "SELECT id, product_id as productId, " 
-        		+ "quantity, "
-        		+ "status, "
-        		+ "order_date as orderDate, "
-        		+ "expected_delivery_date as expectedDeliveryDate, "
-        		+ "supplier, "
-        		+ "reference, "
-        		+ "created_at as createdAt, "
-        		+ "updated_at as updatedAt "
-        		+ "FROM purchase_orders ORDER BY order_date DESC";
+        String sql = "SELECT " + RowMappers.PURCHASE_ORDER_COLUMNS + " FROM purchase_orders " +
+                     "ORDER BY order_date DESC";
         try (Connection con = sql2o.open()) {
             return con.createQuery(sql)
-                .executeAndFetch(PurchaseOrder.class);
+                .executeAndFetch(RowMappers.PURCHASE_ORDER);
         }
     }
 
+    public int count(PageRequest request) {
+        String sql = "SELECT COUNT(*) FROM purchase_orders" + where(request);
+        try (Connection con = sql2o.open()) {
+            return Paging.bind(con.createQuery(sql), request)
+                .executeScalar(Integer.class);
+        }
+    }
+
+    /**
+     * A page of purchase orders filtered, sorted and limited by the query.
+     */
+    public List<PurchaseOrder> findPage(PageRequest request, int offset, int limit) {
+        String sql = "SELECT " + RowMappers.PURCHASE_ORDER_COLUMNS + " FROM purchase_orders" + where(request) +
+                     Paging.orderBy(request, Paging.PURCHASE_ORDER_SORTS, "order_date DESC, id DESC") +
+                     " LIMIT :limit OFFSET :offset";
+        try (Connection con = sql2o.open()) {
+            return Paging.bind(con.createQuery(sql), request, offset, limit)
+                .executeAndFetch(RowMappers.PURCHASE_ORDER);
+        }
+    }
+
+    /**
+     * As findPage, joined with products so the page and its product codes and
+     * names come back in one query. The page is cut before the join, so only its
+     * rows are joined however deep it lies.
+     */
+    public List<PurchaseOrderView> findViewPage(PageRequest request, int offset, int limit) {
+        String sql = "SELECT " + RowMappers.PURCHASE_ORDER_VIEW_COLUMNS + " FROM (" +
+                     "SELECT " + RowMappers.PURCHASE_ORDER_COLUMNS + " FROM purchase_orders" + where(request) +
+                     Paging.orderBy(request, Paging.PURCHASE_ORDER_SORTS, "order_date DESC, id DESC") +
+                     " LIMIT :limit OFFSET :offset) o LEFT JOIN products p ON p.id = o.product_id" +
+                     Paging.orderBy(request, Paging.PURCHASE_ORDER_SORTS, "o.order_date DESC, o.id DESC", "o.");
+        try (Connection con = sql2o.open()) {
+            return Paging.bind(con.createQuery(sql), request, offset, limit)
+                .executeAndFetch(RowMappers.PURCHASE_ORDER_VIEW);
+        }
+    }
+
+    private static String where(PageRequest request) {
+        return request.getFilter() == null ? "" : " WHERE LOWER(status) LIKE :filter " +
+               "OR LOWER(supplier) LIKE :filter OR LOWER(reference) LIKE :filter";
+    }
+
+    /**
+     * Overwrite a purchase order with the given state, provided nobody changed it
+     * since it was loaded. On success the order's version is incremented.
+     * @throws OptimisticLockException if the stored version differs from purchaseOrder.getVersion()
+     */
     public void update(PurchaseOrder purchaseOrder) {
         purchaseOrder.setUpdatedAt(LocalDateTime.now());
         String sql = "UPDATE purchase_orders SET product_id = :productId, quantity = :quantity, " +
                      "status = :status, order_date = :orderDate, " +
                      "expected_delivery_date = :expectedDeliveryDate, supplier = :supplier, " +
-                     "reference = :reference, updated_at = :updatedAt " +
-                     "WHERE id = :id";
+                     "reference = :reference, updated_at = :updatedAt, version = version + 1 " +
+                     "WHERE id = :id AND version = :version";
         
         try (Connection con = sql2o.open()) {
-            con.createQuery(sql)
+            int updated = con.createQuery(sql)
                 .bind(purchaseOrder)
-                .executeUpdate();
+                .executeUpdate()
+                .getResult();
+            if (updated == 0) {
+                Integer exists = con.createQuery("SELECT COUNT(*) FROM purchase_orders WHERE id = :id")
+                    .addParameter("id", purchaseOrder.getId())
+                    .executeScalar(Integer.class);
+                if (exists > 0) {
+                    throw new OptimisticLockException("Purchase order", purchaseOrder.getId(),
+                                                      purchaseOrder.getVersion());
+                }
+                return;
+            }
+            purchaseOrder.setVersion(purchaseOrder.getVersion() + 1);
         }
     }
 
@@ -0,0 +1,67 @@
+package com.inventorymrp.dao;
+
+import com.inventorymrp.model.PurchaseOrder;
+import com.inventorymrp.model.PurchaseOrderView;
+
+import java.util.List;
+
+/**
+ * Storage of purchase orders, implemented by {@link PurchaseOrderDAO} and by the
+ * in-memory backend. Lists are ordered by order date, newest first.
+ */
+public interface PurchaseOrderRepository {
+    PurchaseOrder create(PurchaseOrder purchaseOrder);
+
+    /**
+     * Create several purchase orders, for bulk loads. {@link PurchaseOrderDAO} inserts
+     * them as one JDBC batch in one database transaction.
+     */
+    default List<PurchaseOrder> createAll(List<PurchaseOrder> purchaseOrders) {
+        for (PurchaseOrder purchaseOrder : purchaseOrders) {
+            create(purchaseOrder);
+        }
+        return purchaseOrders;
+    }
+
+    PurchaseOrder findById(Long id);
+
+    List<PurchaseOrder> findByProductId(Long productId);
+
+    List<PurchaseOrder> findByStatus(String status);
+
+    List<PurchaseOrder> findAll();
+
+    /**
+     * Number of orders whose status, supplier or reference contains request's filter.
+     */
+    default int count(PageRequest request) {
+        return Paging.count(findAll(), po -> request.matches(po.getStatus(), po.getSupplier(), po.getReference()));
+    }
+
+    /**
+     * Orders whose status, supplier or reference contains request's filter, in
+     * request's order, from offset and at most limit of them.
+     * @throws IllegalArgumentException if request sorts on an unknown property
+     */
+    default List<PurchaseOrder> findPage(PageRequest request, int offset, int limit) {
+        return Paging.page(findAll(), request, po -> request.matches(po.getStatus(), po.getSupplier(), po.getReference()),
+                           Paging.PURCHASE_ORDER_SORTS, PurchaseOrder::getId, offset, limit);
+    }
+
+    /**
+     * As {@link #findPage(PageRequest, int, int)}, with each order's product code
+     * and name, for listings. PurchaseOrderDAO joins the products in the same query.
+     */
+    List<PurchaseOrderView> findViewPage(PageRequest request, int offset, int limit);
+
+    /**
+     * Overwrite a purchase order, provided its stored version still equals
+     * purchaseOrder.getVersion(). On success the order's version is incremented.
+     * @throws OptimisticLockException if the order was changed since it was loaded
+     */
+    void update(PurchaseOrder purchaseOrder);
+
+    void delete(Long id);
+
+    int count();
+}
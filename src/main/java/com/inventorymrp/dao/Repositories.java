@@ -0,0 +1,94 @@
+package com.inventorymrp.dao;
+
+import com.inventorymrp.dao.memory.InMemoryBOMItemRepository;
+import com.inventorymrp.dao.memory.InMemoryInventoryTransactionRepository;
+import com.inventorymrp.dao.memory.InMemoryProductRepository;
+import com.inventorymrp.dao.memory.InMemoryPurchaseOrderRepository;
+import com.inventorymrp.dao.memory.InMemoryStore;
+import com.inventorymrp.dao.memory.StoreSnapshot;
+import com.inventorymrp.util.DatabaseUtil;
+import com.inventorymrp.util.Metrics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+
+/**
+ * Chooses the storage backend at startup. The default is the H2 database; run with
+ * -Dinventorymrp.backend=memory to keep everything in process memory instead, for
+ * simulations and load tests that should not pay for JDBC. The in-memory data is
+ * shared by all repositories created here and lost on exit. The stock ledger tools
+ * (snapshots, archive, daily totals) work on the database only.
+ *
+ * With -Dinventorymrp.snapshot=file as well, the in-memory backend starts from a
+ * {@link StoreSnapshot} instead of empty, so a planning node needs no database.
+ *
+ * With metrics enabled, the repositories returned are wrapped to measure every call
+ * (see {@link Metrics}).
+ */
+public final class Repositories {
+    public static final String BACKEND_PROPERTY = "inventorymrp.backend";
+    public static final String SNAPSHOT_PROPERTY = "inventorymrp.snapshot";
+
+    private static InMemoryStore memoryStore;
+
+    private Repositories() {
+        // Private constructor to prevent instantiation
+    }
+
+    public static boolean isInMemory() {
+        return "memory".equalsIgnoreCase(System.getProperty(BACKEND_PROPERTY, "h2"));
+    }
+
+    /**
+     * Store behind the in-memory repositories created here.
+     */
+    public static synchronized InMemoryStore getMemoryStore() {
+        if (memoryStore == null) {
+            memoryStore = new InMemoryStore();
+        }
+        return memoryStore;
+    }
+
+    /**
+     * Prepare the selected backend: run the database migrations, or in memory load
+     * the snapshot file if one is configured.
+     */
+    public static void initialize() {
+        if (!isInMemory()) {
+            DatabaseUtil.initializeDatabase();
+            return;
+        }
+        String snapshot = System.getProperty(SNAPSHOT_PROPERTY);
+        if (snapshot != null) {
+            long start = System.nanoTime();
+            try {
+                StoreSnapshot.Summary summary = StoreSnapshot.load(Paths.get(snapshot), getMemoryStore());
+                System.out.println("Loaded snapshot " + snapshot + " (" + summary + ") in "
+                        + (System.nanoTime() - start) / 1_000_000 + " ms");
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to load snapshot " + snapshot, e);
+            }
+        }
+    }
+
+    public static ProductRepository products() {
+        return Metrics.instrument(ProductRepository.class,
+                isInMemory() ? new InMemoryProductRepository(getMemoryStore()) : new ProductDAO());
+    }
+
+    public static BOMItemRepository bomItems() {
+        return Metrics.instrument(BOMItemRepository.class,
+                isInMemory() ? new InMemoryBOMItemRepository(getMemoryStore()) : new BOMItemDAO());
+    }
+
+    public static InventoryTransactionRepository transactions() {
+        return Metrics.instrument(InventoryTransactionRepository.class,
+                isInMemory() ? new InMemoryInventoryTransactionRepository(getMemoryStore()) : new InventoryTransactionDAO());
+    }
+
+    public static PurchaseOrderRepository purchaseOrders() {
+        return Metrics.instrument(PurchaseOrderRepository.class,
+                isInMemory() ? new InMemoryPurchaseOrderRepository(getMemoryStore()) : new PurchaseOrderDAO());
+    }
+}
@@ -0,0 +1,194 @@
+package com.inventorymrp.dao;
+
+import com.inventorymrp.model.BOMItem;
+import com.inventorymrp.model.InventoryTransaction;
+import com.inventorymrp.model.InventoryTransactionView;
+import com.inventorymrp.model.PeriodSummary;
+import com.inventorymrp.model.Product;
+import com.inventorymrp.model.PurchaseOrder;
+import com.inventorymrp.model.PurchaseOrderView;
+import com.inventorymrp.model.StockSnapshot;
+import org.sql2o.ResultSetHandler;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Hand-written row mappers used by the DAO read paths.
+ * Each mapper reads its columns by position, so queries must select the matching
+ * column list declared here (e.g. "SELECT " + PRODUCT_COLUMNS + " FROM products ...").
+ * This avoids sql2o's reflective per-row property lookup.
+ */
+public final class RowMappers {
+
+    public static final String PRODUCT_COLUMNS =
+            "id, code, name, description, unit, unit_cost, stock_quantity, reorder_level, " +
+            "order_lead_time, item_lead_time, is_assembly, non_purchase, created_at, updated_at, version";
+
+    public static final String BOM_ITEM_COLUMNS =
+            "id, parent_product_id, child_product_id, quantity, unit, sequence_number, " +
+            "created_at, updated_at";
+
+    public static final String INVENTORY_TRANSACTION_COLUMNS =
+            "id, product_id, transaction_type, quantity, reference, transaction_date, created_at";
+
+    public static final String PURCHASE_ORDER_COLUMNS =
+            "id, product_id, quantity, status, order_date, expected_delivery_date, " +
+            "supplier, reference, created_at, updated_at, version";
+
+    /** Transactions t left joined to their products p. */
+    public static final String INVENTORY_TRANSACTION_VIEW_COLUMNS =
+            "t.id, t.product_id, t.transaction_type, t.quantity, t.reference, t.transaction_date, " +
+            "t.created_at, p.code, p.name";
+
+    /** Purchase orders o left joined to their products p. */
+    public static final String PURCHASE_ORDER_VIEW_COLUMNS =
+            "o.id, o.product_id, o.quantity, o.status, o.order_date, o.expected_delivery_date, " +
+            "o.supplier, o.reference, o.created_at, o.updated_at, o.version, p.code, p.name";
+
+    public static final String STOCK_SNAPSHOT_COLUMNS =
+            "id, product_id, as_of, balance, created_at";
+
+    public static final String PERIOD_SUMMARY_COLUMNS =
+            "product_id, period_start, period_end, in_quantity, out_quantity, adjustment_quantity, " +
+            "transaction_count";
+
+    public static final ResultSetHandler<Product> PRODUCT = rs -> {
+        Product p = new Product();
+        p.setId(getLong(rs, 1));
+        p.setCode(rs.getString(2));
+        p.setName(rs.getString(3));
+        p.setDescription(rs.getString(4));
+        p.setUnit(rs.getString(5));
+        p.setUnitCost(rs.getBigDecimal(6));
+        p.setStockQuantity(getInt(rs, 7));
+        p.setReorderLevel(getInt(rs, 8));
+        p.setOrderLeadTime(getDouble(rs, 9));
+        p.setItemLeadTime(getDouble(rs, 10));
+        p.setIsAssembly(getBoolean(rs, 11));
+        p.setNonPurchase(getBoolean(rs, 12));
+        p.setCreatedAt(getDateTime(rs, 13));
+        p.setUpdatedAt(getDateTime(rs, 14));
+        p.setVersion(getLong(rs, 15));
+        return p;
+    };
+
+    public static final ResultSetHandler<BOMItem> BOM_ITEM = rs -> {
+        BOMItem b = new BOMItem();
+        b.setId(getLong(rs, 1));
+        b.setParentProductId(getLong(rs, 2));
+        b.setChildProductId(getLong(rs, 3));
+        b.setQuantity(rs.getBigDecimal(4));
+        b.setUnit(rs.getString(5));
+        b.setSequenceNumber(getInt(rs, 6));
+        b.setCreatedAt(getDateTime(rs, 7));
+        b.setUpdatedAt(getDateTime(rs, 8));
+        return b;
+    };
+
+    public static final ResultSetHandler<InventoryTransaction> INVENTORY_TRANSACTION =
+            rs -> readInventoryTransaction(new InventoryTransaction(), rs);
+
+    public static final ResultSetHandler<InventoryTransactionView> INVENTORY_TRANSACTION_VIEW = rs -> {
+        InventoryTransactionView t = readInventoryTransaction(new InventoryTransactionView(), rs);
+        t.setProductCode(rs.getString(8));
+        t.setProductName(rs.getString(9));
+        return t;
+    };
+
+    public static final ResultSetHandler<PurchaseOrder> PURCHASE_ORDER =
+            rs -> readPurchaseOrder(new PurchaseOrder(), rs);
+
+    public static final ResultSetHandler<PurchaseOrderView> PURCHASE_ORDER_VIEW = rs -> {
+        PurchaseOrderView po = readPurchaseOrder(new PurchaseOrderView(), rs);
+        po.setProductCode(rs.getString(12));
+        po.setProductName(rs.getString(13));
+        return po;
+    };
+
+    public static final ResultSetHandler<StockSnapshot> STOCK_SNAPSHOT = rs -> {
+        StockSnapshot s = new StockSnapshot();
+        s.setId(getLong(rs, 1));
+        s.setProductId(getLong(rs, 2));
+        s.setAsOf(getDateTime(rs, 3));
+        s.setBalance(getInt(rs, 4));
+        s.setCreatedAt(getDateTime(rs, 5));
+        return s;
+    };
+
+    public static final ResultSetHandler<PeriodSummary> PERIOD_SUMMARY = rs -> {
+        PeriodSummary ps = new PeriodSummary();
+        ps.setProductId(getLong(rs, 1));
+        ps.setPeriodStart(getDateTime(rs, 2));
+        ps.setPeriodEnd(getDateTime(rs, 3));
+        ps.setInQuantity(getInt(rs, 4));
+        ps.setOutQuantity(getInt(rs, 5));
+        ps.setAdjustmentQuantity(getInt(rs, 6));
+        ps.setTransactionCount(getInt(rs, 7));
+        return ps;
+    };
+
+    private RowMappers() {
+        // Private constructor to prevent instantiation
+    }
+
+    private static <T extends InventoryTransaction> T readInventoryTransaction(T t, ResultSet rs) throws SQLException {
+        t.setId(getLong(rs, 1));
+        t.setProductId(getLong(rs, 2));
+        t.setTransactionType(rs.getString(3));
+        t.setQuantity(getInt(rs, 4));
+        t.setReference(rs.getString(5));
+        t.setTransactionDate(getDateTime(rs, 6));
+        t.setCreatedAt(getDateTime(rs, 7));
+        return t;
+    }
+
+    private static <T extends PurchaseOrder> T readPurchaseOrder(T po, ResultSet rs) throws SQLException {
+        po.setId(getLong(rs, 1));
+        po.setProductId(getLong(rs, 2));
+        po.setQuantity(getInt(rs, 3));
+        po.setStatus(rs.getString(4));
+        po.setOrderDate(getDate(rs, 5));
+        po.setExpectedDeliveryDate(getDate(rs, 6));
+        po.setSupplier(rs.getString(7));
+        po.setReference(rs.getString(8));
+        po.setCreatedAt(getDateTime(rs, 9));
+        po.setUpdatedAt(getDateTime(rs, 10));
+        po.setVersion(getLong(rs, 11));
+        return po;
+    }
+
+    static Long getLong(ResultSet rs, int column) throws SQLException {
+        long value = rs.getLong(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    static Integer getInt(ResultSet rs, int column) throws SQLException {
+        int value = rs.getInt(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    static Double getDouble(ResultSet rs, int column) throws SQLException {
+        double value = rs.getDouble(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    static Boolean getBoolean(ResultSet rs, int column) throws SQLException {
+        boolean value = rs.getBoolean(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    static LocalDateTime getDateTime(ResultSet rs, int column) throws SQLException {
+        Timestamp value = rs.getTimestamp(column);
+        return value == null ? null : value.toLocalDateTime();
+    }
+
+    static LocalDate getDate(ResultSet rs, int column) throws SQLException {
+        Date value = rs.getDate(column);
+        return value == null ? null : value.toLocalDate();
+    }
+}
@@ -0,0 +1,304 @@
+package com.inventorymrp.dao;
+
+import com.inventorymrp.model.StockSnapshot;
+import com.inventorymrp.util.DatabaseUtil;
+import org.sql2o.Connection;
+import org.sql2o.Query;
+import org.sql2o.ResultSetHandler;
+import org.sql2o.Sql2o;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Data Access Object for ledger balances, stock_snapshots and stock_checkpoints.
+ * A product's balance at time T is its latest snapshot at or before T plus the
+ * signed quantities of the transactions after that snapshot up to T. Snapshots are
+ * taken for all products at once; each such point in time is a checkpoint.
+ */
+public class StockLedgerDAO {
+    private static final String SIGNED_QUANTITY = InventoryTransactionDAO.SIGNED_QUANTITY_SQL;
+    private static final LocalDateTime BEGINNING = LocalDateTime.of(1, 1, 1, 0, 0);
+
+    private final Sql2o sql2o;
+
+    public StockLedgerDAO() {
+        this.sql2o = DatabaseUtil.getSql2o();
+    }
+
+    public StockLedgerDAO(Sql2o sql2o) {
+        this.sql2o = sql2o;
+    }
+
+    /**
+     * Latest snapshot of a product taken at or before asOf, or null.
+     */
+    public StockSnapshot findLatestSnapshot(Long productId, LocalDateTime asOf) {
+        String sql = "SELECT " + RowMappers.STOCK_SNAPSHOT_COLUMNS + " FROM stock_snapshots " +
+                     "WHERE product_id = :productId AND as_of <= :asOf " +
+                     "ORDER BY as_of DESC LIMIT 1";
+        try (Connection con = sql2o.open()) {
+            return con.createQuery(sql)
+                .addParameter("productId", productId)
+                .addParameter("asOf", asOf)
+                .executeAndFetchFirst(RowMappers.STOCK_SNAPSHOT);
+        }
+    }
+
+    public List<StockSnapshot> findSnapshotsByProductId(Long productId) {
+        String sql = "SELECT " + RowMappers.STOCK_SNAPSHOT_COLUMNS + " FROM stock_snapshots " +
+                     "WHERE product_id = :productId ORDER BY as_of";
+        try (Connection con = sql2o.open()) {
+            return con.createQuery(sql)
+                .addParameter("productId", productId)
+                .executeAndFetch(RowMappers.STOCK_SNAPSHOT);
+        }
+    }
+
+    /**
+     * Sum of signed transaction quantities for a product with after &lt; date &lt;= upTo.
+     * A null bound is open.
+     */
+    public int sumMovements(Long productId, LocalDateTime after, LocalDateTime upTo) {
+        try (Connection con = sql2o.open()) {
+            String sql = "SELECT COALESCE(SUM(" + SIGNED_QUANTITY + "), 0) " +
+                         "FROM " + TransactionArchiveDAO.ledgerSource(con, after) + " t " +
+                         "WHERE t.product_id = :productId" +
+                         (after != null ? " AND t.transaction_date > :after" : "") +
+                         (upTo != null ? " AND t.transaction_date <= :upTo" : "");
+            Query query = con.createQuery(sql).addParameter("productId", productId);
+            if (after != null) {
+                query.addParameter("after", after);
+            }
+            if (upTo != null) {
+                query.addParameter("upTo", upTo);
+            }
+            return query.executeScalar(Integer.class);
+        }
+    }
+
+    /**
+     * Balances of the products with ids in [minId, maxId], in id order, as rows of
+     * {id, stock_quantity, balance}: the product's snapshot at checkpoint plus its
+     * movements after checkpoint, or all its movements if it has no snapshot there
+     * (a product committed after the checkpoint was taken), up to upTo when that is
+     * not null. With createdByUpTo, products created after upTo are left out.
+     * The snapshots are read in a separate query on (as_of, product_id); joined in
+     * SQL, H2 looks them up through the product_id index and scans every snapshot
+     * the product has.
+     */
+    private List<long[]> computeBalances(Connection con, LocalDateTime checkpoint, LocalDateTime upTo,
+                                         boolean createdByUpTo, long minId, long maxId) {
+        Map<Long, Integer> snapshots = new HashMap<>();
+        if (checkpoint != null) {
+            con.createQuery("SELECT product_id, balance FROM stock_snapshots " +
+                            "WHERE as_of = :checkpoint AND product_id BETWEEN :minId AND :maxId")
+                .addParameter("checkpoint", checkpoint)
+                .addParameter("minId", minId)
+                .addParameter("maxId", maxId)
+                .executeAndFetch((ResultSetHandler<Void>) rs -> {
+                    snapshots.put(rs.getLong(1), rs.getInt(2));
+                    return null;
+                });
+        }
+
+        String sql = "SELECT p.id, COALESCE(p.stock_quantity, 0), " +
+                     "COALESCE((SELECT SUM(" + SIGNED_QUANTITY + ") " +
+                     "  FROM " + TransactionArchiveDAO.ledgerSource(con, checkpoint) + " t " +
+                     "  WHERE t.product_id = p.id AND t.transaction_date > " +
+                     (checkpoint != null ? "COALESCE((SELECT s.as_of FROM stock_snapshots s " +
+                                           "WHERE s.product_id = p.id AND s.as_of = :since), :beginning)"
+                                         : ":since") +
+                     (upTo != null ? " AND t.transaction_date <= :upTo" : "") + "), 0) " +
+                     "FROM products p WHERE p.id BETWEEN :minId AND :maxId" +
+                     (createdByUpTo ? " AND (p.created_at IS NULL OR p.created_at <= :upTo)" : "") +
+                     " ORDER BY p.id";
+        Query query = con.createQuery(sql)
+            .addParameter("since", checkpoint != null ? checkpoint : BEGINNING)
+            .addParameter("minId", minId)
+            .addParameter("maxId", maxId);
+        if (checkpoint != null) {
+            query.addParameter("beginning", BEGINNING);
+        }
+        if (upTo != null) {
+            query.addParameter("upTo", upTo);
+        }
+        return query.executeAndFetch((ResultSetHandler<long[]>) rs -> {
+            long id = rs.getLong(1);
+            return new long[] {id, rs.getLong(2), snapshots.getOrDefault(id, 0) + rs.getLong(3)};
+        });
+    }
+
+    /**
+     * Latest checkpoint at or before asOf, or null.
+     */
+    public LocalDateTime findLatestCheckpoint(LocalDateTime asOf) {
+        try (Connection con = sql2o.open()) {
+            return findLatestCheckpoint(con, asOf, true);
+        }
+    }
+
+    private LocalDateTime findLatestCheckpoint(Connection con, LocalDateTime asOf, boolean inclusive) {
+        String sql = "SELECT MAX(as_of) FROM stock_checkpoints WHERE as_of " + (inclusive ? "<=" : "<") + " :asOf";
+        return con.createQuery(sql)
+            .addParameter("asOf", asOf)
+            .executeScalar(LocalDateTime.class);
+    }
+
+    public List<LocalDateTime> findCheckpoints() {
+        String sql = "SELECT as_of FROM stock_checkpoints ORDER BY as_of";
+        try (Connection con = sql2o.open()) {
+            return con.createQuery(sql)
+                .executeScalarList(LocalDateTime.class);
+        }
+    }
+
+    /**
+     * Balance of every product that existed at asOf, keyed by product id in id
+     * order, computed from the latest checkpoint at or before asOf.
+     */
+    public Map<Long, Integer> findBalancesAsOf(LocalDateTime asOf) {
+        Map<Long, Integer> balances = new LinkedHashMap<>();
+        try (Connection con = sql2o.open()) {
+            LocalDateTime checkpoint = findLatestCheckpoint(con, asOf, true);
+            for (long[] b : computeBalances(con, checkpoint, asOf, true, Long.MIN_VALUE, Long.MAX_VALUE)) {
+                balances.put(b[0], (int) b[2]);
+            }
+        }
+        return balances;
+    }
+
+    /**
+     * Checkpoint every product's balance as of asOf, computed from the previous
+     * checkpoint plus the movements since. Products that already have a snapshot
+     * at exactly asOf are skipped. asOf is truncated to whole seconds so it
+     * compares equal to the stored TIMESTAMP.
+     * The product rows are locked first. Movements stamp their date after locking
+     * their product's row, so one still in flight is committed before the balances
+     * are read, and any later one is dated after asOf.
+     * @return number of snapshots written
+     * @throws IllegalArgumentException if asOf is in the future
+     */
+    public int createSnapshots(LocalDateTime asOf) {
+        LocalDateTime cutoff = asOf.truncatedTo(ChronoUnit.SECONDS);
+        String insertSql = "INSERT INTO stock_snapshots (product_id, as_of, balance) " +
+                           "VALUES (:productId, :asOf, :balance)";
+        String checkpointSql = "MERGE INTO stock_checkpoints (as_of, product_count) KEY (as_of) " +
+                               "SELECT :asOf, COUNT(*) FROM stock_snapshots WHERE as_of = :asOf";
+
+        try (Connection con = sql2o.beginTransaction()) {
+            con.createQuery("SELECT id FROM products FOR UPDATE")
+                .executeScalarList(Long.class);
+            if (cutoff.isAfter(LocalDateTime.now())) {
+                throw new IllegalArgumentException("Snapshot time is in the future: " + asOf);
+            }
+            LocalDateTime previous = findLatestCheckpoint(con, cutoff, false);
+            Set<Long> existing = new HashSet<>(con.createQuery(
+                    "SELECT product_id FROM stock_snapshots WHERE as_of = :asOf")
+                .addParameter("asOf", cutoff)
+                .executeScalarList(Long.class));
+
+            int written = 0;
+            Query insert = con.createQuery(insertSql);
+            for (long[] b : computeBalances(con, previous, cutoff, false, Long.MIN_VALUE, Long.MAX_VALUE)) {
+                if (existing.add(b[0])) {
+                    insert.addParameter("productId", b[0])
+                        .addParameter("asOf", cutoff)
+                        .addParameter("balance", (int) b[2])
+                        .addToBatch();
+                    written++;
+                }
+            }
+            if (written > 0) {
+                insert.executeBatch();
+            }
+            con.createQuery(checkpointSql)
+                .addParameter("asOf", cutoff)
+                .executeUpdate();
+            con.commit();
+            return written;
+        }
+    }
+
+    /**
+     * Drop checkpoints and snapshots taken at or after from, e.g. after back-dated
+     * transactions were loaded.
+     * @return number of snapshots deleted
+     */
+    public int deleteSnapshotsFrom(LocalDateTime from) {
+        try (Connection con = sql2o.beginTransaction()) {
+            con.createQuery("DELETE FROM stock_checkpoints WHERE as_of >= :from")
+                .addParameter("from", from)
+                .executeUpdate();
+            int deleted = con.createQuery("DELETE FROM stock_snapshots WHERE as_of >= :from")
+                .addParameter("from", from)
+                .executeUpdate()
+                .getResult();
+            con.commit();
+            return deleted;
+        }
+    }
+
+    public List<Long> findProductIds() {
+        String sql = "SELECT id FROM products ORDER BY id";
+        try (Connection con = sql2o.open()) {
+            return con.createQuery(sql)
+                .executeScalarList(Long.class);
+        }
+    }
+
+    /**
+     * Regenerate products.stock_quantity from the ledger for products with ids in
+     * [minId, maxId]. The product rows are locked first so movements committing
+     * concurrently are either fully counted or wait until the rebuild commits.
+     * @return ids of the products whose stored quantity differed from the ledger
+     */
+    public List<Long> rebuildStockQuantities(long minId, long maxId) {
+        String lockSql = "SELECT id FROM products WHERE id BETWEEN :minId AND :maxId FOR UPDATE";
+        String updateSql = "UPDATE products SET stock_quantity = :quantity, updated_at = :updatedAt, " +
+                           "version = version + 1 WHERE id = :id";
+
+        try (Connection con = sql2o.beginTransaction()) {
+            con.createQuery(lockSql)
+                .addParameter("minId", minId)
+                .addParameter("maxId", maxId)
+                .executeScalarList(Long.class);
+            LocalDateTime checkpoint = con.createQuery("SELECT MAX(as_of) FROM stock_checkpoints")
+                .executeScalar(LocalDateTime.class);
+            List<long[]> balances = computeBalances(con, checkpoint, null, false, minId, maxId);
+
+            List<Long> drifted = new ArrayList<>();
+            Query update = con.createQuery(updateSql);
+            LocalDateTime now = LocalDateTime.now();
+            for (long[] b : balances) {
+                if (b[1] != b[2]) {
+                    drifted.add(b[0]);
+                    update.addParameter("quantity", (int) b[2])
+                        .addParameter("updatedAt", now)
+                        .addParameter("id", b[0])
+                        .addToBatch();
+                }
+            }
+            if (!drifted.isEmpty()) {
+                update.executeBatch();
+            }
+            con.commit();
+            return drifted;
+        }
+    }
+
+    public int countSnapshots() {
+        String sql = "SELECT COUNT(*) FROM stock_snapshots";
+        try (Connection con = sql2o.open()) {
+            return con.createQuery(sql)
+                .executeScalar(Integer.class);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.inventorymrp.dao;
+
+import com.inventorymrp.model.PeriodSummary;
+import com.inventorymrp.util.DatabaseUtil;
+import org.sql2o.Connection;
+import org.sql2o.Sql2o;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Data Access Object for archived inventory transactions.
+ *
+ * Archiving a period moves every inventory_transactions row dated before the
+ * period end into inventory_transactions_archive and writes per-product totals
+ * to inventory_period_summaries. The latest archived period end is the
+ * watermark: rows dated at or after it are all in the hot table, so queries
+ * starting there never touch the archive. inventory_ledger is a view over both.
+ */
+public class TransactionArchiveDAO {
+    static final String HOT_TABLE = "inventory_transactions";
+    static final String LEDGER_VIEW = "inventory_ledger";
+    // Per-product totals of archived rows, in PERIOD_SUMMARY_COLUMNS order after the period
+    private static final String SUMMARY_TOTALS =
+            "SUM(CASE WHEN transaction_type = 'IN' THEN quantity ELSE 0 END), " +
+            "SUM(CASE WHEN transaction_type = 'OUT' THEN quantity ELSE 0 END), " +
+            "SUM(CASE WHEN transaction_type = 'ADJUSTMENT' THEN quantity ELSE 0 END), " +
+            "COUNT(*)";
+
+    private final Sql2o sql2o;
+
+    public TransactionArchiveDAO() {
+        this.sql2o = DatabaseUtil.getSql2o();
+    }
+
+    public TransactionArchiveDAO(Sql2o sql2o) {
+        this.sql2o = sql2o;
+    }
+
+    /**
+     * End of the latest archived period, or null if nothing has been archived.
+     */
+    public LocalDateTime findWatermark() {
+        try (Connection con = sql2o.open()) {
+            return findWatermark(con);
+        }
+    }
+
+    static LocalDateTime findWatermark(Connection con) {
+        return con.createQuery("SELECT MAX(period_end) FROM inventory_archive_periods")
+            .executeScalar(LocalDateTime.class);
+    }
+
+    /**
+     * Table or view holding every transaction dated at or after from; a null from
+     * means all history.
+     */
+    static String ledgerSource(Connection con, LocalDateTime from) {
+        LocalDateTime watermark = findWatermark(con);
+        if (watermark == null || (from != null && !from.isBefore(watermark))) {
+            return HOT_TABLE;
+        }
+        return LEDGER_VIEW;
+    }
+
+    /**
+     * Archive every hot transaction dated before periodEnd as one period starting
+     * at the current watermark (or the oldest transaction). A transaction dated
+     * inside an already archived period, back-dated after that period was closed,
+     * is filed under its own period, whose count and summaries are recomputed.
+     * @return number of transactions archived
+     */
+    public int archivePeriod(LocalDateTime periodEnd) {
+        String archiveSql = "INSERT INTO inventory_transactions_archive " +
+                            "(" + RowMappers.INVENTORY_TRANSACTION_COLUMNS + ", period_end) " +
+                            "SELECT " + RowMappers.INVENTORY_TRANSACTION_COLUMNS + ", " +
+                            "CASE WHEN t.transaction_date >= :periodStart THEN :periodEnd " +
+                            "ELSE (SELECT MIN(p.period_end) FROM inventory_archive_periods p " +
+                            "      WHERE p.period_end > t.transaction_date) END " +
+                            "FROM inventory_transactions t WHERE t.transaction_date < :periodEnd";
+        // Earlier periods that just received back-dated transactions, found before
+        // those leave the hot table
+        String latePeriods = "SELECT a.period_end FROM inventory_transactions_archive a " +
+                             "JOIN inventory_transactions t ON t.id = a.id WHERE a.period_end < :periodEnd";
+        String latePeriodSql = "UPDATE inventory_archive_periods p SET " +
+                               "transaction_count = (SELECT COUNT(*) FROM inventory_transactions_archive a " +
+                               "  WHERE a.period_end = p.period_end), " +
+                               "period_start = LEAST(p.period_start, (SELECT MIN(a.transaction_date) " +
+                               "  FROM inventory_transactions_archive a WHERE a.period_end = p.period_end)) " +
+                               "WHERE p.period_end IN (" + latePeriods + ")";
+        String lateSummarySql = "MERGE INTO inventory_period_summaries (" + RowMappers.PERIOD_SUMMARY_COLUMNS + ") " +
+                                "KEY (product_id, period_end) " +
+                                "SELECT a.product_id, p.period_start, a.period_end, " + SUMMARY_TOTALS + " " +
+                                "FROM inventory_transactions_archive a " +
+                                "JOIN inventory_archive_periods p ON p.period_end = a.period_end " +
+                                "WHERE a.period_end IN (" + latePeriods + ") " +
+                                "GROUP BY a.product_id, p.period_start, a.period_end";
+        // Only rows that made it into the archive are removed, so a back-dated
+        // movement committing meanwhile stays in the hot table for the next run
+        String deleteSql = "DELETE FROM inventory_transactions t WHERE t.transaction_date < :periodEnd " +
+                           "AND EXISTS (SELECT 1 FROM inventory_transactions_archive a WHERE a.id = t.id)";
+        String summarySql = "INSERT INTO inventory_period_summaries (" + RowMappers.PERIOD_SUMMARY_COLUMNS + ") " +
+                            "SELECT product_id, :periodStart, :periodEnd, " + SUMMARY_TOTALS + " " +
+                            "FROM inventory_transactions_archive WHERE period_end = :periodEnd " +
+                            "GROUP BY product_id";
+        String periodSql = "INSERT INTO inventory_archive_periods (period_end, period_start, transaction_count) " +
+                           "SELECT :periodEnd, :periodStart, COUNT(*) FROM inventory_transactions_archive " +
+                           "WHERE period_end = :periodEnd";
+
+        try (Connection con = sql2o.beginTransaction()) {
+            LocalDateTime periodStart = findWatermark(con);
+            if (periodStart != null && !periodEnd.isAfter(periodStart)) {
+                throw new IllegalArgumentException("Period end " + periodEnd +
+                        " is not after the archive watermark " + periodStart);
+            }
+            if (periodStart == null) {
+                periodStart = findOldestHotTransactionDate(con);
+                if (periodStart == null || !periodStart.isBefore(periodEnd)) {
+                    periodStart = periodEnd;
+                }
+            }
+
+            int archived = con.createQuery(archiveSql)
+                .addParameter("periodStart", periodStart)
+                .addParameter("periodEnd", periodEnd)
+                .executeUpdate()
+                .getResult();
+            con.createQuery(latePeriodSql)
+                .addParameter("periodEnd", periodEnd)
+                .executeUpdate();
+            con.createQuery(lateSummarySql)
+                .addParameter("periodEnd", periodEnd)
+                .executeUpdate();
+            con.createQuery(deleteSql)
+                .addParameter("periodEnd", periodEnd)
+                .executeUpdate();
+            con.createQuery(summarySql)
+                .addParameter("periodStart", periodStart)
+                .addParameter("periodEnd", periodEnd)
+                .executeUpdate();
+            con.createQuery(periodSql)
+                .addParameter("periodEnd", periodEnd)
+                .addParameter("periodStart", periodStart)
+                .executeUpdate();
+            con.commit();
+            return archived;
+        }
+    }
+
+    public LocalDateTime findOldestHotTransactionDate() {
+        try (Connection con = sql2o.open()) {
+            return findOldestHotTransactionDate(con);
+        }
+    }
+
+    private static LocalDateTime findOldestHotTransactionDate(Connection con) {
+        return con.createQuery("SELECT MIN(transaction_date) FROM inventory_transactions")
+            .executeScalar(LocalDateTime.class);
+    }
+
+    public List<PeriodSummary> findSummariesByProductId(Long productId) {
+        String sql = "SELECT " + RowMappers.PERIOD_SUMMARY_COLUMNS + " FROM inventory_period_summaries " +
+                     "WHERE product_id = :productId ORDER BY period_end";
+        try (Connection con = sql2o.open()) {
+            return con.createQuery(sql)
+                .addParameter("productId", productId)
+                .executeAndFetch(RowMappers.PERIOD_SUMMARY);
+        }
+    }
+
+    public List<PeriodSummary> findSummariesByPeriodEnd(LocalDateTime periodEnd) {
+        String sql = "SELECT " + RowMappers.PERIOD_SUMMARY_COLUMNS + " FROM inventory_period_summaries " +
+                     "WHERE period_end = :periodEnd ORDER BY product_id";
+        try (Connection con = sql2o.open()) {
+            return con.createQuery(sql)
+                .addParameter("periodEnd", periodEnd)
+                .executeAndFetch(RowMappers.PERIOD_SUMMARY);
+        }
+    }
+
+    public List<LocalDateTime> findPeriodEnds() {
+        String sql = "SELECT period_end FROM inventory_archive_periods ORDER BY period_end";
+        try (Connection con = sql2o.open()) {
+            return con.createQuery(sql)
+                .executeScalarList(LocalDateTime.class);
+        }
+    }
+
+    public int countArchived() {
+        String sql = "SELECT COUNT(*) FROM inventory_transactions_archive";
+        try (Connection con = sql2o.open()) {
+            return con.createQuery(sql)
+                .executeScalar(Integer.class);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.inventorymrp.dao.memory;
+
+import com.inventorymrp.dao.BOMItemRepository;
+import com.inventorymrp.model.BOMItem;
+import com.inventorymrp.model.Product;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory {@link BOMItemRepository}. Writes synchronize on the store's structure
+ * lock so both referenced products are known to exist; reads are lock-free and
+ * findByParentProductId, the lookup MRP explosion runs on, uses a parent index.
+ */
+public class InMemoryBOMItemRepository implements BOMItemRepository {
+    private final InMemoryStore store;
+
+    public InMemoryBOMItemRepository(InMemoryStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public BOMItem create(BOMItem bomItem) {
+        synchronized (store.structureLock) {
+            checkProducts(bomItem);
+            bomItem.setId(store.bomItemIds.incrementAndGet());
+            put(bomItem);
+            return bomItem;
+        }
+    }
+
+    private void checkProducts(BOMItem bomItem) {
+        if (!store.products.containsKey(bomItem.getParentProductId())) {
+            throw new IllegalArgumentException("Product not found: " + bomItem.getParentProductId());
+        }
+        if (!store.products.containsKey(bomItem.getChildProductId())) {
+            throw new IllegalArgumentException("Product not found: " + bomItem.getChildProductId());
+        }
+    }
+
+    private void put(BOMItem bomItem) {
+        store.bomItems.put(bomItem.getId(), new BOMItem(bomItem));
+        store.bomItemIdsByParent.computeIfAbsent(bomItem.getParentProductId(), k -> ConcurrentHashMap.newKeySet())
+            .add(bomItem.getId());
+    }
+
+    private void unindex(BOMItem bomItem) {
+        Set<Long> ids = store.bomItemIdsByParent.get(bomItem.getParentProductId());
+        if (ids != null) {
+            ids.remove(bomItem.getId());
+        }
+    }
+
+    @Override
+    public BOMItem findById(Long id) {
+        BOMItem bomItem = id != null ? store.bomItems.get(id) : null;
+        return bomItem != null ? enriched(bomItem) : null;
+    }
+
+    @Override
+    public List<BOMItem> findByParentProductId(Long parentProductId) {
+        List<BOMItem> result = new ArrayList<>();
+        Set<Long> ids = store.bomItemIdsByParent.get(parentProductId);
+        if (ids != null) {
+            for (Long id : ids) {
+                BOMItem bomItem = store.bomItems.get(id);
+                if (bomItem != null) {
+                    result.add(enriched(bomItem));
+                }
+            }
+        }
+        result.sort(InMemoryStore.BOM_ITEM_ORDER);
+        return result;
+    }
+
+    @Override
+    public List<BOMItem> findByChildProductId(Long childProductId) {
+        List<BOMItem> result = new ArrayList<>();
+        for (BOMItem bomItem : store.bomItems.values()) {
+            if (bomItem.getChildProductId().equals(childProductId)) {
+                result.add(enriched(bomItem));
+            }
+        }
+        result.sort(InMemoryStore.BOM_ITEM_ORDER);
+        return result;
+    }
+
+    @Override
+    public List<BOMItem> findAll() {
+        List<BOMItem> result = new ArrayList<>();
+        for (BOMItem bomItem : store.bomItems.values()) {
+            result.add(enriched(bomItem));
+        }
+        result.sort(Comparator.comparing(BOMItem::getParentProductId).thenComparing(InMemoryStore.BOM_ITEM_ORDER));
+        return result;
+    }
+
+    private BOMItem enriched(BOMItem stored) {
+        BOMItem bomItem = new BOMItem(stored);
+        Product parent = store.products.get(bomItem.getParentProductId());
+        Product child = store.products.get(bomItem.getChildProductId());
+        bomItem.setParentProduct(parent != null ? new Product(parent) : null);
+        bomItem.setChildProduct(child != null ? new Product(child) : null);
+        return bomItem;
+    }
+
+    @Override
+    public void update(BOMItem bomItem) {
+        bomItem.setUpdatedAt(LocalDateTime.now());
+        synchronized (store.structureLock) {
+            BOMItem previous = store.bomItems.get(bomItem.getId());
+            if (previous == null) {
+                return;
+            }
+            checkProducts(bomItem);
+            unindex(previous);
+            put(bomItem);
+        }
+    }
+
+    @Override
+    public void delete(Long id) {
+        synchronized (store.structureLock) {
+            BOMItem removed = store.bomItems.remove(id);
+            if (removed != null) {
+                unindex(removed);
+            }
+        }
+    }
+
+    @Override
+    public void deleteByParentProductId(Long parentProductId) {
+        synchronized (store.structureLock) {
+            Set<Long> ids = store.bomItemIdsByParent.remove(parentProductId);
+            if (ids != null) {
+                for (Long id : ids) {
+                    store.bomItems.remove(id);
+                }
+            }
+        }
+    }
+
+    @Override
+    public int count() {
+        return store.bomItems.size();
+    }
+}
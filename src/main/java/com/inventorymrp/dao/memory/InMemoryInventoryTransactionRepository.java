@@ -0,0 +1,183 @@
+package com.inventorymrp.dao.memory;
+
+import com.inventorymrp.dao.InventoryTransactionRepository;
+import com.inventorymrp.dao.PageRequest;
+import com.inventorymrp.model.InventoryTransaction;
+import com.inventorymrp.model.InventoryTransactionView;
+import com.inventorymrp.model.Product;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * In-memory {@link InventoryTransactionRepository}. A movement updates the
+ * product's stock and stores the transaction inside one products.compute call, so
+ * movements of the same product are serialized and never lose updates, while
+ * movements of different products run in parallel. recordMovements applies each
+ * movement on its own rather than as one all-or-nothing unit; there is no archive,
+ * so every finder sees the whole ledger.
+ */
+public class InMemoryInventoryTransactionRepository implements InventoryTransactionRepository {
+    private final InMemoryStore store;
+
+    public InMemoryInventoryTransactionRepository(InMemoryStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public InventoryTransaction create(InventoryTransaction transaction) {
+        if (!recordMovement(transaction, true)) {
+            throw new IllegalArgumentException("Product not found: " + transaction.getProductId());
+        }
+        return transaction;
+    }
+
+    @Override
+    public boolean recordMovement(InventoryTransaction transaction, boolean allowNegative) {
+        boolean[] applied = new boolean[1];
+        store.products.computeIfPresent(transaction.getProductId(), (id, current) -> {
+            int stock = current.getStockQuantity() != null ? current.getStockQuantity() : 0;
+            int next = stock + transaction.getSignedQuantity();
+            if (!allowNegative && next < 0) {
+                return current;
+            }
+            store.insertTransaction(transaction);
+            applied[0] = true;
+            return withStock(current, next);
+        });
+        return applied[0];
+    }
+
+    private static Product withStock(Product current, int stock) {
+        Product updated = new Product(current);
+        updated.setStockQuantity(stock);
+        updated.setUpdatedAt(LocalDateTime.now());
+        updated.setVersion(current.getVersion() + 1);
+        return updated;
+    }
+
+    @Override
+    public boolean[] recordMovements(List<InventoryTransaction> transactions, boolean[] allowNegative) {
+        boolean[] applied = new boolean[transactions.size()];
+        for (int i = 0; i < transactions.size(); i++) {
+            applied[i] = recordMovement(transactions.get(i), allowNegative[i]);
+        }
+        return applied;
+    }
+
+    @Override
+    public InventoryTransaction recordAdjustment(Long productId, Integer newQuantity, String reference) {
+        InventoryTransaction[] recorded = new InventoryTransaction[1];
+        store.products.computeIfPresent(productId, (id, current) -> {
+            int stock = current.getStockQuantity() != null ? current.getStockQuantity() : 0;
+            InventoryTransaction transaction = new InventoryTransaction(productId, "ADJUSTMENT", newQuantity - stock);
+            transaction.setReference(reference);
+            recorded[0] = store.insertTransaction(transaction);
+            return withStock(current, newQuantity);
+        });
+        return recorded[0];
+    }
+
+    @Override
+    public InventoryTransaction findById(Long id) {
+        InventoryTransaction transaction = id != null ? store.transactions.get(id) : null;
+        return transaction != null ? new InventoryTransaction(transaction) : null;
+    }
+
+    @Override
+    public List<InventoryTransaction> findByProductId(Long productId) {
+        return findByProductId(productId, null, null);
+    }
+
+    @Override
+    public List<InventoryTransaction> findAll() {
+        return findByDateRange(null, null);
+    }
+
+    @Override
+    public List<InventoryTransactionView> findViewPage(PageRequest request, int offset, int limit) {
+        List<InventoryTransactionView> views = new ArrayList<>();
+        for (InventoryTransaction transaction : findPage(request, offset, limit)) {
+            views.add(new InventoryTransactionView(transaction, store.products.get(transaction.getProductId())));
+        }
+        return views;
+    }
+
+    @Override
+    public List<InventoryTransaction> findByType(String transactionType) {
+        return findByType(transactionType, null, null);
+    }
+
+    @Override
+    public List<InventoryTransaction> findByProductId(Long productId, LocalDateTime from, LocalDateTime to) {
+        Set<Long> ids = store.transactionIdsByProduct.get(productId);
+        if (ids == null) {
+            return new ArrayList<>();
+        }
+        List<InventoryTransaction> candidates = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            InventoryTransaction transaction = store.transactions.get(id);
+            if (transaction != null) {
+                candidates.add(transaction);
+            }
+        }
+        return find(candidates, t -> true, from, to);
+    }
+
+    @Override
+    public List<InventoryTransaction> findByType(String transactionType, LocalDateTime from, LocalDateTime to) {
+        return find(store.transactions.values(), t -> t.getTransactionType().equals(transactionType), from, to);
+    }
+
+    @Override
+    public List<InventoryTransaction> findByDateRange(LocalDateTime from, LocalDateTime to) {
+        return find(store.transactions.values(), t -> true, from, to);
+    }
+
+    private List<InventoryTransaction> find(Collection<InventoryTransaction> candidates,
+                                            Predicate<InventoryTransaction> filter,
+                                            LocalDateTime from, LocalDateTime to) {
+        List<InventoryTransaction> result = new ArrayList<>();
+        for (InventoryTransaction t : candidates) {
+            if (filter.test(t)
+                    && (from == null || !t.getTransactionDate().isBefore(from))
+                    && (to == null || t.getTransactionDate().isBefore(to))) {
+                result.add(new InventoryTransaction(t));
+            }
+        }
+        result.sort(InMemoryStore.TRANSACTION_ORDER);
+        return result;
+    }
+
+    @Override
+    public void delete(Long id) {
+        InventoryTransaction transaction = id != null ? store.transactions.get(id) : null;
+        if (transaction == null) {
+            return;
+        }
+        store.products.compute(transaction.getProductId(), (productId, current) -> {
+            InventoryTransaction removed = store.transactions.remove(id);
+            if (removed == null) {
+                return current;
+            }
+            Set<Long> ids = store.transactionIdsByProduct.get(productId);
+            if (ids != null) {
+                ids.remove(id);
+            }
+            if (current == null) {
+                return null;
+            }
+            int stock = current.getStockQuantity() != null ? current.getStockQuantity() : 0;
+            return withStock(current, stock - removed.getSignedQuantity());
+        });
+    }
+
+    @Override
+    public int count() {
+        return store.transactions.size();
+    }
+}
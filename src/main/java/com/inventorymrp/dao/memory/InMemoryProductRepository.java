@@ -0,0 +1,148 @@
+package com.inventorymrp.dao.memory;
+
+import com.inventorymrp.dao.OptimisticLockException;
+import com.inventorymrp.dao.ProductRepository;
+import com.inventorymrp.model.InventoryTransaction;
+import com.inventorymrp.model.Product;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * In-memory {@link ProductRepository}. Product codes are unique; a duplicate code
+ * is refused with IllegalArgumentException, and deleting a product that a BOM item
+ * or purchase order still references with IllegalStateException, as the DAO does.
+ */
+public class InMemoryProductRepository implements ProductRepository {
+    private final InMemoryStore store;
+
+    public InMemoryProductRepository(InMemoryStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public Product create(Product product) {
+        long id = store.productIds.incrementAndGet();
+        if (store.productIdsByCode.putIfAbsent(product.getCode(), id) != null) {
+            throw new IllegalArgumentException("Duplicate product code: " + product.getCode());
+        }
+        product.setId(id);
+        product.setVersion(0L);
+        store.products.compute(id, (key, absent) -> {
+            int opening = product.getStockQuantity() != null ? product.getStockQuantity() : 0;
+            recordStockChange(id, opening, "Opening balance");
+            return new Product(product);
+        });
+        return product;
+    }
+
+    @Override
+    public Product findById(Long id) {
+        return findById(id, false);
+    }
+
+    @Override
+    public Product findById(Long id, boolean consistent) {
+        Product product = id != null ? store.products.get(id) : null;
+        return product != null ? new Product(product) : null;
+    }
+
+    @Override
+    public Product findByCode(String code) {
+        Long id = code != null ? store.productIdsByCode.get(code) : null;
+        return findById(id);
+    }
+
+    @Override
+    public List<Product> findAll() {
+        return find(product -> true);
+    }
+
+    @Override
+    public List<Product> findAssemblies() {
+        return find(product -> Boolean.TRUE.equals(product.getIsAssembly()));
+    }
+
+    @Override
+    public List<Product> findComponents() {
+        return find(product -> Boolean.FALSE.equals(product.getIsAssembly()));
+    }
+
+    private List<Product> find(Predicate<Product> filter) {
+        List<Product> result = new ArrayList<>();
+        for (Product product : store.products.values()) {
+            if (filter.test(product)) {
+                result.add(new Product(product));
+            }
+        }
+        result.sort(Comparator.comparing(Product::getCode));
+        return result;
+    }
+
+    @Override
+    public void update(Product product) {
+        product.setUpdatedAt(LocalDateTime.now());
+        store.products.computeIfPresent(product.getId(), (id, previous) -> {
+            if (!previous.getVersion().equals(product.getVersion())) {
+                throw new OptimisticLockException("Product", id, product.getVersion());
+            }
+            if (!previous.getCode().equals(product.getCode())) {
+                if (store.productIdsByCode.putIfAbsent(product.getCode(), id) != null) {
+                    throw new IllegalArgumentException("Duplicate product code: " + product.getCode());
+                }
+                store.productIdsByCode.remove(previous.getCode(), id);
+            }
+            if (product.getStockQuantity() != null) {
+                int current = previous.getStockQuantity() != null ? previous.getStockQuantity() : 0;
+                recordStockChange(id, product.getStockQuantity() - current, "Product edit");
+            }
+            product.setVersion(previous.getVersion() + 1);
+            return new Product(product);
+        });
+    }
+
+    private void recordStockChange(Long productId, int difference, String reference) {
+        if (difference != 0) {
+            InventoryTransaction transaction = new InventoryTransaction(productId, "ADJUSTMENT", difference);
+            transaction.setReference(reference);
+            store.insertTransaction(transaction);
+        }
+    }
+
+    @Override
+    public void updateStockQuantity(Long productId, Integer newQuantity) {
+        store.products.computeIfPresent(productId, (id, previous) -> {
+            Product updated = new Product(previous);
+            updated.setStockQuantity(newQuantity);
+            updated.setUpdatedAt(LocalDateTime.now());
+            updated.setVersion(previous.getVersion() + 1);
+            return updated;
+        });
+    }
+
+    @Override
+    public void delete(Long id) {
+        synchronized (store.structureLock) {
+            store.products.computeIfPresent(id, (key, product) -> {
+                if (store.isReferenced(id)) {
+                    throw new IllegalStateException("Product " + product.getCode() + " is still referenced");
+                }
+                Set<Long> transactionIds = store.transactionIdsByProduct.remove(id);
+                if (transactionIds != null) {
+                    store.transactions.keySet().removeAll(transactionIds);
+                }
+                store.productIdsByCode.remove(product.getCode(), id);
+                return null;
+            });
+        }
+    }
+
+    @Override
+    public int count() {
+        return store.products.size();
+    }
+}
@@ -0,0 +1,113 @@
+package com.inventorymrp.dao.memory;
+
+import com.inventorymrp.dao.OptimisticLockException;
+import com.inventorymrp.dao.PageRequest;
+import com.inventorymrp.dao.PurchaseOrderRepository;
+import com.inventorymrp.model.Product;
+import com.inventorymrp.model.PurchaseOrder;
+import com.inventorymrp.model.PurchaseOrderView;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * In-memory {@link PurchaseOrderRepository}. An order is stored inside
+ * products.compute for its product, so it cannot reference a product being deleted.
+ */
+public class InMemoryPurchaseOrderRepository implements PurchaseOrderRepository {
+    private final InMemoryStore store;
+
+    public InMemoryPurchaseOrderRepository(InMemoryStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public PurchaseOrder create(PurchaseOrder purchaseOrder) {
+        store(purchaseOrder, true);
+        return purchaseOrder;
+    }
+
+    private void store(PurchaseOrder purchaseOrder, boolean assignId) {
+        Product product = store.products.computeIfPresent(purchaseOrder.getProductId(), (id, current) -> {
+            if (assignId) {
+                purchaseOrder.setId(store.purchaseOrderIds.incrementAndGet());
+                purchaseOrder.setVersion(0L);
+                store.purchaseOrders.put(purchaseOrder.getId(), new PurchaseOrder(purchaseOrder));
+            } else {
+                // An order deleted meanwhile stays deleted, like an UPDATE matching no row
+                store.purchaseOrders.computeIfPresent(purchaseOrder.getId(), (key, previous) -> {
+                    if (!previous.getVersion().equals(purchaseOrder.getVersion())) {
+                        throw new OptimisticLockException("Purchase order", key, purchaseOrder.getVersion());
+                    }
+                    purchaseOrder.setVersion(previous.getVersion() + 1);
+                    return new PurchaseOrder(purchaseOrder);
+                });
+            }
+            return current;
+        });
+        if (product == null) {
+            throw new IllegalArgumentException("Product not found: " + purchaseOrder.getProductId());
+        }
+    }
+
+    @Override
+    public PurchaseOrder findById(Long id) {
+        PurchaseOrder purchaseOrder = id != null ? store.purchaseOrders.get(id) : null;
+        return purchaseOrder != null ? new PurchaseOrder(purchaseOrder) : null;
+    }
+
+    @Override
+    public List<PurchaseOrder> findByProductId(Long productId) {
+        return find(po -> po.getProductId().equals(productId));
+    }
+
+    @Override
+    public List<PurchaseOrder> findByStatus(String status) {
+        return find(po -> status.equals(po.getStatus()));
+    }
+
+    @Override
+    public List<PurchaseOrder> findAll() {
+        return find(po -> true);
+    }
+
+    @Override
+    public List<PurchaseOrderView> findViewPage(PageRequest request, int offset, int limit) {
+        List<PurchaseOrderView> views = new ArrayList<>();
+        for (PurchaseOrder po : findPage(request, offset, limit)) {
+            views.add(new PurchaseOrderView(po, store.products.get(po.getProductId())));
+        }
+        return views;
+    }
+
+    private List<PurchaseOrder> find(Predicate<PurchaseOrder> filter) {
+        List<PurchaseOrder> result = new ArrayList<>();
+        for (PurchaseOrder po : store.purchaseOrders.values()) {
+            if (filter.test(po)) {
+                result.add(new PurchaseOrder(po));
+            }
+        }
+        result.sort(InMemoryStore.PURCHASE_ORDER_ORDER);
+        return result;
+    }
+
+    @Override
+    public void update(PurchaseOrder purchaseOrder) {
+        purchaseOrder.setUpdatedAt(LocalDateTime.now());
+        if (store.purchaseOrders.containsKey(purchaseOrder.getId())) {
+            store(purchaseOrder, false);
+        }
+    }
+
+    @Override
+    public void delete(Long id) {
+        store.purchaseOrders.remove(id);
+    }
+
+    @Override
+    public int count() {
+        return store.purchaseOrders.size();
+    }
+}
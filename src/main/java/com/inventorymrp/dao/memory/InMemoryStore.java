@@ -0,0 +1,109 @@
+package com.inventorymrp.dao.memory;
+
+import com.inventorymrp.model.BOMItem;
+import com.inventorymrp.model.InventoryTransaction;
+import com.inventorymrp.model.Product;
+import com.inventorymrp.model.PurchaseOrder;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shared state of the in-memory repositories: one concurrent map per table,
+ * an id sequence per table (starting at 1, like AUTO_INCREMENT), and the indexes
+ * the hot lookups need.
+ *
+ * Stored objects are never mutated; writes put a fresh copy and reads hand out
+ * copies, so callers can no more change stored state by accident than with the
+ * database. products.compute on a product id plays the part of the products row
+ * lock: every write that changes a product's stock or adds a row referencing it
+ * runs inside it. BOM writes and product deletes, which involve more than one
+ * product, synchronize on {@link #structureLock} instead.
+ */
+public class InMemoryStore {
+    final ConcurrentHashMap<Long, Product> products = new ConcurrentHashMap<>();
+    final ConcurrentHashMap<String, Long> productIdsByCode = new ConcurrentHashMap<>();
+    final ConcurrentHashMap<Long, BOMItem> bomItems = new ConcurrentHashMap<>();
+    final ConcurrentHashMap<Long, Set<Long>> bomItemIdsByParent = new ConcurrentHashMap<>();
+    final ConcurrentHashMap<Long, InventoryTransaction> transactions = new ConcurrentHashMap<>();
+    final ConcurrentHashMap<Long, Set<Long>> transactionIdsByProduct = new ConcurrentHashMap<>();
+    final ConcurrentHashMap<Long, PurchaseOrder> purchaseOrders = new ConcurrentHashMap<>();
+
+    final AtomicLong productIds = new AtomicLong();
+    final AtomicLong bomItemIds = new AtomicLong();
+    final AtomicLong transactionIds = new AtomicLong();
+    final AtomicLong purchaseOrderIds = new AtomicLong();
+
+    final Object structureLock = new Object();
+
+    /** Newest first, ties by id descending. */
+    static final Comparator<InventoryTransaction> TRANSACTION_ORDER =
+            Comparator.comparing(InventoryTransaction::getTransactionDate, Comparator.reverseOrder())
+                      .thenComparing(InventoryTransaction::getId, Comparator.reverseOrder());
+
+    /** Newest order date first, ties by id descending. */
+    static final Comparator<PurchaseOrder> PURCHASE_ORDER_ORDER =
+            Comparator.comparing(PurchaseOrder::getOrderDate, Comparator.nullsLast(Comparator.reverseOrder()))
+                      .thenComparing(PurchaseOrder::getId, Comparator.reverseOrder());
+
+    /** By sequence number, ties by id. */
+    static final Comparator<BOMItem> BOM_ITEM_ORDER =
+            Comparator.comparing(BOMItem::getSequenceNumber, Comparator.nullsFirst(Comparator.naturalOrder()))
+                      .thenComparing(BOMItem::getId);
+
+    /**
+     * Store a transaction for its product, dated now unless back-dated. Callers run
+     * this inside products.compute for the product, so it cannot race with the
+     * product's deletion.
+     */
+    InventoryTransaction insertTransaction(InventoryTransaction transaction) {
+        if (transaction.getTransactionDate() == null) {
+            transaction.setTransactionDate(LocalDateTime.now());
+        }
+        transaction.setId(transactionIds.incrementAndGet());
+        transactions.put(transaction.getId(), new InventoryTransaction(transaction));
+        transactionIdsByProduct.computeIfAbsent(transaction.getProductId(), k -> ConcurrentHashMap.newKeySet())
+            .add(transaction.getId());
+        return transaction;
+    }
+
+    /**
+     * Whether any BOM item or purchase order refers to the product.
+     * Callers hold structureLock and run inside products.compute for the product.
+     */
+    boolean isReferenced(Long productId) {
+        for (BOMItem item : bomItems.values()) {
+            if (productId.equals(item.getParentProductId()) || productId.equals(item.getChildProductId())) {
+                return true;
+            }
+        }
+        for (PurchaseOrder po : purchaseOrders.values()) {
+            if (productId.equals(po.getProductId())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Drop all data and restart the id sequences.
+     */
+    public void clear() {
+        synchronized (structureLock) {
+            products.clear();
+            productIdsByCode.clear();
+            bomItems.clear();
+            bomItemIdsByParent.clear();
+            transactions.clear();
+            transactionIdsByProduct.clear();
+            purchaseOrders.clear();
+            productIds.set(0);
+            bomItemIds.set(0);
+            transactionIds.set(0);
+            purchaseOrderIds.set(0);
+        }
+    }
+}
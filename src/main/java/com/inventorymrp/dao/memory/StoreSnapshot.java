@@ -0,0 +1,479 @@
+package com.inventorymrp.dao.memory;
+
+import com.inventorymrp.dao.BOMItemRepository;
+import com.inventorymrp.dao.ProductRepository;
+import com.inventorymrp.dao.PurchaseOrderRepository;
+import com.inventorymrp.model.BOMItem;
+import com.inventorymrp.model.Product;
+import com.inventorymrp.model.PurchaseOrder;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Binary snapshot of the planning data: products (stock included), BOM lines and
+ * open purchase orders. A planning node loads it straight into an
+ * {@link InMemoryStore} by memory-mapping the file, without opening the database;
+ * {@link #importInto} loads one back into a database.
+ * The inventory transaction ledger is not part of the snapshot.
+ *
+ * Layout, big-endian: a 32 byte header (magic, format version, creation time in
+ * epoch milliseconds, the three record counts, CRC32 of the body) followed by the
+ * products, BOM lines and purchase orders. Each record starts with a bit mask of
+ * its present optional fields; strings are UTF-8 with a two byte length, decimals
+ * a scale and the unscaled value's bytes, timestamps UTC epoch seconds and nanos.
+ */
+public final class StoreSnapshot {
+    public static final int FORMAT_VERSION = 1;
+    private static final int MAGIC = 0x494D5253; // "IMRS"
+    private static final int HEADER_SIZE = 32;
+
+    private StoreSnapshot() {
+        // Private constructor to prevent instantiation
+    }
+
+    /**
+     * Write a snapshot of the given repositories. The file is written next to its
+     * destination and moved into place, so readers never see a partial snapshot.
+     */
+    public static Summary export(Path file, ProductRepository productRepository, BOMItemRepository bomItemRepository,
+                                 PurchaseOrderRepository purchaseOrderRepository) throws IOException {
+        Path absolute = file.toAbsolutePath();
+        Path temp = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+        try {
+            Summary summary;
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                channel.position(HEADER_SIZE);
+                CRC32 crc = new CRC32();
+                DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                        new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16), crc));
+
+                List<Product> products = productRepository.findAll();
+                for (Product product : products) {
+                    writeProduct(out, product);
+                }
+                int[] bomItemCount = new int[1];
+                UncheckedWriter bomWriter = new UncheckedWriter(out);
+                bomItemRepository.scanAll(bomItem -> {
+                    bomWriter.write(bomItem);
+                    bomItemCount[0]++;
+                });
+                bomWriter.rethrow();
+                int purchaseOrderCount = 0;
+                for (PurchaseOrder po : purchaseOrderRepository.findAll()) {
+                    if (isOpen(po)) {
+                        writePurchaseOrder(out, po);
+                        purchaseOrderCount++;
+                    }
+                }
+                out.flush();
+
+                summary = new Summary(System.currentTimeMillis(), products.size(), bomItemCount[0], purchaseOrderCount);
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putInt(MAGIC).putInt(FORMAT_VERSION).putLong(summary.createdAt)
+                      .putInt(summary.productCount).putInt(summary.bomItemCount).putInt(summary.purchaseOrderCount)
+                      .putInt((int) crc.getValue());
+                header.flip();
+                channel.write(header, 0);
+                channel.force(true);
+            }
+            Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return summary;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static boolean isOpen(PurchaseOrder po) {
+        return !"RECEIVED".equals(po.getStatus()) && !"CANCELLED".equals(po.getStatus());
+    }
+
+    /**
+     * Replace the contents of the store with a snapshot. Ids are kept, and each id
+     * sequence continues after the highest loaded id.
+     */
+    public static Summary load(Path file, InMemoryStore store) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException("Not a snapshot file: " + file);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            Summary summary = readHeader(buffer, file);
+            int expectedCrc = buffer.getInt();
+            CRC32 crc = new CRC32();
+            crc.update(buffer.duplicate());
+            if ((int) crc.getValue() != expectedCrc) {
+                throw new IOException("Snapshot file is corrupt: " + file);
+            }
+
+            synchronized (store.structureLock) {
+                store.clear();
+                long maxId = 0;
+                for (int i = 0; i < summary.productCount; i++) {
+                    Product product = readProduct(buffer);
+                    store.products.put(product.getId(), product);
+                    store.productIdsByCode.put(product.getCode(), product.getId());
+                    maxId = Math.max(maxId, product.getId());
+                }
+                store.productIds.set(maxId);
+
+                maxId = 0;
+                for (int i = 0; i < summary.bomItemCount; i++) {
+                    BOMItem bomItem = readBomItem(buffer);
+                    store.bomItems.put(bomItem.getId(), bomItem);
+                    store.bomItemIdsByParent.computeIfAbsent(bomItem.getParentProductId(),
+                            k -> ConcurrentHashMap.newKeySet()).add(bomItem.getId());
+                    maxId = Math.max(maxId, bomItem.getId());
+                }
+                store.bomItemIds.set(maxId);
+
+                maxId = 0;
+                for (int i = 0; i < summary.purchaseOrderCount; i++) {
+                    PurchaseOrder po = readPurchaseOrder(buffer);
+                    store.purchaseOrders.put(po.getId(), po);
+                    maxId = Math.max(maxId, po.getId());
+                }
+                store.purchaseOrderIds.set(maxId);
+            }
+            return summary;
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Snapshot file is truncated: " + file, e);
+        }
+    }
+
+    /**
+     * Insert a snapshot's records through the repositories' createAll, e.g. to seed
+     * a database from a planning node's data. Records get new ids, to which the BOM
+     * lines and purchase orders are remapped, and each product's stock becomes its
+     * opening balance. Products, BOM lines and purchase orders are each inserted in
+     * their own bulk load.
+     * @throws IllegalStateException if the product repository is not empty
+     */
+    public static Summary importInto(Path file, ProductRepository productRepository,
+                                     BOMItemRepository bomItemRepository,
+                                     PurchaseOrderRepository purchaseOrderRepository) throws IOException {
+        int existing = productRepository.count();
+        if (existing > 0) {
+            throw new IllegalStateException("Snapshots are imported into an empty database, this one has "
+                    + existing + " products");
+        }
+        InMemoryStore store = new InMemoryStore();
+        Summary summary = load(file, store);
+
+        List<Product> products = new ArrayList<>(store.products.values());
+        products.sort(Comparator.comparing(Product::getId));
+        long[] snapshotIds = new long[products.size()];
+        for (int i = 0; i < products.size(); i++) {
+            snapshotIds[i] = products.get(i).getId();
+        }
+        productRepository.createAll(products);
+        Map<Long, Long> productIds = new HashMap<>();
+        for (int i = 0; i < products.size(); i++) {
+            productIds.put(snapshotIds[i], products.get(i).getId());
+        }
+
+        List<BOMItem> bomItems = new ArrayList<>(store.bomItems.values());
+        bomItems.sort(Comparator.comparing(BOMItem::getId));
+        for (BOMItem bomItem : bomItems) {
+            bomItem.setParentProductId(productIds.get(bomItem.getParentProductId()));
+            bomItem.setChildProductId(productIds.get(bomItem.getChildProductId()));
+        }
+        bomItemRepository.createAll(bomItems);
+
+        List<PurchaseOrder> purchaseOrders = new ArrayList<>(store.purchaseOrders.values());
+        purchaseOrders.sort(Comparator.comparing(PurchaseOrder::getId));
+        for (PurchaseOrder po : purchaseOrders) {
+            po.setProductId(productIds.get(po.getProductId()));
+        }
+        purchaseOrderRepository.createAll(purchaseOrders);
+        return summary;
+    }
+
+    /**
+     * Read only the header of a snapshot file.
+     */
+    public static Summary readSummary(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // keep reading
+            }
+            header.flip();
+            if (header.remaining() < HEADER_SIZE) {
+                throw new IOException("Not a snapshot file: " + file);
+            }
+            return readHeader(header, file);
+        }
+    }
+
+    private static Summary readHeader(ByteBuffer buffer, Path file) throws IOException {
+        if (buffer.getInt() != MAGIC) {
+            throw new IOException("Not a snapshot file: " + file);
+        }
+        int version = buffer.getInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported snapshot format version " + version + ": " + file);
+        }
+        return new Summary(buffer.getLong(), buffer.getInt(), buffer.getInt(), buffer.getInt());
+    }
+
+    // Products
+
+    private static void writeProduct(DataOutputStream out, Product p) throws IOException {
+        int mask = mask(p.getDescription(), p.getUnit(), p.getUnitCost(), p.getStockQuantity(), p.getReorderLevel(),
+                p.getOrderLeadTime(), p.getItemLeadTime(), p.getIsAssembly(), p.getNonPurchase(),
+                p.getCreatedAt(), p.getUpdatedAt(), p.getVersion());
+        out.writeShort(mask);
+        out.writeLong(p.getId());
+        writeString(out, p.getCode());
+        writeString(out, p.getName());
+        if (p.getDescription() != null) writeString(out, p.getDescription());
+        if (p.getUnit() != null) writeString(out, p.getUnit());
+        if (p.getUnitCost() != null) writeDecimal(out, p.getUnitCost());
+        if (p.getStockQuantity() != null) out.writeInt(p.getStockQuantity());
+        if (p.getReorderLevel() != null) out.writeInt(p.getReorderLevel());
+        if (p.getOrderLeadTime() != null) out.writeDouble(p.getOrderLeadTime());
+        if (p.getItemLeadTime() != null) out.writeDouble(p.getItemLeadTime());
+        if (p.getIsAssembly() != null) out.writeBoolean(p.getIsAssembly());
+        if (p.getNonPurchase() != null) out.writeBoolean(p.getNonPurchase());
+        if (p.getCreatedAt() != null) writeDateTime(out, p.getCreatedAt());
+        if (p.getUpdatedAt() != null) writeDateTime(out, p.getUpdatedAt());
+        if (p.getVersion() != null) out.writeLong(p.getVersion());
+    }
+
+    private static Product readProduct(ByteBuffer in) {
+        int mask = in.getShort() & 0xFFFF;
+        Product p = new Product();
+        p.setId(in.getLong());
+        p.setCode(readString(in));
+        p.setName(readString(in));
+        p.setDescription(has(mask, 0) ? readString(in) : null);
+        p.setUnit(has(mask, 1) ? readString(in) : null);
+        p.setUnitCost(has(mask, 2) ? readDecimal(in) : null);
+        p.setStockQuantity(has(mask, 3) ? in.getInt() : null);
+        p.setReorderLevel(has(mask, 4) ? in.getInt() : null);
+        p.setOrderLeadTime(has(mask, 5) ? in.getDouble() : null);
+        p.setItemLeadTime(has(mask, 6) ? in.getDouble() : null);
+        p.setIsAssembly(has(mask, 7) ? in.get() != 0 : null);
+        p.setNonPurchase(has(mask, 8) ? in.get() != 0 : null);
+        p.setCreatedAt(has(mask, 9) ? readDateTime(in) : null);
+        p.setUpdatedAt(has(mask, 10) ? readDateTime(in) : null);
+        p.setVersion(has(mask, 11) ? in.getLong() : 0L);
+        return p;
+    }
+
+    // BOM lines
+
+    private static void writeBomItem(DataOutputStream out, BOMItem b) throws IOException {
+        int mask = mask(b.getQuantity(), b.getUnit(), b.getSequenceNumber(), b.getCreatedAt(), b.getUpdatedAt());
+        out.writeByte(mask);
+        out.writeLong(b.getId());
+        out.writeLong(b.getParentProductId());
+        out.writeLong(b.getChildProductId());
+        if (b.getQuantity() != null) writeDecimal(out, b.getQuantity());
+        if (b.getUnit() != null) writeString(out, b.getUnit());
+        if (b.getSequenceNumber() != null) out.writeInt(b.getSequenceNumber());
+        if (b.getCreatedAt() != null) writeDateTime(out, b.getCreatedAt());
+        if (b.getUpdatedAt() != null) writeDateTime(out, b.getUpdatedAt());
+    }
+
+    private static BOMItem readBomItem(ByteBuffer in) {
+        int mask = in.get() & 0xFF;
+        BOMItem b = new BOMItem();
+        b.setId(in.getLong());
+        b.setParentProductId(in.getLong());
+        b.setChildProductId(in.getLong());
+        b.setQuantity(has(mask, 0) ? readDecimal(in) : null);
+        b.setUnit(has(mask, 1) ? readString(in) : null);
+        b.setSequenceNumber(has(mask, 2) ? in.getInt() : null);
+        b.setCreatedAt(has(mask, 3) ? readDateTime(in) : null);
+        b.setUpdatedAt(has(mask, 4) ? readDateTime(in) : null);
+        return b;
+    }
+
+    /**
+     * Adapts the throwing writer to scanAll's Consumer, keeping the first failure.
+     */
+    private static final class UncheckedWriter {
+        private final DataOutputStream out;
+        private IOException failure;
+
+        UncheckedWriter(DataOutputStream out) {
+            this.out = out;
+        }
+
+        void write(BOMItem bomItem) {
+            if (failure == null) {
+                try {
+                    writeBomItem(out, bomItem);
+                } catch (IOException e) {
+                    failure = e;
+                }
+            }
+        }
+
+        void rethrow() throws IOException {
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    // Purchase orders
+
+    private static void writePurchaseOrder(DataOutputStream out, PurchaseOrder po) throws IOException {
+        int mask = mask(po.getQuantity(), po.getStatus(), po.getOrderDate(), po.getExpectedDeliveryDate(),
+                po.getSupplier(), po.getReference(), po.getCreatedAt(), po.getUpdatedAt(), po.getVersion());
+        out.writeShort(mask);
+        out.writeLong(po.getId());
+        out.writeLong(po.getProductId());
+        if (po.getQuantity() != null) out.writeInt(po.getQuantity());
+        if (po.getStatus() != null) writeString(out, po.getStatus());
+        if (po.getOrderDate() != null) out.writeInt((int) po.getOrderDate().toEpochDay());
+        if (po.getExpectedDeliveryDate() != null) out.writeInt((int) po.getExpectedDeliveryDate().toEpochDay());
+        if (po.getSupplier() != null) writeString(out, po.getSupplier());
+        if (po.getReference() != null) writeString(out, po.getReference());
+        if (po.getCreatedAt() != null) writeDateTime(out, po.getCreatedAt());
+        if (po.getUpdatedAt() != null) writeDateTime(out, po.getUpdatedAt());
+        if (po.getVersion() != null) out.writeLong(po.getVersion());
+    }
+
+    private static PurchaseOrder readPurchaseOrder(ByteBuffer in) {
+        int mask = in.getShort() & 0xFFFF;
+        PurchaseOrder po = new PurchaseOrder();
+        po.setId(in.getLong());
+        po.setProductId(in.getLong());
+        po.setQuantity(has(mask, 0) ? in.getInt() : null);
+        po.setStatus(has(mask, 1) ? readString(in) : null);
+        po.setOrderDate(has(mask, 2) ? LocalDate.ofEpochDay(in.getInt()) : null);
+        po.setExpectedDeliveryDate(has(mask, 3) ? LocalDate.ofEpochDay(in.getInt()) : null);
+        po.setSupplier(has(mask, 4) ? readString(in) : null);
+        po.setReference(has(mask, 5) ? readString(in) : null);
+        po.setCreatedAt(has(mask, 6) ? readDateTime(in) : null);
+        po.setUpdatedAt(has(mask, 7) ? readDateTime(in) : null);
+        po.setVersion(has(mask, 8) ? in.getLong() : 0L);
+        return po;
+    }
+
+    // Field encodings
+
+    private static int mask(Object... optionalFields) {
+        int mask = 0;
+        for (int i = 0; i < optionalFields.length; i++) {
+            if (optionalFields[i] != null) {
+                mask |= 1 << i;
+            }
+        }
+        return mask;
+    }
+
+    private static boolean has(int mask, int bit) {
+        return (mask & (1 << bit)) != 0;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IOException("String too long for snapshot: " + bytes.length + " bytes");
+        }
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getShort() & 0xFFFF];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeDecimal(DataOutputStream out, BigDecimal value) throws IOException {
+        byte[] unscaled = value.unscaledValue().toByteArray();
+        if (value.scale() < Byte.MIN_VALUE || value.scale() > Byte.MAX_VALUE) {
+            throw new IOException("Decimal scale out of range for snapshot: " + value.scale());
+        }
+        if (unscaled.length > 0xFF) {
+            throw new IOException("Decimal too long for snapshot: " + unscaled.length + " bytes");
+        }
+        out.writeByte(value.scale());
+        out.writeByte(unscaled.length);
+        out.write(unscaled);
+    }
+
+    private static BigDecimal readDecimal(ByteBuffer in) {
+        int scale = in.get();
+        byte[] unscaled = new byte[in.get() & 0xFF];
+        in.get(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), scale);
+    }
+
+    private static void writeDateTime(DataOutputStream out, LocalDateTime value) throws IOException {
+        out.writeLong(value.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(value.getNano());
+    }
+
+    private static LocalDateTime readDateTime(ByteBuffer in) {
+        return LocalDateTime.ofEpochSecond(in.getLong(), in.getInt(), ZoneOffset.UTC);
+    }
+
+    /**
+     * What a snapshot holds.
+     */
+    public static class Summary {
+        private final long createdAt;
+        private final int productCount;
+        private final int bomItemCount;
+        private final int purchaseOrderCount;
+
+        Summary(long createdAt, int productCount, int bomItemCount, int purchaseOrderCount) {
+            this.createdAt = createdAt;
+            this.productCount = productCount;
+            this.bomItemCount = bomItemCount;
+            this.purchaseOrderCount = purchaseOrderCount;
+        }
+
+        public Instant getCreatedAt() {
+            return Instant.ofEpochMilli(createdAt);
+        }
+
+        public int getProductCount() {
+            return productCount;
+        }
+
+        public int getBomItemCount() {
+            return bomItemCount;
+        }
+
+        public int getPurchaseOrderCount() {
+            return purchaseOrderCount;
+        }
+
+        @Override
+        public String toString() {
+            return productCount + " products, " + bomItemCount + " BOM lines, " + purchaseOrderCount
+                    + " open purchase orders, taken " + getCreatedAt();
+        }
+    }
+}
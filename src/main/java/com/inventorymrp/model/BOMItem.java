@@ -35,6 +35,21 @@ public class BOMItem {
         this.quantity = quantity;
     }
 
+    /**
+     * Copy constructor, used where a BOM item instance must not be shared. The
+     * transient products are not copied.
+     */
+    public BOMItem(BOMItem other) {
+        this.id = other.id;
+        this.parentProductId = other.parentProductId;
+        this.childProductId = other.childProductId;
+        this.quantity = other.quantity;
+        this.unit = other.unit;
+        this.sequenceNumber = other.sequenceNumber;
+        this.createdAt = other.createdAt;
+        this.updatedAt = other.updatedAt;
+    }
+
     // Getters and Setters
     public Long getId() {
         return id;
@@ -0,0 +1,86 @@
+package com.inventorymrp.model;
+
+import java.time.LocalDate;
+
+/**
+ * DailyMovement holds one product's transaction totals for one day.
+ */
+public class DailyMovement {
+    private Long productId;
+    private LocalDate movementDate;
+    private Integer inQuantity;
+    private Integer outQuantity;
+    private Integer adjustmentQuantity;
+    private Integer transactionCount;
+
+    public DailyMovement() {
+    }
+
+    /**
+     * Net stock change over the day.
+     */
+    public int getNetQuantity() {
+        return inQuantity - outQuantity + adjustmentQuantity;
+    }
+
+    // Getters and Setters
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public LocalDate getMovementDate() {
+        return movementDate;
+    }
+
+    public void setMovementDate(LocalDate movementDate) {
+        this.movementDate = movementDate;
+    }
+
+    public Integer getInQuantity() {
+        return inQuantity;
+    }
+
+    public void setInQuantity(Integer inQuantity) {
+        this.inQuantity = inQuantity;
+    }
+
+    public Integer getOutQuantity() {
+        return outQuantity;
+    }
+
+    public void setOutQuantity(Integer outQuantity) {
+        this.outQuantity = outQuantity;
+    }
+
+    public Integer getAdjustmentQuantity() {
+        return adjustmentQuantity;
+    }
+
+    public void setAdjustmentQuantity(Integer adjustmentQuantity) {
+        this.adjustmentQuantity = adjustmentQuantity;
+    }
+
+    public Integer getTransactionCount() {
+        return transactionCount;
+    }
+
+    public void setTransactionCount(Integer transactionCount) {
+        this.transactionCount = transactionCount;
+    }
+
+    @Override
+    public String toString() {
+        return "DailyMovement{" +
+                "productId=" + productId +
+                ", movementDate=" + movementDate +
+                ", in=" + inQuantity +
+                ", out=" + outQuantity +
+                ", adjustment=" + adjustmentQuantity +
+                ", transactionCount=" + transactionCount +
+                '}';
+    }
+}
@@ -11,11 +11,11 @@ public class InventoryTransaction {
     private String transactionType; // "IN", "OUT", "ADJUSTMENT"
     private Integer quantity;
     private String reference; // Reference number or note
+    // Null until recorded, when the inserting database transaction stamps it; set only to back-date
     private LocalDateTime transactionDate;
     private LocalDateTime createdAt;
 
     public InventoryTransaction() {
-        this.transactionDate = LocalDateTime.now();
         this.createdAt = LocalDateTime.now();
     }
 
@@ -26,6 +26,19 @@ public class InventoryTransaction {
         this.quantity = quantity;
     }
 
+    /**
+     * Copy constructor, used where a transaction instance must not be shared.
+     */
+    public InventoryTransaction(InventoryTransaction other) {
+        this.id = other.id;
+        this.productId = other.productId;
+        this.transactionType = other.transactionType;
+        this.quantity = other.quantity;
+        this.reference = other.reference;
+        this.transactionDate = other.transactionDate;
+        this.createdAt = other.createdAt;
+    }
+
     // Getters and Setters
     public Long getId() {
         return id;
@@ -83,6 +96,14 @@ public class InventoryTransaction {
         this.createdAt = createdAt;
     }
 
+    /**
+     * Quantity as a stock delta: IN adds, OUT removes, ADJUSTMENT is already stored as the difference.
+     */
+    public int getSignedQuantity() {
+        int qty = quantity != null ? quantity : 0;
+        return "OUT".equals(transactionType) ? -qty : qty;
+    }
+
     @Override
     public String toString() {
         return "InventoryTransaction{" +
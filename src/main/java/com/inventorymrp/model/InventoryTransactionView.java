@@ -0,0 +1,37 @@
+package com.inventorymrp.model;
+
+/**
+ * An inventory transaction with the code and name of its product, read in the same
+ * query for listings. Product fields are null if the product no longer exists.
+ */
+public class InventoryTransactionView extends InventoryTransaction {
+    private String productCode;
+    private String productName;
+
+    public InventoryTransactionView() {
+    }
+
+    public InventoryTransactionView(InventoryTransaction transaction, Product product) {
+        super(transaction);
+        if (product != null) {
+            this.productCode = product.getCode();
+            this.productName = product.getName();
+        }
+    }
+
+    public String getProductCode() {
+        return productCode;
+    }
+
+    public void setProductCode(String productCode) {
+        this.productCode = productCode;
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+
+    public void setProductName(String productName) {
+        this.productName = productName;
+    }
+}
@@ -0,0 +1,97 @@
+package com.inventorymrp.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * PeriodSummary holds one product's transaction totals for an archived period,
+ * replacing the individual transactions in day-to-day queries.
+ */
+public class PeriodSummary {
+    private Long productId;
+    private LocalDateTime periodStart;
+    private LocalDateTime periodEnd;
+    private Integer inQuantity;
+    private Integer outQuantity;
+    private Integer adjustmentQuantity;
+    private Integer transactionCount;
+
+    public PeriodSummary() {
+    }
+
+    /**
+     * Net stock change over the period.
+     */
+    public int getNetQuantity() {
+        return inQuantity - outQuantity + adjustmentQuantity;
+    }
+
+    // Getters and Setters
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public LocalDateTime getPeriodStart() {
+        return periodStart;
+    }
+
+    public void setPeriodStart(LocalDateTime periodStart) {
+        this.periodStart = periodStart;
+    }
+
+    public LocalDateTime getPeriodEnd() {
+        return periodEnd;
+    }
+
+    public void setPeriodEnd(LocalDateTime periodEnd) {
+        this.periodEnd = periodEnd;
+    }
+
+    public Integer getInQuantity() {
+        return inQuantity;
+    }
+
+    public void setInQuantity(Integer inQuantity) {
+        this.inQuantity = inQuantity;
+    }
+
+    public Integer getOutQuantity() {
+        return outQuantity;
+    }
+
+    public void setOutQuantity(Integer outQuantity) {
+        this.outQuantity = outQuantity;
+    }
+
+    public Integer getAdjustmentQuantity() {
+        return adjustmentQuantity;
+    }
+
+    public void setAdjustmentQuantity(Integer adjustmentQuantity) {
+        this.adjustmentQuantity = adjustmentQuantity;
+    }
+
+    public Integer getTransactionCount() {
+        return transactionCount;
+    }
+
+    public void setTransactionCount(Integer transactionCount) {
+        this.transactionCount = transactionCount;
+    }
+
+    @Override
+    public String toString() {
+        return "PeriodSummary{" +
+                "productId=" + productId +
+                ", periodStart=" + periodStart +
+                ", periodEnd=" + periodEnd +
+                ", in=" + inQuantity +
+                ", out=" + outQuantity +
+                ", adjustment=" + adjustmentQuantity +
+                ", transactionCount=" + transactionCount +
+                '}';
+    }
+}
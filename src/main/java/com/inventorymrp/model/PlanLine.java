@@ -0,0 +1,87 @@
+package com.inventorymrp.model;
+
+import java.time.LocalDate;
+
+/**
+ * PlanLine holds one material required by one assembly in a batch MRP run:
+ * the quantity needed for the assembly's demand, the stock available, and the
+ * purchase order proposed for the shortage, if any.
+ */
+public class PlanLine {
+    private Long runId;
+    private Long assemblyId;
+    private Long productId;
+    private Integer requiredQuantity;
+    private Integer availableQuantity;
+    private Integer shortage;
+    private Integer orderQuantity;
+    private LocalDate expectedDeliveryDate;
+
+    public PlanLine() {
+    }
+
+    // Getters and Setters
+    public Long getRunId() {
+        return runId;
+    }
+
+    public void setRunId(Long runId) {
+        this.runId = runId;
+    }
+
+    public Long getAssemblyId() {
+        return assemblyId;
+    }
+
+    public void setAssemblyId(Long assemblyId) {
+        this.assemblyId = assemblyId;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public Integer getRequiredQuantity() {
+        return requiredQuantity;
+    }
+
+    public void setRequiredQuantity(Integer requiredQuantity) {
+        this.requiredQuantity = requiredQuantity;
+    }
+
+    public Integer getAvailableQuantity() {
+        return availableQuantity;
+    }
+
+    public void setAvailableQuantity(Integer availableQuantity) {
+        this.availableQuantity = availableQuantity;
+    }
+
+    public Integer getShortage() {
+        return shortage;
+    }
+
+    public void setShortage(Integer shortage) {
+        this.shortage = shortage;
+    }
+
+    public Integer getOrderQuantity() {
+        return orderQuantity;
+    }
+
+    public void setOrderQuantity(Integer orderQuantity) {
+        this.orderQuantity = orderQuantity;
+    }
+
+    public LocalDate getExpectedDeliveryDate() {
+        return expectedDeliveryDate;
+    }
+
+    public void setExpectedDeliveryDate(LocalDate expectedDeliveryDate) {
+        this.expectedDeliveryDate = expectedDeliveryDate;
+    }
+}
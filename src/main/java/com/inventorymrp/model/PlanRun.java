@@ -0,0 +1,85 @@
+package com.inventorymrp.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * PlanRun describes one batch MRP regeneration and the plan lines it wrote.
+ */
+public class PlanRun {
+    private Long id;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String status; // "RUNNING", "COMPLETED", "FAILED"
+    private Integer demandQuantity;
+    private String assemblyFilter;
+    private Integer assemblyCount;
+    private Integer lineCount;
+
+    public PlanRun() {
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Integer getDemandQuantity() {
+        return demandQuantity;
+    }
+
+    public void setDemandQuantity(Integer demandQuantity) {
+        this.demandQuantity = demandQuantity;
+    }
+
+    public String getAssemblyFilter() {
+        return assemblyFilter;
+    }
+
+    public void setAssemblyFilter(String assemblyFilter) {
+        this.assemblyFilter = assemblyFilter;
+    }
+
+    public Integer getAssemblyCount() {
+        return assemblyCount;
+    }
+
+    public void setAssemblyCount(Integer assemblyCount) {
+        this.assemblyCount = assemblyCount;
+    }
+
+    public Integer getLineCount() {
+        return lineCount;
+    }
+
+    public void setLineCount(Integer lineCount) {
+        this.lineCount = lineCount;
+    }
+}
@@ -22,6 +22,7 @@ public class Product {
     private Boolean nonPurchase; // non purchase product
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    private Long version; // incremented on every update, for optimistic concurrency
 
     public Product() {
         this.stockQuantity = 0;
@@ -32,6 +33,7 @@ public class Product {
         this.nonPurchase = false;
         this.createdAt = LocalDateTime.now();
         this.updatedAt = LocalDateTime.now();
+        this.version = 0L;
     }
 
     public Product(String code, String name) {
@@ -40,6 +42,27 @@ public class Product {
         this.name = name;
     }
 
+    /**
+     * Copy constructor, used where a product instance must not be shared (e.g. caching).
+     */
+    public Product(Product other) {
+        this.id = other.id;
+        this.code = other.code;
+        this.name = other.name;
+        this.description = other.description;
+        this.unit = other.unit;
+        this.unitCost = other.unitCost;
+        this.stockQuantity = other.stockQuantity;
+        this.reorderLevel = other.reorderLevel;
+        this.orderLeadTime = other.orderLeadTime;
+        this.itemLeadTime = other.itemLeadTime;
+        this.isAssembly = other.isAssembly;
+        this.nonPurchase = other.nonPurchase;
+        this.createdAt = other.createdAt;
+        this.updatedAt = other.updatedAt;
+        this.version = other.version;
+    }
+
     // Getters and Setters
     public Long getId() {
         return id;
@@ -153,6 +176,14 @@ public class Product {
         this.updatedAt = updatedAt;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     @Override
     public String toString() {
         return "Product{" +
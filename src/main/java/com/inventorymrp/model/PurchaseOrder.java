@@ -17,12 +17,14 @@ public class PurchaseOrder {
     private String reference;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    private Long version; // incremented on every update, for optimistic concurrency
 
     public PurchaseOrder() {
         this.status = "PENDING";
         this.orderDate = LocalDate.now();
         this.createdAt = LocalDateTime.now();
         this.updatedAt = LocalDateTime.now();
+        this.version = 0L;
     }
 
     public PurchaseOrder(Long productId, Integer quantity, LocalDate expectedDeliveryDate) {
@@ -32,6 +34,23 @@ public class PurchaseOrder {
         this.expectedDeliveryDate = expectedDeliveryDate;
     }
 
+    /**
+     * Copy constructor, used where a purchase order instance must not be shared.
+     */
+    public PurchaseOrder(PurchaseOrder other) {
+        this.id = other.id;
+        this.productId = other.productId;
+        this.quantity = other.quantity;
+        this.status = other.status;
+        this.orderDate = other.orderDate;
+        this.expectedDeliveryDate = other.expectedDeliveryDate;
+        this.supplier = other.supplier;
+        this.reference = other.reference;
+        this.createdAt = other.createdAt;
+        this.updatedAt = other.updatedAt;
+        this.version = other.version;
+    }
+
     // Getters and Setters
     public Long getId() {
         return id;
@@ -113,6 +132,14 @@ public class PurchaseOrder {
         this.updatedAt = updatedAt;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     @Override
     public String toString() {
         return "PurchaseOrder{" +
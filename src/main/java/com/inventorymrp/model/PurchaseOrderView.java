@@ -0,0 +1,37 @@
+package com.inventorymrp.model;
+
+/**
+ * A purchase order with the code and name of its product, read in the same
+ * query for listings. Product fields are null if the product no longer exists.
+ */
+public class PurchaseOrderView extends PurchaseOrder {
+    private String productCode;
+    private String productName;
+
+    public PurchaseOrderView() {
+    }
+
+    public PurchaseOrderView(PurchaseOrder purchaseOrder, Product product) {
+        super(purchaseOrder);
+        if (product != null) {
+            this.productCode = product.getCode();
+            this.productName = product.getName();
+        }
+    }
+
+    public String getProductCode() {
+        return productCode;
+    }
+
+    public void setProductCode(String productCode) {
+        this.productCode = productCode;
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+
+    public void setProductName(String productName) {
+        this.productName = productName;
+    }
+}
@@ -0,0 +1,76 @@
+package com.inventorymrp.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * StockSnapshot records a product's ledger balance as of a point in time,
+ * so balances can be computed as the latest snapshot plus a short replay.
+ */
+public class StockSnapshot {
+    private Long id;
+    private Long productId;
+    private LocalDateTime asOf;
+    private Integer balance;
+    private LocalDateTime createdAt;
+
+    public StockSnapshot() {
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public StockSnapshot(Long productId, LocalDateTime asOf, Integer balance) {
+        this();
+        this.productId = productId;
+        this.asOf = asOf;
+        this.balance = balance;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public LocalDateTime getAsOf() {
+        return asOf;
+    }
+
+    public void setAsOf(LocalDateTime asOf) {
+        this.asOf = asOf;
+    }
+
+    public Integer getBalance() {
+        return balance;
+    }
+
+    public void setBalance(Integer balance) {
+        this.balance = balance;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    @Override
+    public String toString() {
+        return "StockSnapshot{" +
+                "productId=" + productId +
+                ", asOf=" + asOf +
+                ", balance=" + balance +
+                '}';
+    }
+}
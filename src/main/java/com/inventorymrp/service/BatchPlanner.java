@@ -0,0 +1,345 @@
+package com.inventorymrp.service;
+
+import com.inventorymrp.dao.MRPPlanDAO;
+import com.inventorymrp.model.PlanLine;
+import com.inventorymrp.model.Product;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Batch MRP regeneration: requirements, availability and purchase order proposals
+ * for every assembly, or those selected by {@link Settings}, written to the plan
+ * tables as one new run that replaces the previous plan when it completes.
+ *
+ * The product structure is loaded once with {@link MRPService#loadStructure()}.
+ * Assemblies are then planned on a pool of threads while the calling thread writes
+ * their lines in JDBC batches, so calculating and writing overlap; a bounded queue
+ * between them holds the calculation back when writing is the slower side.
+ */
+public class BatchPlanner {
+    // Planned assemblies waiting to be written, per planning thread
+    private static final int QUEUE_PER_THREAD = 64;
+
+    private final MRPService mrpService;
+    private final MRPPlanDAO planDAO;
+    private Consumer<Summary> progressListener;
+
+    public BatchPlanner() {
+        this(new MRPService(), new MRPPlanDAO());
+    }
+
+    public BatchPlanner(MRPService mrpService, MRPPlanDAO planDAO) {
+        this.mrpService = mrpService;
+        this.planDAO = planDAO;
+    }
+
+    /**
+     * Called on the writing thread after each batch of lines is written.
+     */
+    public void setProgressListener(Consumer<Summary> progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * Plan the selected assemblies and write them as a new run. Assemblies whose
+     * calculation fails, a cyclic BOM included, are left out of the plan and listed
+     * in the summary.
+     * @throws IllegalStateException if writing fails or the thread is interrupted;
+     *         the run is then marked FAILED and its lines are removed
+     */
+    public Summary regenerate(Settings settings) {
+        Summary summary = new Summary(settings.threads);
+        long phase = System.nanoTime();
+        MRPService.Structure structure = mrpService.loadStructure();
+        List<Long> assemblyIds = select(structure, settings);
+        summary.assemblies = assemblyIds.size();
+        summary.loadNanos = System.nanoTime() - phase;
+
+        long runId = planDAO.startRun(settings.demandQuantity, settings.describeFilter());
+        summary.runId = runId;
+        phase = System.nanoTime();
+        BlockingQueue<List<PlanLine>> planned = new ArrayBlockingQueue<>(settings.threads * QUEUE_PER_THREAD);
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(settings.threads);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int i = 0; i < settings.threads; i++) {
+                workers.add(executor.submit(() -> {
+                    for (int index; (index = next.getAndIncrement()) < assemblyIds.size(); ) {
+                        planned.put(planAssembly(structure, assemblyIds.get(index), runId, settings, summary));
+                    }
+                    return null;
+                }));
+            }
+            write(planned, workers, settings.batchSize, summary);
+            summary.planNanos = System.nanoTime() - phase;
+
+            phase = System.nanoTime();
+            planDAO.completeRun(runId, summary.assemblies - summary.failedAssemblyIds.size(), summary.lines);
+            summary.completeNanos = System.nanoTime() - phase;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw failRun(runId, new IllegalStateException("Interrupted while planning run " + runId, e));
+        } catch (ExecutionException e) {
+            throw failRun(runId, e.getCause() instanceof RuntimeException
+                    ? (RuntimeException) e.getCause()
+                    : new IllegalStateException(e.getCause()));
+        } catch (RuntimeException e) {
+            throw failRun(runId, e);
+        } catch (Error e) {
+            throw failRun(runId, e);
+        } finally {
+            executor.shutdownNow();
+        }
+        return summary.finish();
+    }
+
+    /**
+     * Mark a run FAILED and remove its lines, keeping failure as the exception to throw;
+     * an error doing so is added to it as suppressed.
+     */
+    private <T extends Throwable> T failRun(long runId, T failure) {
+        try {
+            planDAO.failRun(runId);
+        } catch (RuntimeException e) {
+            failure.addSuppressed(e);
+        }
+        return failure;
+    }
+
+    private static List<Long> select(MRPService.Structure structure, Settings settings) {
+        List<Long> assemblyIds = new ArrayList<>();
+        for (Product product : structure.getProducts()) {
+            if (product.getIsAssembly()
+                    && (settings.codePrefix == null || product.getCode().startsWith(settings.codePrefix))
+                    && (!settings.topLevelOnly || !structure.isComponent(product.getId()))) {
+                assemblyIds.add(product.getId());
+            }
+        }
+        Collections.sort(assemblyIds);
+        return assemblyIds;
+    }
+
+    private List<PlanLine> planAssembly(MRPService.Structure structure, Long assemblyId, long runId,
+                                        Settings settings, Summary summary) {
+        long start = System.nanoTime();
+        try {
+            List<PlanLine> lines = mrpService.plan(structure, assemblyId, settings.demandQuantity);
+            for (PlanLine line : lines) {
+                line.setRunId(runId);
+            }
+            return lines;
+        } catch (RuntimeException e) {
+            summary.failedAssemblyIds.add(assemblyId);
+            return Collections.emptyList();
+        } finally {
+            summary.calculateNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Take every assembly's lines off the queue and insert them in batches of batchSize.
+     */
+    private void write(BlockingQueue<List<PlanLine>> planned, List<Future<?>> workers, int batchSize,
+                       Summary summary) throws InterruptedException, ExecutionException {
+        List<PlanLine> batch = new ArrayList<>(batchSize);
+        for (int remaining = summary.assemblies; remaining > 0; ) {
+            List<PlanLine> lines = planned.poll(100, TimeUnit.MILLISECONDS);
+            if (lines == null) {
+                // Rethrows what stopped a planning thread early
+                for (Future<?> worker : workers) {
+                    if (worker.isDone()) {
+                        worker.get();
+                    }
+                }
+                continue;
+            }
+            remaining--;
+            summary.planned++;
+            batch.addAll(lines);
+            if (batch.size() >= batchSize) {
+                flush(batch, summary);
+            }
+        }
+        flush(batch, summary);
+    }
+
+    private void flush(List<PlanLine> batch, Summary summary) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        planDAO.insertLines(batch);
+        summary.writeNanos += System.nanoTime() - start;
+        summary.lines += batch.size();
+        for (PlanLine line : batch) {
+            if (line.getOrderQuantity() != null) {
+                summary.proposedOrders++;
+            }
+        }
+        batch.clear();
+        if (progressListener != null) {
+            progressListener.accept(summary);
+        }
+    }
+
+    /**
+     * Which assemblies to plan, for what demand, and how.
+     */
+    public static class Settings {
+        private int threads = Runtime.getRuntime().availableProcessors();
+        private int demandQuantity = 1;
+        private String codePrefix;
+        private boolean topLevelOnly;
+        private int batchSize = 5000;
+
+        /** Planning threads; lines are written by the calling thread. */
+        public Settings threads(int threads) {
+            this.threads = Math.max(1, threads);
+            return this;
+        }
+
+        /** Quantity of each assembly to plan for. */
+        public Settings demandQuantity(int demandQuantity) {
+            this.demandQuantity = demandQuantity;
+            return this;
+        }
+
+        /** Plan only assemblies whose code starts with codePrefix; null for all. */
+        public Settings codePrefix(String codePrefix) {
+            this.codePrefix = codePrefix;
+            return this;
+        }
+
+        /** Plan only assemblies that are not a component of another product. */
+        public Settings topLevelOnly(boolean topLevelOnly) {
+            this.topLevelOnly = topLevelOnly;
+            return this;
+        }
+
+        /** Lines per batch and transaction. */
+        public Settings batchSize(int batchSize) {
+            this.batchSize = Math.max(1, batchSize);
+            return this;
+        }
+
+        // Recorded with the run
+        private String describeFilter() {
+            String filter = (codePrefix != null ? "prefix=" + codePrefix + " " : "") + (topLevelOnly ? "topLevel" : "");
+            return filter.isEmpty() ? null : filter.trim();
+        }
+    }
+
+    /**
+     * Progress and per-phase timings of a run. Phases: load (products and BOM),
+     * plan (calculating and writing, overlapped) and complete (switching the plan
+     * over to the new run). Calculate time is summed over the planning threads.
+     */
+    public static class Summary {
+        private final long startNanos = System.nanoTime();
+        private final int threads;
+        private final List<Long> failedAssemblyIds = Collections.synchronizedList(new ArrayList<>());
+        private final LongAdder calculateNanos = new LongAdder();
+        private long elapsedNanos;
+        private long runId;
+        private int assemblies;
+        private int planned;
+        private int lines;
+        private int proposedOrders;
+        private long loadNanos;
+        private long planNanos;
+        private long writeNanos;
+        private long completeNanos;
+
+        Summary(int threads) {
+            this.threads = threads;
+        }
+
+        Summary finish() {
+            elapsedNanos = System.nanoTime() - startNanos;
+            return this;
+        }
+
+        public long getRunId() {
+            return runId;
+        }
+
+        /** Assemblies selected for the run. */
+        public int getAssemblies() {
+            return assemblies;
+        }
+
+        /** Assemblies planned so far, failed ones included. */
+        public int getPlanned() {
+            return planned;
+        }
+
+        /** Plan lines written so far. */
+        public int getLines() {
+            return lines;
+        }
+
+        public int getProposedOrders() {
+            return proposedOrders;
+        }
+
+        public List<Long> getFailedAssemblyIds() {
+            return failedAssemblyIds;
+        }
+
+        public long getLoadMillis() {
+            return loadNanos / 1_000_000;
+        }
+
+        public long getPlanMillis() {
+            return planNanos / 1_000_000;
+        }
+
+        public long getCalculateMillis() {
+            return calculateNanos.sum() / 1_000_000;
+        }
+
+        public long getWriteMillis() {
+            return writeNanos / 1_000_000;
+        }
+
+        public long getCompleteMillis() {
+            return completeNanos / 1_000_000;
+        }
+
+        public long getElapsedMillis() {
+            return (elapsedNanos > 0 ? elapsedNanos : System.nanoTime() - startNanos) / 1_000_000;
+        }
+
+        /**
+         * Assemblies planned per second of elapsed time.
+         */
+        public double getAssembliesPerSecond() {
+            long millis = Math.max(1, getElapsedMillis());
+            return planned * 1000.0 / millis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("run %d: %d/%d assemblies, %d lines, %d proposed orders, %d failed in %d ms "
+                            + "(%.0f assemblies/s, %.0f lines/s); load %d ms, plan %d ms "
+                            + "[calculate %d ms over %d threads, write %d ms], complete %d ms",
+                    runId, planned, assemblies, lines, proposedOrders, failedAssemblyIds.size(), getElapsedMillis(),
+                    getAssembliesPerSecond(), lines * 1000.0 / Math.max(1, getElapsedMillis()),
+                    getLoadMillis(), getPlanMillis(), getCalculateMillis(), threads, getWriteMillis(),
+                    getCompleteMillis());
+        }
+    }
+}
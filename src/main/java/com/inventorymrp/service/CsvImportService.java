@@ -0,0 +1,607 @@
+package com.inventorymrp.service;
+
+import com.inventorymrp.dao.BOMItemRepository;
+import com.inventorymrp.dao.ProductRepository;
+import com.inventorymrp.dao.Repositories;
+import com.inventorymrp.model.BOMItem;
+import com.inventorymrp.model.Product;
+import com.inventorymrp.util.CsvReader;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Bulk import of products and BOM lines from CSV files.
+ *
+ * Files are streamed record by record and written in chunks of chunkSize rows, each
+ * chunk in one database transaction as JDBC batches. Product codes are resolved
+ * through an in-memory code-to-id index loaded once. Invalid rows are rejected and
+ * reported with their record number (the header is record 1); if the database
+ * refuses a chunk, its rows are retried one by one so only the offending rows are
+ * rejected.
+ *
+ * Product columns: code, name (required), description, unit, unit_cost,
+ * stock_quantity, reorder_level, order_lead_time, item_lead_time, is_assembly,
+ * non_purchase. BOM columns: parent_code, child_code (required), quantity, unit,
+ * sequence_number.
+ *
+ * BOM files are read twice: the first pass validates rows and builds the BOM graph
+ * (existing lines plus new ones, as product ids only), and rejects every new line
+ * that would close a cycle; the second pass writes the accepted lines.
+ */
+public class CsvImportService {
+    public static final int DEFAULT_CHUNK_SIZE = 5000;
+    private static final int MAX_REPORTED_REJECTS = 1000;
+
+    private final ProductRepository productDAO;
+    private final BOMItemRepository bomItemDAO;
+    private final int chunkSize;
+    private Consumer<ImportResult> progressListener;
+
+    public CsvImportService() {
+        this(Repositories.products(), Repositories.bomItems(), DEFAULT_CHUNK_SIZE);
+    }
+
+    public CsvImportService(ProductRepository productDAO, BOMItemRepository bomItemDAO, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+        this.productDAO = productDAO;
+        this.bomItemDAO = bomItemDAO;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * @param progressListener called after every committed chunk, or null
+     */
+    public void setProgressListener(Consumer<ImportResult> progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * Import products. Rows whose code already exists, in the database or earlier
+     * in the file, are rejected.
+     */
+    public ImportResult importProducts(Path file) throws IOException {
+        ImportResult result = new ImportResult("products");
+        Map<String, Long> ids = productDAO.findIdsByCode();
+        List<Product> chunk = new ArrayList<>(chunkSize);
+        List<Long> rows = new ArrayList<>(chunkSize);
+        Set<String> chunkCodes = new HashSet<>();
+
+        try (CsvReader csv = open(file)) {
+            Header header = new Header(csv.readRecord(), "code", "name");
+            List<String> record;
+            while ((record = csv.readRecord()) != null) {
+                if (isBlank(record)) {
+                    continue;
+                }
+                long row = csv.getRecordNumber();
+                result.rowsRead++;
+                try {
+                    Product product = parseProduct(header, record);
+                    if (ids.containsKey(product.getCode()) || !chunkCodes.add(product.getCode())) {
+                        throw new IllegalArgumentException("duplicate product code " + product.getCode());
+                    }
+                    chunk.add(product);
+                    rows.add(row);
+                } catch (IllegalArgumentException e) {
+                    result.reject(row, e.getMessage());
+                }
+                if (chunk.size() >= chunkSize) {
+                    flushProducts(chunk, rows, ids, result);
+                    chunkCodes.clear();
+                }
+            }
+            flushProducts(chunk, rows, ids, result);
+        }
+        return result.finish();
+    }
+
+    private void flushProducts(List<Product> chunk, List<Long> rows, Map<String, Long> ids, ImportResult result) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            productDAO.createAll(chunk);
+        } catch (RuntimeException e) {
+            for (int i = 0; i < chunk.size(); i++) {
+                Product product = chunk.get(i);
+                product.setId(null);
+                try {
+                    productDAO.createAll(List.of(product));
+                } catch (RuntimeException rowFailure) {
+                    product.setId(null);
+                    result.reject(rows.get(i), rootMessage(rowFailure));
+                }
+            }
+        }
+        for (Product product : chunk) {
+            if (product.getId() != null) {
+                ids.put(product.getCode(), product.getId());
+                result.rowsImported++;
+            }
+        }
+        chunk.clear();
+        rows.clear();
+        chunkDone(result);
+    }
+
+    /**
+     * Import BOM lines. Rows naming unknown products, a product as its own component,
+     * a parent/child pair that already has a line, or a line that would make the BOM
+     * cyclic are rejected.
+     */
+    public ImportResult importBomItems(Path file) throws IOException {
+        ImportResult result = new ImportResult("BOM lines");
+        Map<String, Long> ids = productDAO.findIdsByCode();
+        BomGraph graph = new BomGraph();
+        bomItemDAO.scanAll(item -> graph.add(item.getParentProductId(), item.getChildProductId(), 0));
+
+        // Pass 1: validate and build the graph
+        Set<Long> rejectedRows = new HashSet<>();
+        try (CsvReader csv = open(file)) {
+            Header header = new Header(csv.readRecord(), "parent_code", "child_code");
+            List<String> record;
+            while ((record = csv.readRecord()) != null) {
+                if (isBlank(record)) {
+                    continue;
+                }
+                long row = csv.getRecordNumber();
+                try {
+                    BOMItem bomItem = parseBomItem(header, record, ids);
+                    if (!graph.add(bomItem.getParentProductId(), bomItem.getChildProductId(), row)) {
+                        throw new IllegalArgumentException("duplicate BOM line " + header.value(record, "parent_code")
+                                                           + " -> " + header.value(record, "child_code"));
+                    }
+                } catch (IllegalArgumentException e) {
+                    result.reject(row, e.getMessage());
+                    rejectedRows.add(row);
+                }
+            }
+        }
+        for (long row : graph.findCycleRows()) {
+            result.reject(row, "BOM line would create a cycle");
+            rejectedRows.add(row);
+        }
+
+        // Pass 2: write the accepted rows
+        List<BOMItem> chunk = new ArrayList<>(chunkSize);
+        List<Long> rows = new ArrayList<>(chunkSize);
+        try (CsvReader csv = open(file)) {
+            Header header = new Header(csv.readRecord(), "parent_code", "child_code");
+            List<String> record;
+            while ((record = csv.readRecord()) != null) {
+                if (isBlank(record)) {
+                    continue;
+                }
+                long row = csv.getRecordNumber();
+                result.rowsRead++;
+                if (rejectedRows.contains(row)) {
+                    continue;
+                }
+                chunk.add(parseBomItem(header, record, ids));
+                rows.add(row);
+                if (chunk.size() >= chunkSize) {
+                    flushBomItems(chunk, rows, result);
+                }
+            }
+            flushBomItems(chunk, rows, result);
+        }
+        return result.finish();
+    }
+
+    private void flushBomItems(List<BOMItem> chunk, List<Long> rows, ImportResult result) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            bomItemDAO.createAll(chunk);
+            result.rowsImported += chunk.size();
+        } catch (RuntimeException e) {
+            for (int i = 0; i < chunk.size(); i++) {
+                try {
+                    bomItemDAO.createAll(List.of(chunk.get(i)));
+                    result.rowsImported++;
+                } catch (RuntimeException rowFailure) {
+                    result.reject(rows.get(i), rootMessage(rowFailure));
+                }
+            }
+        }
+        chunk.clear();
+        rows.clear();
+        chunkDone(result);
+    }
+
+    private void chunkDone(ImportResult result) {
+        if (progressListener != null) {
+            progressListener.accept(result);
+        }
+    }
+
+    private static CsvReader open(Path file) throws IOException {
+        return new CsvReader(Files.newBufferedReader(file, StandardCharsets.UTF_8));
+    }
+
+    private static Product parseProduct(Header header, List<String> record) {
+        Product product = new Product(
+                text(header.value(record, "code"), "code", 50, true),
+                text(header.value(record, "name"), "name", 200, true));
+        product.setDescription(text(header.value(record, "description"), "description", 1000, false));
+        product.setUnit(text(header.value(record, "unit"), "unit", 20, false));
+        String unitCost = header.value(record, "unit_cost");
+        if (unitCost != null) {
+            product.setUnitCost(decimal(unitCost, "unit_cost"));
+        }
+        Integer stock = integer(header.value(record, "stock_quantity"), "stock_quantity");
+        if (stock != null) {
+            product.setStockQuantity(stock);
+        }
+        Integer reorder = integer(header.value(record, "reorder_level"), "reorder_level");
+        if (reorder != null) {
+            product.setReorderLevel(reorder);
+        }
+        Double orderLeadTime = number(header.value(record, "order_lead_time"), "order_lead_time");
+        if (orderLeadTime != null) {
+            product.setOrderLeadTime(orderLeadTime);
+        }
+        Double itemLeadTime = number(header.value(record, "item_lead_time"), "item_lead_time");
+        if (itemLeadTime != null) {
+            product.setItemLeadTime(itemLeadTime);
+        }
+        Boolean assembly = bool(header.value(record, "is_assembly"), "is_assembly");
+        if (assembly != null) {
+            product.setIsAssembly(assembly);
+        }
+        Boolean nonPurchase = bool(header.value(record, "non_purchase"), "non_purchase");
+        if (nonPurchase != null) {
+            product.setNonPurchase(nonPurchase);
+        }
+        return product;
+    }
+
+    private static BOMItem parseBomItem(Header header, List<String> record, Map<String, Long> ids) {
+        String parentCode = text(header.value(record, "parent_code"), "parent_code", 50, true);
+        String childCode = text(header.value(record, "child_code"), "child_code", 50, true);
+        Long parentId = ids.get(parentCode);
+        if (parentId == null) {
+            throw new IllegalArgumentException("unknown product code " + parentCode);
+        }
+        Long childId = ids.get(childCode);
+        if (childId == null) {
+            throw new IllegalArgumentException("unknown product code " + childCode);
+        }
+        if (parentId.equals(childId)) {
+            throw new IllegalArgumentException("product " + parentCode + " cannot be its own component");
+        }
+        BOMItem bomItem = new BOMItem(parentId, childId, BigDecimal.ONE);
+        String quantity = header.value(record, "quantity");
+        if (quantity != null) {
+            BigDecimal value = decimal(quantity, "quantity");
+            if (value.signum() <= 0) {
+                throw new IllegalArgumentException("quantity must be positive: " + quantity);
+            }
+            bomItem.setQuantity(value);
+        }
+        bomItem.setUnit(text(header.value(record, "unit"), "unit", 20, false));
+        Integer sequence = integer(header.value(record, "sequence_number"), "sequence_number");
+        if (sequence != null) {
+            bomItem.setSequenceNumber(sequence);
+        }
+        return bomItem;
+    }
+
+    private static String text(String value, String column, int maxLength, boolean required) {
+        if (value == null) {
+            if (required) {
+                throw new IllegalArgumentException("missing " + column);
+            }
+            return null;
+        }
+        if (value.length() > maxLength) {
+            throw new IllegalArgumentException(column + " longer than " + maxLength + " characters");
+        }
+        return value;
+    }
+
+    private static BigDecimal decimal(String value, String column) {
+        try {
+            return new BigDecimal(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid " + column + ": " + value);
+        }
+    }
+
+    private static Integer integer(String value, String column) {
+        try {
+            return value == null ? null : Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid " + column + ": " + value);
+        }
+    }
+
+    private static Double number(String value, String column) {
+        try {
+            return value == null ? null : Double.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid " + column + ": " + value);
+        }
+    }
+
+    private static Boolean bool(String value, String column) {
+        if (value == null) {
+            return null;
+        }
+        switch (value.toLowerCase(Locale.ROOT)) {
+            case "true": case "yes": case "y": case "1":
+                return true;
+            case "false": case "no": case "n": case "0":
+                return false;
+            default:
+                throw new IllegalArgumentException("invalid " + column + ": " + value);
+        }
+    }
+
+    private static boolean isBlank(List<String> record) {
+        return record.size() == 1 && record.get(0).trim().isEmpty();
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable root = e;
+        while (root.getCause() != null) {
+            root = root.getCause();
+        }
+        return root.getMessage() != null ? root.getMessage() : root.toString();
+    }
+
+    /**
+     * Column positions by lower-case header name.
+     */
+    private static final class Header {
+        private final Map<String, Integer> columns = new HashMap<>();
+
+        Header(List<String> record, String... required) {
+            if (record == null) {
+                throw new IllegalArgumentException("CSV file is empty");
+            }
+            for (int i = 0; i < record.size(); i++) {
+                columns.put(record.get(i).trim().toLowerCase(Locale.ROOT), i);
+            }
+            for (String column : required) {
+                if (!columns.containsKey(column)) {
+                    throw new IllegalArgumentException("CSV header lacks required column " + column);
+                }
+            }
+        }
+
+        /**
+         * Trimmed value of a column, or null if the column is absent or empty.
+         */
+        String value(List<String> record, String column) {
+            Integer index = columns.get(column);
+            if (index == null || index >= record.size()) {
+                return null;
+            }
+            String value = record.get(index).trim();
+            return value.isEmpty() ? null : value;
+        }
+    }
+
+    /**
+     * BOM graph as parent id to child ids, each edge tagged with the record number of
+     * the row that adds it (0 for lines already in the database).
+     */
+    static final class BomGraph {
+        private final Map<Long, Edges> children = new HashMap<>();
+
+        private static final class Edges {
+            long[] targets = new long[4];
+            long[] rows = new long[4];
+            int size;
+        }
+
+        /**
+         * @return false if the edge already exists
+         */
+        boolean add(long parent, long child, long row) {
+            Edges edges = children.computeIfAbsent(parent, k -> new Edges());
+            for (int i = 0; i < edges.size; i++) {
+                if (edges.targets[i] == child) {
+                    return false;
+                }
+            }
+            if (edges.size == edges.targets.length) {
+                edges.targets = Arrays.copyOf(edges.targets, edges.size * 2);
+                edges.rows = Arrays.copyOf(edges.rows, edges.size * 2);
+            }
+            edges.targets[edges.size] = child;
+            edges.rows[edges.size] = row;
+            edges.size++;
+            return true;
+        }
+
+        /**
+         * Rows to reject so that the graph becomes acyclic. A topological sort first
+         * discards every node that cannot be on a cycle; within the remainder, new
+         * edges are re-added in file order and each one from which its parent is
+         * already reachable is rejected.
+         */
+        List<Long> findCycleRows() {
+            Map<Long, Integer> indegree = new HashMap<>();
+            for (Map.Entry<Long, Edges> entry : children.entrySet()) {
+                indegree.putIfAbsent(entry.getKey(), 0);
+                Edges edges = entry.getValue();
+                for (int i = 0; i < edges.size; i++) {
+                    indegree.merge(edges.targets[i], 1, Integer::sum);
+                }
+            }
+            Deque<Long> ready = new ArrayDeque<>();
+            for (Map.Entry<Long, Integer> entry : indegree.entrySet()) {
+                if (entry.getValue() == 0) {
+                    ready.add(entry.getKey());
+                }
+            }
+            while (!ready.isEmpty()) {
+                Long node = ready.poll();
+                indegree.remove(node);
+                Edges edges = children.get(node);
+                if (edges != null) {
+                    for (int i = 0; i < edges.size; i++) {
+                        if (indegree.merge(edges.targets[i], -1, Integer::sum) == 0) {
+                            ready.add(edges.targets[i]);
+                        }
+                    }
+                }
+            }
+            if (indegree.isEmpty()) {
+                return Collections.emptyList();
+            }
+
+            // indegree now holds the nodes on or downstream of a cycle
+            Map<Long, List<Long>> residual = new HashMap<>();
+            List<long[]> newEdges = new ArrayList<>();
+            for (Long parent : indegree.keySet()) {
+                Edges edges = children.get(parent);
+                if (edges == null) {
+                    continue;
+                }
+                for (int i = 0; i < edges.size; i++) {
+                    if (!indegree.containsKey(edges.targets[i])) {
+                        continue;
+                    }
+                    if (edges.rows[i] == 0) {
+                        residual.computeIfAbsent(parent, k -> new ArrayList<>()).add(edges.targets[i]);
+                    } else {
+                        newEdges.add(new long[] {edges.rows[i], parent, edges.targets[i]});
+                    }
+                }
+            }
+            newEdges.sort(Comparator.comparingLong(e -> e[0]));
+            List<Long> rejected = new ArrayList<>();
+            for (long[] edge : newEdges) {
+                if (reachable(residual, edge[2], edge[1])) {
+                    rejected.add(edge[0]);
+                } else {
+                    residual.computeIfAbsent(edge[1], k -> new ArrayList<>()).add(edge[2]);
+                }
+            }
+            return rejected;
+        }
+
+        private static boolean reachable(Map<Long, List<Long>> graph, long from, long to) {
+            Deque<Long> stack = new ArrayDeque<>();
+            Set<Long> visited = new HashSet<>();
+            stack.push(from);
+            while (!stack.isEmpty()) {
+                long node = stack.pop();
+                if (node == to) {
+                    return true;
+                }
+                if (visited.add(node)) {
+                    for (Long next : graph.getOrDefault(node, Collections.emptyList())) {
+                        stack.push(next);
+                    }
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Outcome and throughput of one import.
+     */
+    public static class ImportResult {
+        private final String kind;
+        private final long startNanos = System.nanoTime();
+        private long elapsedNanos;
+        private long rowsRead;
+        private long rowsImported;
+        private long rejectedCount;
+        private final List<RejectedRow> rejectedRows = new ArrayList<>();
+
+        ImportResult(String kind) {
+            this.kind = kind;
+        }
+
+        void reject(long row, String reason) {
+            rejectedCount++;
+            if (rejectedRows.size() < MAX_REPORTED_REJECTS) {
+                rejectedRows.add(new RejectedRow(row, reason));
+            }
+        }
+
+        ImportResult finish() {
+            elapsedNanos = System.nanoTime() - startNanos;
+            rejectedRows.sort(Comparator.comparingLong(RejectedRow::getRow));
+            return this;
+        }
+
+        public long getRowsRead() {
+            return rowsRead;
+        }
+
+        public long getRowsImported() {
+            return rowsImported;
+        }
+
+        public long getRejectedCount() {
+            return rejectedCount;
+        }
+
+        /**
+         * The first rejected rows, by record number (at most 1000 are kept).
+         */
+        public List<RejectedRow> getRejectedRows() {
+            return rejectedRows;
+        }
+
+        public long getElapsedMillis() {
+            return (elapsedNanos > 0 ? elapsedNanos : System.nanoTime() - startNanos) / 1_000_000;
+        }
+
+        public long getRowsPerSecond() {
+            long millis = getElapsedMillis();
+            return millis == 0 ? rowsRead : rowsRead * 1000 / millis;
+        }
+
+        @Override
+        public String toString() {
+            return "Imported " + rowsImported + " of " + rowsRead + " " + kind + " in " + getElapsedMillis()
+                    + " ms (" + getRowsPerSecond() + " rows/s), " + rejectedCount + " rejected";
+        }
+    }
+
+    /**
+     * A row that was not imported, and why.
+     */
+    public static class RejectedRow {
+        private final long row;
+        private final String reason;
+
+        RejectedRow(long row, String reason) {
+            this.row = row;
+            this.reason = reason;
+        }
+
+        /**
+         * Record number in the file, the header being record 1.
+         */
+        public long getRow() {
+            return row;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        @Override
+        public String toString() {
+            return "row " + row + ": " + reason;
+        }
+    }
+}
@@ -0,0 +1,448 @@
+package com.inventorymrp.service;
+
+import com.inventorymrp.dao.BOMItemRepository;
+import com.inventorymrp.dao.InventoryTransactionRepository;
+import com.inventorymrp.dao.ProductRepository;
+import com.inventorymrp.dao.PurchaseOrderRepository;
+import com.inventorymrp.dao.Repositories;
+import com.inventorymrp.model.BOMItem;
+import com.inventorymrp.model.InventoryTransaction;
+import com.inventorymrp.model.Product;
+import com.inventorymrp.model.PurchaseOrder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+
+/**
+ * Generates a synthetic, production-sized dataset: products in BOM levels, BOM
+ * lines, years of stock movements and open purchase orders. Everything is drawn
+ * from one seeded Random, so the same settings always give the same data.
+ *
+ * Products are spread over depth + 1 levels growing towards the bottom; levels 0
+ * to depth - 1 are assemblies, the last level purchased parts. Each assembly gets
+ * fanOut components from the levels below it, the next level in turn or, with
+ * probability shareRatio, any deeper product, which makes components shared
+ * between assemblies. Stock comes from the movement history, which never takes a
+ * balance below zero. Rows are written through the repositories' batch methods in
+ * chunks of batchSize.
+ */
+public class DatasetGenerator {
+    private final ProductRepository productDAO;
+    private final BOMItemRepository bomItemDAO;
+    private final InventoryTransactionRepository transactionDAO;
+    private final PurchaseOrderRepository purchaseOrderDAO;
+    private Consumer<Summary> progressListener;
+
+    public DatasetGenerator() {
+        this(Repositories.products(), Repositories.bomItems(), Repositories.transactions(),
+             Repositories.purchaseOrders());
+    }
+
+    public DatasetGenerator(ProductRepository productDAO, BOMItemRepository bomItemDAO,
+                            InventoryTransactionRepository transactionDAO, PurchaseOrderRepository purchaseOrderDAO) {
+        this.productDAO = productDAO;
+        this.bomItemDAO = bomItemDAO;
+        this.transactionDAO = transactionDAO;
+        this.purchaseOrderDAO = purchaseOrderDAO;
+    }
+
+    /**
+     * @param progressListener called after every written chunk, or null
+     */
+    public void setProgressListener(Consumer<Summary> progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * Generate a dataset into the repositories, which should hold no products yet
+     * (generated codes would clash).
+     */
+    public Summary generate(Settings settings) {
+        int[] levelSizes = levelSizes(settings);
+        Random random = new Random(settings.seed);
+        Summary summary = new Summary();
+
+        // Products, level by level; ids in level order with the level start offsets
+        long[] ids = new long[settings.products];
+        int[] levelStart = new int[levelSizes.length + 1];
+        List<Product> chunk = new ArrayList<>(settings.batchSize);
+        int index = 0;
+        for (int level = 0; level < levelSizes.length; level++) {
+            levelStart[level] = index;
+            boolean assembly = level < settings.depth;
+            for (int i = 1; i <= levelSizes[level]; i++) {
+                chunk.add(product(level, i, assembly, settings.historyDays == 0, random));
+                if (chunk.size() == settings.batchSize) {
+                    index = writeProducts(chunk, ids, index, summary);
+                }
+            }
+            index = writeProducts(chunk, ids, index, summary);
+            if (assembly) {
+                summary.assemblies += levelSizes[level];
+            }
+        }
+        levelStart[levelSizes.length] = index;
+        for (int i = 0; i < levelSizes[0]; i++) {
+            summary.topAssemblyIds.add(ids[i]);
+        }
+
+        writeBom(settings, random, ids, levelStart, summary);
+        if (settings.historyDays > 0) {
+            writeHistory(settings, random, ids, levelStart[settings.depth], summary);
+        }
+        writePurchaseOrders(settings, random, ids, levelStart[settings.depth], summary);
+        return summary.finish();
+    }
+
+    /**
+     * Products per level, growing by fanOut * (1 - shareRatio) per level.
+     */
+    static int[] levelSizes(Settings settings) {
+        if (settings.depth < 1 || settings.fanOut < 1 || settings.products < settings.depth + 1) {
+            throw new IllegalArgumentException("Need depth >= 1, fanOut >= 1 and at least depth + 1 products");
+        }
+        double growth = Math.max(1.0, settings.fanOut * (1 - settings.shareRatio));
+        double[] weights = new double[settings.depth + 1];
+        double total = 0;
+        for (int level = 0; level <= settings.depth; level++) {
+            weights[level] = Math.pow(growth, level);
+            total += weights[level];
+        }
+        int[] sizes = new int[settings.depth + 1];
+        int assigned = 0;
+        for (int level = 0; level < settings.depth; level++) {
+            sizes[level] = Math.max(1, (int) Math.round(settings.products * weights[level] / total));
+            assigned += sizes[level];
+        }
+        sizes[settings.depth] = settings.products - assigned;
+        if (sizes[settings.depth] < 1) {
+            throw new IllegalArgumentException("Too few products for depth " + settings.depth);
+        }
+        return sizes;
+    }
+
+    private Product product(int level, int number, boolean assembly, boolean openingStock, Random random) {
+        Product product = assembly
+                ? new Product(String.format("A%d-%07d", level, number), "Assembly " + level + "-" + number)
+                : new Product(String.format("P-%07d", number), "Part " + number);
+        product.setIsAssembly(assembly);
+        product.setNonPurchase(assembly);
+        product.setUnit(assembly ? "pcs" : random.nextInt(5) == 0 ? "kg" : "pcs");
+        product.setUnitCost(BigDecimal.valueOf(50 + random.nextInt(50_000), 2));
+        product.setReorderLevel(assembly ? 0 : random.nextInt(100));
+        product.setOrderLeadTime((double) (assembly ? 1 + random.nextInt(5) : 1 + random.nextInt(30)));
+        product.setItemLeadTime(random.nextInt(50) / 1000.0);
+        product.setStockQuantity(openingStock ? random.nextInt(500) : 0);
+        return product;
+    }
+
+    private int writeProducts(List<Product> chunk, long[] ids, int index, Summary summary) {
+        if (chunk.isEmpty()) {
+            return index;
+        }
+        productDAO.createAll(chunk);
+        for (Product product : chunk) {
+            ids[index++] = product.getId();
+        }
+        summary.products += chunk.size();
+        chunk.clear();
+        chunkDone(summary);
+        return index;
+    }
+
+    private void writeBom(Settings settings, Random random, long[] ids, int[] levelStart, Summary summary) {
+        List<BOMItem> chunk = new ArrayList<>(settings.batchSize);
+        long[] chosen = new long[settings.fanOut];
+        for (int level = 0; level < settings.depth; level++) {
+            int nextStart = levelStart[level + 1];
+            int nextSize = levelStart[level + 2] - nextStart;
+            int deeperSize = ids.length - nextStart;
+            int cursor = 0;
+            for (int parent = levelStart[level]; parent < nextStart; parent++) {
+                int count = 0;
+                for (int k = 0; k < settings.fanOut; k++) {
+                    long child;
+                    if (random.nextDouble() < settings.shareRatio) {
+                        child = ids[nextStart + random.nextInt(deeperSize)];
+                    } else {
+                        child = ids[nextStart + cursor];
+                        cursor = (cursor + 1) % nextSize;
+                    }
+                    if (contains(chosen, count, child)) {
+                        continue;
+                    }
+                    chosen[count++] = child;
+                    BOMItem line = new BOMItem(ids[parent], child, quantity(settings, random));
+                    line.setSequenceNumber(count * 10);
+                    chunk.add(line);
+                    if (chunk.size() == settings.batchSize) {
+                        writeBomItems(chunk, summary);
+                    }
+                }
+            }
+        }
+        writeBomItems(chunk, summary);
+    }
+
+    private static boolean contains(long[] values, int count, long value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static BigDecimal quantity(Settings settings, Random random) {
+        if (random.nextDouble() < settings.fractionalRatio) {
+            return BigDecimal.valueOf(1 + random.nextInt(3000), 3);
+        }
+        return BigDecimal.valueOf(1 + random.nextInt(3));
+    }
+
+    private void writeBomItems(List<BOMItem> chunk, Summary summary) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        bomItemDAO.createAll(chunk);
+        summary.bomItems += chunk.size();
+        chunk.clear();
+        chunkDone(summary);
+    }
+
+    /**
+     * Movements spread over the days before endDate, mostly on purchased parts:
+     * receipts, issues never exceeding the balance, and small count corrections.
+     */
+    private void writeHistory(Settings settings, Random random, long[] ids, int firstPart, Summary summary) {
+        int[] balances = new int[ids.length];
+        boolean[] allowNegative = new boolean[settings.batchSize];
+        Arrays.fill(allowNegative, true);
+        List<InventoryTransaction> chunk = new ArrayList<>(settings.batchSize);
+        LocalDate day = settings.endDate.minusDays(settings.historyDays);
+        for (; day.isBefore(settings.endDate); day = day.plusDays(1)) {
+            LocalDateTime midnight = day.atStartOfDay();
+            for (int i = 0; i < settings.transactionsPerDay; i++) {
+                int product = random.nextInt(5) > 0 && firstPart < ids.length
+                        ? firstPart + random.nextInt(ids.length - firstPart)
+                        : random.nextInt(ids.length);
+                int balance = balances[product];
+                double draw = random.nextDouble();
+                InventoryTransaction t;
+                if (balance == 0 || draw < 0.45) {
+                    int quantity = 10 + random.nextInt(191);
+                    t = new InventoryTransaction(ids[product], "IN", quantity);
+                    t.setReference(product < firstPart ? "Production" : "PO receipt");
+                    balances[product] += quantity;
+                } else if (draw < 0.97) {
+                    int quantity = 1 + random.nextInt(Math.min(balance, 50));
+                    t = new InventoryTransaction(ids[product], "OUT", quantity);
+                    t.setReference("Issue");
+                    balances[product] -= quantity;
+                } else {
+                    int delta = random.nextInt(Math.min(balance, 5) + 6) - Math.min(balance, 5);
+                    if (delta == 0) {
+                        delta = 1;
+                    }
+                    t = new InventoryTransaction(ids[product], "ADJUSTMENT", delta);
+                    t.setReference("Cycle count");
+                    balances[product] += delta;
+                }
+                t.setTransactionDate(midnight.plusSeconds(random.nextInt(86_400)));
+                chunk.add(t);
+                if (chunk.size() == settings.batchSize) {
+                    writeTransactions(chunk, allowNegative, summary);
+                }
+            }
+        }
+        writeTransactions(chunk, allowNegative, summary);
+    }
+
+    private void writeTransactions(List<InventoryTransaction> chunk, boolean[] allowNegative, Summary summary) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        // The history keeps every balance non-negative itself, so no guard is needed
+        transactionDAO.recordMovements(chunk, chunk.size() == allowNegative.length
+                ? allowNegative : Arrays.copyOf(allowNegative, chunk.size()));
+        summary.transactions += chunk.size();
+        chunk.clear();
+        chunkDone(summary);
+    }
+
+    private void writePurchaseOrders(Settings settings, Random random, long[] ids, int firstPart, Summary summary) {
+        List<PurchaseOrder> chunk = new ArrayList<>(settings.batchSize);
+        int parts = ids.length - firstPart;
+        for (int i = 1; i <= settings.openPurchaseOrders; i++) {
+            LocalDate orderDate = settings.endDate.minusDays(random.nextInt(30));
+            PurchaseOrder po = new PurchaseOrder(ids[firstPart + random.nextInt(parts)], 10 + random.nextInt(491),
+                                                 orderDate.plusDays(1 + random.nextInt(45)));
+            po.setOrderDate(orderDate);
+            po.setStatus(random.nextBoolean() ? "PENDING" : "ORDERED");
+            po.setSupplier("Supplier-" + (1 + random.nextInt(50)));
+            po.setReference("GEN-" + i);
+            chunk.add(po);
+            if (chunk.size() == settings.batchSize) {
+                writePurchaseOrderChunk(chunk, summary);
+            }
+        }
+        writePurchaseOrderChunk(chunk, summary);
+    }
+
+    private void writePurchaseOrderChunk(List<PurchaseOrder> chunk, Summary summary) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        purchaseOrderDAO.createAll(chunk);
+        summary.purchaseOrders += chunk.size();
+        chunk.clear();
+        chunkDone(summary);
+    }
+
+    private void chunkDone(Summary summary) {
+        if (progressListener != null) {
+            progressListener.accept(summary);
+        }
+    }
+
+    /**
+     * Size and shape of a generated dataset. The defaults make a small dataset
+     * suitable for tests.
+     */
+    public static class Settings {
+        private long seed = 42;
+        private int products = 1000;
+        private int depth = 4;
+        private int fanOut = 5;
+        private double shareRatio = 0.3;
+        private double fractionalRatio = 0.2;
+        private int historyDays = 365;
+        private int transactionsPerDay = 20;
+        private int openPurchaseOrders = 100;
+        private LocalDate endDate = LocalDate.now();
+        private int batchSize = 5000;
+
+        public Settings seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /** Total number of products, assemblies included. */
+        public Settings products(int products) {
+            this.products = products;
+            return this;
+        }
+
+        /** Number of assembly levels above the purchased parts. */
+        public Settings depth(int depth) {
+            this.depth = depth;
+            return this;
+        }
+
+        /** Components per assembly. */
+        public Settings fanOut(int fanOut) {
+            this.fanOut = fanOut;
+            return this;
+        }
+
+        /** Probability that a component is drawn from all deeper levels rather than the next one. */
+        public Settings shareRatio(double shareRatio) {
+            this.shareRatio = shareRatio;
+            return this;
+        }
+
+        /** Share of BOM lines with fractional quantities. */
+        public Settings fractionalRatio(double fractionalRatio) {
+            this.fractionalRatio = fractionalRatio;
+            return this;
+        }
+
+        /** Days of movement history before endDate; 0 gives random opening balances instead. */
+        public Settings historyDays(int historyDays) {
+            this.historyDays = historyDays;
+            return this;
+        }
+
+        public Settings transactionsPerDay(int transactionsPerDay) {
+            this.transactionsPerDay = transactionsPerDay;
+            return this;
+        }
+
+        public Settings openPurchaseOrders(int openPurchaseOrders) {
+            this.openPurchaseOrders = openPurchaseOrders;
+            return this;
+        }
+
+        /** Day after the last day of history; fix it for data that does not depend on today. */
+        public Settings endDate(LocalDate endDate) {
+            this.endDate = endDate;
+            return this;
+        }
+
+        /** Rows per batch and transaction. */
+        public Settings batchSize(int batchSize) {
+            this.batchSize = batchSize;
+            return this;
+        }
+    }
+
+    /**
+     * Rows written so far, and the top-level assemblies to plan for.
+     */
+    public static class Summary {
+        private final long startNanos = System.nanoTime();
+        private long elapsedNanos;
+        private int products;
+        private int assemblies;
+        private long bomItems;
+        private long transactions;
+        private int purchaseOrders;
+        private final List<Long> topAssemblyIds = new ArrayList<>();
+
+        Summary finish() {
+            elapsedNanos = System.nanoTime() - startNanos;
+            return this;
+        }
+
+        public int getProducts() {
+            return products;
+        }
+
+        public int getAssemblies() {
+            return assemblies;
+        }
+
+        public long getBomItems() {
+            return bomItems;
+        }
+
+        public long getTransactions() {
+            return transactions;
+        }
+
+        public int getPurchaseOrders() {
+            return purchaseOrders;
+        }
+
+        public List<Long> getTopAssemblyIds() {
+            return topAssemblyIds;
+        }
+
+        public long getElapsedMillis() {
+            return (elapsedNanos > 0 ? elapsedNanos : System.nanoTime() - startNanos) / 1_000_000;
+        }
+
+        @Override
+        public String toString() {
+            return products + " products (" + assemblies + " assemblies), " + bomItems + " BOM lines, "
+                    + transactions + " transactions, " + purchaseOrders + " purchase orders in "
+                    + getElapsedMillis() + " ms";
+        }
+    }
+}
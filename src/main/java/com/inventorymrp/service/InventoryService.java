@@ -1,99 +1,156 @@
 package com.inventorymrp.service;
 
-import com.inventorymrp.dao.InventoryTransactionDAO;
-import com.inventorymrp.dao.ProductDAO;
+import com.inventorymrp.dao.InventoryTransactionRepository;
+import com.inventorymrp.dao.ProductRepository;
+import com.inventorymrp.dao.Repositories;
 import com.inventorymrp.model.InventoryTransaction;
 import com.inventorymrp.model.Product;
+import com.inventorymrp.util.Metrics;
+import com.inventorymrp.util.StripedLock;
 
-import java.time.LocalDateTime;
+import java.util.concurrent.CompletionException;
 
 /**
  * Service for managing inventory operations.
+ * Movements for the same product are serialized in-process through a striped lock
+ * shared by all instances, so threads posting to a hot SKU queue here instead of
+ * contending on the database row. Each movement is recorded as a
+ * {@link StockMovementEvent} in Flight Recorder recordings.
  */
 public class InventoryService {
-    private final ProductDAO productDAO;
-    private final InventoryTransactionDAO transactionDAO;
+    private static final StripedLock STOCK_LOCKS =
+            new StripedLock(Integer.getInteger("inventorymrp.stockLockStripes", 64));
+
+    private final ProductRepository productDAO;
+    private final InventoryTransactionRepository transactionDAO;
+    private final StripedLock stockLocks;
+    private final StockMovementJournal journal;
 
     public InventoryService() {
-        this.productDAO = new ProductDAO();
-        this.transactionDAO = new InventoryTransactionDAO();
+        this(Repositories.products(), Repositories.transactions());
+    }
+
+    public InventoryService(ProductRepository productDAO, InventoryTransactionRepository transactionDAO) {
+        this(productDAO, transactionDAO, STOCK_LOCKS);
+    }
+
+    /**
+     * @param stockLocks per-product locks for movements, or null to leave all serialization to the database
+     */
+    public InventoryService(ProductRepository productDAO, InventoryTransactionRepository transactionDAO,
+                            StripedLock stockLocks) {
+        this(productDAO, transactionDAO, stockLocks, null);
     }
 
-    public InventoryService(ProductDAO productDAO, InventoryTransactionDAO transactionDAO) {
+    /**
+     * @param journal group-commit journal that addStock and removeStock go through, or null
+     * to commit each movement on its own
+     */
+    public InventoryService(ProductRepository productDAO, InventoryTransactionRepository transactionDAO,
+                            StripedLock stockLocks,
+                            StockMovementJournal journal) {
         this.productDAO = productDAO;
         this.transactionDAO = transactionDAO;
+        this.stockLocks = stockLocks;
+        this.journal = journal;
+    }
+
+    public StripedLock getStockLocks() {
+        return stockLocks;
     }
 
     /**
      * Add stock to inventory (e.g., after receiving goods).
      */
     public void addStock(Long productId, Integer quantity, String reference) {
-        Product product = productDAO.findById(productId);
-        if (product == null) {
-            throw new IllegalArgumentException("Product not found: " + productId);
-        }
-
-        // Update stock quantity
-        Integer newQuantity = product.getStockQuantity() + quantity;
-        productDAO.updateStockQuantity(productId, newQuantity);
-
-        // Record transaction
-        InventoryTransaction transaction = new InventoryTransaction(productId, "IN", quantity);
-        transaction.setReference(reference);
-        transactionDAO.create(transaction);
+        Metrics.run("InventoryService.addStock", () -> {
+            StockMovementEvent event = StockMovementEvent.start();
+            boolean succeeded = false;
+            try {
+                InventoryTransaction transaction = new InventoryTransaction(productId, "IN", quantity);
+                transaction.setReference(reference);
+                if (!lockedMovement(transaction, true)) {
+                    throw new IllegalArgumentException("Product not found: " + productId);
+                }
+                succeeded = true;
+            } finally {
+                event.finish(productId, "IN", quantity, succeeded);
+            }
+        });
     }
 
     /**
      * Remove stock from inventory (e.g., after production consumption).
+     * Refused atomically if it would take the stock below zero.
      */
     public void removeStock(Long productId, Integer quantity, String reference) {
-        Product product = productDAO.findById(productId);
-        if (product == null) {
-            throw new IllegalArgumentException("Product not found: " + productId);
-        }
-
-        if (product.getStockQuantity() < quantity) {
-            throw new IllegalStateException("Insufficient stock for product: " + product.getCode());
-        }
-
-        // Update stock quantity
-        Integer newQuantity = product.getStockQuantity() - quantity;
-        productDAO.updateStockQuantity(productId, newQuantity);
-
-        // Record transaction
-        InventoryTransaction transaction = new InventoryTransaction(productId, "OUT", quantity);
-        transaction.setReference(reference);
-        transactionDAO.create(transaction);
+        Metrics.run("InventoryService.removeStock", () -> {
+            StockMovementEvent event = StockMovementEvent.start();
+            boolean succeeded = false;
+            try {
+                InventoryTransaction transaction = new InventoryTransaction(productId, "OUT", quantity);
+                transaction.setReference(reference);
+                if (!lockedMovement(transaction, false)) {
+                    Product product = productDAO.findById(productId, true);
+                    if (product == null) {
+                        throw new IllegalArgumentException("Product not found: " + productId);
+                    }
+                    throw new IllegalStateException("Insufficient stock for product: " + product.getCode());
+                }
+                succeeded = true;
+            } finally {
+                event.finish(productId, "OUT", quantity, succeeded);
+            }
+        });
     }
 
     /**
      * Adjust stock (e.g., for corrections or cycle counts).
      */
     public void adjustStock(Long productId, Integer newQuantity, String reference) {
-        Product product = productDAO.findById(productId);
-        if (product == null) {
-            throw new IllegalArgumentException("Product not found: " + productId);
-        }
-
-        Integer difference = newQuantity - product.getStockQuantity();
-        
-        // Update stock quantity
-        productDAO.updateStockQuantity(productId, newQuantity);
+        Metrics.run("InventoryService.adjustStock", () -> {
+            StockMovementEvent event = StockMovementEvent.start();
+            boolean succeeded = false;
+            try {
+                InventoryTransaction transaction = stockLocks == null
+                        ? transactionDAO.recordAdjustment(productId, newQuantity, reference)
+                        : stockLocks.withLock(productId, () -> transactionDAO.recordAdjustment(productId, newQuantity, reference));
+                if (transaction == null) {
+                    throw new IllegalArgumentException("Product not found: " + productId);
+                }
+                succeeded = true;
+            } finally {
+                event.finish(productId, "ADJUSTMENT", newQuantity, succeeded);
+            }
+        });
+    }
 
-        // Record transaction
-        InventoryTransaction transaction = new InventoryTransaction(productId, "ADJUSTMENT", difference);
-        transaction.setReference(reference);
-        transactionDAO.create(transaction);
+    private boolean lockedMovement(InventoryTransaction transaction, boolean allowNegative) {
+        if (journal != null) {
+            // The journal's single writer already serializes movements
+            try {
+                return journal.submit(transaction, allowNegative).join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+        if (stockLocks == null) {
+            return transactionDAO.recordMovement(transaction, allowNegative);
+        }
+        return stockLocks.withLock(transaction.getProductId(),
+                () -> transactionDAO.recordMovement(transaction, allowNegative));
     }
 
     /**
      * Check if product is below reorder level.
      */
     public boolean isBelowReorderLevel(Long productId) {
-        Product product = productDAO.findById(productId);
-        if (product == null) {
-            return false;
-        }
-        return product.getStockQuantity() < product.getReorderLevel();
+        return Metrics.time("InventoryService.isBelowReorderLevel", () -> {
+            Product product = productDAO.findById(productId);
+            if (product == null) {
+                return false;
+            }
+            return product.getStockQuantity() < product.getReorderLevel();
+        });
     }
 }
@@ -0,0 +1,52 @@
+package com.inventorymrp.service;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event spanning one MRP calculation by {@link MRPService}.
+ * Fields are only filled in when the event is recorded.
+ */
+@Name("com.inventorymrp.MRPRun")
+@Label("MRP Run")
+@Category({"Inventory MRP", "Planning"})
+@Description("Material requirements, availability, purchase order or lead time calculation for one product")
+@StackTrace(false)
+class MRPRunEvent extends Event {
+    @Label("Operation")
+    String operation;
+
+    @Label("Product Id")
+    long productId;
+
+    @Label("Product Code")
+    String productCode;
+
+    @Label("Demand Quantity")
+    int demandQuantity;
+
+    @Label("BOM Lines")
+    @Description("BOM lines loaded below the product")
+    int bomLines;
+
+    @Label("Nodes Visited")
+    @Description("BOM nodes walked by the calculation, shared sub-assemblies once per use")
+    long nodesVisited;
+
+    @Label("SQL Statements")
+    @Description("SQL statements executed to load the product structure, none for in-memory repositories")
+    int queries;
+
+    @Label("Succeeded")
+    boolean succeeded;
+
+    static MRPRunEvent start() {
+        MRPRunEvent event = new MRPRunEvent();
+        event.begin();
+        return event;
+    }
+}
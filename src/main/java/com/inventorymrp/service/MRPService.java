@@ -1,32 +1,47 @@
 package com.inventorymrp.service;
 
-import com.inventorymrp.dao.BOMItemDAO;
-import com.inventorymrp.dao.ProductDAO;
-import com.inventorymrp.dao.PurchaseOrderDAO;
+import com.inventorymrp.dao.BOMItemRepository;
+import com.inventorymrp.dao.ProductRepository;
+import com.inventorymrp.dao.PurchaseOrderRepository;
+import com.inventorymrp.dao.Repositories;
 import com.inventorymrp.model.BOMItem;
+import com.inventorymrp.model.PlanLine;
 import com.inventorymrp.model.Product;
 import com.inventorymrp.model.PurchaseOrder;
+import com.inventorymrp.util.Metrics;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * MRP (Material Requirements Planning) Service. Calculates material
- * requirements based on production demand and BOM.
+ * requirements based on production demand and BOM. Each calculation is
+ * recorded as an {@link MRPRunEvent} in Flight Recorder recordings.
+ *
+ * The calculations taking a cancelled check stop with a {@link CancellationException}
+ * once it returns true; it is checked after each loading step and at every BOM node.
  */
 public class MRPService {
-	private final ProductDAO productDAO;
-	private final BOMItemDAO bomItemDAO;
-	private final PurchaseOrderDAO purchaseOrderDAO;
+	private static final BooleanSupplier NOT_CANCELLED = () -> false;
+
+	private final ProductRepository productDAO;
+	private final BOMItemRepository bomItemDAO;
+	private final PurchaseOrderRepository purchaseOrderDAO;
 
 	public MRPService() {
-		this.productDAO = new ProductDAO();
-		this.bomItemDAO = new BOMItemDAO();
-		this.purchaseOrderDAO = new PurchaseOrderDAO();
+		this.productDAO = Repositories.products();
+		this.bomItemDAO = Repositories.bomItems();
+		this.purchaseOrderDAO = Repositories.purchaseOrders();
 	}
 
-	public MRPService(ProductDAO productDAO, BOMItemDAO bomItemDAO, PurchaseOrderDAO purchaseOrderDAO) {
+	public MRPService(ProductRepository productDAO, BOMItemRepository bomItemDAO,
+			PurchaseOrderRepository purchaseOrderDAO) {
 		this.productDAO = productDAO;
 		this.bomItemDAO = bomItemDAO;
 		this.purchaseOrderDAO = purchaseOrderDAO;
@@ -37,23 +52,101 @@ public class MRPService {
 	 * This is the main MRP calculation that determines dependent demand.
 	 */
 	public Map<Long, Integer> calculateMaterialRequirements(Long productId, Integer demandQuantity) {
+		return calculateMaterialRequirements(productId, demandQuantity, NOT_CANCELLED);
+	}
+
+	public Map<Long, Integer> calculateMaterialRequirements(Long productId, Integer demandQuantity,
+			BooleanSupplier cancelled) {
+		return run("MRPService.calculateMaterialRequirements", productId, demandQuantity, cancelled,
+				explosion -> requirements(explosion, productId, demandQuantity));
+	}
+
+	/**
+	 * Run a calculation on the structure below productId, measured by {@link Metrics}
+	 * and recorded as an {@link MRPRunEvent} when Flight Recorder is on.
+	 */
+	private <T> T run(String name, Long productId, Integer demandQuantity, BooleanSupplier cancelled,
+			Function<Explosion, T> calculation) {
+		return run(name, productId, demandQuantity, () -> explode(productId, cancelled), calculation);
+	}
+
+	private <T> T run(String name, Long productId, Integer demandQuantity, Supplier<Explosion> loader,
+			Function<Explosion, T> calculation) {
+		return Metrics.time(name, () -> {
+			MRPRunEvent event = MRPRunEvent.start();
+			Explosion explosion = null;
+			boolean succeeded = false;
+			try {
+				explosion = loader.get();
+				T result = calculation.apply(explosion);
+				succeeded = true;
+				return result;
+			} finally {
+				event.end();
+				if (event.shouldCommit()) {
+					Product product = explosion != null ? explosion.products.get(productId) : null;
+					event.operation = name.substring(name.indexOf('.') + 1);
+					event.productId = productId != null ? productId : 0L;
+					event.productCode = product != null ? product.getCode() : null;
+					event.demandQuantity = demandQuantity != null ? demandQuantity : 0;
+					if (explosion != null) {
+						event.bomLines = explosion.bomLines;
+						event.nodesVisited = explosion.nodesVisited;
+						event.queries = explosion.queries;
+					}
+					event.succeeded = succeeded;
+					event.commit();
+				}
+			}
+		});
+	}
+
+	/**
+	 * Load the product structure below productId: its BOM lines with one query per
+	 * level and every product in it with one more, instead of two queries per BOM line.
+	 */
+	private Explosion explode(Long productId, BooleanSupplier cancelled) {
+		Explosion explosion = new Explosion();
+		explosion.cancelled = cancelled;
+		explosion.checkCancelled();
+		Set<Long> productIds = new HashSet<>();
+		productIds.add(productId);
+		AtomicInteger statements = new AtomicInteger();
+		List<BOMItem> bomItems = bomItemDAO.findExplosion(productId, statements);
+		explosion.checkCancelled();
+		for (BOMItem bomItem : bomItems) {
+			explosion.components.computeIfAbsent(bomItem.getParentProductId(), k -> new ArrayList<>()).add(bomItem);
+			productIds.add(bomItem.getChildProductId());
+			explosion.bomLines++;
+		}
+		explosion.products.putAll(productDAO.findByIds(productIds, statements));
+		explosion.queries = statements.get();
+		explosion.checkCancelled();
+		return explosion;
+	}
+
+	private Map<Long, Integer> requirements(Explosion explosion, Long productId, Integer demandQuantity) {
 		Map<Long, Integer> requirements = new HashMap<>();
-		calculateRequirementsRecursive(productId, demandQuantity, requirements);
+		calculateRequirementsRecursive(explosion, productId, demandQuantity, requirements);
 		return requirements;
 	}
 
 	/**
 	 * Recursive method to calculate requirements through the BOM hierarchy.
 	 */
-	private void calculateRequirementsRecursive(Long productId, Integer quantity, Map<Long, Integer> requirements) {
-		Product product = productDAO.findById(productId);
+	private void calculateRequirementsRecursive(Explosion explosion, Long productId, Integer quantity,
+			Map<Long, Integer> requirements) {
+		Product product = explosion.products.get(productId);
+		explosion.nodesVisited++;
+		explosion.checkCancelled();
 		if (product == null) {
 			return;
 		}
 
 		// If this product is an assembly, calculate requirements for its components
 		if (product.getIsAssembly()) {
-			List<BOMItem> bomItems = bomItemDAO.findByParentProductId(productId);
+			explosion.enter(product);
+			List<BOMItem> bomItems = explosion.componentsOf(productId);
 			for (BOMItem bomItem : bomItems) {
 				// Calculate required quantity of this component
 				int requiredQty = bomItem.getQuantity().multiply(new BigDecimal(quantity)).intValue();
@@ -62,8 +155,9 @@ public class MRPService {
 
 				// Recursively calculate for sub-assemblies or add to requirements for
 				// components
-				calculateRequirementsRecursive(childId, requiredQty, requirements);
+				calculateRequirementsRecursive(explosion, childId, requiredQty, requirements);
 			}
+			explosion.leave(productId);
 		} //else {
 		
 		// For non-assembly items (leaf components), add to requirements
@@ -76,67 +170,151 @@ public class MRPService {
 	 * Generate purchase orders based on material requirements and current stock.
 	 */
 	public List<PurchaseOrder> generatePurchaseOrders(Long productId, Integer demandQuantity) {
-		List<PurchaseOrder> purchaseOrders = new ArrayList<>();
-		Map<Long, Integer> requirements = calculateMaterialRequirements(productId, demandQuantity);
+		return generatePurchaseOrders(productId, demandQuantity, NOT_CANCELLED);
+	}
 
-		for (Map.Entry<Long, Integer> entry : requirements.entrySet()) {
-			Long materialId = entry.getKey();
-			Integer requiredQty = entry.getValue();
+	public List<PurchaseOrder> generatePurchaseOrders(Long productId, Integer demandQuantity,
+			BooleanSupplier cancelled) {
+		return run("MRPService.generatePurchaseOrders", productId, demandQuantity, cancelled, explosion -> {
+			List<PurchaseOrder> purchaseOrders = new ArrayList<>();
+			Map<Long, Integer> requirements = requirements(explosion, productId, demandQuantity);
 
-			Product material = productDAO.findById(materialId);
-			if (material == null) {
-				continue;
-			}
+			for (Map.Entry<Long, Integer> entry : requirements.entrySet()) {
+				Long materialId = entry.getKey();
+				Integer requiredQty = entry.getValue();
 
-			if (material.getNonPurchase())
-				continue;
+				Product material = explosion.products.get(materialId);
+				if (material == null) {
+					continue;
+				}
+
+				if (material.getNonPurchase())
+					continue;
 			
-			// Calculate net requirement (required - available stock)
-			Integer netRequirement = requiredQty - material.getStockQuantity();
-
-			if (netRequirement > 0) {
-				// Create purchase order
-				//long leadTimeDays = material.getOrderLeadTime() != null ? Math.round(material.getOrderLeadTime()) : 0;
-				long leadTimeDays = (long) calculateLeadTimeRecursive(material.getId(), netRequirement, true);
-				LocalDate expectedDelivery = LocalDate.now().plusDays(leadTimeDays);
-				PurchaseOrder po = new PurchaseOrder(materialId, netRequirement, expectedDelivery);
-				po.setReference("MRP-" + productId + "-" + System.currentTimeMillis());
-				purchaseOrders.add(po);
+				// Calculate net requirement (required - available stock)
+				Integer netRequirement = requiredQty - material.getStockQuantity();
+
+				if (netRequirement > 0) {
+					// Create purchase order
+					//long leadTimeDays = material.getOrderLeadTime() != null ? Math.round(material.getOrderLeadTime()) : 0;
+					long leadTimeDays = (long) leadTimeRecursive(explosion, material.getId(), netRequirement, true);
+					LocalDate expectedDelivery = LocalDate.now().plusDays(leadTimeDays);
+					PurchaseOrder po = new PurchaseOrder(materialId, netRequirement, expectedDelivery);
+					po.setReference("MRP-" + productId + "-" + System.currentTimeMillis());
+					purchaseOrders.add(po);
+				}
 			}
-		}
 
-		return purchaseOrders;
+			return purchaseOrders;
+		});
 	}
 
 	/**
-	 * Check if sufficient materials are available to produce the demanded quantity.
+	 * Requirements, availability and purchase order proposals of a product in one
+	 * calculation: one line per required material, from a single explosion.
 	 */
-	public Map<Long, MaterialAvailability> checkMaterialAvailability(Long productId, Integer demandQuantity) {
-		Map<Long, MaterialAvailability> availability = new HashMap<>();
-		Map<Long, Integer> requirements = calculateMaterialRequirements(productId, demandQuantity);
+	public List<PlanLine> plan(Long productId, Integer demandQuantity) {
+		return run("MRPService.plan", productId, demandQuantity, NOT_CANCELLED,
+				explosion -> planLines(explosion, productId, demandQuantity));
+	}
+
+	/**
+	 * As {@link #plan(Long, Integer)}, on a structure loaded up front with
+	 * {@link #loadStructure()}, without any query.
+	 * @throws IllegalStateException if the BOM below productId contains a cycle
+	 */
+	public List<PlanLine> plan(Structure structure, Long productId, Integer demandQuantity) {
+		return run("MRPService.plan", productId, demandQuantity,
+				() -> new Explosion(structure.products, structure.components),
+				explosion -> planLines(explosion, productId, demandQuantity));
+	}
 
-		for (Map.Entry<Long, Integer> entry : requirements.entrySet()) {
-			Long materialId = entry.getKey();
-			Integer requiredQty = entry.getValue();
+	/**
+	 * Load every product and BOM line, to plan many products with
+	 * {@link #plan(Structure, Long, Integer)}.
+	 */
+	public Structure loadStructure() {
+		return Metrics.time("MRPService.loadStructure", () -> {
+			Structure structure = new Structure();
+			for (Product product : productDAO.findAll()) {
+				structure.products.put(product.getId(), product);
+			}
+			bomItemDAO.scanAll(bomItem -> {
+				structure.components.computeIfAbsent(bomItem.getParentProductId(), k -> new ArrayList<>()).add(bomItem);
+				structure.componentIds.add(bomItem.getChildProductId());
+				structure.bomLines++;
+			});
+			Comparator<BOMItem> bySequence = Comparator.comparing(BOMItem::getSequenceNumber,
+					Comparator.nullsLast(Comparator.naturalOrder()));
+			for (List<BOMItem> bomItems : structure.components.values()) {
+				bomItems.sort(bySequence);
+			}
+			return structure;
+		});
+	}
 
-			Product material = productDAO.findById(materialId);
+	private List<PlanLine> planLines(Explosion explosion, Long productId, Integer demandQuantity) {
+		List<PlanLine> lines = new ArrayList<>();
+		LocalDate today = LocalDate.now();
+		for (Map.Entry<Long, Integer> entry : requirements(explosion, productId, demandQuantity).entrySet()) {
+			Product material = explosion.products.get(entry.getKey());
 			if (material == null) {
 				continue;
 			}
+			int required = entry.getValue();
+			PlanLine line = new PlanLine();
+			line.setAssemblyId(productId);
+			line.setProductId(material.getId());
+			line.setRequiredQuantity(required);
+			line.setAvailableQuantity(material.getStockQuantity());
+			line.setShortage(Math.max(0, required - material.getStockQuantity()));
+			// Same proposal as generatePurchaseOrders
+			if (!material.getNonPurchase() && line.getShortage() > 0) {
+				long leadTimeDays = (long) leadTimeRecursive(explosion, material.getId(), line.getShortage(), true);
+				line.setOrderQuantity(line.getShortage());
+				line.setExpectedDeliveryDate(today.plusDays(leadTimeDays));
+			}
+			lines.add(line);
+		}
+		return lines;
+	}
 
-			MaterialAvailability avail = new MaterialAvailability();
-			avail.setProductId(materialId);
-			avail.setProductCode(material.getCode());
-			avail.setProductName(material.getName());
-			avail.setRequiredQuantity(requiredQty);
-			avail.setAvailableQuantity(material.getStockQuantity());
-			avail.setShortage(Math.max(0, requiredQty - material.getStockQuantity()));
-			avail.setSufficient(material.getStockQuantity() >= requiredQty);
+	/**
+	 * Check if sufficient materials are available to produce the demanded quantity.
+	 */
+	public Map<Long, MaterialAvailability> checkMaterialAvailability(Long productId, Integer demandQuantity) {
+		return checkMaterialAvailability(productId, demandQuantity, NOT_CANCELLED);
+	}
 
-			availability.put(materialId, avail);
-		}
+	public Map<Long, MaterialAvailability> checkMaterialAvailability(Long productId, Integer demandQuantity,
+			BooleanSupplier cancelled) {
+		return run("MRPService.checkMaterialAvailability", productId, demandQuantity, cancelled, explosion -> {
+			Map<Long, MaterialAvailability> availability = new HashMap<>();
+			Map<Long, Integer> requirements = requirements(explosion, productId, demandQuantity);
+
+			for (Map.Entry<Long, Integer> entry : requirements.entrySet()) {
+				Long materialId = entry.getKey();
+				Integer requiredQty = entry.getValue();
+
+				Product material = explosion.products.get(materialId);
+				if (material == null) {
+					continue;
+				}
+
+				MaterialAvailability avail = new MaterialAvailability();
+				avail.setProductId(materialId);
+				avail.setProductCode(material.getCode());
+				avail.setProductName(material.getName());
+				avail.setRequiredQuantity(requiredQty);
+				avail.setAvailableQuantity(material.getStockQuantity());
+				avail.setShortage(Math.max(0, requiredQty - material.getStockQuantity()));
+				avail.setSufficient(material.getStockQuantity() >= requiredQty);
+
+				availability.put(materialId, avail);
+			}
 
-		return availability;
+			return availability;
+		});
 	}
 
 	/**
@@ -146,7 +324,11 @@ public class MRPService {
 	 * @param exclstock exclude existing stocks while calculating the lead time
 	 */
 	public double calculateLeadTime(Long productId, Integer quantity, boolean exclstock) {
-		Product product = productDAO.findById(productId);
+		return Metrics.time("MRPService.calculateLeadTime",
+				() -> leadTime(productDAO.findById(productId), quantity, exclstock));
+	}
+
+	private double leadTime(Product product, Integer quantity, boolean exclstock) {
 		if (product == null) {
 			return 0.0;
 		}
@@ -174,9 +356,20 @@ public class MRPService {
 	 * and summing up the longest lead time in addition to itself
 	 * @param exclstock exclude existing stocks while calculating the lead time
 	 */
-	public double calculateLeadTimeRecursive(Long productId, Integer quantity, boolean exclstock) { 
+	public double calculateLeadTimeRecursive(Long productId, Integer quantity, boolean exclstock) {
+		return calculateLeadTimeRecursive(productId, quantity, exclstock, NOT_CANCELLED);
+	}
+
+	public double calculateLeadTimeRecursive(Long productId, Integer quantity, boolean exclstock,
+			BooleanSupplier cancelled) {
+		return run("MRPService.calculateLeadTimeRecursive", productId, quantity, cancelled,
+				explosion -> leadTimeRecursive(explosion, productId, quantity, exclstock));
+	}
 
-		Product product = productDAO.findById(productId);
+	private double leadTimeRecursive(Explosion explosion, Long productId, Integer quantity, boolean exclstock) {
+		Product product = explosion.products.get(productId);
+		explosion.nodesVisited++;
+		explosion.checkCancelled();
 		if (product == null) {
 			return 0.0;
 		}
@@ -184,7 +377,8 @@ public class MRPService {
 		// If this product is an assembly, calculate lead time for its components
 		double longestChildLeadTime = 0.0;
 		if (product.getIsAssembly()) {
-			List<BOMItem> bomItems = bomItemDAO.findByParentProductId(productId);			
+			explosion.enter(product);
+			List<BOMItem> bomItems = explosion.componentsOf(productId);
 			for (BOMItem bomItem : bomItems) {
 				// Calculate required quantity of this component
 				int requiredQty = bomItem.getQuantity().multiply(new BigDecimal(quantity))
@@ -193,17 +387,101 @@ public class MRPService {
 				Long childId = bomItem.getChildProductId();
 
 				// Recursively calculate for sub-assemblies or add to requirements for components
-				double childLeadTime = calculateLeadTimeRecursive(childId, requiredQty, exclstock);
+				double childLeadTime = leadTimeRecursive(explosion, childId, requiredQty, exclstock);
 				if (childLeadTime > longestChildLeadTime)
 					longestChildLeadTime = childLeadTime;
 			}
+			explosion.leave(productId);
 		}
 		
-		double leadtime = calculateLeadTime(productId, quantity, exclstock) + longestChildLeadTime;
+		double leadtime = leadTime(product, quantity, exclstock) + longestChildLeadTime;
 		return leadtime;
 		
 	}
 
+	/**
+	 * Products and BOM lines below one product, loaded up front for a calculation.
+	 */
+	private static class Explosion {
+		private final Map<Long, Product> products;
+		// BOM lines by parent product id, in sequence order
+		private final Map<Long, List<BOMItem>> components;
+		// Reported by MRPRunEvent
+		private int bomLines;
+		private int queries;
+		private long nodesVisited;
+		private BooleanSupplier cancelled = NOT_CANCELLED;
+		// Assemblies being expanded, from the product planned down to the current one
+		private final Set<Long> path = new HashSet<>();
+
+		Explosion() {
+			this(new HashMap<>(), new HashMap<>());
+		}
+
+		/**
+		 * An explosion over maps already loaded, with its own counters.
+		 */
+		Explosion(Map<Long, Product> products, Map<Long, List<BOMItem>> components) {
+			this.products = products;
+			this.components = components;
+		}
+
+		void checkCancelled() {
+			if (cancelled.getAsBoolean()) {
+				throw new CancellationException("MRP calculation cancelled");
+			}
+		}
+
+		List<BOMItem> componentsOf(Long productId) {
+			return components.getOrDefault(productId, Collections.emptyList());
+		}
+
+		/**
+		 * Start expanding an assembly.
+		 * @throws IllegalStateException if it is already being expanded further up, i.e.
+		 *         the BOM contains a cycle
+		 */
+		void enter(Product assembly) {
+			if (!path.add(assembly.getId())) {
+				throw new IllegalStateException("BOM cycle: " + assembly.getCode() + " is a component of itself");
+			}
+		}
+
+		void leave(Long assemblyId) {
+			path.remove(assemblyId);
+		}
+	}
+
+	/**
+	 * Every product and BOM line, loaded by {@link #loadStructure()}. It is not
+	 * changed after loading, so concurrent plans can share it; stock quantities are
+	 * those at load time.
+	 */
+	public static final class Structure {
+		private final Map<Long, Product> products = new HashMap<>();
+		private final Map<Long, List<BOMItem>> components = new HashMap<>();
+		private final Set<Long> componentIds = new HashSet<>();
+		private int bomLines;
+
+		private Structure() {
+		}
+
+		public Collection<Product> getProducts() {
+			return Collections.unmodifiableCollection(products.values());
+		}
+
+		public int getBomLineCount() {
+			return bomLines;
+		}
+
+		/**
+		 * Whether the product is used in any BOM, i.e. is not a top-level product.
+		 */
+		public boolean isComponent(Long productId) {
+			return componentIds.contains(productId);
+		}
+	}
+
 
     /**
      * Inner class to represent material availability status.
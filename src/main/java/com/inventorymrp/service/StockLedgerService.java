@@ -0,0 +1,192 @@
+package com.inventorymrp.service;
+
+import com.inventorymrp.dao.ProductCache;
+import com.inventorymrp.dao.StockLedgerDAO;
+import com.inventorymrp.model.StockSnapshot;
+import com.inventorymrp.util.DatabaseUtil;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service for ledger-derived stock balances.
+ * inventory_transactions is the source of truth; products.stock_quantity is a
+ * maintained projection of it that can be regenerated with {@link #rebuildStockQuantities}.
+ * The applications call {@link #startDailyCheckpoints} so as-of queries find a
+ * checkpoint at the start of every day without anyone running LedgerTool.
+ */
+public class StockLedgerService {
+    private static final int REBUILD_CHUNK_SIZE = 500;
+    // How often the checkpoint timer looks for a day without a checkpoint,
+    // overridable with -Dinventorymrp.checkpointMinutes (0 disables the timer)
+    private static final int CHECKPOINT_MINUTES = Integer.getInteger("inventorymrp.checkpointMinutes", 60);
+
+    private final StockLedgerDAO ledgerDAO;
+    private final ProductCache productCache;
+    private ScheduledExecutorService checkpointTimer;
+
+    public StockLedgerService() {
+        this(new StockLedgerDAO(), DatabaseUtil.getProductCache());
+    }
+
+    /**
+     * @param productCache cache to clear after a rebuild, or null
+     */
+    public StockLedgerService(StockLedgerDAO ledgerDAO, ProductCache productCache) {
+        this.ledgerDAO = ledgerDAO;
+        this.productCache = productCache;
+    }
+
+    /**
+     * Current ledger balance of a product.
+     */
+    public int getBalance(Long productId) {
+        return getBalanceAsOf(productId, LocalDateTime.now());
+    }
+
+    /**
+     * Ledger balance of a product at asOf: its latest snapshot at or before asOf
+     * plus the movements recorded after that snapshot.
+     */
+    public int getBalanceAsOf(Long productId, LocalDateTime asOf) {
+        StockSnapshot snapshot = ledgerDAO.findLatestSnapshot(productId, asOf);
+        if (snapshot == null) {
+            return ledgerDAO.sumMovements(productId, null, asOf);
+        }
+        return snapshot.getBalance() + ledgerDAO.sumMovements(productId, snapshot.getAsOf(), asOf);
+    }
+
+    /**
+     * Ledger balance of every product at asOf, keyed by product id.
+     * Reads the snapshots of the latest checkpoint at or before asOf and replays only
+     * the movements since, so the cost follows the checkpoint interval, not the ledger size.
+     */
+    public Map<Long, Integer> getBalancesAsOf(LocalDateTime asOf) {
+        return ledgerDAO.findBalancesAsOf(asOf);
+    }
+
+    /**
+     * Snapshot every product's balance as of asOf.
+     * @return number of snapshots written
+     */
+    public int takeSnapshots(LocalDateTime asOf) {
+        if (asOf.isAfter(LocalDateTime.now())) {
+            // Movements could still be recorded before a future cut-off
+            throw new IllegalArgumentException("Snapshot time is in the future: " + asOf);
+        }
+        return ledgerDAO.createSnapshots(asOf);
+    }
+
+    /**
+     * Take a snapshot at the start of each day from from to to, both inclusive,
+     * skipping days that are already snapshotted or have not started yet. Daily
+     * checkpoints bound the replay of any as-of query to one day of movements.
+     * @return number of snapshots written
+     */
+    public int takeDailySnapshots(LocalDate from, LocalDate to) {
+        LocalDateTime now = LocalDateTime.now();
+        int written = 0;
+        for (LocalDate day = from; !day.isAfter(to) && !day.atStartOfDay().isAfter(now); day = day.plusDays(1)) {
+            written += ledgerDAO.createSnapshots(day.atStartOfDay());
+        }
+        return written;
+    }
+
+    /**
+     * Take the daily snapshots missing since the latest checkpoint, up to the start
+     * of today. With no checkpoint yet, only today's is taken.
+     * @return number of snapshots written
+     */
+    public int takeMissingDailySnapshots() {
+        LocalDate today = LocalDate.now();
+        LocalDateTime latest = ledgerDAO.findLatestCheckpoint(today.atStartOfDay());
+        LocalDate from = latest != null ? latest.toLocalDate().plusDays(1) : today;
+        return takeDailySnapshots(from, today);
+    }
+
+    /**
+     * Start a daemon timer that calls {@link #takeMissingDailySnapshots} now and then
+     * every -Dinventorymrp.checkpointMinutes (default 60). Does nothing if the timer
+     * is already running or the interval is 0.
+     */
+    public synchronized void startDailyCheckpoints() {
+        if (checkpointTimer != null || CHECKPOINT_MINUTES <= 0) {
+            return;
+        }
+        checkpointTimer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "stock-checkpoints");
+            thread.setDaemon(true);
+            return thread;
+        });
+        checkpointTimer.scheduleWithFixedDelay(() -> {
+            try {
+                takeMissingDailySnapshots();
+            } catch (RuntimeException e) {
+                // Retried on the next tick
+                System.err.println("Daily stock checkpoint failed: " + e.getMessage());
+            }
+        }, 0, CHECKPOINT_MINUTES, TimeUnit.MINUTES);
+    }
+
+    public synchronized void stopDailyCheckpoints() {
+        if (checkpointTimer != null) {
+            checkpointTimer.shutdownNow();
+            checkpointTimer = null;
+        }
+    }
+
+    /**
+     * Discard snapshots at or after from, needed when back-dated transactions are recorded.
+     */
+    public int discardSnapshotsFrom(LocalDateTime from) {
+        return ledgerDAO.deleteSnapshotsFrom(from);
+    }
+
+    /**
+     * Regenerate products.stock_quantity from the ledger. Products are split into
+     * id ranges that are rebuilt concurrently, each range in its own transaction.
+     * @return ids of the products whose stored quantity was corrected
+     */
+    public List<Long> rebuildStockQuantities(int parallelism) {
+        List<Long> ids = ledgerDAO.findProductIds();
+        List<Long> corrected = new ArrayList<>();
+        if (ids.isEmpty()) {
+            return corrected;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, parallelism));
+        try {
+            List<Future<List<Long>>> chunks = new ArrayList<>();
+            for (int from = 0; from < ids.size(); from += REBUILD_CHUNK_SIZE) {
+                long minId = ids.get(from);
+                long maxId = ids.get(Math.min(from + REBUILD_CHUNK_SIZE, ids.size()) - 1);
+                chunks.add(executor.submit(() -> ledgerDAO.rebuildStockQuantities(minId, maxId)));
+            }
+            for (Future<List<Long>> chunk : chunks) {
+                corrected.addAll(chunk.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while rebuilding stock quantities", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException
+                    ? (RuntimeException) e.getCause()
+                    : new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdown();
+            if (productCache != null) {
+                productCache.invalidateAll();
+            }
+        }
+        return corrected;
+    }
+}
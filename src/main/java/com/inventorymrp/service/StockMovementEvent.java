@@ -0,0 +1,51 @@
+package com.inventorymrp.service;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event spanning one stock movement by {@link InventoryService},
+ * lock and journal waits included.
+ */
+@Name("com.inventorymrp.StockMovement")
+@Label("Stock Movement")
+@Category({"Inventory MRP", "Inventory"})
+@Description("Stock added, removed or adjusted for one product")
+@StackTrace(false)
+class StockMovementEvent extends Event {
+    @Label("Product Id")
+    long productId;
+
+    @Label("Type")
+    @Description("IN, OUT or ADJUSTMENT")
+    String type;
+
+    @Label("Quantity")
+    @Description("Quantity moved, or the new stock for an adjustment")
+    int quantity;
+
+    @Label("Succeeded")
+    @Description("False when the movement was refused or failed")
+    boolean succeeded;
+
+    static StockMovementEvent start() {
+        StockMovementEvent event = new StockMovementEvent();
+        event.begin();
+        return event;
+    }
+
+    void finish(Long productId, String type, Integer quantity, boolean succeeded) {
+        end();
+        if (shouldCommit()) {
+            this.productId = productId != null ? productId : 0L;
+            this.type = type;
+            this.quantity = quantity != null ? quantity : 0;
+            this.succeeded = succeeded;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.inventorymrp.service;
+
+import com.inventorymrp.dao.InventoryTransactionRepository;
+import com.inventorymrp.model.InventoryTransaction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Group-commit write-behind pipeline for stock movements.
+ *
+ * Movements are appended to a bounded in-memory queue and a single writer thread
+ * applies them as JDBC batches in one database transaction per group, flushing when
+ * a group reaches maxBatchSize or maxDelayMillis after its first movement. A
+ * movement's future completes only after its group has committed, so an
+ * acknowledged movement is durable; if the process dies first, the caller never
+ * saw an acknowledgement and nothing of that group was committed. A full queue
+ * blocks submitters (backpressure).
+ */
+public class StockMovementJournal implements AutoCloseable {
+    private final InventoryTransactionRepository transactionDAO;
+    private final BlockingQueue<Pending> queue;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final Thread writer;
+    private volatile boolean closed;
+
+    private final LongAdder movements = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder failedBatches = new LongAdder();
+
+    /**
+     * @param capacity maximum number of queued, not yet committed movements
+     * @param maxBatchSize maximum movements per commit
+     * @param maxDelayMillis maximum time a movement waits for its group to fill
+     */
+    public StockMovementJournal(InventoryTransactionRepository transactionDAO, int capacity, int maxBatchSize,
+                                long maxDelayMillis) {
+        this.transactionDAO = transactionDAO;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        this.writer = new Thread(this::run, "stock-movement-journal");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Queue a movement, blocking while the queue is full.
+     * @return completes with true once the movement is committed, false if it was refused
+     * (unknown product, or the non-negative guard); completes exceptionally if its group
+     * failed to commit
+     */
+    public CompletableFuture<Boolean> submit(InventoryTransaction transaction, boolean allowNegative) {
+        if (closed) {
+            throw new IllegalStateException("Journal is closed");
+        }
+        Pending pending = new Pending(transaction, allowNegative);
+        try {
+            queue.put(pending);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing stock movement", e);
+        }
+        return pending.future;
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(maxBatchSize);
+        while (!closed || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < maxBatchSize) {
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= maxBatchSize || remaining <= 0) {
+                        break;
+                    }
+                    Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                // Only an outside interrupt gets here; close() never interrupts the writer
+                // because that would close H2's file channel in the middle of a write
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<Pending> batch) {
+        List<InventoryTransaction> transactions = new ArrayList<>(batch.size());
+        boolean[] allowNegative = new boolean[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            transactions.add(batch.get(i).transaction);
+            allowNegative[i] = batch.get(i).allowNegative;
+        }
+        try {
+            boolean[] applied = transactionDAO.recordMovements(transactions, allowNegative);
+            batches.increment();
+            movements.add(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).future.complete(applied[i]);
+            }
+        } catch (RuntimeException e) {
+            failedBatches.increment();
+            for (Pending pending : batch) {
+                pending.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Stop accepting movements, then commit everything already queued.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // A submit racing with close may have queued after the writer stopped
+        Pending orphan;
+        while ((orphan = queue.poll()) != null) {
+            orphan.future.completeExceptionally(new IllegalStateException("Journal is closed"));
+        }
+    }
+
+    public int getQueuedCount() {
+        return queue.size();
+    }
+
+    public long getCommittedMovementCount() {
+        return movements.sum();
+    }
+
+    public long getBatchCount() {
+        return batches.sum();
+    }
+
+    public long getFailedBatchCount() {
+        return failedBatches.sum();
+    }
+
+    @Override
+    public String toString() {
+        long b = getBatchCount();
+        return "StockMovementJournal{" +
+                "movements=" + getCommittedMovementCount() +
+                ", batches=" + b +
+                ", avgBatchSize=" + (b == 0 ? 0 : getCommittedMovementCount() / b) +
+                ", failedBatches=" + getFailedBatchCount() +
+                ", queued=" + getQueuedCount() +
+                '}';
+    }
+
+    private static final class Pending {
+        final InventoryTransaction transaction;
+        final boolean allowNegative;
+        final CompletableFuture<Boolean> future = new CompletableFuture<>();
+
+        Pending(InventoryTransaction transaction, boolean allowNegative) {
+            this.transaction = transaction;
+            this.allowNegative = allowNegative;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.inventorymrp.service;
+
+import com.inventorymrp.dao.StockLedgerDAO;
+import com.inventorymrp.dao.TransactionArchiveDAO;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+
+/**
+ * Service for archiving closed periods of inventory transactions.
+ * A month is closed once it has ended and a stock checkpoint exists at or after
+ * its end, so current balances never need to read archived transactions.
+ */
+public class TransactionArchiveService {
+    private final TransactionArchiveDAO archiveDAO;
+    private final StockLedgerDAO ledgerDAO;
+
+    public TransactionArchiveService() {
+        this(new TransactionArchiveDAO(), new StockLedgerDAO());
+    }
+
+    public TransactionArchiveService(TransactionArchiveDAO archiveDAO, StockLedgerDAO ledgerDAO) {
+        this.archiveDAO = archiveDAO;
+        this.ledgerDAO = ledgerDAO;
+    }
+
+    /**
+     * Archive each not yet archived month up to and including lastMonth, one period per month.
+     * @return number of transactions archived
+     * @throws IllegalStateException if lastMonth is not closed
+     */
+    public int archiveMonthsThrough(YearMonth lastMonth) {
+        LocalDateTime end = lastMonth.plusMonths(1).atDay(1).atStartOfDay();
+        if (end.isAfter(LocalDateTime.now())) {
+            throw new IllegalStateException("Month " + lastMonth + " has not ended yet");
+        }
+        LocalDateTime checkpoint = ledgerDAO.findLatestCheckpoint(LocalDateTime.now());
+        if (checkpoint == null || checkpoint.isBefore(end)) {
+            throw new IllegalStateException("Take a stock checkpoint at or after " + end +
+                    " before archiving " + lastMonth);
+        }
+
+        LocalDateTime start = archiveDAO.findWatermark();
+        if (start == null) {
+            start = archiveDAO.findOldestHotTransactionDate();
+            if (start == null) {
+                return 0;
+            }
+        }
+        int archived = 0;
+        for (YearMonth month = YearMonth.from(start); !month.isAfter(lastMonth); month = month.plusMonths(1)) {
+            LocalDateTime periodEnd = month.plusMonths(1).atDay(1).atStartOfDay();
+            if (periodEnd.isAfter(start)) {
+                archived += archiveDAO.archivePeriod(periodEnd);
+            }
+        }
+        return archived;
+    }
+}
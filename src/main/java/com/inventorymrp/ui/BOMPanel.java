@@ -1,40 +1,40 @@
 package com.inventorymrp.ui;
 
-import com.inventorymrp.dao.BOMItemDAO;
-import com.inventorymrp.dao.ProductDAO;
+import com.inventorymrp.dao.BOMItemRepository;
+import com.inventorymrp.dao.ProductRepository;
+import com.inventorymrp.dao.Repositories;
 import com.inventorymrp.model.BOMItem;
 import com.inventorymrp.model.Product;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
- * Panel for managing Bill of Materials.
+ * Panel for managing Bill of Materials. The table pages through the BOM items as
+ * it is scrolled, see {@link PagedTableModel}; the filter matches parent and child
+ * product codes.
  */
 public class BOMPanel extends JPanel {
-    private final BOMItemDAO bomItemDAO;
-    private final ProductDAO productDAO;
+    private final BOMItemRepository bomItemDAO;
+    private final ProductRepository productDAO;
     private JTable bomTable;
-    private DefaultTableModel tableModel;
+    private PagedTableModel<BOMItem> tableModel;
     
     public BOMPanel() {
-        this.bomItemDAO = new BOMItemDAO();
-        this.productDAO = new ProductDAO();
+        this.bomItemDAO = Repositories.bomItems();
+        this.productDAO = Repositories.products();
         setLayout(new BorderLayout(10, 10));
         setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
         
         // Create table
         String[] columns = {"ID", "Parent Product", "Child Product", "Quantity", "Unit", "Sequence"};
-        tableModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        String[] sortKeys = {"id", null, null, "quantity", "unit", "sequenceNumber"};
+        tableModel = new PagedTableModel<>(columns, sortKeys, bomItemDAO::count, bomItemDAO::findPage, BOMPanel::toRows);
         bomTable = new JTable(tableModel);
+        tableModel.attach(bomTable);
         JScrollPane scrollPane = new JScrollPane(bomTable);
         
         // Create button panel
@@ -54,6 +54,11 @@ public class BOMPanel extends JPanel {
         buttonPanel.add(viewByProductButton);
         buttonPanel.add(refreshButton);
         
+        JTextField filterField = new JTextField(15);
+        filterField.addActionListener(e -> tableModel.setFilter(filterField.getText()));
+        buttonPanel.add(new JLabel("Filter:"));
+        buttonPanel.add(filterField);
+        
         add(buttonPanel, BorderLayout.NORTH);
         add(scrollPane, BorderLayout.CENTER);
         
@@ -61,8 +66,11 @@ public class BOMPanel extends JPanel {
     }
     
     private void loadBOMItems() {
-        tableModel.setRowCount(0);
-        List<BOMItem> bomItems = bomItemDAO.findAll();
+        tableModel.refresh();
+    }
+    
+    private static List<Object[]> toRows(List<BOMItem> bomItems) {
+        List<Object[]> rows = new ArrayList<>();
         for (BOMItem item : bomItems) {
             Object[] row = {
                 item.getId(),
@@ -72,8 +80,9 @@ public class BOMPanel extends JPanel {
                 item.getUnit(),
                 item.getSequenceNumber()
             };
-            tableModel.addRow(row);
+            rows.add(row);
         }
+        return rows;
     }
     
     private void addBOMItem() {
@@ -146,6 +155,12 @@ public class BOMPanel extends JPanel {
             return;
         }
         
+        Long bomItemId = (Long) tableModel.getValueAt(selectedRow, 0);
+        if (bomItemId == null) {
+            JOptionPane.showMessageDialog(this, "The BOM item list is still loading. Please wait, then select the BOM item again.");
+            return;
+        }
+        
         int confirm = JOptionPane.showConfirmDialog(this, 
             "Are you sure you want to delete this BOM item?", 
             "Confirm Delete", 
@@ -153,7 +168,6 @@ public class BOMPanel extends JPanel {
         
         if (confirm == JOptionPane.YES_OPTION) {
             try {
-                Long bomItemId = (Long) tableModel.getValueAt(selectedRow, 0);
                 bomItemDAO.delete(bomItemId);
                 loadBOMItems();
                 JOptionPane.showMessageDialog(this, "BOM Item deleted successfully!");
@@ -184,19 +198,7 @@ public class BOMPanel extends JPanel {
                 String selectedStr = (String) productCombo.getSelectedItem();
                 Long productId = Long.parseLong(selectedStr.split(" - ")[0]);
                 
-                tableModel.setRowCount(0);
-                List<BOMItem> bomItems = bomItemDAO.findByParentProductId(productId);
-                for (BOMItem item : bomItems) {
-                    Object[] row = {
-                        item.getId(),
-                        item.getParentProduct() != null ? item.getParentProduct().getCode() + " - " + item.getParentProduct().getName() : "",
-                        item.getChildProduct() != null ? item.getChildProduct().getCode() + " - " + item.getChildProduct().getName() : "",
-                        item.getQuantity(),
-                        item.getUnit(),
-                        item.getSequenceNumber()
-                    };
-                    tableModel.addRow(row);
-                }
+                tableModel.showRows(bomItemDAO.findByParentProductId(productId));
             } catch (Exception ex) {
                 JOptionPane.showMessageDialog(this, "Error: " + ex.getMessage(), 
                     "Error", JOptionPane.ERROR_MESSAGE);
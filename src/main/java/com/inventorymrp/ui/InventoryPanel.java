@@ -1,43 +1,43 @@
 package com.inventorymrp.ui;
 
-import com.inventorymrp.dao.InventoryTransactionDAO;
-import com.inventorymrp.dao.ProductDAO;
-import com.inventorymrp.model.InventoryTransaction;
+import com.inventorymrp.dao.InventoryTransactionRepository;
+import com.inventorymrp.dao.ProductRepository;
+import com.inventorymrp.dao.Repositories;
+import com.inventorymrp.model.InventoryTransactionView;
 import com.inventorymrp.model.Product;
 import com.inventorymrp.service.InventoryService;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
- * Panel for managing inventory transactions.
+ * Panel for managing inventory transactions. The table pages through the
+ * transactions as it is scrolled, see {@link PagedTableModel}, each page read
+ * with its products in one query; the filter matches type and reference.
  */
 public class InventoryPanel extends JPanel {
-    private final InventoryTransactionDAO transactionDAO;
-    private final ProductDAO productDAO;
+    private final InventoryTransactionRepository transactionDAO;
+    private final ProductRepository productDAO;
     private final InventoryService inventoryService;
     private JTable transactionTable;
-    private DefaultTableModel tableModel;
+    private PagedTableModel<InventoryTransactionView> tableModel;
     
     public InventoryPanel() {
-        this.transactionDAO = new InventoryTransactionDAO();
-        this.productDAO = new ProductDAO();
+        this.transactionDAO = Repositories.transactions();
+        this.productDAO = Repositories.products();
         this.inventoryService = new InventoryService();
         setLayout(new BorderLayout(10, 10));
         setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
         
         // Create table
         String[] columns = {"ID", "Product", "Type", "Quantity", "Reference", "Date"};
-        tableModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        String[] sortKeys = {"id", null, "transactionType", "quantity", "reference", "transactionDate"};
+        tableModel = new PagedTableModel<>(columns, sortKeys, transactionDAO::count, transactionDAO::findViewPage, this::toRows);
         transactionTable = new JTable(tableModel);
+        tableModel.attach(transactionTable);
         JScrollPane scrollPane = new JScrollPane(transactionTable);
         
         // Create button panel
@@ -57,6 +57,11 @@ public class InventoryPanel extends JPanel {
         buttonPanel.add(adjustStockButton);
         buttonPanel.add(refreshButton);
         
+        JTextField filterField = new JTextField(15);
+        filterField.addActionListener(e -> tableModel.setFilter(filterField.getText()));
+        buttonPanel.add(new JLabel("Filter:"));
+        buttonPanel.add(filterField);
+        
         add(buttonPanel, BorderLayout.NORTH);
         add(scrollPane, BorderLayout.CENTER);
         
@@ -64,13 +69,15 @@ public class InventoryPanel extends JPanel {
     }
     
     private void loadTransactions() {
-        tableModel.setRowCount(0);
-        List<InventoryTransaction> transactions = transactionDAO.findAll();
+        tableModel.refresh();
+    }
+    
+    private List<Object[]> toRows(List<InventoryTransactionView> transactions) {
+        List<Object[]> rows = new ArrayList<>();
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
         
-        for (InventoryTransaction t : transactions) {
-            Product product = productDAO.findById(t.getProductId());
-            String productInfo = product != null ? product.getCode() + " - " + product.getName() : "Unknown";
+        for (InventoryTransactionView t : transactions) {
+            String productInfo = t.getProductCode() != null ? t.getProductCode() + " - " + t.getProductName() : "Unknown";
             
             Object[] row = {
                 t.getId(),
@@ -80,8 +87,9 @@ public class InventoryPanel extends JPanel {
                 t.getReference(),
                 t.getTransactionDate().format(formatter)
             };
-            tableModel.addRow(row);
+            rows.add(row);
         }
+        return rows;
     }
     
     private void addStock() {
@@ -0,0 +1,37 @@
+package com.inventorymrp.ui;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.function.Supplier;
+
+/**
+ * Tab content that builds its real panel, and with it the panel's first database
+ * query, only when the tab is first shown.
+ */
+class LazyPanel extends JPanel {
+    private final Supplier<? extends JComponent> factory;
+    private JComponent content;
+
+    LazyPanel(Supplier<? extends JComponent> factory) {
+        super(new BorderLayout());
+        this.factory = factory;
+    }
+
+    /**
+     * Build the real panel if that has not happened yet.
+     * @return true if it was built by this call
+     */
+    boolean ensureBuilt() {
+        if (content != null) {
+            return false;
+        }
+        content = factory.get();
+        add(content, BorderLayout.CENTER);
+        revalidate();
+        return true;
+    }
+
+    JComponent getContent() {
+        return content;
+    }
+}
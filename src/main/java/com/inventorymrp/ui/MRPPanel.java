@@ -1,8 +1,10 @@
 package com.inventorymrp.ui;
 
-import com.inventorymrp.dao.ProductDAO;
-import com.inventorymrp.dao.PurchaseOrderDAO;
+import com.inventorymrp.dao.ProductRepository;
+import com.inventorymrp.dao.PurchaseOrderRepository;
+import com.inventorymrp.dao.Repositories;
 import com.inventorymrp.model.Product;
+import com.inventorymrp.model.PurchaseOrder;
 import com.inventorymrp.service.MRPService;
 import com.inventorymrp.service.MRPService.MaterialAvailability;
 
@@ -11,22 +13,36 @@ import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
 
 /**
  * Panel for MRP (Material Requirements Planning).
+ *
+ * Each action runs on a {@link SwingWorker}, one at a time: the explosion and the
+ * database work stay off the event thread, result rows are added to the table as
+ * they are built, and Cancel stops the calculation at its next BOM node or row.
+ * Saving purchase orders cannot be cancelled.
  */
 public class MRPPanel extends JPanel {
     private final MRPService mrpService;
-    private final ProductDAO productDAO;
+    private final ProductRepository productDAO;
     private JComboBox<String> productCombo; 
     private JTable resultsTable;
     private DefaultTableModel tableModel;
     private JLabel leadTimeValueLabel;
     private JCheckBox cbExclStock;    
+    private JButton[] actionButtons;
+    private JButton cancelButton;
+    private JProgressBar progressBar;
+    private JLabel statusLabel;
+    private MRPWorker<?> worker;
     
     public MRPPanel() {
         this.mrpService = new MRPService();
-        this.productDAO = new ProductDAO();
+        this.productDAO = Repositories.products();
         setLayout(new BorderLayout(10, 10));
         setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
         
@@ -67,6 +83,17 @@ public class MRPPanel extends JPanel {
         leadTimeValueLabel = new JLabel("N/A");
         leadTimePanel.add(leadTimeValueLabel);
         
+        // Progress of the running action
+        progressBar = new JProgressBar(0, 100);
+        progressBar.setVisible(false);
+        leadTimePanel.add(progressBar);
+        cancelButton = new JButton("Cancel");
+        cancelButton.setEnabled(false);
+        leadTimePanel.add(cancelButton);
+        statusLabel = new JLabel(" ");
+        leadTimePanel.add(statusLabel);
+        actionButtons = new JButton[] {calculateButton, checkAvailabilityButton, generatePOButton};
+        
         add(inputPanel, BorderLayout.NORTH);
         add(scrollPane, BorderLayout.CENTER);
         
@@ -86,6 +113,11 @@ public class MRPPanel extends JPanel {
         calculateButton.addActionListener(e -> calculateRequirements(productCombo, quantityField));
         checkAvailabilityButton.addActionListener(e -> checkAvailability(productCombo, quantityField));
         generatePOButton.addActionListener(e -> generatePurchaseOrders(productCombo, quantityField));
+        cancelButton.addActionListener(e -> {
+            if (worker != null) {
+                worker.cancel(false);
+            }
+        });
         
     }
     
@@ -98,138 +130,309 @@ public class MRPPanel extends JPanel {
     }
     
     private void calculateRequirements(JComboBox<String> productCombo, JTextField quantityField) {
-        try {
-            String selectedStr = (String) productCombo.getSelectedItem();
-            if (selectedStr == null) {
-                JOptionPane.showMessageDialog(this, "Please select a product.");
-                return;
-            }
-            
-            Long productId = Long.parseLong(selectedStr.split(" - ")[0]);
-            Integer quantity = Integer.parseInt(quantityField.getText());
-            
-            Map<Long, Integer> requirements = mrpService.calculateMaterialRequirements(productId, quantity);
-            
-            // Calculate and display lead time
-            double leadTime = mrpService.calculateLeadTimeRecursive(productId, quantity, cbExclStock.isSelected());
-            leadTimeValueLabel.setText(String.format("%.2f days", leadTime));
-            
-            tableModel.setRowCount(0);
-            for (Map.Entry<Long, Integer> entry : requirements.entrySet()) {
-                Product product = productDAO.findById(entry.getKey());
-                if (product != null) {
-                	int shortage = Math.max(0, entry.getValue() - (cbExclStock.isSelected() ? 0 : product.getStockQuantity())); 
-                    Object[] row = {
-                        product.getCode(),
-                        product.getName(),
-                        entry.getValue(),
-                        product.getStockQuantity(),
-                        shortage,
-                        mrpService.calculateLeadTime(product.getId(), shortage, true),
-                        product.getStockQuantity() >= entry.getValue() ? "OK" : "SHORTAGE"
-                    };
-                    tableModel.addRow(row);
+        Long productId = selectedProductId(productCombo);
+        Integer quantity = demandQuantity(quantityField);
+        if (productId == null || quantity == null) {
+            return;
+        }
+        boolean exclStock = cbExclStock.isSelected();
+        leadTimeValueLabel.setText("N/A");
+        
+        start(new MRPWorker<Double>("Calculating requirements") {
+            @Override
+            Double work() {
+                Map<Long, Integer> requirements =
+                    mrpService.calculateMaterialRequirements(productId, quantity, this::isCancelled);
+                double leadTime = mrpService.calculateLeadTimeRecursive(productId, quantity, exclStock, this::isCancelled);
+                Map<Long, Product> products = productDAO.findByIds(requirements.keySet());
+                int done = 0;
+                for (Map.Entry<Long, Integer> entry : requirements.entrySet()) {
+                    Product product = products.get(entry.getKey());
+                    if (product != null) {
+                        int shortage = Math.max(0, entry.getValue() - (exclStock ? 0 : product.getStockQuantity()));
+                        publishRow(
+                            product.getCode(),
+                            product.getName(),
+                            entry.getValue(),
+                            product.getStockQuantity(),
+                            shortage,
+                            mrpService.calculateLeadTime(product.getId(), shortage, true),
+                            product.getStockQuantity() >= entry.getValue() ? "OK" : "SHORTAGE"
+                        );
+                    }
+                    rowDone(++done, requirements.size());
                 }
+                return requirements.isEmpty() ? null : leadTime;
             }
-            
-            if (requirements.isEmpty()) {
-                JOptionPane.showMessageDialog(this, "No material requirements found.");
+
+            @Override
+            void succeeded(Double leadTime) {
+                if (leadTime == null) {
+                    JOptionPane.showMessageDialog(MRPPanel.this, "No material requirements found.");
+                } else {
+                    leadTimeValueLabel.setText(String.format("%.2f days", leadTime));
+                }
             }
-        } catch (Exception ex) {
-            JOptionPane.showMessageDialog(this, "Error: " + ex.getMessage(), 
-                "Error", JOptionPane.ERROR_MESSAGE);
-        }
+        });
     }
     
     private void checkAvailability(JComboBox<String> productCombo, JTextField quantityField) {
-        try {
-            String selectedStr = (String) productCombo.getSelectedItem();
-            if (selectedStr == null) {
-                JOptionPane.showMessageDialog(this, "Please select a product.");
-                return;
+        Long productId = selectedProductId(productCombo);
+        Integer quantity = demandQuantity(quantityField);
+        if (productId == null || quantity == null) {
+            return;
+        }
+        
+        start(new MRPWorker<Boolean>("Checking availability") {
+            @Override
+            Boolean work() {
+                Map<Long, MaterialAvailability> availability =
+                    mrpService.checkMaterialAvailability(productId, quantity, this::isCancelled);
+                boolean allAvailable = true;
+                int done = 0;
+                for (MaterialAvailability avail : availability.values()) {
+                    publishRow(
+                        avail.getProductCode(),
+                        avail.getProductName(),
+                        avail.getRequiredQuantity(),
+                        avail.getAvailableQuantity(),
+                        avail.getShortage(),
+                        mrpService.calculateLeadTime(avail.getProductId(), avail.getShortage(), true),
+                        avail.getSufficient() ? "SUFFICIENT" : "INSUFFICIENT"
+                    );
+                    if (!avail.getSufficient()) {
+                        allAvailable = false;
+                    }
+                    rowDone(++done, availability.size());
+                }
+                return allAvailable;
             }
-            
-            Long productId = Long.parseLong(selectedStr.split(" - ")[0]);
-            Integer quantity = Integer.parseInt(quantityField.getText());
-            
-            Map<Long, MaterialAvailability> availability = mrpService.checkMaterialAvailability(productId, quantity);
-            
-            tableModel.setRowCount(0);
-            boolean allAvailable = true;
-            for (MaterialAvailability avail : availability.values()) {
-                Object[] row = {
-                    avail.getProductCode(),
-                    avail.getProductName(),
-                    avail.getRequiredQuantity(),
-                    avail.getAvailableQuantity(),
-                    avail.getShortage(),
-                    mrpService.calculateLeadTime(avail.getProductId(), avail.getShortage(), true),
-                    avail.getSufficient() ? "SUFFICIENT" : "INSUFFICIENT"
-                };
-                tableModel.addRow(row);
-                if (!avail.getSufficient()) {
-                    allAvailable = false;
+
+            @Override
+            void succeeded(Boolean allAvailable) {
+                if (allAvailable) {
+                    JOptionPane.showMessageDialog(MRPPanel.this, "All materials are available!", 
+                        "Availability Check", JOptionPane.INFORMATION_MESSAGE);
+                } else {
+                    JOptionPane.showMessageDialog(MRPPanel.this, "Some materials are insufficient. Check the table for details.", 
+                        "Availability Check", JOptionPane.WARNING_MESSAGE);
                 }
             }
-            
-            if (allAvailable) {
-                JOptionPane.showMessageDialog(this, "All materials are available!", 
-                    "Availability Check", JOptionPane.INFORMATION_MESSAGE);
-            } else {
-                JOptionPane.showMessageDialog(this, "Some materials are insufficient. Check the table for details.", 
-                    "Availability Check", JOptionPane.WARNING_MESSAGE);
+        });
+    }
+    
+    private void generatePurchaseOrders(JComboBox<String> productCombo, JTextField quantityField) {
+        Long productId = selectedProductId(productCombo);
+        Integer quantity = demandQuantity(quantityField);
+        if (productId == null || quantity == null) {
+            return;
+        }
+        
+        start(new MRPWorker<List<PurchaseOrder>>("Generating purchase orders") {
+            private final StringBuilder message = new StringBuilder();
+
+            @Override
+            List<PurchaseOrder> work() {
+                List<PurchaseOrder> purchaseOrders =
+                    mrpService.generatePurchaseOrders(productId, quantity, this::isCancelled);
+                Map<Long, Product> products = productDAO.findByIds(
+                    purchaseOrders.stream().map(PurchaseOrder::getProductId).collect(Collectors.toSet()));
+                message.append("Generated ").append(purchaseOrders.size()).append(" purchase order(s):\n\n");
+                for (PurchaseOrder po : purchaseOrders) {
+                    Product product = products.get(po.getProductId());
+                    message.append("Product: ").append(product.getCode()).append(" - ")
+                           .append(product.getName()).append("\n");
+                    message.append("Quantity: ").append(po.getQuantity()).append("\n");
+                    message.append("Expected Delivery: ").append(po.getExpectedDeliveryDate()).append("\n\n");                
+                }
+                message.append("Save?");
+                return purchaseOrders;
+            }
+
+            @Override
+            void succeeded(List<PurchaseOrder> purchaseOrders) {
+                if (purchaseOrders.isEmpty()) {
+                    JOptionPane.showMessageDialog(MRPPanel.this, "No purchase orders needed. All materials are in stock!");
+                    return;
+                }
+                int ret = JOptionPane.showConfirmDialog(MRPPanel.this, message.toString(), 
+                    "Purchase Orders Generated", JOptionPane.OK_CANCEL_OPTION);
+                if (ret == JOptionPane.OK_OPTION) {
+                    savePurchaseOrders(purchaseOrders);
+                }
+            }
+        });
+    }
+    
+    private void savePurchaseOrders(List<PurchaseOrder> purchaseOrders) {
+        // Not cancellable: createAll commits every order or none, and could not be stopped part way
+        start(new MRPWorker<Void>("Saving purchase orders", false) {
+            @Override
+            Void work() {
+                PurchaseOrderRepository poDAO = Repositories.purchaseOrders();
+                poDAO.createAll(purchaseOrders);
+                return null;
+            }
+
+            @Override
+            void succeeded(Void result) {
+                statusLabel.setText("Saved " + purchaseOrders.size() + " purchase order(s)");
             }
-        } catch (Exception ex) {
+        });
+    }
+    
+    private Long selectedProductId(JComboBox<String> productCombo) {
+        String selectedStr = (String) productCombo.getSelectedItem();
+        if (selectedStr == null) {
+            JOptionPane.showMessageDialog(this, "Please select a product.");
+            return null;
+        }
+        return Long.parseLong(selectedStr.split(" - ")[0]);
+    }
+    
+    private Integer demandQuantity(JTextField quantityField) {
+        try {
+            return Integer.parseInt(quantityField.getText());
+        } catch (NumberFormatException ex) {
             JOptionPane.showMessageDialog(this, "Error: " + ex.getMessage(), 
                 "Error", JOptionPane.ERROR_MESSAGE);
+            return null;
         }
     }
     
-    private void generatePurchaseOrders(JComboBox<String> productCombo, JTextField quantityField) {
-        try {
-            String selectedStr = (String) productCombo.getSelectedItem();
-            if (selectedStr == null) {
-                JOptionPane.showMessageDialog(this, "Please select a product.");
+    /**
+     * Clear the results and run worker, with the action buttons disabled until its
+     * background work has returned.
+     */
+    private void start(MRPWorker<?> next) {
+        tableModel.setRowCount(0);
+        worker = next;
+        for (JButton button : actionButtons) {
+            button.setEnabled(false);
+        }
+        cancelButton.setEnabled(next.cancellable);
+        progressBar.setIndeterminate(true);
+        progressBar.setVisible(true);
+        statusLabel.setText(next.action + "...");
+        next.addPropertyChangeListener(e -> {
+            if ("progress".equals(e.getPropertyName()) && worker == next) {
+                progressBar.setIndeterminate(false);
+                progressBar.setValue((Integer) e.getNewValue());
+            }
+        });
+        next.execute();
+    }
+    
+    /**
+     * Background part of an MRP action. Rows published from work are added to the
+     * results table; succeeded runs on the event thread with the result unless the
+     * action was cancelled or failed.
+     *
+     * SwingWorker calls done as soon as it is cancelled, while work may still be
+     * querying the database. The panel is only released once work has returned, or
+     * once a cancel has stopped it from starting.
+     */
+    private abstract class MRPWorker<T> extends SwingWorker<T, Object[]> {
+        private final String action;
+        private final boolean cancellable;
+        // Claimed by work when it starts, or by a cancel that stops it from starting
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        // Event thread only
+        private boolean stopped;
+        private boolean finished;
+        
+        MRPWorker(String action) {
+            this(action, true);
+        }
+        
+        MRPWorker(String action, boolean cancellable) {
+            this.action = action;
+            this.cancellable = cancellable;
+        }
+        
+        abstract T work();
+        
+        abstract void succeeded(T result);
+        
+        void publishRow(Object... row) {
+            publish(row);
+        }
+        
+        /**
+         * Report done of total rows built, stopping if cancelled.
+         */
+        void rowDone(int done, int total) {
+            if (isCancelled()) {
+                throw new CancellationException();
+            }
+            setProgress(done * 100 / total);
+        }
+        
+        @Override
+        protected final T doInBackground() {
+            if (!claimed.compareAndSet(false, true)) {
+                return null;
+            }
+            try {
+                return work();
+            } finally {
+                SwingUtilities.invokeLater(() -> {
+                    stopped = true;
+                    finish();
+                });
+            }
+        }
+        
+        @Override
+        protected void process(List<Object[]> rows) {
+            // A cancelled worker may still deliver rows after the next one started
+            if (worker != this) {
                 return;
             }
-            
-            Long productId = Long.parseLong(selectedStr.split(" - ")[0]);
-            Integer quantity = Integer.parseInt(quantityField.getText());
-            
-            var purchaseOrders = mrpService.generatePurchaseOrders(productId, quantity);
-            
-            if (purchaseOrders.isEmpty()) {
-                JOptionPane.showMessageDialog(this, "No purchase orders needed. All materials are in stock!");
+            for (Object[] row : rows) {
+                tableModel.addRow(row);
+            }
+        }
+        
+        @Override
+        protected void done() {
+            finished = true;
+            if (isCancelled() && claimed.compareAndSet(false, true)) {
+                stopped = true;
+            }
+            if (!stopped) {
+                cancelButton.setEnabled(false);
+                statusLabel.setText(action + ": cancelling...");
+            }
+            finish();
+        }
+        
+        private void finish() {
+            if (!stopped || !finished || worker != this) {
                 return;
             }
-            
-
-            
-            StringBuilder message = new StringBuilder("Generated " + purchaseOrders.size() + " purchase order(s):\n\n");
-            for (var po : purchaseOrders) {
-                Product product = productDAO.findById(po.getProductId());
-                message.append("Product: ").append(product.getCode()).append(" - ")
-                       .append(product.getName()).append("\n");
-                message.append("Quantity: ").append(po.getQuantity()).append("\n");
-                message.append("Expected Delivery: ").append(po.getExpectedDeliveryDate()).append("\n\n");                
-            }
-            
-            message.append("Save?");
-            int ret = JOptionPane.showConfirmDialog(this, message.toString(), 
-                "Purchase Orders Generated", JOptionPane.OK_CANCEL_OPTION);
-            
-            if (ret == JOptionPane.OK_OPTION) {
-            	// Save purchase orders
-            	PurchaseOrderDAO poDAO = new PurchaseOrderDAO();
-            	for (var po : purchaseOrders) {
-            		// Note: PO is created in the service but we could save it here
-            		poDAO.create(po);
-            	}
-            }
-            
-        } catch (Exception ex) {
-            JOptionPane.showMessageDialog(this, "Error: " + ex.getMessage(), 
-                "Error", JOptionPane.ERROR_MESSAGE);
+            worker = null;
+            for (JButton button : actionButtons) {
+                button.setEnabled(true);
+            }
+            cancelButton.setEnabled(false);
+            progressBar.setVisible(false);
+            statusLabel.setText(" ");
+            try {
+                succeeded(get());
+            } catch (CancellationException ex) {
+                statusLabel.setText(action + " cancelled");
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException ex) {
+                Throwable cause = ex.getCause();
+                if (cause instanceof CancellationException) {
+                    statusLabel.setText(action + " cancelled");
+                } else {
+                    JOptionPane.showMessageDialog(MRPPanel.this, "Error: " + cause.getMessage(), 
+                        "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }
         }
     }
 }
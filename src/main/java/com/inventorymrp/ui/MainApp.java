@@ -1,20 +1,29 @@
 package com.inventorymrp.ui;
 
-import com.inventorymrp.util.DatabaseUtil;
+import com.inventorymrp.dao.Repositories;
+import com.inventorymrp.service.StockLedgerService;
+import com.inventorymrp.util.StartupTimer;
+import com.inventorymrp.util.StatementTracer;
 
 import javax.swing.*;
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
 
 import java.awt.*;
-import java.nio.MappedByteBuffer;
+import java.io.File;
+import java.io.IOException;
 
 /**
- * Main application entry point and window.
+ * Main application entry point and window. Tab panels are built, and load their
+ * data, the first time their tab is shown, the first one right after the window
+ * has painted; with -Dinventorymrp.startupTimes=true the startup phases are
+ * reported on standard output.
  */
 public class MainApp extends JFrame {
 	
-	MRPPanel mrppanel;
+	private final JTabbedPane tabbedPane = new JTabbedPane();
+	private final LazyPanel mrpTab = new LazyPanel(MRPPanel::new);
+	private boolean painted;
     
     public MainApp() {
         setTitle("Inventory Management with MRP");
@@ -24,7 +33,10 @@ public class MainApp extends JFrame {
         
         // Initialize database
         try {
-            DatabaseUtil.initializeDatabase();
+            Repositories.initialize();
+            if (!Repositories.isInMemory()) {
+                new StockLedgerService().startDailyCheckpoints();
+            }
         } catch (Exception e) {
             JOptionPane.showMessageDialog(this, 
                 "Failed to initialize database: " + e.getMessage(),
@@ -32,29 +44,24 @@ public class MainApp extends JFrame {
                 JOptionPane.ERROR_MESSAGE);
             System.exit(1);
         }
+        StartupTimer.mark("database");
         
         // Create menu bar
         createMenuBar();
         
-        // Create tabbed pane
-        JTabbedPane tabbedPane = new JTabbedPane();
-        
-        // Add tabs
-        tabbedPane.addTab("Products", new ProductPanel());
-        tabbedPane.addTab("BOM", new BOMPanel());
-        tabbedPane.addTab("Inventory", new InventoryPanel());
-        mrppanel = new MRPPanel();
-        tabbedPane.addTab("MRP", mrppanel);
-        tabbedPane.addTab("Purchase Orders", new PurchaseOrderPanel());
+        // Add tabs, built when first shown
+        tabbedPane.addTab("Products", new LazyPanel(ProductPanel::new));
+        tabbedPane.addTab("BOM", new LazyPanel(BOMPanel::new));
+        tabbedPane.addTab("Inventory", new LazyPanel(InventoryPanel::new));
+        tabbedPane.addTab("MRP", mrpTab);
+        tabbedPane.addTab("Purchase Orders", new LazyPanel(PurchaseOrderPanel::new));
         
         tabbedPane.addChangeListener(new ChangeListener() {
 			
 			@Override
 			public void stateChanged(ChangeEvent e) {
-				JTabbedPane tabbedpane = (JTabbedPane) e.getSource();
-				//System.out.println(tabbedpane.getSelectedIndex());
-				if (tabbedpane.getSelectedIndex() == 3) { // MRP
-					mrppanel.loadProducts();
+				if (painted) {
+					showSelectedTab();
 				}
 			}
 		});
@@ -65,6 +72,31 @@ public class MainApp extends JFrame {
         JLabel statusBar = new JLabel("Ready");
         statusBar.setBorder(BorderFactory.createEtchedBorder());
         add(statusBar, BorderLayout.SOUTH);
+        StartupTimer.mark("window");
+    }
+    
+    @Override
+    public void paint(Graphics g) {
+        super.paint(g);
+        if (!painted) {
+            painted = true;
+            StartupTimer.mark("first paint");
+            SwingUtilities.invokeLater(() -> {
+                showSelectedTab();
+                StartupTimer.mark("first tab");
+                if (StartupTimer.isEnabled()) {
+                    System.out.println(StartupTimer.report());
+                }
+            });
+        }
+    }
+    
+    private void showSelectedTab() {
+        LazyPanel tab = (LazyPanel) tabbedPane.getSelectedComponent();
+        // A newly built MRP panel has just loaded its products
+        if (!tab.ensureBuilt() && tab == mrpTab) {
+            ((MRPPanel) mrpTab.getContent()).loadProducts();
+        }
     }
     
     private void createMenuBar() {
@@ -72,6 +104,11 @@ public class MainApp extends JFrame {
         
         // File menu
         JMenu fileMenu = new JMenu("File");
+        if (StatementTracer.isEnabled()) {
+            JMenuItem exportItem = new JMenuItem("Export SQL Statistics...");
+            exportItem.addActionListener(e -> exportStatementStatistics());
+            fileMenu.add(exportItem);
+        }
         JMenuItem exitItem = new JMenuItem("Exit");
         exitItem.addActionListener(e -> System.exit(0));
         fileMenu.add(exitItem);
@@ -100,6 +137,20 @@ public class MainApp extends JFrame {
         setJMenuBar(menuBar);
     }
     
+    private void exportStatementStatistics() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setSelectedFile(new File("sql-statistics.txt"));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        try {
+            StatementTracer.writeReport(chooser.getSelectedFile().toPath());
+        } catch (IOException ex) {
+            JOptionPane.showMessageDialog(this, "Error: " + ex.getMessage(),
+                "Error", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+    
     public static void main(String[] args) {
         // Set look and feel
         try {
@@ -0,0 +1,301 @@
+package com.inventorymrp.ui;
+
+import com.inventorymrp.dao.PageRequest;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Table model over a repository listing too large to load whole. It knows the row
+ * count and keeps the most recently used pages of rows; a page is fetched in the
+ * background when one of its rows is first painted, and its cells are blank until
+ * it arrives. Sorting, by clicking a column header, and filtering are done by the
+ * repository: each starts the listing over with a new {@link PageRequest}. If
+ * fetching fails, the first failure of a listing is reported and its later ones
+ * only leave their rows blank.
+ *
+ * All methods must be called on the event thread.
+ */
+public class PagedTableModel<T> extends AbstractTableModel {
+    static final int PAGE_SIZE = 200;
+    // 10,000 rows, several screens in either direction
+    static final int MAX_PAGES = 50;
+
+    private static final ExecutorService LOADER = Executors.newFixedThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "table-page-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * A page of a listing, as repository findPage methods return it.
+     */
+    public interface PageFetcher<T> {
+        List<T> fetch(PageRequest request, int offset, int limit);
+    }
+
+    private final String[] columns;
+    private final String[] sortKeys;
+    private final ToIntFunction<PageRequest> counter;
+    private final PageFetcher<T> fetcher;
+    private final Function<List<T>, List<Object[]>> rowMapper;
+    private final Executor background;
+    private final Executor ui;
+    private final Consumer<RuntimeException> errors;
+    private final int pageSize;
+    private final Map<Integer, Page<T>> pages;
+    private final Set<Integer> loading = new HashSet<>();
+    private PageRequest request = PageRequest.ALL;
+    private Page<T> fixed;
+    private int rowCount;
+    private JTable table;
+    // Pages and counts of an older request are dropped when they arrive
+    private int generation;
+    // Generation whose failure has been reported
+    private int failedGeneration = -1;
+
+    /**
+     * @param sortKeys per column, the property to sort on, or null if the column cannot be sorted
+     * @param counter number of rows of a request, e.g. repository count
+     * @param fetcher rows of a request, e.g. repository findPage
+     * @param rowMapper cells of a page of rows; runs in the background, so it may query
+     */
+    public PagedTableModel(String[] columns, String[] sortKeys, ToIntFunction<PageRequest> counter,
+                           PageFetcher<T> fetcher, Function<List<T>, List<Object[]>> rowMapper) {
+        this(columns, sortKeys, counter, fetcher, rowMapper, LOADER, SwingUtilities::invokeLater,
+             e -> JOptionPane.showMessageDialog(null, "Error: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE),
+             PAGE_SIZE, MAX_PAGES);
+    }
+
+    PagedTableModel(String[] columns, String[] sortKeys, ToIntFunction<PageRequest> counter,
+                    PageFetcher<T> fetcher, Function<List<T>, List<Object[]>> rowMapper,
+                    Executor background, Executor ui, Consumer<RuntimeException> errors,
+                    int pageSize, int maxPages) {
+        this.columns = columns;
+        this.sortKeys = sortKeys;
+        this.counter = counter;
+        this.fetcher = fetcher;
+        this.rowMapper = rowMapper;
+        this.background = background;
+        this.ui = ui;
+        this.errors = errors;
+        this.pageSize = pageSize;
+        this.pages = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Page<T>> eldest) {
+                return size() > maxPages;
+            }
+        };
+    }
+
+    /**
+     * Sort on a column when its header is clicked; a second click reverses the order.
+     */
+    public void attach(JTable table) {
+        this.table = table;
+        table.getTableHeader().addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int column = table.columnAtPoint(e.getPoint());
+                if (column >= 0) {
+                    sortBy(table.convertColumnIndexToModel(column));
+                }
+            }
+        });
+    }
+
+    // Column names carry the sort order, but headers only read them when columns are created
+    private void updateHeaders() {
+        if (table == null) {
+            return;
+        }
+        for (int i = 0; i < table.getColumnCount(); i++) {
+            table.getColumnModel().getColumn(i).setHeaderValue(getColumnName(table.convertColumnIndexToModel(i)));
+        }
+        table.getTableHeader().repaint();
+    }
+
+    /**
+     * Drop the loaded pages and count the listing again, e.g. after an edit.
+     */
+    public void refresh() {
+        generation++;
+        int current = generation;
+        PageRequest counted = request;
+        fixed = null;
+        pages.clear();
+        loading.clear();
+        fireTableDataChanged();
+        updateHeaders();
+        background.execute(() -> {
+            try {
+                int count = counter.applyAsInt(counted);
+                ui.execute(() -> {
+                    if (current == generation) {
+                        rowCount = count;
+                        fireTableDataChanged();
+                    }
+                });
+            } catch (RuntimeException e) {
+                ui.execute(() -> failed(current, e));
+            }
+        });
+    }
+
+    /**
+     * Show only rows containing filter in the repository's filter fields.
+     */
+    public void setFilter(String filter) {
+        request = request.withFilter(filter);
+        refresh();
+    }
+
+    /**
+     * Sort on column, descending if it is already sorted ascending. Ignored for a
+     * column without a sort key and while showing fixed rows.
+     */
+    public void sortBy(int column) {
+        String sortKey = sortKeys[column];
+        if (sortKey == null || fixed != null) {
+            return;
+        }
+        boolean descending = sortKey.equals(request.getSortBy()) && !request.isDescending();
+        request = request.withSort(sortKey, descending);
+        refresh();
+    }
+
+    /**
+     * Show the given rows instead of the listing, e.g. the result of a search,
+     * until the next refresh.
+     */
+    public void showRows(List<T> items) {
+        generation++;
+        pages.clear();
+        loading.clear();
+        fixed = new Page<>(items, rowMapper.apply(items));
+        rowCount = items.size();
+        fireTableDataChanged();
+        updateHeaders();
+    }
+
+    public PageRequest getRequest() {
+        return request;
+    }
+
+    /**
+     * The item shown in a row, or null while its page is loading.
+     */
+    public T getItem(int row) {
+        if (fixed != null) {
+            return fixed.items.get(row);
+        }
+        Page<T> page = page(row);
+        int index = row % pageSize;
+        return page != null && index < page.items.size() ? page.items.get(index) : null;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        String sortKey = sortKeys[column];
+        if (sortKey != null && fixed == null && sortKey.equals(request.getSortBy())) {
+            return columns[column] + (request.isDescending() ? " ▼" : " ▲");
+        }
+        return columns[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        if (fixed != null) {
+            return fixed.rows.get(row)[column];
+        }
+        Page<T> page = page(row);
+        int index = row % pageSize;
+        return page != null && index < page.rows.size() ? page.rows.get(index)[column] : null;
+    }
+
+    private Page<T> page(int row) {
+        int number = row / pageSize;
+        Page<T> page = pages.get(number);
+        if (page == null) {
+            load(number);
+        }
+        return page;
+    }
+
+    private void load(int number) {
+        if (!loading.add(number)) {
+            return;
+        }
+        int current = generation;
+        PageRequest requested = request;
+        background.execute(() -> {
+            try {
+                List<T> items = fetcher.fetch(requested, number * pageSize, pageSize);
+                List<Object[]> rows = rowMapper.apply(items);
+                ui.execute(() -> loaded(current, number, new Page<>(items, rows)));
+            } catch (RuntimeException e) {
+                ui.execute(() -> {
+                    if (current == generation) {
+                        // Kept empty, so the page is not fetched again until refresh
+                        loaded(current, number, new Page<>(List.of(), List.of()));
+                        failed(current, e);
+                    }
+                });
+            }
+        });
+    }
+
+    private void loaded(int current, int number, Page<T> page) {
+        if (current != generation) {
+            return;
+        }
+        loading.remove(number);
+        pages.put(number, page);
+        int first = number * pageSize;
+        int last = Math.min(first + pageSize, rowCount) - 1;
+        if (first <= last) {
+            fireTableRowsUpdated(first, last);
+        }
+    }
+
+    private void failed(int current, RuntimeException e) {
+        if (current != generation || current == failedGeneration) {
+            return;
+        }
+        failedGeneration = current;
+        errors.accept(e);
+    }
+
+    private static final class Page<T> {
+        private final List<T> items;
+        private final List<Object[]> rows;
+
+        Page(List<T> items, List<Object[]> rows) {
+            this.items = items;
+            this.rows = rows;
+        }
+    }
+}
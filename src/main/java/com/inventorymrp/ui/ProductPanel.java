@@ -1,36 +1,35 @@
 package com.inventorymrp.ui;
 
-import com.inventorymrp.dao.ProductDAO;
+import com.inventorymrp.dao.ProductRepository;
+import com.inventorymrp.dao.Repositories;
 import com.inventorymrp.model.Product;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
- * Panel for managing products.
+ * Panel for managing products. The table pages through the products as it is
+ * scrolled, see {@link PagedTableModel}; the filter matches code and name.
  */
 public class ProductPanel extends JPanel {
-    private final ProductDAO productDAO;
+    private final ProductRepository productDAO;
     private JTable productTable;
-    private DefaultTableModel tableModel;
+    private PagedTableModel<Product> tableModel;
     
     public ProductPanel() {
-        this.productDAO = new ProductDAO();
+        this.productDAO = Repositories.products();
         setLayout(new BorderLayout(10, 10));
         setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
         
         // Create table
         String[] columns = {"ID", "Code", "Name", "Unit", "Cost", "Stock", "Reorder Level", "Order Lead Time", "Item Lead Time", "Is Assembly", "Non Purchase"};
-        tableModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        String[] sortKeys = {"id", "code", "name", "unit", "unitCost", "stockQuantity", "reorderLevel", "orderLeadTime", "itemLeadTime", "isAssembly", "nonPurchase"};
+        tableModel = new PagedTableModel<>(columns, sortKeys, productDAO::count, productDAO::findPage, this::toRows);
         productTable = new JTable(tableModel);
+        tableModel.attach(productTable);
         JScrollPane scrollPane = new JScrollPane(productTable);
         
         // Create button panel
@@ -50,6 +49,11 @@ public class ProductPanel extends JPanel {
         buttonPanel.add(deleteButton);
         buttonPanel.add(refreshButton);
         
+        JTextField filterField = new JTextField(15);
+        filterField.addActionListener(e -> tableModel.setFilter(filterField.getText()));
+        buttonPanel.add(new JLabel("Filter:"));
+        buttonPanel.add(filterField);
+        
         add(buttonPanel, BorderLayout.NORTH);
         add(scrollPane, BorderLayout.CENTER);
         
@@ -57,8 +61,11 @@ public class ProductPanel extends JPanel {
     }
     
     private void loadProducts() {
-        tableModel.setRowCount(0);
-        List<Product> products = productDAO.findAll();
+        tableModel.refresh();
+    }
+    
+    private List<Object[]> toRows(List<Product> products) {
+        List<Object[]> rows = new ArrayList<>();
         for (Product p : products) {
             Object[] row = {
                 p.getId(),
@@ -73,8 +80,9 @@ public class ProductPanel extends JPanel {
                 p.getIsAssembly() ? "Yes" : "No",
                 p.getNonPurchase() ? "Yes" : "No"
             };
-            tableModel.addRow(row);
+            rows.add(row);
         }
+        return rows;
     }
     
     private void addProduct() {
@@ -152,7 +160,12 @@ public class ProductPanel extends JPanel {
         }
         
         Long productId = (Long) tableModel.getValueAt(selectedRow, 0);
-        Product product = productDAO.findById(productId);
+        if (productId == null) {
+            JOptionPane.showMessageDialog(this, "The product list is still loading. Please wait, then select the product again.");
+            return;
+        }
+        // Read past the cache: the version loaded here is what the save is checked against
+        Product product = productDAO.findById(productId, true);
         
         if (product == null) {
             JOptionPane.showMessageDialog(this, "Product not found.");
@@ -231,6 +244,12 @@ public class ProductPanel extends JPanel {
             return;
         }
         
+        Long productId = (Long) tableModel.getValueAt(selectedRow, 0);
+        if (productId == null) {
+            JOptionPane.showMessageDialog(this, "The product list is still loading. Please wait, then select the product again.");
+            return;
+        }
+        
         int confirm = JOptionPane.showConfirmDialog(this, 
             "Are you sure you want to delete this product?", 
             "Confirm Delete", 
@@ -238,7 +257,6 @@ public class ProductPanel extends JPanel {
         
         if (confirm == JOptionPane.YES_OPTION) {
             try {
-                Long productId = (Long) tableModel.getValueAt(selectedRow, 0);
                 productDAO.delete(productId);
                 loadProducts();
                 JOptionPane.showMessageDialog(this, "Product deleted successfully!");
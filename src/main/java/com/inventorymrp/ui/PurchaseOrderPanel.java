@@ -1,42 +1,43 @@
 package com.inventorymrp.ui;
 
-import com.inventorymrp.dao.ProductDAO;
-import com.inventorymrp.dao.PurchaseOrderDAO;
+import com.inventorymrp.dao.ProductRepository;
+import com.inventorymrp.dao.PurchaseOrderRepository;
+import com.inventorymrp.dao.Repositories;
 import com.inventorymrp.model.Product;
 import com.inventorymrp.model.PurchaseOrder;
+import com.inventorymrp.model.PurchaseOrderView;
 import com.inventorymrp.service.InventoryService;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
- * Panel for managing purchase orders.
+ * Panel for managing purchase orders. The table pages through the orders as it
+ * is scrolled, see {@link PagedTableModel}, each page read with its products in
+ * one query; the filter matches status, supplier and reference.
  */
 public class PurchaseOrderPanel extends JPanel {
-    private final PurchaseOrderDAO purchaseOrderDAO;
-    private final ProductDAO productDAO;
+    private final PurchaseOrderRepository purchaseOrderDAO;
+    private final ProductRepository productDAO;
     private JTable poTable;
-    private DefaultTableModel tableModel;
+    private PagedTableModel<PurchaseOrderView> tableModel;
     
     public PurchaseOrderPanel() {
-        this.purchaseOrderDAO = new PurchaseOrderDAO();
-        this.productDAO = new ProductDAO();
+        this.purchaseOrderDAO = Repositories.purchaseOrders();
+        this.productDAO = Repositories.products();
         setLayout(new BorderLayout(10, 10));
         setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
         
         // Create table
         String[] columns = {"ID", "Product", "Quantity", "Status", "Order Date", "Expected Delivery", "Supplier"};
-        tableModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        String[] sortKeys = {"id", null, "quantity", "status", "orderDate", "expectedDeliveryDate", "supplier"};
+        tableModel = new PagedTableModel<>(columns, sortKeys, purchaseOrderDAO::count, purchaseOrderDAO::findViewPage, this::toRows);
         poTable = new JTable(tableModel);
+        tableModel.attach(poTable);
         JScrollPane scrollPane = new JScrollPane(poTable);
         
         // Create button panel
@@ -56,6 +57,11 @@ public class PurchaseOrderPanel extends JPanel {
         buttonPanel.add(deleteButton);
         buttonPanel.add(refreshButton);
         
+        JTextField filterField = new JTextField(15);
+        filterField.addActionListener(e -> tableModel.setFilter(filterField.getText()));
+        buttonPanel.add(new JLabel("Filter:"));
+        buttonPanel.add(filterField);
+        
         add(buttonPanel, BorderLayout.NORTH);
         add(scrollPane, BorderLayout.CENTER);
         
@@ -63,13 +69,15 @@ public class PurchaseOrderPanel extends JPanel {
     }
     
     private void loadPurchaseOrders() {
-        tableModel.setRowCount(0);
-        List<PurchaseOrder> purchaseOrders = purchaseOrderDAO.findAll();
+        tableModel.refresh();
+    }
+    
+    private List<Object[]> toRows(List<PurchaseOrderView> purchaseOrders) {
+        List<Object[]> rows = new ArrayList<>();
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
         
-        for (PurchaseOrder po : purchaseOrders) {
-            Product product = productDAO.findById(po.getProductId());
-            String productInfo = product != null ? product.getCode() + " - " + product.getName() : "Unknown";
+        for (PurchaseOrderView po : purchaseOrders) {
+            String productInfo = po.getProductCode() != null ? po.getProductCode() + " - " + po.getProductName() : "Unknown";
             
             Object[] row = {
                 po.getId(),
@@ -80,8 +88,9 @@ public class PurchaseOrderPanel extends JPanel {
                 po.getExpectedDeliveryDate() != null ? po.getExpectedDeliveryDate().format(formatter) : "",
                 po.getSupplier() != null ? po.getSupplier() : ""
             };
-            tableModel.addRow(row);
+            rows.add(row);
         }
+        return rows;
     }
     
     private void addPurchaseOrder() {
@@ -145,6 +154,10 @@ public class PurchaseOrderPanel extends JPanel {
         }
         
         Long poId = (Long) tableModel.getValueAt(selectedRow, 0);
+        if (poId == null) {
+            JOptionPane.showMessageDialog(this, "The purchase order list is still loading. Please wait, then select the purchase order again.");
+            return;
+        }
         PurchaseOrder po = purchaseOrderDAO.findById(poId);
         
         if (po == null) {
@@ -186,6 +199,12 @@ public class PurchaseOrderPanel extends JPanel {
             return;
         }
         
+        Long poId = (Long) tableModel.getValueAt(selectedRow, 0);
+        if (poId == null) {
+            JOptionPane.showMessageDialog(this, "The purchase order list is still loading. Please wait, then select the purchase order again.");
+            return;
+        }
+        
         int confirm = JOptionPane.showConfirmDialog(this, 
             "Are you sure you want to delete this purchase order?", 
             "Confirm Delete", 
@@ -193,7 +212,6 @@ public class PurchaseOrderPanel extends JPanel {
         
         if (confirm == JOptionPane.YES_OPTION) {
             try {
-                Long poId = (Long) tableModel.getValueAt(selectedRow, 0);
                 purchaseOrderDAO.delete(poId);
                 loadPurchaseOrders();
                 JOptionPane.showMessageDialog(this, "Purchase Order deleted successfully!");
@@ -1,25 +1,56 @@
 package com.inventorymrp.util;
 
+import com.inventorymrp.dao.ProductCache;
 import org.flywaydb.core.Flyway;
+import org.sql2o.GenericDatasource;
 import org.sql2o.Sql2o;
 import org.sql2o.converters.Converter;
 import org.sql2o.quirks.NoQuirks;
 
+import javax.sql.DataSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
 
 /**
  * Database utility class for managing H2 database connection.
+ * Sql2o instances created while {@link QueryCounter} or {@link StatementTracer} is
+ * enabled count or trace their statements.
  */
 public class DatabaseUtil {
     private static Sql2o sql2o;
+    private static ProductCache productCache;
     //private static final String DB_URL = "jdbc:h2:./data/inventorydb;AUTO_SERVER=TRUE";
     //private static final String DB_URL = "jdbc:h2:./data/inventorydb;TRACE_LEVEL_SYSTEM_OUT=2";
-    private static final String DB_URL = "jdbc:h2:./data/inventorydb";
+    // Open until exit; otherwise H2 closes the database with its last connection, compacting
+    // the file after writes, and reopens it with the next one
+    private static final String DB_URL = "jdbc:h2:./data/inventorydb;DB_CLOSE_DELAY=-1";
     private static final String DB_USER = "sa";
     private static final String DB_PASSWORD = "";
+    // Where the fingerprint of the migrations last applied to the default database is kept
+    private static final Path SCHEMA_MARKER = Paths.get("data", "inventorydb.schema");
+    private static final String MIGRATION_LOCATION = "db/migration";
+    // Product cache limits, overridable with -Dinventorymrp.productCache.maxSize / .ttlSeconds (maxSize 0 disables)
+    private static final int PRODUCT_CACHE_MAX_SIZE = Integer.getInteger("inventorymrp.productCache.maxSize", 10000);
+    private static final long PRODUCT_CACHE_TTL_SECONDS = Long.getLong("inventorymrp.productCache.ttlSeconds", 300L);
 
     private DatabaseUtil() {
         // Private constructor to prevent instantiation
@@ -34,8 +65,20 @@ public class DatabaseUtil {
 
     public static Sql2o getSql2o(String url, String user, String password) {
         sql2o = createSql2oWithConverters(url, user, password);
+        productCache = null;
         return sql2o;
     }
+
+    /**
+     * Product cache shared by the DAOs created on the default database connection,
+     * or null when caching is disabled.
+     */
+    public static synchronized ProductCache getProductCache() {
+        if (productCache == null && PRODUCT_CACHE_MAX_SIZE > 0) {
+            productCache = new ProductCache(PRODUCT_CACHE_MAX_SIZE, PRODUCT_CACHE_TTL_SECONDS * 1000L);
+        }
+        return productCache;
+    }
     
     private static Sql2o createSql2oWithConverters(String url, String user, String password) {
         // Register LocalDateTime converter for Java 8 time support
@@ -43,13 +86,145 @@ public class DatabaseUtil {
         converters.put(LocalDateTime.class, new LocalDateTimeConverter());
         converters.put(LocalDate.class, new LocalDateConverter());
         
-        Sql2o instance = new Sql2o(url, user, password, new NoQuirks(converters));
+        DataSource dataSource = new GenericDatasource(url, user, password);
+        if (StatementTracer.isEnabled()) {
+            dataSource = StatementTracer.wrap(dataSource);
+        }
+        if (QueryCounter.isEnabled()) {
+            dataSource = QueryCounter.wrap(dataSource);
+        }
+        Sql2o instance = new Sql2o(dataSource, new NoQuirks(converters));
         instance.setDefaultCaseSensitive(false);
         return instance;
     }
 
+    /**
+     * Migrate the default database. Flyway only runs when the migration scripts differ
+     * from the ones last applied to this database file, as recorded in a marker file
+     * beside it, or when the database's schema history does not list the same
+     * migrations; run with -Dinventorymrp.forceMigrate=true to run it regardless.
+     */
     public static void initializeDatabase() {
-        initializeDatabase(DB_URL, DB_USER, DB_PASSWORD);
+        initializeDatabase(DB_URL, DB_USER, DB_PASSWORD, SCHEMA_MARKER);
+    }
+
+    /**
+     * Migrate the database at url unless marker holds the current migration fingerprint
+     * and its schema history lists exactly the migration versions on the classpath,
+     * then record the fingerprint in marker.
+     * @return whether Flyway ran
+     */
+    static boolean initializeDatabase(String url, String user, String password, Path marker) {
+        SortedMap<String, byte[]> scripts = migrationScripts();
+        String fingerprint = scripts != null ? fingerprint(scripts) : null;
+        if (fingerprint != null && !Boolean.getBoolean("inventorymrp.forceMigrate")) {
+            try {
+                if (Files.exists(marker)
+                        && fingerprint.equals(new String(Files.readAllBytes(marker), StandardCharsets.UTF_8))
+                        && appliedVersions(url, user, password).equals(versions(scripts))) {
+                    System.out.println("Database schema is up to date, skipping Flyway");
+                    return false;
+                }
+            } catch (IOException | SQLException e) {
+                // no schema history yet, or unreadable: fall back to running Flyway
+            }
+        }
+        initializeDatabase(url, user, password);
+        if (fingerprint != null) {
+            try {
+                Files.write(marker, fingerprint.getBytes(StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                System.err.println("Could not record schema fingerprint: " + e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Versions of the migrations successfully applied to the database, with one query.
+     */
+    private static Set<String> appliedVersions(String url, String user, String password) throws SQLException {
+        Set<String> versions = new HashSet<>();
+        try (java.sql.Connection con = DriverManager.getConnection(url, user, password);
+             Statement statement = con.createStatement();
+             ResultSet rs = statement.executeQuery(
+                 "SELECT \"version\" FROM \"flyway_schema_history\" " +
+                 "WHERE \"success\" AND \"version\" IS NOT NULL")) {
+            while (rs.next()) {
+                versions.add(rs.getString(1));
+            }
+        }
+        return versions;
+    }
+
+    /**
+     * Versions of the versioned migration scripts, e.g. "10" for V10__Create_mrp_plan_tables.sql.
+     */
+    private static Set<String> versions(SortedMap<String, byte[]> scripts) {
+        Set<String> versions = new HashSet<>();
+        for (String name : scripts.keySet()) {
+            String file = name.substring(name.lastIndexOf('/') + 1);
+            int separator = file.indexOf("__");
+            if (file.startsWith("V") && separator > 1) {
+                versions.add(file.substring(1, separator).replace('_', '.'));
+            }
+        }
+        return versions;
+    }
+
+    /**
+     * CRC32 over the names and contents of the migration scripts on the classpath,
+     * or null if they cannot be listed.
+     */
+    static String migrationFingerprint() {
+        SortedMap<String, byte[]> scripts = migrationScripts();
+        return scripts != null ? fingerprint(scripts) : null;
+    }
+
+    private static String fingerprint(SortedMap<String, byte[]> scripts) {
+        CRC32 crc = new CRC32();
+        for (Map.Entry<String, byte[]> script : scripts.entrySet()) {
+            crc.update(script.getKey().getBytes(StandardCharsets.UTF_8));
+            crc.update(script.getValue());
+        }
+        return scripts.size() + ":" + Long.toHexString(crc.getValue());
+    }
+
+    /**
+     * The migration scripts on the classpath by name, or null if they cannot be listed.
+     */
+    private static SortedMap<String, byte[]> migrationScripts() {
+        try {
+            URL location = DatabaseUtil.class.getClassLoader().getResource(MIGRATION_LOCATION);
+            if (location == null) {
+                return null;
+            }
+            SortedMap<String, byte[]> scripts = new TreeMap<>();
+            if ("file".equals(location.getProtocol())) {
+                try (Stream<Path> files = Files.list(Paths.get(location.toURI()))) {
+                    for (Path file : (Iterable<Path>) files::iterator) {
+                        scripts.put(file.getFileName().toString(), Files.readAllBytes(file));
+                    }
+                }
+            } else if ("jar".equals(location.getProtocol())) {
+                JarURLConnection connection = (JarURLConnection) location.openConnection();
+                connection.setUseCaches(false);
+                try (JarFile jar = connection.getJarFile()) {
+                    for (JarEntry entry : Collections.list(jar.entries())) {
+                        if (entry.getName().startsWith(MIGRATION_LOCATION + "/") && !entry.isDirectory()) {
+                            try (InputStream in = jar.getInputStream(entry)) {
+                                scripts.put(entry.getName(), in.readAllBytes());
+                            }
+                        }
+                    }
+                }
+            } else {
+                return null;
+            }
+            return scripts;
+        } catch (IOException | URISyntaxException | RuntimeException e) {
+            return null;
+        }
     }
 
     public static void initializeDatabase(String url, String user, String password) {
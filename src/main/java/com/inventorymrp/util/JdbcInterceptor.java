@@ -0,0 +1,219 @@
+package com.inventorymrp.util;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * JDBC proxies reporting every statement executed through a data source to a
+ * {@link Listener}. An update is reported when it returns; a query when its result
+ * set is closed (or its statement closed or re-executed), with the rows read and
+ * the time spent executing it and fetching them.
+ */
+final class JdbcInterceptor {
+
+    /**
+     * Receives executed statements, on the executing thread.
+     */
+    interface Listener {
+        /**
+         * @param sql statement text, prefixed "[batch] " for a batch
+         * @param parameters values bound by parameter index; empty for a batch or a plain statement
+         * @param rows rows read by a query or affected by an update
+         * @param nanos time spent in the driver
+         */
+        void executed(String sql, Map<Integer, Object> parameters, long rows, long nanos, boolean failed);
+    }
+
+    private JdbcInterceptor() {
+        // Private constructor to prevent instantiation
+    }
+
+    static DataSource wrap(DataSource dataSource, Listener listener) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            Object result = invoke(dataSource, method, args);
+            return result instanceof Connection ? wrap((Connection) result, listener) : result;
+        };
+        return (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(),
+                                                   new Class<?>[] {DataSource.class}, handler);
+    }
+
+    private static Connection wrap(Connection connection, Listener listener) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            // prepareStatement/prepareCall take the SQL up front, createStatement at execution
+            String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = invoke(connection, method, args);
+            } catch (Throwable e) {
+                if (sql != null && method.getName().startsWith("prepare")) {
+                    // H2 rejects invalid SQL when preparing it
+                    listener.executed(sql, Collections.emptyMap(), 0, System.nanoTime() - start, true);
+                }
+                throw e;
+            }
+            if (result instanceof Statement) {
+                return new StatementHandler((Statement) result, sql, listener).proxy(method.getReturnType());
+            }
+            return result;
+        };
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                                                   new Class<?>[] {Connection.class}, handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * One statement: the parameters currently bound and the query whose result
+     * set is still open.
+     */
+    private static final class StatementHandler implements InvocationHandler {
+        private final Statement statement;
+        private final String preparedSql;
+        private final Listener listener;
+        private final Map<Integer, Object> parameters = new TreeMap<>();
+        private Execution open;
+
+        StatementHandler(Statement statement, String preparedSql, Listener listener) {
+            this.statement = statement;
+            this.preparedSql = preparedSql;
+            this.listener = listener;
+        }
+
+        Statement proxy(Class<?> type) {
+            Class<?> iface = type == CallableStatement.class || type == PreparedStatement.class ? type : Statement.class;
+            return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[] {iface}, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("execute")) {
+                return execute(method, args, name.endsWith("Batch"));
+            }
+            if (name.equals("getResultSet")) {
+                ResultSet resultSet = (ResultSet) JdbcInterceptor.invoke(statement, method, args);
+                return resultSet != null && open != null ? open.wrap(resultSet) : resultSet;
+            }
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer
+                    && method.getDeclaringClass() != Statement.class) {
+                parameters.put((Integer) args[0], name.equals("setNull") ? null : args[1]);
+            } else if (name.equals("clearParameters")) {
+                parameters.clear();
+            } else if (name.equals("close")) {
+                finish();
+            }
+            return JdbcInterceptor.invoke(statement, method, args);
+        }
+
+        private Object execute(Method method, Object[] args, boolean batch) throws Throwable {
+            finish();
+            String sql = !batch && args != null && args.length > 0 && args[0] instanceof String
+                    ? (String) args[0] : preparedSql;
+            Execution execution = new Execution(batch ? "[batch] " + (sql != null ? sql : "") : sql,
+                                                batch ? Collections.emptyMap() : new TreeMap<>(parameters));
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = JdbcInterceptor.invoke(statement, method, args);
+            } catch (Throwable e) {
+                execution.nanos += System.nanoTime() - start;
+                execution.report(true);
+                throw e;
+            }
+            execution.nanos += System.nanoTime() - start;
+            if (result instanceof ResultSet) {
+                open = execution;
+                return execution.wrap((ResultSet) result);
+            }
+            if (Boolean.TRUE.equals(result)) {
+                // execute() produced a result set, read through getResultSet()
+                open = execution;
+                return result;
+            }
+            if (result instanceof int[]) {
+                for (int count : (int[]) result) {
+                    execution.rows += Math.max(0, count);
+                }
+            } else if (result instanceof long[]) {
+                for (long count : (long[]) result) {
+                    execution.rows += Math.max(0, count);
+                }
+            } else if (result instanceof Number) {
+                execution.rows = ((Number) result).longValue();
+            } else {
+                execution.rows = Math.max(0, statement.getUpdateCount());
+            }
+            execution.report(false);
+            return result;
+        }
+
+        private void finish() {
+            if (open != null) {
+                open.report(false);
+                open = null;
+            }
+        }
+
+        /**
+         * One execution, reported once.
+         */
+        private final class Execution {
+            private final String sql;
+            private final Map<Integer, Object> parameters;
+            private long rows;
+            private long nanos;
+            private boolean reported;
+
+            Execution(String sql, Map<Integer, Object> parameters) {
+                this.sql = sql;
+                this.parameters = parameters;
+            }
+
+            ResultSet wrap(ResultSet resultSet) {
+                InvocationHandler handler = (proxy, method, args) -> {
+                    String name = method.getName();
+                    if (name.equals("next")) {
+                        long start = System.nanoTime();
+                        Object more = JdbcInterceptor.invoke(resultSet, method, args);
+                        nanos += System.nanoTime() - start;
+                        if (Boolean.TRUE.equals(more)) {
+                            rows++;
+                        }
+                        return more;
+                    }
+                    if (name.equals("close") && open == this) {
+                        finish();
+                    }
+                    return JdbcInterceptor.invoke(resultSet, method, args);
+                };
+                return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                                                          new Class<?>[] {ResultSet.class}, handler);
+            }
+
+            void report(boolean failed) {
+                if (!reported) {
+                    reported = true;
+                    listener.executed(sql, parameters, rows, nanos, failed);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.inventorymrp.util;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Per-operation metrics: call and error counters, calls in flight and a latency
+ * histogram with power-of-two nanosecond buckets, kept per operation name.
+ *
+ * Off unless -Dinventorymrp.metrics=true (or {@link #setEnabled}). When off,
+ * {@link #time} and {@link #run} just call through and {@link #instrument} returns
+ * the target itself, so repositories created meanwhile carry no proxy at all.
+ * When on, the report is printed at exit, or written to the file named by
+ * -Dinventorymrp.metrics.file.
+ */
+public final class Metrics {
+    private static volatile boolean enabled = Boolean.getBoolean("inventorymrp.metrics");
+    private static final ConcurrentHashMap<String, OperationStats> operations = new ConcurrentHashMap<>();
+    private static boolean exitReportRegistered;
+
+    static {
+        if (enabled) {
+            registerExitReport();
+        }
+    }
+
+    private Metrics() {
+        // Private constructor to prevent instantiation
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean on) {
+        enabled = on;
+        if (on) {
+            registerExitReport();
+        }
+    }
+
+    private static synchronized void registerExitReport() {
+        if (exitReportRegistered) {
+            return;
+        }
+        exitReportRegistered = true;
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            String file = System.getProperty("inventorymrp.metrics.file");
+            if (file == null) {
+                System.out.println(report());
+                return;
+            }
+            try {
+                writeReport(Paths.get(file));
+            } catch (IOException e) {
+                System.err.println("Could not write metrics to " + file + ": " + e.getMessage());
+            }
+        }, "metrics-report"));
+    }
+
+    /**
+     * Run and measure an operation.
+     */
+    public static <T> T time(String name, Supplier<T> operation) {
+        if (!enabled) {
+            return operation.get();
+        }
+        OperationStats stats = operations.computeIfAbsent(name, OperationStats::new);
+        long start = stats.begin();
+        boolean failed = true;
+        try {
+            T result = operation.get();
+            failed = false;
+            return result;
+        } finally {
+            stats.end(start, failed);
+        }
+    }
+
+    /**
+     * Run and measure an operation without a result.
+     */
+    public static void run(String name, Runnable operation) {
+        if (!enabled) {
+            operation.run();
+            return;
+        }
+        time(name, () -> {
+            operation.run();
+            return null;
+        });
+    }
+
+    /**
+     * Wrap target so every call through the interface is measured as
+     * "InterfaceName.method". Returns target itself while metrics are off.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T instrument(Class<T> type, T target) {
+        if (!enabled) {
+            return target;
+        }
+        String prefix = type.getSimpleName() + ".";
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return method.invoke(target, args);
+            }
+            OperationStats stats = operations.computeIfAbsent(prefix + method.getName(), OperationStats::new);
+            long start = stats.begin();
+            boolean failed = true;
+            try {
+                Object result = method.invoke(target, args);
+                failed = false;
+                return result;
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            } finally {
+                stats.end(start, failed);
+            }
+        };
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, handler);
+    }
+
+    /**
+     * Current statistics of every operation measured so far, by total time descending.
+     */
+    public static List<OperationSnapshot> snapshot() {
+        List<OperationSnapshot> result = new ArrayList<>();
+        for (OperationStats operation : operations.values()) {
+            result.add(operation.snapshot());
+        }
+        result.sort(Comparator.comparingLong(OperationSnapshot::getTotalNanos).reversed());
+        return result;
+    }
+
+    /**
+     * Forget all statistics.
+     */
+    public static void reset() {
+        operations.clear();
+    }
+
+    /**
+     * The snapshot as a table, one operation per line.
+     */
+    public static String report() {
+        StringBuilder sb = new StringBuilder(String.format("%-55s %9s %6s %4s %10s %9s %9s %9s %9s%n",
+                "operation", "calls", "errors", "busy", "total ms", "mean us", "p50 us", "p99 us", "max us"));
+        for (OperationSnapshot op : snapshot()) {
+            sb.append(String.format("%-55s %9d %6d %4d %10.1f %9.1f %9.1f %9.1f %9.1f%n",
+                    op.getName(), op.getCount(), op.getErrors(), op.getInFlight(), op.getTotalNanos() / 1e6,
+                    op.getMeanNanos() / 1e3, op.getPercentileNanos(50) / 1e3, op.getPercentileNanos(99) / 1e3,
+                    op.getMaxNanos() / 1e3));
+        }
+        return sb.toString();
+    }
+
+    public static void writeReport(Path file) throws IOException {
+        Files.write(file, report().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Statistics of one operation at one moment.
+     */
+    public static class OperationSnapshot {
+        private final String name;
+        private final long count;
+        private final long errors;
+        private final long inFlight;
+        private final long totalNanos;
+        private final long maxNanos;
+        private final long[] buckets;
+
+        OperationSnapshot(String name, long count, long errors, long inFlight, long totalNanos, long maxNanos,
+                          long[] buckets) {
+            this.name = name;
+            this.count = count;
+            this.errors = errors;
+            this.inFlight = inFlight;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+            this.buckets = buckets;
+        }
+
+        OperationSnapshot(OperationSnapshot other) {
+            this(other.name, other.count, other.errors, other.inFlight, other.totalNanos, other.maxNanos,
+                 other.buckets);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        public long getInFlight() {
+            return inFlight;
+        }
+
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+
+        public double getMeanNanos() {
+            return count == 0 ? 0 : (double) totalNanos / count;
+        }
+
+        /**
+         * Upper bound of the histogram bucket holding the given percentile, capped at
+         * the maximum; accurate to within a factor of two.
+         */
+        public long getPercentileNanos(double percentile) {
+            long total = 0;
+            for (long bucket : buckets) {
+                total += bucket;
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(total * percentile / 100.0);
+            long seen = 0;
+            for (int b = 0; b < buckets.length; b++) {
+                seen += buckets[b];
+                if (seen >= rank) {
+                    return b >= 62 ? maxNanos : Math.min(maxNanos, (1L << (b + 1)) - 1);
+                }
+            }
+            return maxNanos;
+        }
+    }
+}
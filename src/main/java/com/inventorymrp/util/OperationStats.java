@@ -0,0 +1,64 @@
+package com.inventorymrp.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live statistics of one operation: call and error counters, calls in flight and a
+ * latency histogram with power-of-two nanosecond buckets. Kept by {@link Metrics}
+ * per operation and by {@link StatementTracer} per SQL statement.
+ */
+final class OperationStats {
+    static final int BUCKETS = 64;
+
+    private final String name;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder inFlight = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+    // Bucket b counts durations in [2^b, 2^(b+1)) nanoseconds
+    private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+
+    OperationStats(String name) {
+        this.name = name;
+    }
+
+    long begin() {
+        inFlight.increment();
+        return System.nanoTime();
+    }
+
+    void end(long start, boolean failed) {
+        inFlight.decrement();
+        record(System.nanoTime() - start, failed);
+    }
+
+    /**
+     * Count a completed call that was not started with {@link #begin}.
+     */
+    void record(long nanos, boolean failed) {
+        nanos = Math.max(1, nanos);
+        count.increment();
+        if (failed) {
+            errors.increment();
+        }
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+        histogram.incrementAndGet(63 - Long.numberOfLeadingZeros(nanos));
+    }
+
+    Metrics.OperationSnapshot snapshot() {
+        return new Metrics.OperationSnapshot(name, count.sum(), errors.sum(), inFlight.sum(), totalNanos.sum(),
+                                             maxNanos.get(), buckets());
+    }
+
+    long[] buckets() {
+        long[] buckets = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = histogram.get(i);
+        }
+        return buckets;
+    }
+}
@@ -0,0 +1,88 @@
+package com.inventorymrp.util;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the SQL statements executed through a wrapped {@link DataSource}, per SQL
+ * text, so tests can spot N+1 query patterns and hold code to a query budget.
+ * A JDBC batch counts as one statement; a query counts once its result set is closed.
+ *
+ * {@link DatabaseUtil} wraps the data sources of the Sql2o instances it creates while
+ * counting is on: -Dinventorymrp.countQueries=true, or {@link #setEnabled} before the
+ * Sql2o is created. Counts are global, across all wrapped data sources and threads.
+ */
+public final class QueryCounter {
+    private static volatile boolean enabled = Boolean.getBoolean("inventorymrp.countQueries");
+    private static final LongAdder total = new LongAdder();
+    private static final ConcurrentHashMap<String, LongAdder> bySql = new ConcurrentHashMap<>();
+
+    private QueryCounter() {
+        // Private constructor to prevent instantiation
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Switch wrapping of data sources created from now on; data sources already
+     * wrapped keep counting.
+     */
+    public static void setEnabled(boolean on) {
+        enabled = on;
+    }
+
+    /**
+     * Statements executed since the last {@link #reset}.
+     */
+    public static long count() {
+        return total.sum();
+    }
+
+    /**
+     * Statements executed since the last {@link #reset}, keyed by SQL text.
+     */
+    public static Map<String, Long> statements() {
+        Map<String, Long> result = new TreeMap<>();
+        bySql.forEach((sql, count) -> result.put(sql, count.sum()));
+        return result;
+    }
+
+    public static void reset() {
+        total.reset();
+        bySql.clear();
+    }
+
+    /**
+     * Number of statements executed between two {@link #statements} snapshots, with the
+     * SQL texts executed more than once: the usual sign of a query issued per row.
+     */
+    public static String describe(Map<String, Long> before, Map<String, Long> after) {
+        StringBuilder sb = new StringBuilder();
+        long count = 0;
+        for (Map.Entry<String, Long> entry : after.entrySet()) {
+            long executed = entry.getValue() - before.getOrDefault(entry.getKey(), 0L);
+            count += executed;
+            if (executed > 1) {
+                sb.append(String.format("%n  %5dx %s", executed, entry.getKey()));
+            }
+        }
+        return count + " statements" + (sb.length() > 0 ? ", repeated:" + sb : "");
+    }
+
+    private static void record(String sql) {
+        total.increment();
+        bySql.computeIfAbsent(sql != null ? sql.trim() : "?", k -> new LongAdder()).increment();
+    }
+
+    /**
+     * Wrap a data source so statements run on its connections are counted.
+     */
+    public static DataSource wrap(DataSource dataSource) {
+        return JdbcInterceptor.wrap(dataSource, (sql, parameters, rows, nanos, failed) -> record(sql));
+    }
+}
@@ -0,0 +1,50 @@
+package com.inventorymrp.util;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Records how long after JVM start each startup phase completed. The UI prints the
+ * report when run with -Dinventorymrp.startupTimes=true.
+ */
+public final class StartupTimer {
+    private static final boolean enabled = Boolean.getBoolean("inventorymrp.startupTimes");
+    private static final long JVM_START = ManagementFactory.getRuntimeMXBean().getStartTime();
+    private static final Map<String, Long> phases = new LinkedHashMap<>();
+
+    private StartupTimer() {
+        // Private constructor to prevent instantiation
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Record that a phase has just completed. Only the first mark of a phase counts.
+     */
+    public static synchronized void mark(String phase) {
+        phases.putIfAbsent(phase, System.currentTimeMillis() - JVM_START);
+    }
+
+    /**
+     * Milliseconds from JVM start to the phase, or -1 if it has not been marked.
+     */
+    public static synchronized long elapsed(String phase) {
+        return phases.getOrDefault(phase, -1L);
+    }
+
+    /**
+     * The phases so far, e.g. "Startup: database 180 ms, window 420 ms, first paint 610 ms".
+     */
+    public static synchronized String report() {
+        StringBuilder sb = new StringBuilder("Startup:");
+        String separator = " ";
+        for (Map.Entry<String, Long> phase : phases.entrySet()) {
+            sb.append(separator).append(phase.getKey()).append(' ').append(phase.getValue()).append(" ms");
+            separator = ", ";
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,167 @@
+package com.inventorymrp.util;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.temporal.Temporal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statement tracing: per SQL text, the number of executions, rows and a latency
+ * histogram, and a slow-statement log on standard error with the SQL, its bind
+ * parameters and row count. Strings and binary values are redacted in the log;
+ * numbers, booleans and dates are shown.
+ *
+ * {@link DatabaseUtil} traces the Sql2o instances it creates while tracing is on:
+ * -Dinventorymrp.trace=true, or {@link #setEnabled} before the Sql2o is created.
+ * Statements taking at least -Dinventorymrp.trace.slowMillis (default 200) are logged.
+ */
+public final class StatementTracer {
+    private static volatile boolean enabled = Boolean.getBoolean("inventorymrp.trace");
+    private static volatile long slowNanos = Long.getLong("inventorymrp.trace.slowMillis", 200L) * 1_000_000L;
+    private static final ConcurrentHashMap<String, StatementStats> statements = new ConcurrentHashMap<>();
+
+    private StatementTracer() {
+        // Private constructor to prevent instantiation
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Switch tracing of data sources created from now on; data sources already
+     * wrapped keep tracing.
+     */
+    public static void setEnabled(boolean on) {
+        enabled = on;
+    }
+
+    public static long getSlowThresholdMillis() {
+        return slowNanos / 1_000_000L;
+    }
+
+    public static void setSlowThresholdMillis(long millis) {
+        slowNanos = millis * 1_000_000L;
+    }
+
+    /**
+     * Wrap a data source so statements run on its connections are traced.
+     */
+    public static DataSource wrap(DataSource dataSource) {
+        return JdbcInterceptor.wrap(dataSource, StatementTracer::executed);
+    }
+
+    private static void executed(String sql, Map<Integer, Object> parameters, long rows, long nanos, boolean failed) {
+        String text = sql != null ? sql.trim() : "?";
+        StatementStats stats = statements.computeIfAbsent(text, StatementStats::new);
+        stats.timing.record(nanos, failed);
+        stats.rows.add(rows);
+        if (nanos >= slowNanos) {
+            System.err.println(String.format("Slow statement: %.1f ms, %d rows%s: %s %s", nanos / 1e6, rows,
+                                             failed ? ", failed" : "", text, redact(parameters)));
+        }
+    }
+
+    /**
+     * Bind parameters for a log line, with strings and binary values replaced by their length.
+     */
+    static String redact(Map<Integer, Object> parameters) {
+        if (parameters.isEmpty()) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder("[");
+        for (Map.Entry<Integer, Object> parameter : parameters.entrySet()) {
+            if (sb.length() > 1) {
+                sb.append(", ");
+            }
+            Object value = parameter.getValue();
+            sb.append(parameter.getKey()).append('=');
+            if (value == null || value instanceof Number || value instanceof Boolean
+                    || value instanceof Temporal || value instanceof Date) {
+                sb.append(value);
+            } else if (value instanceof CharSequence) {
+                sb.append("<string ").append(((CharSequence) value).length()).append(">");
+            } else if (value instanceof byte[]) {
+                sb.append("<bytes ").append(((byte[]) value).length).append(">");
+            } else {
+                sb.append('<').append(value.getClass().getSimpleName()).append('>');
+            }
+        }
+        return sb.append(']').toString();
+    }
+
+    /**
+     * Current statistics of every statement traced so far, by total time descending.
+     */
+    public static List<StatementSnapshot> snapshot() {
+        List<StatementSnapshot> result = new ArrayList<>();
+        for (StatementStats stats : statements.values()) {
+            result.add(new StatementSnapshot(stats.timing.snapshot(), stats.rows.sum()));
+        }
+        result.sort(Comparator.comparingLong(StatementSnapshot::getTotalNanos).reversed());
+        return result;
+    }
+
+    /**
+     * Forget all statistics.
+     */
+    public static void reset() {
+        statements.clear();
+    }
+
+    /**
+     * The snapshot as a table, one statement per line.
+     */
+    public static String report() {
+        StringBuilder sb = new StringBuilder(String.format("%9s %6s %10s %10s %9s %9s %9s  %s%n",
+                "calls", "errors", "rows", "total ms", "p50 us", "p99 us", "max us", "statement"));
+        for (StatementSnapshot st : snapshot()) {
+            sb.append(String.format("%9d %6d %10d %10.1f %9.1f %9.1f %9.1f  %s%n",
+                    st.getCount(), st.getErrors(), st.getRows(), st.getTotalNanos() / 1e6,
+                    st.getPercentileNanos(50) / 1e3, st.getPercentileNanos(99) / 1e3, st.getMaxNanos() / 1e3,
+                    st.getName()));
+        }
+        return sb.toString();
+    }
+
+    public static void writeReport(Path file) throws IOException {
+        Files.write(file, report().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static final class StatementStats {
+        private final OperationStats timing;
+        private final LongAdder rows = new LongAdder();
+
+        StatementStats(String sql) {
+            this.timing = new OperationStats(sql);
+        }
+    }
+
+    /**
+     * Statistics of one statement at one moment; the name is the SQL text.
+     */
+    public static class StatementSnapshot extends Metrics.OperationSnapshot {
+        private final long rows;
+
+        StatementSnapshot(Metrics.OperationSnapshot stats, long rows) {
+            super(stats);
+            this.rows = rows;
+        }
+
+        /**
+         * Rows read or affected by all executions.
+         */
+        public long getRows() {
+            return rows;
+        }
+    }
+}
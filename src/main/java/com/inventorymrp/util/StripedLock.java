@@ -0,0 +1,120 @@
+package com.inventorymrp.util;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Fixed set of locks selected by key hash. Work on the same key is serialized
+ * in-process while different keys mostly proceed in parallel. Records how often
+ * and how long callers waited, so hot-key contention is visible.
+ */
+public class StripedLock {
+    private final ReentrantLock[] locks;
+    private final int mask;
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder contended = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0L);
+
+    /**
+     * @param stripes number of locks, rounded up to a power of two
+     */
+    public StripedLock(int stripes) {
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("stripes must be positive: " + stripes);
+        }
+        int size = stripes == 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * Run action while holding the lock for key.
+     */
+    public <T> T withLock(Object key, Supplier<T> action) {
+        ReentrantLock lock = lockFor(key);
+        acquire(lock);
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Run action while holding the lock for key.
+     */
+    public void withLock(Object key, Runnable action) {
+        ReentrantLock lock = lockFor(key);
+        acquire(lock);
+        try {
+            action.run();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ReentrantLock lockFor(Object key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return locks[h & mask];
+    }
+
+    private void acquire(ReentrantLock lock) {
+        acquisitions.increment();
+        if (lock.tryLock()) {
+            return;
+        }
+        long t0 = System.nanoTime();
+        lock.lock();
+        long waited = System.nanoTime() - t0;
+        contended.increment();
+        waitNanos.add(waited);
+        maxWaitNanos.accumulate(waited);
+    }
+
+    public int getStripeCount() {
+        return locks.length;
+    }
+
+    public long getAcquisitionCount() {
+        return acquisitions.sum();
+    }
+
+    public long getContendedCount() {
+        return contended.sum();
+    }
+
+    public long getTotalWaitNanos() {
+        return waitNanos.sum();
+    }
+
+    public long getMaxWaitNanos() {
+        return maxWaitNanos.get();
+    }
+
+    public void resetStatistics() {
+        acquisitions.reset();
+        contended.reset();
+        waitNanos.reset();
+        maxWaitNanos.reset();
+    }
+
+    @Override
+    public String toString() {
+        long n = getAcquisitionCount();
+        long c = getContendedCount();
+        return "StripedLock{" +
+                "stripes=" + locks.length +
+                ", acquisitions=" + n +
+                ", contended=" + c +
+                ", avgWaitMicros=" + (c == 0 ? 0 : getTotalWaitNanos() / c / 1000) +
+                ", maxWaitMicros=" + getMaxWaitNanos() / 1000 +
+                '}';
+    }
+}
@@ -0,0 +1,30 @@
+-- One row per batch MRP regeneration (BatchPlanner); status is RUNNING, COMPLETED or FAILED
+CREATE TABLE mrp_plan_runs (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    started_at TIMESTAMP NOT NULL,
+    finished_at TIMESTAMP,
+    status VARCHAR(20) NOT NULL,
+    demand_quantity INT NOT NULL,
+    assembly_filter VARCHAR(100),
+    assembly_count INT NOT NULL DEFAULT 0,
+    line_count INT NOT NULL DEFAULT 0
+);
+
+-- Requirement of one material for one assembly's demand, with its availability and
+-- the proposed purchase (order_quantity and expected_delivery_date are null when none is needed).
+-- No foreign keys to products: the plan is a snapshot replaced by the next run, and each key
+-- would add an index to maintain on every line written.
+CREATE TABLE mrp_plan_lines (
+    run_id BIGINT NOT NULL,
+    assembly_id BIGINT NOT NULL,
+    product_id BIGINT NOT NULL,
+    required_quantity INT NOT NULL,
+    available_quantity INT NOT NULL,
+    shortage INT NOT NULL,
+    order_quantity INT,
+    expected_delivery_date DATE,
+    PRIMARY KEY (run_id, assembly_id, product_id),
+    FOREIGN KEY (run_id) REFERENCES mrp_plan_runs(id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_mrp_plan_lines_product ON mrp_plan_lines(run_id, product_id);
@@ -0,0 +1,37 @@
+-- Opening balance ADJUSTMENT for every product whose stock_quantity predates the ledger:
+-- the difference between its stock and the sum of its movements, dated a second before
+-- its first movement (or its creation), so the ledger balance matches stock_quantity
+-- at every point after it
+CREATE TABLE opening_balances AS
+SELECT p.id AS product_id,
+       COALESCE(p.stock_quantity, 0) - COALESCE(l.total, 0) AS quantity,
+       DATEADD('SECOND', -1, LEAST(COALESCE(p.created_at, LOCALTIMESTAMP),
+                                   COALESCE(l.first_date, p.created_at, LOCALTIMESTAMP))) AS opening_date
+FROM products p
+LEFT JOIN (SELECT product_id,
+                  SUM(CASE WHEN transaction_type = 'OUT' THEN -quantity ELSE quantity END) AS total,
+                  MIN(transaction_date) AS first_date
+           FROM inventory_ledger
+           GROUP BY product_id) l ON l.product_id = p.id
+WHERE COALESCE(p.stock_quantity, 0) <> COALESCE(l.total, 0);
+
+INSERT INTO inventory_transactions (product_id, transaction_type, quantity, reference, transaction_date, created_at)
+SELECT product_id, 'ADJUSTMENT', quantity, 'Opening balance', opening_date, LOCALTIMESTAMP
+FROM opening_balances;
+
+MERGE INTO daily_stock_movements d
+USING opening_balances o
+ON d.product_id = o.product_id AND d.movement_date = CAST(o.opening_date AS DATE)
+WHEN MATCHED THEN UPDATE SET adjustment_quantity = d.adjustment_quantity + o.quantity,
+                             transaction_count = d.transaction_count + 1
+WHEN NOT MATCHED THEN INSERT (product_id, movement_date, in_quantity, out_quantity,
+                              adjustment_quantity, transaction_count)
+     VALUES (o.product_id, CAST(o.opening_date AS DATE), 0, 0, o.quantity, 1);
+
+-- Snapshots taken after an opening balance count it from now on
+UPDATE stock_snapshots s
+SET balance = balance + (SELECT o.quantity FROM opening_balances o WHERE o.product_id = s.product_id)
+WHERE EXISTS (SELECT 1 FROM opening_balances o
+              WHERE o.product_id = s.product_id AND o.opening_date <= s.as_of);
+
+DROP TABLE opening_balances;
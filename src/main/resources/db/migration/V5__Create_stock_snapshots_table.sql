@@ -0,0 +1,13 @@
+-- Create stock_snapshots table: per-product ledger balance as of a point in time
+CREATE TABLE stock_snapshots (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    product_id BIGINT NOT NULL,
+    as_of TIMESTAMP NOT NULL,
+    balance INT NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (product_id) REFERENCES products(id) ON DELETE CASCADE,
+    UNIQUE (product_id, as_of)
+);
+
+-- Replaying the ledger after a snapshot reads transactions by product and date
+CREATE INDEX idx_inventory_transactions_product_date ON inventory_transactions(product_id, transaction_date);
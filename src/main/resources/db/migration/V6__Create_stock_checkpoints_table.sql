@@ -0,0 +1,12 @@
+-- Create stock_checkpoints table: one row per point in time at which every product was snapshotted
+CREATE TABLE stock_checkpoints (
+    as_of TIMESTAMP PRIMARY KEY,
+    product_count INT NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+INSERT INTO stock_checkpoints (as_of, product_count)
+SELECT as_of, COUNT(*) FROM stock_snapshots GROUP BY as_of;
+
+-- As-of queries read all snapshots of one checkpoint
+CREATE INDEX idx_stock_snapshots_as_of ON stock_snapshots(as_of, product_id);
@@ -0,0 +1,48 @@
+-- Archived (closed period) inventory transactions, moved out of inventory_transactions with their ids
+CREATE TABLE inventory_transactions_archive (
+    id BIGINT PRIMARY KEY,
+    product_id BIGINT NOT NULL,
+    transaction_type VARCHAR(20) NOT NULL,
+    quantity INT NOT NULL,
+    reference VARCHAR(200),
+    transaction_date TIMESTAMP NOT NULL,
+    created_at TIMESTAMP,
+    period_end TIMESTAMP NOT NULL,
+    FOREIGN KEY (product_id) REFERENCES products(id)
+);
+
+CREATE INDEX idx_inventory_transactions_archive_period
+    ON inventory_transactions_archive(period_end);
+CREATE INDEX idx_inventory_transactions_archive_product_date
+    ON inventory_transactions_archive(product_id, transaction_date);
+CREATE INDEX idx_inventory_transactions_archive_date
+    ON inventory_transactions_archive(transaction_date);
+
+-- One row per archived period; periods are contiguous and the latest period_end is the archive watermark
+CREATE TABLE inventory_archive_periods (
+    period_end TIMESTAMP PRIMARY KEY,
+    period_start TIMESTAMP NOT NULL,
+    transaction_count INT NOT NULL,
+    archived_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Per-product totals of each archived period
+CREATE TABLE inventory_period_summaries (
+    product_id BIGINT NOT NULL,
+    period_start TIMESTAMP NOT NULL,
+    period_end TIMESTAMP NOT NULL,
+    in_quantity INT NOT NULL,
+    out_quantity INT NOT NULL,
+    adjustment_quantity INT NOT NULL,
+    transaction_count INT NOT NULL,
+    PRIMARY KEY (product_id, period_end),
+    FOREIGN KEY (product_id) REFERENCES products(id)
+);
+
+-- Hot and archived transactions together
+CREATE VIEW inventory_ledger AS
+SELECT id, product_id, transaction_type, quantity, reference, transaction_date, created_at
+FROM inventory_transactions
+UNION ALL
+SELECT id, product_id, transaction_type, quantity, reference, transaction_date, created_at
+FROM inventory_transactions_archive;
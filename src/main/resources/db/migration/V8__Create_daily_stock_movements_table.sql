@@ -0,0 +1,23 @@
+-- Per-product, per-day movement totals, maintained with every inventory_transactions insert
+CREATE TABLE daily_stock_movements (
+    product_id BIGINT NOT NULL,
+    movement_date DATE NOT NULL,
+    in_quantity INT NOT NULL DEFAULT 0,
+    out_quantity INT NOT NULL DEFAULT 0,
+    adjustment_quantity INT NOT NULL DEFAULT 0,
+    transaction_count INT NOT NULL DEFAULT 0,
+    PRIMARY KEY (product_id, movement_date),
+    FOREIGN KEY (product_id) REFERENCES products(id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_daily_stock_movements_date ON daily_stock_movements(movement_date);
+
+INSERT INTO daily_stock_movements
+    (product_id, movement_date, in_quantity, out_quantity, adjustment_quantity, transaction_count)
+SELECT product_id, CAST(transaction_date AS DATE),
+       SUM(CASE WHEN transaction_type = 'IN' THEN quantity ELSE 0 END),
+       SUM(CASE WHEN transaction_type = 'OUT' THEN quantity ELSE 0 END),
+       SUM(CASE WHEN transaction_type = 'ADJUSTMENT' THEN quantity ELSE 0 END),
+       COUNT(*)
+FROM inventory_ledger
+GROUP BY product_id, CAST(transaction_date AS DATE);
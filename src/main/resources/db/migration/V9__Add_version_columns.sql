@@ -0,0 +1,4 @@
+-- Row versions for optimistic concurrency: every update of a product or purchase
+-- order increments version, and edits only apply if the version is unchanged
+ALTER TABLE products ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE purchase_orders ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
@@ -0,0 +1,196 @@
+package com.inventorymrp.api;
+
+import com.inventorymrp.dao.memory.InMemoryBOMItemRepository;
+import com.inventorymrp.dao.memory.InMemoryInventoryTransactionRepository;
+import com.inventorymrp.dao.memory.InMemoryProductRepository;
+import com.inventorymrp.dao.memory.InMemoryPurchaseOrderRepository;
+import com.inventorymrp.dao.memory.InMemoryStore;
+import com.inventorymrp.model.BOMItem;
+import com.inventorymrp.model.Product;
+import com.inventorymrp.service.InventoryService;
+import com.inventorymrp.service.MRPService;
+import com.inventorymrp.util.Json;
+import org.junit.jupiter.api.*;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the HTTP API against in-memory repositories.
+ */
+class ApiServerTest {
+    private final HttpClient client = HttpClient.newHttpClient();
+    private InMemoryProductRepository productDAO;
+    private InMemoryBOMItemRepository bomItemDAO;
+    private ApiServer server;
+    private Product assembly;
+    private Product comp;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        InMemoryStore store = new InMemoryStore();
+        productDAO = new InMemoryProductRepository(store);
+        bomItemDAO = new InMemoryBOMItemRepository(store);
+        MRPService mrpService = new MRPService(productDAO, bomItemDAO, new InMemoryPurchaseOrderRepository(store));
+        InventoryService inventoryService =
+            new InventoryService(productDAO, new InMemoryInventoryTransactionRepository(store));
+
+        assembly = new Product("ASSY", "Assembly");
+        assembly.setIsAssembly(true);
+        productDAO.create(assembly);
+        comp = new Product("COMP 1", "Component");
+        comp.setStockQuantity(3);
+        productDAO.create(comp);
+        bomItemDAO.create(new BOMItem(assembly.getId(), comp.getId(), new BigDecimal("2")));
+
+        server = new ApiServer(productDAO, bomItemDAO, inventoryService, mrpService);
+        server.start(0, 2, 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        return client.send(HttpRequest.newBuilder(uri(path)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> post(String path, String body) throws Exception {
+        return client.send(HttpRequest.newBuilder(uri(path)).POST(HttpRequest.BodyPublishers.ofString(body)).build(),
+                           HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + server.getPort() + path);
+    }
+
+    private static Map<?, ?> json(HttpResponse<String> response) {
+        return (Map<?, ?>) Json.parse(response.body());
+    }
+
+    @Test
+    void testProductQueries() throws Exception {
+        HttpResponse<String> response = get("/api/products/" + comp.getId());
+        assertEquals(200, response.statusCode());
+        assertEquals("application/json; charset=utf-8", response.headers().firstValue("Content-Type").orElse(null));
+        assertEquals("COMP 1", json(response).get("code"));
+        assertEquals(new BigDecimal("3"), json(response).get("stockQuantity"));
+
+        assertEquals(comp.getId().longValue(),
+                     ((BigDecimal) json(get("/api/products/code/COMP%201")).get("id")).longValue());
+
+        Map<?, ?> page = json(get("/api/products?offset=1&limit=5"));
+        assertEquals(new BigDecimal("2"), page.get("total"));
+        assertEquals(1, ((List<?>) page.get("products")).size());
+
+        List<?> bom = (List<?>) Json.parse(get("/api/products/" + assembly.getId() + "/bom").body());
+        assertEquals(1, bom.size());
+        assertEquals("COMP 1", ((Map<?, ?>) bom.get(0)).get("childCode"));
+        assertEquals(1, ((List<?>) Json.parse(get("/api/products/" + comp.getId() + "/where-used").body())).size());
+    }
+
+    @Test
+    void testMovements() throws Exception {
+        HttpResponse<String> response = post("/api/movements",
+                "{\"productId\": " + comp.getId() + ", \"type\": \"IN\", \"quantity\": 7, \"reference\": \"GRN-1\"}");
+        assertEquals(200, response.statusCode());
+        assertEquals(new BigDecimal("10"), json(response).get("stockQuantity"));
+
+        response = post("/api/movements", "{\"productId\": " + comp.getId() + ", \"type\": \"OUT\", \"quantity\": 11}");
+        assertEquals(409, response.statusCode());
+        assertEquals(10, productDAO.findById(comp.getId()).getStockQuantity());
+
+        assertEquals(200, post("/api/movements",
+                "{\"productId\": " + comp.getId() + ", \"type\": \"ADJUSTMENT\", \"quantity\": 4}").statusCode());
+        assertEquals(4, productDAO.findById(comp.getId()).getStockQuantity());
+    }
+
+    private static Map<?, ?> line(Object lines, Product product) {
+        return ((List<?>) lines).stream()
+                .map(line -> (Map<?, ?>) line)
+                .filter(line -> ((BigDecimal) line.get("productId")).longValue() == product.getId())
+                .findFirst().orElseThrow();
+    }
+
+    @Test
+    void testMRPCalculations() throws Exception {
+        Map<?, ?> requirements = json(get("/api/mrp/requirements?productId=" + assembly.getId() + "&quantity=5"));
+        assertEquals(new BigDecimal("10"), line(requirements.get("requirements"), comp).get("quantity"));
+
+        Map<?, ?> availability = line(json(get("/api/mrp/availability?productId="
+                + assembly.getId() + "&quantity=5")).get("availability"), comp);
+        assertEquals(new BigDecimal("7"), availability.get("shortage"));
+        assertEquals(Boolean.FALSE, availability.get("sufficient"));
+
+        List<?> orders = (List<?>) json(get("/api/mrp/purchase-orders?productId=" + assembly.getId()
+                + "&quantity=5")).get("purchaseOrders");
+        assertNotNull(line(orders, comp).get("expectedDeliveryDate"));
+        assertEquals(200, get("/api/mrp/lead-time?productId=" + assembly.getId()).statusCode());
+    }
+
+    @Test
+    void testErrors() throws Exception {
+        assertEquals(404, get("/api/products/999").statusCode());
+        assertEquals(404, get("/api/nothing").statusCode());
+        assertEquals(405, post("/api/products/" + comp.getId(), "{}").statusCode());
+        assertEquals(400, get("/api/mrp/requirements").statusCode());
+        assertEquals(400, get("/api/mrp/requirements?productId=abc").statusCode());
+        assertEquals(400, get("/api/mrp/requirements?productId=" + assembly.getId() + "&quantity=0").statusCode());
+        assertEquals(400, get("/api/mrp/purchase-orders?productId=" + assembly.getId() + "&quantity=-5").statusCode());
+        assertEquals(400, post("/api/movements", "{\"productId\": ").statusCode());
+        assertEquals(400, post("/api/movements",
+                "{\"productId\": " + comp.getId() + ", \"type\": \"MOVE\", \"quantity\": 1}").statusCode());
+        assertEquals(400, post("/api/movements",
+                "{\"productId\": " + comp.getId() + ", \"type\": \"IN\", \"quantity\": 0}").statusCode());
+        // 2^32 + 1 would wrap to 1
+        assertEquals(400, post("/api/movements",
+                "{\"productId\": " + comp.getId() + ", \"type\": \"IN\", \"quantity\": 4294967297}").statusCode());
+        assertEquals(3, productDAO.findById(comp.getId()).getStockQuantity());
+        HttpResponse<String> response = post("/api/movements", "{\"productId\": 999, \"type\": \"IN\", \"quantity\": 1}");
+        assertEquals(404, response.statusCode());
+        assertNotNull(json(response).get("error"));
+    }
+
+    @Test
+    void testCyclicBomIsUnprocessable() throws Exception {
+        comp.setIsAssembly(true);
+        productDAO.update(comp);
+        bomItemDAO.create(new BOMItem(comp.getId(), assembly.getId(), BigDecimal.ONE));
+
+        for (String route : List.of("requirements", "availability", "purchase-orders", "lead-time")) {
+            HttpResponse<String> response = get("/api/mrp/" + route + "?productId=" + assembly.getId());
+            assertEquals(422, response.statusCode(), route);
+            assertTrue(((String) json(response).get("error")).startsWith("BOM cycle"), route);
+        }
+    }
+
+    @Test
+    void testUnexpectedErrorsAreNotExposed() throws Exception {
+        server.stop();
+        InMemoryStore store = new InMemoryStore();
+        InMemoryProductRepository failing = new InMemoryProductRepository(store) {
+            @Override
+            public Product findByCode(String code) {
+                throw new IllegalStateException("connection to jdbc:h2:secret lost");
+            }
+        };
+        InMemoryBOMItemRepository bomItemDAO = new InMemoryBOMItemRepository(store);
+        server = new ApiServer(failing, bomItemDAO,
+                new InventoryService(failing, new InMemoryInventoryTransactionRepository(store)),
+                new MRPService(failing, bomItemDAO, new InMemoryPurchaseOrderRepository(store)));
+        server.start(0, 1, 1);
+
+        HttpResponse<String> response = get("/api/products/code/ANY");
+        assertEquals(500, response.statusCode());
+        assertEquals("Internal server error", json(response).get("error"));
+        assertFalse(response.body().contains("secret"));
+    }
+}
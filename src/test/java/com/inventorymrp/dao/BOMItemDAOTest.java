@@ -3,17 +3,22 @@ package com.inventorymrp.dao;
 import com.inventorymrp.model.BOMItem;
 import com.inventorymrp.model.Product;
 import com.inventorymrp.util.DatabaseUtil;
+import com.inventorymrp.util.QueryBudgetExtension;
 import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
 import org.sql2o.Sql2o;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static com.inventorymrp.util.QueryBudgetExtension.assertQueries;
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
  * Unit tests for BOMItemDAO.
  */
+@ExtendWith(QueryBudgetExtension.class)
 class BOMItemDAOTest {
     private static Sql2o sql2o;
     private BOMItemDAO bomItemDAO;
@@ -68,7 +73,7 @@ class BOMItemDAOTest {
         BOMItem bomItem = new BOMItem(parent.getId(), child.getId(), new BigDecimal("3"));
         BOMItem created = bomItemDAO.create(bomItem);
 
-        BOMItem found = bomItemDAO.findById(created.getId());
+        BOMItem found = assertQueries(2, () -> bomItemDAO.findById(created.getId()));
 
         assertNotNull(found);
         assertEquals(created.getId(), found.getId());
@@ -87,9 +92,10 @@ class BOMItemDAOTest {
         bomItemDAO.create(new BOMItem(parent.getId(), child1.getId(), new BigDecimal("1")));
         bomItemDAO.create(new BOMItem(parent.getId(), child2.getId(), new BigDecimal("2")));
 
-        List<BOMItem> bomItems = bomItemDAO.findByParentProductId(parent.getId());
+        List<BOMItem> bomItems = assertQueries(2, () -> bomItemDAO.findByParentProductId(parent.getId()));
 
         assertEquals(2, bomItems.size());
+        assertEquals("COMP2", bomItems.get(0).getChildProduct().getCode());
         assertTrue(bomItems.stream().allMatch(b -> b.getParentProductId().equals(parent.getId())));
     }
 
@@ -102,7 +108,7 @@ class BOMItemDAOTest {
         bomItemDAO.create(new BOMItem(parent1.getId(), child.getId(), new BigDecimal("1")));
         bomItemDAO.create(new BOMItem(parent2.getId(), child.getId(), new BigDecimal("2")));
 
-        List<BOMItem> bomItems = bomItemDAO.findByChildProductId(child.getId());
+        List<BOMItem> bomItems = assertQueries(2, () -> bomItemDAO.findByChildProductId(child.getId()));
 
         assertEquals(2, bomItems.size());
         assertTrue(bomItems.stream().allMatch(b -> b.getChildProductId().equals(child.getId())));
@@ -117,11 +123,42 @@ class BOMItemDAOTest {
         bomItemDAO.create(new BOMItem(parent.getId(), child1.getId(), new BigDecimal("1")));
         bomItemDAO.create(new BOMItem(parent.getId(), child2.getId(), new BigDecimal("1")));
 
-        List<BOMItem> all = bomItemDAO.findAll();
+        List<BOMItem> all = assertQueries(2, () -> bomItemDAO.findAll());
 
         assertEquals(2, all.size());
     }
 
+    @Test
+    void testFindExplosion() {
+        Product top = productDAO.create(assembly("TOP"));
+        Product shared = productDAO.create(assembly("SHARED"));
+        Product left = productDAO.create(assembly("LEFT"));
+        Product leaf = productDAO.create(new Product("LEAF", "Leaf"));
+
+        bomItemDAO.create(new BOMItem(top.getId(), shared.getId(), new BigDecimal("1")));
+        bomItemDAO.create(new BOMItem(top.getId(), left.getId(), new BigDecimal("1")));
+        bomItemDAO.create(new BOMItem(left.getId(), shared.getId(), new BigDecimal("2")));
+        bomItemDAO.create(new BOMItem(shared.getId(), leaf.getId(), new BigDecimal("4")));
+        // a cycle back to the top must not loop
+        bomItemDAO.create(new BOMItem(shared.getId(), top.getId(), new BigDecimal("1")));
+
+        // one query per level of parents: TOP, then LEFT and SHARED
+        AtomicInteger statements = new AtomicInteger();
+        List<BOMItem> explosion = assertQueries(2, () -> bomItemDAO.findExplosion(top.getId(), statements));
+        assertEquals(2, statements.get());
+
+        // SHARED is reached twice but its lines are returned once
+        assertEquals(5, explosion.size());
+        assertEquals(1, explosion.stream().filter(b -> b.getChildProductId().equals(leaf.getId())).count());
+        assertTrue(assertQueries(1, () -> bomItemDAO.findExplosion(leaf.getId())).isEmpty());
+    }
+
+    private static Product assembly(String code) {
+        Product product = new Product(code, "Assembly " + code);
+        product.setIsAssembly(true);
+        return product;
+    }
+
     @Test
     void testUpdateBOMItem() {
         Product parent = productDAO.create(new Product("ASSY6", "Assembly 6"));
@@ -180,4 +217,28 @@ class BOMItemDAOTest {
 
         assertEquals(2, bomItemDAO.count());
     }
+
+    @Test
+    void testFindPageFiltersOnProductCodes() {
+        Product bike = new Product("BIKE", "Bike");
+        bike.setIsAssembly(true);
+        bike = productDAO.create(bike);
+        Product wheel = new Product("WHEEL", "Wheel");
+        wheel.setIsAssembly(true);
+        wheel = productDAO.create(wheel);
+        Product spoke = productDAO.create(new Product("SPOKE", "Spoke"));
+        Product frame = productDAO.create(new Product("FRAME", "Frame"));
+        bomItemDAO.create(new BOMItem(bike.getId(), wheel.getId(), new BigDecimal("2")));
+        bomItemDAO.create(new BOMItem(bike.getId(), frame.getId(), new BigDecimal("1")));
+        bomItemDAO.create(new BOMItem(wheel.getId(), spoke.getId(), new BigDecimal("32")));
+
+        PageRequest wheels = new PageRequest("whe", "quantity", true);
+        assertEquals(2, bomItemDAO.count(wheels));
+        List<BOMItem> page = assertQueries(2, () -> bomItemDAO.findPage(wheels, 0, 10));
+        assertEquals(2, page.size());
+        assertEquals("SPOKE", page.get(0).getChildProduct().getCode());
+        assertEquals("WHEEL", page.get(1).getChildProduct().getCode());
+        assertEquals("BIKE", page.get(1).getParentProduct().getCode());
+        assertEquals(1, bomItemDAO.findPage(wheels, 1, 10).size());
+    }
 }
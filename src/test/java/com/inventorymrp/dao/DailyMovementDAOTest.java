@@ -0,0 +1,156 @@
+package com.inventorymrp.dao;
+
+import com.inventorymrp.model.DailyMovement;
+import com.inventorymrp.model.InventoryTransaction;
+import com.inventorymrp.model.Product;
+import com.inventorymrp.util.DatabaseUtil;
+import org.junit.jupiter.api.*;
+import org.sql2o.Sql2o;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for DailyMovementDAO.
+ */
+class DailyMovementDAOTest {
+    private static final String DB_URL = "jdbc:h2:mem:testdb_daily;DB_CLOSE_DELAY=-1";
+
+    private static Sql2o sql2o;
+    private ProductDAO productDAO;
+    private InventoryTransactionDAO transactionDAO;
+    private DailyMovementDAO dailyMovementDAO;
+
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeAll
+    static void setupDatabase() {
+        sql2o = DatabaseUtil.getSql2o(DB_URL, "sa", "");
+        DatabaseUtil.initializeDatabase(DB_URL, "sa", "");
+    }
+
+    @BeforeEach
+    void setUp() {
+        productDAO = new ProductDAO(sql2o);
+        transactionDAO = new InventoryTransactionDAO(sql2o);
+        dailyMovementDAO = new DailyMovementDAO(sql2o);
+
+        // Clean up before each test
+        try (org.sql2o.Connection con = sql2o.open()) {
+            con.createQuery("DELETE FROM daily_stock_movements").executeUpdate();
+            con.createQuery("DELETE FROM bom_items").executeUpdate();
+            con.createQuery("DELETE FROM inventory_transactions").executeUpdate();
+            con.createQuery("DELETE FROM purchase_orders").executeUpdate();
+            con.createQuery("DELETE FROM products").executeUpdate();
+        }
+    }
+
+    private InventoryTransaction movement(Long productId, String type, int quantity, LocalDateTime date) {
+        InventoryTransaction t = new InventoryTransaction(productId, type, quantity);
+        t.setTransactionDate(date);
+        return t;
+    }
+
+    @Test
+    void testMovementsUpdateDailyTotals() {
+        Product product = productDAO.create(new Product("D001", "Daily"));
+        LocalDateTime yesterday = today.minusDays(1).atTime(9, 0);
+        transactionDAO.recordMovement(movement(product.getId(), "IN", 100, yesterday), true);
+        transactionDAO.recordMovement(movement(product.getId(), "OUT", 30, yesterday.plusHours(2)), true);
+        transactionDAO.recordMovements(List.of(
+                movement(product.getId(), "OUT", 5, today.atTime(8, 0)),
+                movement(product.getId(), "OUT", 7, today.atTime(9, 0))), new boolean[] {false, false});
+        transactionDAO.recordAdjustment(product.getId(), 50, "Count");
+
+        List<DailyMovement> days = dailyMovementDAO.findByProductId(product.getId(), null, null);
+        assertEquals(2, days.size());
+        assertEquals(today.minusDays(1), days.get(0).getMovementDate());
+        assertEquals(100, days.get(0).getInQuantity());
+        assertEquals(30, days.get(0).getOutQuantity());
+        assertEquals(2, days.get(0).getTransactionCount());
+        assertEquals(12, days.get(1).getOutQuantity());
+        assertEquals(-8, days.get(1).getAdjustmentQuantity());
+        assertEquals(3, days.get(1).getTransactionCount());
+        assertEquals(-20, days.get(1).getNetQuantity());
+
+        assertEquals(1, dailyMovementDAO.findByProductId(product.getId(), today, today).size());
+    }
+
+    @Test
+    void testConcurrentFirstCreatesOfADayAllCount() throws Exception {
+        Product product = productDAO.create(new Product("D005", "Concurrent"));
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(pool.submit(() -> transactionDAO.create(
+                        movement(product.getId(), "IN", 1, today.atTime(12, 0)))));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        List<DailyMovement> days = dailyMovementDAO.findByProductId(product.getId(), today, today);
+        assertEquals(1, days.size());
+        assertEquals(8, days.get(0).getInQuantity());
+        assertEquals(8, days.get(0).getTransactionCount());
+    }
+
+    @Test
+    void testDeleteSubtractsFromTotals() {
+        Product product = productDAO.create(new Product("D002", "Delete"));
+        InventoryTransaction t = movement(product.getId(), "IN", 10, today.atTime(10, 0));
+        transactionDAO.recordMovement(t, true);
+        transactionDAO.recordMovement(movement(product.getId(), "IN", 4, today.atTime(11, 0)), true);
+
+        transactionDAO.delete(t.getId());
+
+        DailyMovement day = dailyMovementDAO.findByProductId(product.getId(), today, today).get(0);
+        assertEquals(4, day.getInQuantity());
+        assertEquals(1, day.getTransactionCount());
+    }
+
+    @Test
+    void testRebuildMatchesIncrementalTotals() {
+        Product a = productDAO.create(new Product("D003", "A"));
+        Product b = productDAO.create(new Product("D004", "B"));
+        for (int i = 0; i < 10; i++) {
+            transactionDAO.recordMovement(movement(a.getId(), i % 2 == 0 ? "IN" : "OUT", i + 1,
+                    today.minusDays(i % 3).atTime(12, 0)), true);
+            transactionDAO.recordMovement(movement(b.getId(), "OUT", 2, today.minusDays(i).atTime(12, 0)), true);
+        }
+        List<DailyMovement> incrementalA = dailyMovementDAO.findByProductId(a.getId(), null, null);
+        List<DailyMovement> incrementalB = dailyMovementDAO.findByProductId(b.getId(), null, null);
+
+        assertEquals(13, dailyMovementDAO.rebuild());
+        assertEquals(incrementalA.toString(), dailyMovementDAO.findByProductId(a.getId(), null, null).toString());
+        assertEquals(incrementalB.toString(), dailyMovementDAO.findByProductId(b.getId(), null, null).toString());
+    }
+
+    @Test
+    void testConsumptionTotals() {
+        Product a = productDAO.create(new Product("D005", "Slow"));
+        Product b = productDAO.create(new Product("D006", "Fast"));
+        Product c = productDAO.create(new Product("D007", "Idle"));
+        transactionDAO.recordMovement(movement(a.getId(), "OUT", 3, today.atTime(9, 0)), true);
+        transactionDAO.recordMovement(movement(b.getId(), "OUT", 40, today.minusDays(2).atTime(9, 0)), true);
+        transactionDAO.recordMovement(movement(b.getId(), "OUT", 60, today.minusDays(40).atTime(9, 0)), true);
+        transactionDAO.recordMovement(movement(c.getId(), "IN", 9, today.atTime(9, 0)), true);
+
+        Map<Long, Integer> totals = dailyMovementDAO.findConsumptionTotals(today.minusDays(30), today);
+        assertEquals(List.of(b.getId(), a.getId()), List.copyOf(totals.keySet()));
+        assertEquals(40, totals.get(b.getId()));
+        assertEquals(3, totals.get(a.getId()));
+    }
+}
@@ -1,18 +1,23 @@
 package com.inventorymrp.dao;
 
 import com.inventorymrp.model.InventoryTransaction;
+import com.inventorymrp.model.InventoryTransactionView;
 import com.inventorymrp.model.Product;
 import com.inventorymrp.util.DatabaseUtil;
+import com.inventorymrp.util.QueryBudgetExtension;
 import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
 import org.sql2o.Sql2o;
 
 import java.util.List;
 
+import static com.inventorymrp.util.QueryBudgetExtension.assertQueries;
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
  * Unit tests for InventoryTransactionDAO.
  */
+@ExtendWith(QueryBudgetExtension.class)
 class InventoryTransactionDAOTest {
     private static Sql2o sql2o;
     private InventoryTransactionDAO transactionDAO;
@@ -118,10 +123,22 @@ class InventoryTransactionDAOTest {
         Long id = transaction.getId();
 
         assertNotNull(transactionDAO.findById(id));
+        assertEquals(100, productDAO.findById(testProductId).getStockQuantity());
 
         transactionDAO.delete(id);
 
         assertNull(transactionDAO.findById(id));
+        assertEquals(0, productDAO.findById(testProductId).getStockQuantity());
+    }
+
+    @Test
+    void testCreateKeepsStockInStepWithLedger() {
+        transactionDAO.create(new InventoryTransaction(testProductId, "IN", 50));
+        transactionDAO.create(new InventoryTransaction(testProductId, "OUT", 70));
+
+        assertEquals(-20, productDAO.findById(testProductId).getStockQuantity());
+        assertThrows(IllegalArgumentException.class,
+                     () -> transactionDAO.create(new InventoryTransaction(-1L, "IN", 5)));
     }
 
     @Test
@@ -134,4 +151,32 @@ class InventoryTransactionDAOTest {
         transactionDAO.create(new InventoryTransaction(testProductId, "OUT", 20));
         assertEquals(2, transactionDAO.count());
     }
+
+    @Test
+    void testFindViewPageJoinsProductsInOneQuery() {
+        Product other = productDAO.create(new Product("TEST002", "Other Product"));
+        InventoryTransaction in = new InventoryTransaction(testProductId, "IN", 50);
+        in.setReference("GRN-1");
+        transactionDAO.create(in);
+        InventoryTransaction out = new InventoryTransaction(other.getId(), "OUT", 20);
+        out.setReference("SO-1");
+        transactionDAO.create(out);
+        transactionDAO.create(new InventoryTransaction(other.getId(), "IN", 5));
+
+        PageRequest byQuantity = new PageRequest(null, "quantity", true);
+        List<InventoryTransactionView> page = assertQueries(1, () -> transactionDAO.findViewPage(byQuantity, 0, 2));
+
+        assertEquals(2, page.size());
+        assertEquals(50, page.get(0).getQuantity());
+        assertEquals("TEST001", page.get(0).getProductCode());
+        assertEquals("Test Product", page.get(0).getProductName());
+        assertEquals("GRN-1", page.get(0).getReference());
+        assertEquals("TEST002", page.get(1).getProductCode());
+        assertEquals("Other Product", page.get(1).getProductName());
+
+        List<InventoryTransactionView> filtered = transactionDAO.findViewPage(byQuantity.withFilter("so-"), 0, 10);
+        assertEquals(1, filtered.size());
+        assertEquals(other.getId(), filtered.get(0).getProductId());
+        assertEquals("OUT", filtered.get(0).getTransactionType());
+    }
 }
@@ -0,0 +1,141 @@
+package com.inventorymrp.dao;
+
+import com.inventorymrp.model.Product;
+import com.inventorymrp.util.DatabaseUtil;
+import org.junit.jupiter.api.*;
+import org.sql2o.Sql2o;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ProductCache and the cached ProductDAO read path.
+ */
+class ProductCacheTest {
+    private static Sql2o sql2o;
+    private ProductCache cache;
+    private ProductDAO productDAO;
+
+    @BeforeAll
+    static void setupDatabase() {
+        sql2o = DatabaseUtil.getSql2o("jdbc:h2:mem:testdb_cache;DB_CLOSE_DELAY=-1", "sa", "");
+        DatabaseUtil.initializeDatabase("jdbc:h2:mem:testdb_cache;DB_CLOSE_DELAY=-1", "sa", "");
+    }
+
+    @BeforeEach
+    void setUp() {
+        cache = new ProductCache(100, 0);
+        productDAO = new ProductDAO(sql2o, cache);
+
+        // Clean up before each test
+        try (org.sql2o.Connection con = sql2o.open()) {
+            con.createQuery("DELETE FROM bom_items").executeUpdate();
+            con.createQuery("DELETE FROM inventory_transactions").executeUpdate();
+            con.createQuery("DELETE FROM purchase_orders").executeUpdate();
+            con.createQuery("DELETE FROM products").executeUpdate();
+        }
+    }
+
+    @Test
+    void testRepeatedFindByIdHitsCache() {
+        Product created = productDAO.create(new Product("C001", "Cached"));
+
+        productDAO.findById(created.getId());
+        productDAO.findById(created.getId());
+        productDAO.findById(created.getId());
+
+        assertEquals(1, cache.getMissCount());
+        assertEquals(2, cache.getHitCount());
+    }
+
+    @Test
+    void testCachedProductIsCopied() {
+        Product created = productDAO.create(new Product("C002", "Original"));
+
+        Product first = productDAO.findById(created.getId());
+        first.setName("Modified locally");
+
+        assertEquals("Original", productDAO.findById(created.getId()).getName());
+    }
+
+    @Test
+    void testUpdateStockQuantityInvalidates() {
+        Product product = new Product("C003", "Stock");
+        product.setStockQuantity(10);
+        Product created = productDAO.create(product);
+        productDAO.findById(created.getId());
+
+        productDAO.updateStockQuantity(created.getId(), 99);
+
+        assertEquals(99, productDAO.findById(created.getId()).getStockQuantity());
+    }
+
+    @Test
+    void testUpdateAndDeleteInvalidate() {
+        Product created = productDAO.create(new Product("C004", "Before"));
+        Product loaded = productDAO.findById(created.getId());
+
+        loaded.setName("After");
+        productDAO.update(loaded);
+        assertEquals("After", productDAO.findById(created.getId()).getName());
+
+        productDAO.delete(created.getId());
+        assertNull(productDAO.findById(created.getId()));
+    }
+
+    @Test
+    void testConsistentReadBypassesCache() {
+        Product product = new Product("C005", "Consistent");
+        product.setStockQuantity(5);
+        Product created = productDAO.create(product);
+        productDAO.findById(created.getId());
+
+        // Write behind the DAO's back, as another process would
+        try (org.sql2o.Connection con = sql2o.open()) {
+            con.createQuery("UPDATE products SET stock_quantity = 7 WHERE id = :id")
+                .addParameter("id", created.getId())
+                .executeUpdate();
+        }
+
+        assertEquals(5, productDAO.findById(created.getId()).getStockQuantity());
+        assertEquals(7, productDAO.findById(created.getId(), true).getStockQuantity());
+        assertEquals(7, productDAO.findById(created.getId()).getStockQuantity());
+    }
+
+    @Test
+    void testLruEvictionBoundsSize() {
+        ProductCache small = new ProductCache(16, 0);
+        for (long i = 1; i <= 100; i++) {
+            Product p = new Product("E" + i, "Evict " + i);
+            p.setId(i);
+            small.putIfUnchanged(p, small.stamp(i));
+        }
+
+        assertTrue(small.size() <= 16);
+        assertTrue(small.getEvictionCount() >= 84);
+    }
+
+    @Test
+    void testTtlExpiry() throws InterruptedException {
+        ProductCache shortLived = new ProductCache(10, 20);
+        Product p = new Product("T1", "TTL");
+        p.setId(1L);
+        shortLived.putIfUnchanged(p, shortLived.stamp(1L));
+        assertNotNull(shortLived.get(1L));
+
+        Thread.sleep(50);
+
+        assertNull(shortLived.get(1L));
+    }
+
+    @Test
+    void testStalePutAfterInvalidateIsDropped() {
+        Product p = new Product("S1", "Stale");
+        p.setId(1L);
+        long stamp = cache.stamp(1L);
+        cache.invalidate(1L);
+
+        cache.putIfUnchanged(p, stamp);
+
+        assertNull(cache.get(1L));
+    }
+}
@@ -1,18 +1,31 @@
 package com.inventorymrp.dao;
 
+import com.inventorymrp.model.BOMItem;
+import com.inventorymrp.model.InventoryTransaction;
 import com.inventorymrp.model.Product;
 import com.inventorymrp.util.DatabaseUtil;
+import com.inventorymrp.util.QueryBudget;
+import com.inventorymrp.util.QueryBudgetExtension;
 import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
 import org.sql2o.Sql2o;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import static com.inventorymrp.util.QueryBudgetExtension.assertQueries;
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
  * Unit tests for ProductDAO.
  */
+@ExtendWith(QueryBudgetExtension.class)
 class ProductDAOTest {
     private static Sql2o sql2o;
     private ProductDAO productDAO;
@@ -67,6 +80,36 @@ class ProductDAOTest {
         assertEquals("P002", found.getCode());
     }
 
+    @Test
+    void testFindByIdMapsAllColumns() {
+        Product product = new Product("P010", "Mapping Test");
+        product.setDescription("All columns");
+        product.setUnit("kg");
+        product.setUnitCost(new BigDecimal("12.34"));
+        product.setStockQuantity(42);
+        product.setReorderLevel(7);
+        product.setOrderLeadTime(3.5);
+        product.setItemLeadTime(0.25);
+        product.setIsAssembly(true);
+        product.setNonPurchase(true);
+        Product created = productDAO.create(product);
+
+        Product found = productDAO.findById(created.getId());
+
+        assertEquals("Mapping Test", found.getName());
+        assertEquals("All columns", found.getDescription());
+        assertEquals("kg", found.getUnit());
+        assertEquals(new BigDecimal("12.34"), found.getUnitCost());
+        assertEquals(42, found.getStockQuantity());
+        assertEquals(7, found.getReorderLevel());
+        assertEquals(3.5, found.getOrderLeadTime());
+        assertEquals(0.25, found.getItemLeadTime());
+        assertTrue(found.getIsAssembly());
+        assertTrue(found.getNonPurchase());
+        assertNotNull(found.getCreatedAt());
+        assertNotNull(found.getUpdatedAt());
+    }
+
     @Test
     void testFindByCode() {
         Product product = new Product("P003", "Code Test");
@@ -80,6 +123,40 @@ class ProductDAOTest {
     }
 
     @Test
+    @QueryBudget(4)
+    void testFindByIds() {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 1500; i++) {
+            products.add(new Product("B" + i, "Bulk " + i));
+        }
+        productDAO.createAll(products);
+        List<Long> ids = new ArrayList<>();
+        products.forEach(p -> ids.add(p.getId()));
+        ids.add(-1L);
+
+        // one batch insert, then 1500 ids take two IN lists
+        Map<Long, Product> found = productDAO.findByIds(ids);
+
+        assertEquals(1500, found.size());
+        assertEquals("B1499", found.get(products.get(1499).getId()).getCode());
+        assertTrue(productDAO.findByIds(Arrays.asList(-1L, null)).isEmpty());
+    }
+
+    @Test
+    void testFindByIdsUsesCache() {
+        ProductDAO cached = new ProductDAO(sql2o, new ProductCache(100, 60_000));
+        Product first = cached.create(new Product("C1", "Cached 1"));
+        Product second = cached.create(new Product("C2", "Cached 2"));
+        cached.findById(first.getId());
+
+        Map<Long, Product> found = assertQueries(1, () -> cached.findByIds(Arrays.asList(first.getId(), second.getId())));
+
+        assertEquals(2, found.size());
+        assertQueries(0, () -> cached.findByIds(Arrays.asList(first.getId(), second.getId())));
+    }
+
+    @Test
+    @QueryBudget(4)
     void testFindAll() {
         productDAO.create(new Product("P001", "Product 1"));
         productDAO.create(new Product("P002", "Product 2"));
@@ -145,6 +222,74 @@ class ProductDAOTest {
         assertEquals(50, updated.getStockQuantity());
     }
 
+    @Test
+    void testStaleUpdateIsRejected() {
+        Product created = productDAO.create(new Product("P007", "Versioned"));
+        assertEquals(0L, created.getVersion());
+        Product first = productDAO.findById(created.getId());
+        Product second = productDAO.findById(created.getId());
+
+        first.setName("First editor");
+        productDAO.update(first);
+        assertEquals(1L, first.getVersion());
+
+        second.setName("Second editor");
+        assertThrows(OptimisticLockException.class, () -> productDAO.update(second));
+        assertEquals("First editor", productDAO.findById(created.getId()).getName());
+    }
+
+    @Test
+    void testStockMovementInvalidatesLoadedVersion() {
+        Product created = productDAO.create(new Product("P008", "Moving"));
+        Product editing = productDAO.findById(created.getId());
+
+        new InventoryTransactionDAO(sql2o).recordMovement(
+                new InventoryTransaction(created.getId(), "IN", 5), true);
+
+        // The editor still holds stock 0 and would otherwise overwrite the receipt
+        editing.setName("Renamed");
+        assertThrows(OptimisticLockException.class, () -> productDAO.update(editing));
+        assertEquals(5, productDAO.findById(created.getId()).getStockQuantity());
+    }
+
+    @Test
+    void testConcurrentEditorsRetryWithoutLostUpdates() throws Exception {
+        Product created = productDAO.create(new Product("P009", "Contended"));
+        Long id = created.getId();
+        int threads = 8;
+        int editsPerThread = 25;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < editsPerThread; i++) {
+                        while (true) {
+                            Product product = productDAO.findById(id, true);
+                            product.setReorderLevel(product.getReorderLevel() + 1);
+                            try {
+                                productDAO.update(product);
+                                break;
+                            } catch (OptimisticLockException e) {
+                                // stale: reload and retry
+                            }
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        Product result = productDAO.findById(id, true);
+        assertEquals(threads * editsPerThread, result.getReorderLevel());
+        assertEquals((long) threads * editsPerThread, result.getVersion());
+    }
+
     @Test
     void testUpdateStockQuantity() {
         Product product = new Product("P005", "Stock Test");
@@ -168,6 +313,34 @@ class ProductDAOTest {
         assertNull(deleted);
     }
 
+    @Test
+    void testDeleteProductWithStockDeletesItsLedger() {
+        Product product = new Product("P007", "Stocked");
+        product.setStockQuantity(40);
+        Product created = productDAO.create(product);
+        InventoryTransactionDAO transactionDAO = new InventoryTransactionDAO(sql2o);
+        assertEquals(1, transactionDAO.findByProductId(created.getId()).size());
+
+        productDAO.delete(created.getId());
+
+        assertNull(productDAO.findById(created.getId()));
+        assertTrue(transactionDAO.findByProductId(created.getId()).isEmpty());
+    }
+
+    @Test
+    void testDeleteProductUsedInBomIsRefused() {
+        Product parent = productDAO.create(new Product("P008", "Assembly"));
+        Product child = new Product("P009", "Part");
+        child.setStockQuantity(5);
+        child = productDAO.create(child);
+        new BOMItemDAO(sql2o).create(new BOMItem(parent.getId(), child.getId(), BigDecimal.ONE));
+        Long childId = child.getId();
+
+        assertThrows(IllegalStateException.class, () -> productDAO.delete(childId));
+        assertNotNull(productDAO.findById(childId));
+        assertEquals(1, new InventoryTransactionDAO(sql2o).findByProductId(childId).size());
+    }
+
     @Test
     void testCount() {
         assertEquals(0, productDAO.count());
@@ -177,4 +350,42 @@ class ProductDAOTest {
 
         assertEquals(2, productDAO.count());
     }
+
+    @Test
+    void testFindPageFiltersSortsAndPages() {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            Product product = new Product(String.format("P%02d", i), (i % 2 == 0 ? "Bolt " : "Nut ") + i);
+            product.setStockQuantity(i % 5);
+            products.add(product);
+        }
+        products.add(new Product("X_1", "100% cotton"));
+        productDAO.createAll(products);
+
+        // findAll order by default, a page at a time
+        assertEquals(26, productDAO.count(PageRequest.ALL));
+        assertEquals(List.of("P00", "P01", "P02"), codes(productDAO.findPage(PageRequest.ALL, 0, 3)));
+        assertEquals(List.of("P24", "X_1"), codes(productDAO.findPage(PageRequest.ALL, 24, 10)));
+
+        // Filter on code or name ignoring case; equal stock ordered by id
+        PageRequest nuts = new PageRequest("NUT", "stockQuantity", true);
+        assertEquals(12, productDAO.count(nuts));
+        assertEquals(List.of("P09", "P19", "P03", "P13", "P23"), codes(productDAO.findPage(nuts, 0, 5)));
+        assertEquals(List.of("P05", "P15"), codes(productDAO.findPage(nuts, 10, 5)));
+
+        // LIKE wildcards in the filter match literally
+        assertEquals(List.of("X_1"), codes(productDAO.findPage(new PageRequest("_", null, false), 0, 10)));
+        assertEquals(1, productDAO.count(new PageRequest("%", null, false)));
+
+        assertThrows(IllegalArgumentException.class,
+                     () -> productDAO.findPage(new PageRequest(null, "code; DROP TABLE products", false), 0, 10));
+    }
+
+    private static List<String> codes(List<Product> products) {
+        List<String> codes = new ArrayList<>();
+        for (Product product : products) {
+            codes.add(product.getCode());
+        }
+        return codes;
+    }
 }
@@ -0,0 +1,137 @@
+package com.inventorymrp.dao;
+
+import com.inventorymrp.model.Product;
+import com.inventorymrp.model.PurchaseOrder;
+import com.inventorymrp.model.PurchaseOrderView;
+import com.inventorymrp.util.DatabaseUtil;
+import com.inventorymrp.util.QueryBudgetExtension;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.sql2o.Sql2o;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static com.inventorymrp.util.QueryBudgetExtension.assertQueries;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for PurchaseOrderDAO.
+ */
+@ExtendWith(QueryBudgetExtension.class)
+class PurchaseOrderDAOTest {
+    private static Sql2o sql2o;
+    private PurchaseOrderDAO purchaseOrderDAO;
+    private Long testProductId;
+
+    @BeforeAll
+    static void setupDatabase() {
+        sql2o = DatabaseUtil.getSql2o("jdbc:h2:mem:testdb_po;DB_CLOSE_DELAY=-1", "sa", "");
+        DatabaseUtil.initializeDatabase("jdbc:h2:mem:testdb_po;DB_CLOSE_DELAY=-1", "sa", "");
+    }
+
+    @BeforeEach
+    void setUp() {
+        purchaseOrderDAO = new PurchaseOrderDAO(sql2o);
+
+        // Clean up before each test
+        try (org.sql2o.Connection con = sql2o.open()) {
+            con.createQuery("DELETE FROM bom_items").executeUpdate();
+            con.createQuery("DELETE FROM inventory_transactions").executeUpdate();
+            con.createQuery("DELETE FROM purchase_orders").executeUpdate();
+            con.createQuery("DELETE FROM products").executeUpdate();
+        }
+
+        Product product = new ProductDAO(sql2o).create(new Product("PO-TEST", "PO Test Product"));
+        testProductId = product.getId();
+    }
+
+    @Test
+    void testCreateAndFindById() {
+        PurchaseOrder po = new PurchaseOrder(testProductId, 25, LocalDate.of(2030, 1, 15));
+        po.setSupplier("ACME");
+        po.setReference("REF-1");
+        PurchaseOrder created = purchaseOrderDAO.create(po);
+
+        PurchaseOrder found = purchaseOrderDAO.findById(created.getId());
+
+        assertNotNull(found);
+        assertEquals(testProductId, found.getProductId());
+        assertEquals(25, found.getQuantity());
+        assertEquals("PENDING", found.getStatus());
+        assertEquals(LocalDate.of(2030, 1, 15), found.getExpectedDeliveryDate());
+        assertEquals("ACME", found.getSupplier());
+        assertEquals("REF-1", found.getReference());
+    }
+
+    @Test
+    void testFindByStatusMapsProductId() {
+        purchaseOrderDAO.create(new PurchaseOrder(testProductId, 10, LocalDate.now()));
+        PurchaseOrder ordered = new PurchaseOrder(testProductId, 20, LocalDate.now());
+        ordered.setStatus("ORDERED");
+        purchaseOrderDAO.create(ordered);
+
+        List<PurchaseOrder> pending = purchaseOrderDAO.findByStatus("PENDING");
+
+        assertEquals(1, pending.size());
+        assertEquals(testProductId, pending.get(0).getProductId());
+        assertEquals(10, pending.get(0).getQuantity());
+    }
+
+    @Test
+    void testFindByProductId() {
+        purchaseOrderDAO.create(new PurchaseOrder(testProductId, 10, LocalDate.now()));
+        purchaseOrderDAO.create(new PurchaseOrder(testProductId, 20, LocalDate.now()));
+
+        List<PurchaseOrder> orders = purchaseOrderDAO.findByProductId(testProductId);
+
+        assertEquals(2, orders.size());
+        assertTrue(orders.stream().allMatch(o -> testProductId.equals(o.getProductId())));
+    }
+
+    @Test
+    void testStaleUpdateIsRejected() {
+        PurchaseOrder created = purchaseOrderDAO.create(new PurchaseOrder(testProductId, 10, LocalDate.now()));
+        PurchaseOrder first = purchaseOrderDAO.findById(created.getId());
+        PurchaseOrder second = purchaseOrderDAO.findById(created.getId());
+
+        first.setStatus("RECEIVED");
+        purchaseOrderDAO.update(first);
+        assertEquals(1L, purchaseOrderDAO.findById(created.getId()).getVersion());
+
+        // A second receipt of the same order must not go through
+        second.setStatus("RECEIVED");
+        assertThrows(OptimisticLockException.class, () -> purchaseOrderDAO.update(second));
+
+        // Updating a deleted order is still a no-op
+        purchaseOrderDAO.delete(created.getId());
+        purchaseOrderDAO.update(first);
+        assertNull(purchaseOrderDAO.findById(created.getId()));
+    }
+
+    @Test
+    void testFindViewPageJoinsProductsInOneQuery() {
+        Product other = new ProductDAO(sql2o).create(new Product("PO-OTHER", "Other Product"));
+        PurchaseOrder acme = new PurchaseOrder(testProductId, 25, LocalDate.of(2030, 1, 15));
+        acme.setSupplier("ACME");
+        purchaseOrderDAO.create(acme);
+        PurchaseOrder globex = new PurchaseOrder(other.getId(), 10, LocalDate.of(2030, 2, 1));
+        globex.setSupplier("Globex");
+        purchaseOrderDAO.create(globex);
+
+        PageRequest bySupplier = new PageRequest(null, "supplier", false);
+        List<PurchaseOrderView> page = assertQueries(1, () -> purchaseOrderDAO.findViewPage(bySupplier, 0, 10));
+
+        assertEquals(2, page.size());
+        assertEquals("ACME", page.get(0).getSupplier());
+        assertEquals("PO-TEST", page.get(0).getProductCode());
+        assertEquals("PO Test Product", page.get(0).getProductName());
+        assertEquals(LocalDate.of(2030, 1, 15), page.get(0).getExpectedDeliveryDate());
+        assertEquals("PO-OTHER", page.get(1).getProductCode());
+
+        List<PurchaseOrderView> filtered = purchaseOrderDAO.findViewPage(bySupplier.withFilter("glob"), 0, 10);
+        assertEquals(1, filtered.size());
+        assertEquals(other.getId(), filtered.get(0).getProductId());
+        assertEquals("Other Product", filtered.get(0).getProductName());
+    }
+}
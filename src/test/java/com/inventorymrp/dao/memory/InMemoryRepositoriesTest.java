@@ -0,0 +1,263 @@
+package com.inventorymrp.dao.memory;
+
+import com.inventorymrp.dao.OptimisticLockException;
+import com.inventorymrp.dao.PageRequest;
+import com.inventorymrp.model.BOMItem;
+import com.inventorymrp.model.InventoryTransaction;
+import com.inventorymrp.model.InventoryTransactionView;
+import com.inventorymrp.model.Product;
+import com.inventorymrp.model.PurchaseOrder;
+import com.inventorymrp.model.PurchaseOrderView;
+import com.inventorymrp.service.InventoryService;
+import com.inventorymrp.service.MRPService;
+import org.junit.jupiter.api.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the in-memory repositories, checking they behave like the DAOs.
+ */
+class InMemoryRepositoriesTest {
+    private InMemoryStore store;
+    private InMemoryProductRepository productRepository;
+    private InMemoryBOMItemRepository bomItemRepository;
+    private InMemoryInventoryTransactionRepository transactionRepository;
+    private InMemoryPurchaseOrderRepository purchaseOrderRepository;
+
+    @BeforeEach
+    void setUp() {
+        store = new InMemoryStore();
+        productRepository = new InMemoryProductRepository(store);
+        bomItemRepository = new InMemoryBOMItemRepository(store);
+        transactionRepository = new InMemoryInventoryTransactionRepository(store);
+        purchaseOrderRepository = new InMemoryPurchaseOrderRepository(store);
+    }
+
+    @Test
+    void testProductsGetIdsAndSortByCode() {
+        Product b = productRepository.create(new Product("B", "Second"));
+        Product a = productRepository.create(new Product("A", "First"));
+        assertEquals(1L, b.getId());
+        assertEquals(2L, a.getId());
+        List<Product> all = productRepository.findAll();
+        assertEquals(List.of("A", "B"), List.of(all.get(0).getCode(), all.get(1).getCode()));
+        assertEquals(a.getId(), productRepository.findByCode("A").getId());
+        assertThrows(IllegalArgumentException.class, () -> productRepository.create(new Product("A", "Duplicate")));
+
+        // Returned instances are copies
+        productRepository.findById(a.getId()).setName("Changed");
+        assertEquals("First", productRepository.findById(a.getId()).getName());
+
+        // Updates are compare-and-set on the version, like the DAO
+        Product stale = productRepository.findById(a.getId());
+        a.setName("Renamed");
+        productRepository.update(a);
+        assertEquals(1L, a.getVersion());
+        assertThrows(OptimisticLockException.class, () -> productRepository.update(stale));
+    }
+
+    @Test
+    void testStockSetOnProductIsRecordedInLedger() {
+        Product product = new Product("P1", "Ledgered");
+        product.setStockQuantity(10);
+        product = productRepository.create(product);
+        product.setStockQuantity(25);
+        productRepository.update(product);
+
+        List<InventoryTransaction> ledger = transactionRepository.findByProductId(product.getId());
+        assertEquals(2, ledger.size());
+        assertEquals("Product edit", ledger.get(0).getReference());
+        assertEquals(15, ledger.get(0).getQuantity());
+        assertEquals(10, ledger.get(1).getQuantity());
+    }
+
+    @Test
+    void testMovementsAndGuard() {
+        Product product = productRepository.create(new Product("P2", "Moved"));
+        InventoryService service = new InventoryService(productRepository, transactionRepository);
+        service.addStock(product.getId(), 5, "in");
+        assertThrows(IllegalStateException.class, () -> service.removeStock(product.getId(), 6, "out"));
+        service.removeStock(product.getId(), 2, "out");
+        service.adjustStock(product.getId(), 10, "count");
+        assertThrows(IllegalArgumentException.class, () -> service.addStock(999L, 1, "unknown"));
+
+        assertEquals(10, productRepository.findById(product.getId()).getStockQuantity());
+        assertEquals(3, transactionRepository.count());
+        assertEquals(1, transactionRepository.findByType("OUT").size());
+        assertEquals(7, transactionRepository.findByType("ADJUSTMENT").get(0).getQuantity());
+
+        boolean[] applied = transactionRepository.recordMovements(List.of(
+                new InventoryTransaction(product.getId(), "OUT", 8),
+                new InventoryTransaction(product.getId(), "OUT", 8)), new boolean[] {false, false});
+        assertArrayEquals(new boolean[] {true, false}, applied);
+    }
+
+    @Test
+    void testRangedFindersAndOrdering() {
+        Product product = productRepository.create(new Product("P3", "Dated"));
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 12, 0);
+        for (int day = 0; day < 5; day++) {
+            InventoryTransaction t = new InventoryTransaction(product.getId(), "IN", day + 1);
+            t.setTransactionDate(base.plusDays(day));
+            transactionRepository.recordMovement(t, true);
+        }
+        List<InventoryTransaction> range = transactionRepository.findByProductId(product.getId(),
+                base.plusDays(1), base.plusDays(3));
+        assertEquals(2, range.size());
+        assertEquals(3, range.get(0).getQuantity());
+        assertEquals(2, range.get(1).getQuantity());
+        assertEquals(5, transactionRepository.findByDateRange(null, null).size());
+    }
+
+    @Test
+    void testReferencedProductCannotBeDeleted() {
+        Product parent = productRepository.create(new Product("ASM", "Assembly"));
+        Product child = productRepository.create(new Product("CMP", "Component"));
+        bomItemRepository.create(new BOMItem(parent.getId(), child.getId(), BigDecimal.ONE));
+        assertThrows(IllegalArgumentException.class,
+                () -> bomItemRepository.create(new BOMItem(parent.getId(), 999L, BigDecimal.ONE)));
+
+        assertThrows(IllegalStateException.class, () -> productRepository.delete(child.getId()));
+        bomItemRepository.deleteByParentProductId(parent.getId());
+        productRepository.delete(child.getId());
+        assertNull(productRepository.findById(child.getId()));
+        assertNull(productRepository.findByCode("CMP"));
+
+        // Stock history goes with the product
+        Product stocked = new Product("STK", "Stocked");
+        stocked.setStockQuantity(8);
+        productRepository.create(stocked);
+        productRepository.delete(stocked.getId());
+        assertNull(productRepository.findById(stocked.getId()));
+        assertTrue(transactionRepository.findByProductId(stocked.getId()).isEmpty());
+    }
+
+    @Test
+    void testPurchaseOrdersNewestFirst() {
+        Product product = productRepository.create(new Product("P4", "Ordered"));
+        PurchaseOrder older = new PurchaseOrder(product.getId(), 5, null);
+        older.setOrderDate(LocalDate.now().minusDays(3));
+        purchaseOrderRepository.create(older);
+        PurchaseOrder newer = purchaseOrderRepository.create(new PurchaseOrder(product.getId(), 7, null));
+
+        List<PurchaseOrder> orders = purchaseOrderRepository.findByProductId(product.getId());
+        assertEquals(List.of(newer.getId(), older.getId()), List.of(orders.get(0).getId(), orders.get(1).getId()));
+
+        newer.setStatus("RECEIVED");
+        purchaseOrderRepository.update(newer);
+        assertEquals(1, purchaseOrderRepository.findByStatus("RECEIVED").size());
+        purchaseOrderRepository.delete(newer.getId());
+        purchaseOrderRepository.update(newer);
+        assertNull(purchaseOrderRepository.findById(newer.getId()));
+    }
+
+    @Test
+    void testMRPServiceRunsOnInMemoryBackend() {
+        Product bike = new Product("BIKE", "Bike");
+        bike.setIsAssembly(true);
+        bike = productRepository.create(bike);
+        Product wheel = productRepository.create(new Product("WHEEL", "Wheel"));
+        bomItemRepository.create(new BOMItem(bike.getId(), wheel.getId(), new BigDecimal("2")));
+
+        MRPService mrpService = new MRPService(productRepository, bomItemRepository, purchaseOrderRepository);
+        Map<Long, Integer> requirements = mrpService.calculateMaterialRequirements(bike.getId(), 3);
+        assertEquals(6, requirements.get(wheel.getId()));
+        assertEquals(3, requirements.get(bike.getId()));
+    }
+
+    @Test
+    void testConcurrentMovementsLoseNoUpdates() throws Exception {
+        Product product = productRepository.create(new Product("HOT", "Hot SKU"));
+        Long productId = product.getId();
+        int threads = 8;
+        int perThread = 5000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        transactionRepository.recordMovement(new InventoryTransaction(productId, "IN", 1), true);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(threads * perThread, productRepository.findById(productId).getStockQuantity());
+        assertEquals(threads * perThread, transactionRepository.findByProductId(productId).size());
+    }
+
+    @Test
+    void testFindPageFiltersSortsAndPages() {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            Product product = new Product(String.format("P%02d", i), (i % 2 == 0 ? "Bolt " : "Nut ") + i);
+            product.setStockQuantity(i % 5);
+            products.add(product);
+        }
+        products.add(new Product("X_1", "100% cotton"));
+        productRepository.createAll(products);
+
+        // findAll order by default, a page at a time
+        assertEquals(26, productRepository.count(PageRequest.ALL));
+        assertEquals(List.of("P00", "P01", "P02"), codes(productRepository.findPage(PageRequest.ALL, 0, 3)));
+        assertEquals(List.of("P24", "X_1"), codes(productRepository.findPage(PageRequest.ALL, 24, 10)));
+
+        // Filter on code or name ignoring case; equal stock ordered by id
+        PageRequest nuts = new PageRequest("NUT", "stockQuantity", true);
+        assertEquals(12, productRepository.count(nuts));
+        assertEquals(List.of("P09", "P19", "P03", "P13", "P23"), codes(productRepository.findPage(nuts, 0, 5)));
+        assertEquals(List.of("P05", "P15"), codes(productRepository.findPage(nuts, 10, 5)));
+
+        // LIKE wildcards in the filter match literally
+        assertEquals(List.of("X_1"), codes(productRepository.findPage(new PageRequest("_", null, false), 0, 10)));
+        assertEquals(1, productRepository.count(new PageRequest("%", null, false)));
+
+        assertThrows(IllegalArgumentException.class,
+                     () -> productRepository.findPage(new PageRequest(null, "code; DROP TABLE products", false), 0, 10));
+    }
+
+    @Test
+    void testViewPagesCarryProductCodeAndName() {
+        Product bolt = productRepository.create(new Product("BLT", "Bolt"));
+        Product nut = productRepository.create(new Product("NUT", "Nut"));
+        transactionRepository.create(new InventoryTransaction(bolt.getId(), "IN", 10));
+        transactionRepository.create(new InventoryTransaction(nut.getId(), "OUT", 4));
+        purchaseOrderRepository.create(new PurchaseOrder(nut.getId(), 7, null));
+
+        List<InventoryTransactionView> transactions =
+            transactionRepository.findViewPage(new PageRequest("out", null, false), 0, 10);
+        assertEquals(1, transactions.size());
+        assertEquals("NUT", transactions.get(0).getProductCode());
+        assertEquals("Nut", transactions.get(0).getProductName());
+        assertEquals(4, transactions.get(0).getQuantity());
+
+        List<PurchaseOrderView> orders = purchaseOrderRepository.findViewPage(PageRequest.ALL, 0, 10);
+        assertEquals(1, orders.size());
+        assertEquals("NUT", orders.get(0).getProductCode());
+        assertEquals(7, orders.get(0).getQuantity());
+    }
+
+    private static List<String> codes(List<Product> products) {
+        List<String> codes = new ArrayList<>();
+        for (Product product : products) {
+            codes.add(product.getCode());
+        }
+        return codes;
+    }
+}
@@ -0,0 +1,180 @@
+package com.inventorymrp.dao.memory;
+
+import com.inventorymrp.dao.BOMItemDAO;
+import com.inventorymrp.dao.InventoryTransactionDAO;
+import com.inventorymrp.dao.ProductDAO;
+import com.inventorymrp.dao.PurchaseOrderDAO;
+import com.inventorymrp.model.BOMItem;
+import com.inventorymrp.model.Product;
+import com.inventorymrp.model.PurchaseOrder;
+import com.inventorymrp.util.DatabaseUtil;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import org.sql2o.Sql2o;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for StoreSnapshot.
+ */
+class StoreSnapshotTest {
+    private InMemoryStore source;
+    private InMemoryProductRepository productRepository;
+    private InMemoryBOMItemRepository bomItemRepository;
+    private InMemoryPurchaseOrderRepository purchaseOrderRepository;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        source = new InMemoryStore();
+        productRepository = new InMemoryProductRepository(source);
+        bomItemRepository = new InMemoryBOMItemRepository(source);
+        purchaseOrderRepository = new InMemoryPurchaseOrderRepository(source);
+    }
+
+    private StoreSnapshot.Summary export(Path file) throws IOException {
+        return StoreSnapshot.export(file, productRepository, bomItemRepository, purchaseOrderRepository);
+    }
+
+    @Test
+    void testRoundTrip() throws IOException {
+        Product bike = new Product("BIKE", "Bike été");
+        bike.setDescription("Road bike");
+        bike.setUnitCost(new BigDecimal("450.25"));
+        bike.setStockQuantity(3);
+        bike.setIsAssembly(true);
+        bike.setOrderLeadTime(2.5);
+        bike = productRepository.create(bike);
+        Product wheel = new Product("WHEEL", "Wheel");
+        wheel.setUnit(null);
+        wheel.setUnitCost(null);
+        wheel = productRepository.create(wheel);
+        BOMItem line = new BOMItem(bike.getId(), wheel.getId(), new BigDecimal("2.0000"));
+        line.setSequenceNumber(10);
+        bomItemRepository.create(line);
+        PurchaseOrder open = new PurchaseOrder(wheel.getId(), 40, LocalDate.of(2025, 3, 1));
+        open.setSupplier("Acme");
+        purchaseOrderRepository.create(open);
+        PurchaseOrder received = new PurchaseOrder(wheel.getId(), 10, null);
+        received.setStatus("RECEIVED");
+        purchaseOrderRepository.create(received);
+
+        Path file = tempDir.resolve("plan.snap");
+        StoreSnapshot.Summary exported = export(file);
+        assertEquals(2, exported.getProductCount());
+        assertEquals(1, exported.getBomItemCount());
+        assertEquals(1, exported.getPurchaseOrderCount());
+        assertEquals(exported.toString(), StoreSnapshot.readSummary(file).toString());
+
+        InMemoryStore target = new InMemoryStore();
+        StoreSnapshot.load(file, target);
+        InMemoryProductRepository products = new InMemoryProductRepository(target);
+        Product loaded = products.findByCode("BIKE");
+        assertEquals(bike.getId(), loaded.getId());
+        assertEquals("Bike été", loaded.getName());
+        assertEquals("Road bike", loaded.getDescription());
+        assertEquals(new BigDecimal("450.25"), loaded.getUnitCost());
+        assertEquals(3, loaded.getStockQuantity());
+        assertEquals(2.5, loaded.getOrderLeadTime());
+        assertTrue(loaded.getIsAssembly());
+        assertEquals(bike.getCreatedAt(), loaded.getCreatedAt());
+        assertNull(products.findByCode("WHEEL").getUnitCost());
+
+        List<BOMItem> lines = new InMemoryBOMItemRepository(target).findByParentProductId(bike.getId());
+        assertEquals(1, lines.size());
+        assertEquals(new BigDecimal("2.0000"), lines.get(0).getQuantity());
+        assertEquals(10, lines.get(0).getSequenceNumber());
+        assertEquals("WHEEL", lines.get(0).getChildProduct().getCode());
+
+        InMemoryPurchaseOrderRepository orders = new InMemoryPurchaseOrderRepository(target);
+        assertEquals(1, orders.findAll().size());
+        assertEquals("Acme", orders.findById(open.getId()).getSupplier());
+        assertEquals(LocalDate.of(2025, 3, 1), orders.findById(open.getId()).getExpectedDeliveryDate());
+
+        // New rows continue the id sequences
+        assertEquals(wheel.getId() + 1, products.create(new Product("FRAME", "Frame")).getId());
+    }
+
+    @Test
+    void testCorruptOrForeignFilesAreRejected() throws IOException {
+        productRepository.create(new Product("P1", "Product"));
+        Path file = tempDir.resolve("plan.snap");
+        export(file);
+
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 1] ^= 1;
+        Path corrupt = Files.write(tempDir.resolve("corrupt.snap"), bytes);
+        assertThrows(IOException.class, () -> StoreSnapshot.load(corrupt, new InMemoryStore()));
+
+        Path foreign = Files.write(tempDir.resolve("foreign.snap"), new byte[64]);
+        assertThrows(IOException.class, () -> StoreSnapshot.load(foreign, new InMemoryStore()));
+        assertThrows(IOException.class, () -> StoreSnapshot.readSummary(foreign));
+    }
+
+    @Test
+    void testUnrepresentableDecimalsAreRejected() throws IOException {
+        Product tiny = new Product("TINY", "Scale 200");
+        tiny.setUnitCost(new BigDecimal("1E-200"));
+        productRepository.create(tiny);
+        Path file = tempDir.resolve("plan.snap");
+        assertThrows(IOException.class, () -> export(file));
+        assertFalse(Files.exists(file));
+
+        setUp();
+        Product huge = new Product("HUGE", "256 byte unscaled value");
+        huge.setUnitCost(new BigDecimal(BigInteger.ONE.shiftLeft(2040)));
+        productRepository.create(huge);
+        assertThrows(IOException.class, () -> export(file));
+    }
+
+    @Test
+    void testImportIntoDatabase() throws IOException {
+        Product bike = new Product("BIKE", "Bike");
+        bike.setIsAssembly(true);
+        bike = productRepository.create(bike);
+        // A gap in the ids, so the import has to remap them
+        productRepository.delete(productRepository.create(new Product("GONE", "Deleted")).getId());
+        Product wheel = new Product("WHEEL", "Wheel");
+        wheel.setStockQuantity(12);
+        wheel = productRepository.create(wheel);
+        bomItemRepository.create(new BOMItem(bike.getId(), wheel.getId(), new BigDecimal("2.0000")));
+        purchaseOrderRepository.create(new PurchaseOrder(wheel.getId(), 40, LocalDate.of(2025, 3, 1)));
+        Path file = tempDir.resolve("plan.snap");
+        export(file);
+
+        String url = "jdbc:h2:mem:snapshot_import;DB_CLOSE_DELAY=-1";
+        Sql2o sql2o = DatabaseUtil.getSql2o(url, "sa", "");
+        DatabaseUtil.initializeDatabase(url, "sa", "");
+        ProductDAO productDAO = new ProductDAO(sql2o);
+        BOMItemDAO bomItemDAO = new BOMItemDAO(sql2o);
+        PurchaseOrderDAO purchaseOrderDAO = new PurchaseOrderDAO(sql2o);
+        productDAO.create(new Product("SEQ", "Advances the id sequence"));
+        productDAO.delete(productDAO.findByCode("SEQ").getId());
+
+        StoreSnapshot.Summary summary = StoreSnapshot.importInto(file, productDAO, bomItemDAO, purchaseOrderDAO);
+        assertEquals(2, summary.getProductCount());
+
+        Product importedBike = productDAO.findByCode("BIKE");
+        Product importedWheel = productDAO.findByCode("WHEEL");
+        assertTrue(importedBike.getIsAssembly());
+        assertEquals(12, importedWheel.getStockQuantity());
+        List<BOMItem> lines = bomItemDAO.findByParentProductId(importedBike.getId());
+        assertEquals(1, lines.size());
+        assertEquals(importedWheel.getId(), lines.get(0).getChildProductId());
+        assertEquals(importedWheel.getId(), purchaseOrderDAO.findAll().get(0).getProductId());
+        assertEquals(12, new InventoryTransactionDAO(sql2o).findByProductId(importedWheel.getId()).get(0).getQuantity());
+
+        assertThrows(IllegalStateException.class,
+                     () -> StoreSnapshot.importInto(file, productDAO, bomItemDAO, purchaseOrderDAO));
+    }
+}
@@ -0,0 +1,219 @@
+package com.inventorymrp.service;
+
+import com.inventorymrp.dao.BOMItemDAO;
+import com.inventorymrp.dao.InventoryTransactionDAO;
+import com.inventorymrp.dao.MRPPlanDAO;
+import com.inventorymrp.dao.ProductDAO;
+import com.inventorymrp.dao.PurchaseOrderDAO;
+import com.inventorymrp.model.BOMItem;
+import com.inventorymrp.model.PlanLine;
+import com.inventorymrp.model.PlanRun;
+import com.inventorymrp.model.Product;
+import com.inventorymrp.model.PurchaseOrder;
+import com.inventorymrp.util.DatabaseUtil;
+import org.junit.jupiter.api.*;
+import org.sql2o.Sql2o;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for BatchPlanner and the plan tables.
+ */
+class BatchPlannerTest {
+    private static final String DB_URL = "jdbc:h2:mem:testdb_plan;DB_CLOSE_DELAY=-1";
+    private static Sql2o sql2o;
+
+    private ProductDAO productDAO;
+    private BOMItemDAO bomItemDAO;
+    private MRPPlanDAO planDAO;
+    private MRPService mrpService;
+    private BatchPlanner planner;
+
+    @BeforeAll
+    static void setupDatabase() {
+        sql2o = DatabaseUtil.getSql2o(DB_URL, "sa", "");
+        DatabaseUtil.initializeDatabase(DB_URL, "sa", "");
+    }
+
+    @BeforeEach
+    void setUp() {
+        productDAO = new ProductDAO(sql2o);
+        bomItemDAO = new BOMItemDAO(sql2o);
+        planDAO = new MRPPlanDAO(sql2o);
+        mrpService = new MRPService(productDAO, bomItemDAO, new PurchaseOrderDAO(sql2o));
+        planner = new BatchPlanner(mrpService, planDAO);
+
+        try (org.sql2o.Connection con = sql2o.open()) {
+            con.createQuery("DELETE FROM mrp_plan_runs").executeUpdate();
+            con.createQuery("DELETE FROM daily_stock_movements").executeUpdate();
+            con.createQuery("DELETE FROM bom_items").executeUpdate();
+            con.createQuery("DELETE FROM inventory_transactions").executeUpdate();
+            con.createQuery("DELETE FROM purchase_orders").executeUpdate();
+            con.createQuery("DELETE FROM products").executeUpdate();
+        }
+    }
+
+    private Product product(String code, boolean assembly, int stock) {
+        Product product = new Product(code, code);
+        product.setIsAssembly(assembly);
+        product.setStockQuantity(stock);
+        product.setOrderLeadTime(2.0);
+        return productDAO.create(product);
+    }
+
+    /**
+     * BIKE uses 2 WHEEL and 1 FRAME; WHEEL uses 32 SPOKE; CART uses 4 WHEEL.
+     */
+    private Map<String, Product> bikeStructure() {
+        Product bike = product("BIKE", true, 0);
+        Product cart = product("CART", true, 0);
+        Product wheel = product("WHEEL", true, 1);
+        Product frame = product("FRAME", false, 5);
+        Product spoke = product("SPOKE", false, 40);
+        bomItemDAO.create(new BOMItem(bike.getId(), wheel.getId(), new BigDecimal("2")));
+        bomItemDAO.create(new BOMItem(bike.getId(), frame.getId(), new BigDecimal("1")));
+        bomItemDAO.create(new BOMItem(wheel.getId(), spoke.getId(), new BigDecimal("32")));
+        bomItemDAO.create(new BOMItem(cart.getId(), wheel.getId(), new BigDecimal("4")));
+        return productDAO.findAll().stream().collect(Collectors.toMap(Product::getCode, p -> p));
+    }
+
+    @Test
+    void testRegenerateWritesPlanOfEveryAssembly() {
+        Map<String, Product> products = bikeStructure();
+        Long bikeId = products.get("BIKE").getId();
+
+        BatchPlanner.Summary summary = planner.regenerate(new BatchPlanner.Settings().threads(2).demandQuantity(3));
+
+        assertEquals(3, summary.getAssemblies());
+        assertEquals(3, summary.getPlanned());
+        assertTrue(summary.getFailedAssemblyIds().isEmpty());
+        PlanRun run = planDAO.findLatestCompletedRun();
+        assertEquals(summary.getRunId(), run.getId().longValue());
+        assertEquals("COMPLETED", run.getStatus());
+        assertEquals(3, run.getAssemblyCount());
+        assertEquals(3, run.getDemandQuantity());
+        assertNotNull(run.getFinishedAt());
+        assertEquals(summary.getLines(), run.getLineCount());
+        assertEquals(summary.getLines(), planDAO.findLines(run.getId()).size());
+
+        // The plan of BIKE agrees with the separate MRP calculations
+        Map<Long, PlanLine> bikePlan = planDAO.findLinesByAssemblyId(run.getId(), bikeId).stream()
+                .collect(Collectors.toMap(PlanLine::getProductId, l -> l));
+        assertEquals(mrpService.calculateMaterialRequirements(bikeId, 3), bikePlan.values().stream()
+                .collect(Collectors.toMap(PlanLine::getProductId, PlanLine::getRequiredQuantity)));
+        PlanLine spokes = bikePlan.get(products.get("SPOKE").getId());
+        assertEquals(192, spokes.getRequiredQuantity());
+        assertEquals(40, spokes.getAvailableQuantity());
+        assertEquals(152, spokes.getShortage());
+        assertNull(bikePlan.get(products.get("FRAME").getId()).getOrderQuantity());
+        List<PurchaseOrder> proposed = mrpService.generatePurchaseOrders(bikeId, 3);
+        assertEquals(proposed.size(), bikePlan.values().stream().filter(l -> l.getOrderQuantity() != null).count());
+        for (PurchaseOrder po : proposed) {
+            PlanLine line = bikePlan.get(po.getProductId());
+            assertEquals(po.getQuantity(), line.getOrderQuantity());
+            assertEquals(po.getExpectedDeliveryDate(), line.getExpectedDeliveryDate());
+        }
+    }
+
+    @Test
+    void testRegenerateReplacesPreviousPlan() {
+        bikeStructure();
+        long first = planner.regenerate(new BatchPlanner.Settings()).getRunId();
+
+        long second = planner.regenerate(new BatchPlanner.Settings().demandQuantity(2)).getRunId();
+
+        assertTrue(second > first);
+        assertNull(planDAO.findRun(first));
+        assertTrue(planDAO.findLines(first).isEmpty());
+        assertEquals(second, planDAO.findLatestCompletedRun().getId().longValue());
+    }
+
+    @Test
+    void testFilters() {
+        Map<String, Product> products = bikeStructure();
+
+        BatchPlanner.Summary summary = planner.regenerate(new BatchPlanner.Settings().topLevelOnly(true));
+        assertEquals(Set.of(products.get("BIKE").getId(), products.get("CART").getId()),
+                     planDAO.findLines(summary.getRunId()).stream().map(PlanLine::getAssemblyId).collect(Collectors.toSet()));
+        assertEquals("topLevel", planDAO.findRun(summary.getRunId()).getAssemblyFilter());
+
+        summary = planner.regenerate(new BatchPlanner.Settings().codePrefix("WH"));
+        assertEquals(1, summary.getAssemblies());
+        assertEquals(Set.of(products.get("WHEEL").getId()),
+                     planDAO.findLines(summary.getRunId()).stream().map(PlanLine::getAssemblyId).collect(Collectors.toSet()));
+    }
+
+    @Test
+    void testCyclicBomFailsOnlyItsAssemblies() {
+        Map<String, Product> products = bikeStructure();
+        Product loopA = product("LOOP-A", true, 0);
+        Product loopB = product("LOOP-B", true, 0);
+        bomItemDAO.create(new BOMItem(loopA.getId(), loopB.getId(), new BigDecimal("1")));
+        bomItemDAO.create(new BOMItem(loopB.getId(), loopA.getId(), new BigDecimal("1")));
+
+        BatchPlanner.Summary summary = planner.regenerate(new BatchPlanner.Settings().threads(2));
+
+        assertEquals(5, summary.getPlanned());
+        assertEquals(Set.of(loopA.getId(), loopB.getId()), Set.copyOf(summary.getFailedAssemblyIds()));
+        PlanRun run = planDAO.findLatestCompletedRun();
+        assertEquals(summary.getRunId(), run.getId().longValue());
+        assertEquals(3, run.getAssemblyCount());
+        assertFalse(planDAO.findLinesByAssemblyId(run.getId(), products.get("BIKE").getId()).isEmpty());
+        assertThrows(IllegalStateException.class, () -> mrpService.plan(loopA.getId(), 1));
+    }
+
+    @Test
+    void testFailureMarkingRunFailedIsSuppressed() {
+        bikeStructure();
+        MRPPlanDAO failingDAO = new MRPPlanDAO(sql2o) {
+            @Override
+            public void insertLines(List<PlanLine> lines) {
+                throw new IllegalStateException("insert failed");
+            }
+
+            @Override
+            public void failRun(long runId) {
+                throw new IllegalStateException("cleanup failed");
+            }
+        };
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> new BatchPlanner(mrpService, failingDAO).regenerate(new BatchPlanner.Settings()));
+
+        assertEquals("insert failed", e.getMessage());
+        assertEquals(1, e.getSuppressed().length);
+        assertEquals("cleanup failed", e.getSuppressed()[0].getMessage());
+    }
+
+    @Test
+    void testParallelPlanMatchesSequentialPlans() {
+        new DatasetGenerator(productDAO, bomItemDAO, new InventoryTransactionDAO(sql2o), new PurchaseOrderDAO(sql2o))
+                .generate(new DatasetGenerator.Settings().seed(11).products(400).depth(3).fanOut(4)
+                          .historyDays(0).openPurchaseOrders(0).endDate(LocalDate.of(2025, 1, 1)));
+
+        BatchPlanner.Summary summary = planner.regenerate(new BatchPlanner.Settings().threads(4).batchSize(50));
+
+        assertEquals(productDAO.findAssemblies().size(), summary.getAssemblies());
+        Map<Long, List<PlanLine>> written = planDAO.findLines(summary.getRunId()).stream()
+                .collect(Collectors.groupingBy(PlanLine::getAssemblyId));
+        assertEquals(summary.getAssemblies(), written.size());
+        for (Map.Entry<Long, List<PlanLine>> assembly : written.entrySet()) {
+            assertEquals(describe(mrpService.plan(assembly.getKey(), 1)), describe(assembly.getValue()),
+                         "Plan of assembly " + assembly.getKey());
+        }
+    }
+
+    private static Set<String> describe(List<PlanLine> lines) {
+        return lines.stream()
+                .map(l -> l.getProductId() + ":" + l.getRequiredQuantity() + "/" + l.getAvailableQuantity()
+                          + "/" + l.getShortage() + "/" + l.getOrderQuantity() + "/" + l.getExpectedDeliveryDate())
+                .collect(Collectors.toSet());
+    }
+}
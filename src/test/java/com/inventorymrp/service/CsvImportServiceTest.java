@@ -0,0 +1,183 @@
+package com.inventorymrp.service;
+
+import com.inventorymrp.dao.BOMItemDAO;
+import com.inventorymrp.dao.InventoryTransactionDAO;
+import com.inventorymrp.dao.ProductDAO;
+import com.inventorymrp.model.BOMItem;
+import com.inventorymrp.model.InventoryTransaction;
+import com.inventorymrp.model.Product;
+import com.inventorymrp.util.DatabaseUtil;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import org.sql2o.Sql2o;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for CsvImportService.
+ */
+class CsvImportServiceTest {
+    private static final String DB_URL = "jdbc:h2:mem:testdb_import;DB_CLOSE_DELAY=-1";
+    private static Sql2o sql2o;
+    private ProductDAO productDAO;
+    private BOMItemDAO bomItemDAO;
+    private CsvImportService importService;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeAll
+    static void setupDatabase() {
+        sql2o = DatabaseUtil.getSql2o(DB_URL, "sa", "");
+        DatabaseUtil.initializeDatabase(DB_URL, "sa", "");
+    }
+
+    @BeforeEach
+    void setUp() {
+        productDAO = new ProductDAO(sql2o);
+        bomItemDAO = new BOMItemDAO(sql2o);
+        importService = new CsvImportService(productDAO, bomItemDAO, 3);
+
+        try (org.sql2o.Connection con = sql2o.open()) {
+            con.createQuery("DELETE FROM daily_stock_movements").executeUpdate();
+            con.createQuery("DELETE FROM bom_items").executeUpdate();
+            con.createQuery("DELETE FROM inventory_transactions").executeUpdate();
+            con.createQuery("DELETE FROM purchase_orders").executeUpdate();
+            con.createQuery("DELETE FROM products").executeUpdate();
+        }
+    }
+
+    private Path write(String name, String content) throws IOException {
+        Path file = tempDir.resolve(name);
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    @Test
+    void testImportProductsWithQuotingAndOpeningBalances() throws IOException {
+        Path file = write("products.csv",
+                "code,name,description,unit_cost,stock_quantity,is_assembly\r\n"
+                + "BIKE,Bike,\"Road bike, \"\"pro\"\" model\",450.00,2,yes\r\n"
+                + "WHEEL,Wheel,\"spans\ntwo lines\",35.5,40,no\r\n"
+                + "\r\n"
+                + "FRAME,Frame,,120,,0\r\n"
+                + "CHAIN,Chain,,12,10,false\r\n");
+
+        CsvImportService.ImportResult result = importService.importProducts(file);
+
+        assertEquals(4, result.getRowsRead());
+        assertEquals(4, result.getRowsImported());
+        assertEquals(0, result.getRejectedCount());
+
+        Product bike = productDAO.findByCode("BIKE");
+        assertEquals("Road bike, \"pro\" model", bike.getDescription());
+        assertTrue(bike.getIsAssembly());
+        assertEquals(0, new BigDecimal("450.00").compareTo(bike.getUnitCost()));
+        assertEquals("spans\ntwo lines", productDAO.findByCode("WHEEL").getDescription());
+        assertEquals(0, productDAO.findByCode("FRAME").getStockQuantity());
+
+        List<InventoryTransaction> ledger = new InventoryTransactionDAO(sql2o)
+                .findByProductId(productDAO.findByCode("WHEEL").getId());
+        assertEquals(1, ledger.size());
+        assertEquals("Opening balance", ledger.get(0).getReference());
+        assertEquals(40, ledger.get(0).getQuantity());
+    }
+
+    @Test
+    void testLeadingByteOrderMarkIsSkipped() throws IOException {
+        Path file = write("products.csv",
+                "\uFEFFcode,name\r\n"
+                + "BOLT,Bolt\r\n");
+
+        CsvImportService.ImportResult result = importService.importProducts(file);
+
+        assertEquals(1, result.getRowsImported());
+        assertEquals(0, result.getRejectedCount());
+        assertEquals("Bolt", productDAO.findByCode("BOLT").getName());
+    }
+
+    @Test
+    void testInvalidProductRowsAreRejected() throws IOException {
+        productDAO.create(new Product("OLD", "Existing"));
+        Path file = write("products.csv",
+                "code,name,stock_quantity,non_purchase\n"
+                + "A1,First,1,n\n"
+                + "OLD,Clashes with the database,1,n\n"
+                + "A1,Clashes with the file,1,n\n"
+                + ",No code,1,n\n"
+                + "A2,Bad number,many,n\n"
+                + "A3,Bad flag,1,maybe\n"
+                + "A4,Fine,5,y\n");
+
+        CsvImportService.ImportResult result = importService.importProducts(file);
+
+        assertEquals(7, result.getRowsRead());
+        assertEquals(2, result.getRowsImported());
+        assertEquals(5, result.getRejectedCount());
+        assertEquals(List.of(3L, 4L, 5L, 6L, 7L), result.getRejectedRows().stream()
+                .map(CsvImportService.RejectedRow::getRow).collect(Collectors.toList()));
+        assertTrue(result.getRejectedRows().get(3).getReason().contains("stock_quantity"));
+        assertTrue(productDAO.findByCode("A4").getNonPurchase());
+        assertEquals(3, productDAO.count());
+    }
+
+    @Test
+    void testImportBomRejectsUnknownCodesDuplicatesAndCycles() throws IOException {
+        Product a = productDAO.create(new Product("A", "A"));
+        Product b = productDAO.create(new Product("B", "B"));
+        Product c = productDAO.create(new Product("C", "C"));
+        Product d = productDAO.create(new Product("D", "D"));
+        bomItemDAO.create(new BOMItem(c.getId(), d.getId(), BigDecimal.ONE));
+
+        Path file = write("bom.csv",
+                "parent_code,child_code,quantity,sequence_number\n"
+                + "A,B,2,10\n"          // 2: ok
+                + "B,C,1,10\n"          // 3: ok
+                + "D,A,1,10\n"          // 4: closes D -> A -> B -> C -> D
+                + "A,B,3,20\n"          // 5: duplicate of row 2
+                + "C,D,1,10\n"          // 6: duplicate of an existing line
+                + "A,X,1,10\n"          // 7: unknown code
+                + "A,A,1,10\n"          // 8: self reference
+                + "A,C,0,10\n"          // 9: quantity not positive
+                + "A,D,1.5,20\n");      // 10: ok, a shortcut but not a cycle
+
+        CsvImportService.ImportResult result = importService.importBomItems(file);
+
+        assertEquals(9, result.getRowsRead());
+        assertEquals(3, result.getRowsImported());
+        assertEquals(List.of(4L, 5L, 6L, 7L, 8L, 9L), result.getRejectedRows().stream()
+                .map(CsvImportService.RejectedRow::getRow).collect(Collectors.toList()));
+        assertEquals("BOM line would create a cycle", result.getRejectedRows().get(0).getReason());
+
+        List<BOMItem> fromA = bomItemDAO.findByParentProductId(a.getId());
+        assertEquals(2, fromA.size());
+        assertEquals(1, bomItemDAO.findByParentProductId(b.getId()).size());
+        assertTrue(bomItemDAO.findByParentProductId(d.getId()).isEmpty());
+    }
+
+    @Test
+    void testCycleInsideFileRejectsTheLaterLine() throws IOException {
+        productDAO.create(new Product("P", "P"));
+        productDAO.create(new Product("Q", "Q"));
+        productDAO.create(new Product("R", "R"));
+        Path file = write("bom.csv",
+                "parent_code,child_code\n"
+                + "R,P\n"
+                + "P,Q\n"
+                + "Q,R\n");
+
+        CsvImportService.ImportResult result = importService.importBomItems(file);
+
+        assertEquals(2, result.getRowsImported());
+        assertEquals(1, result.getRejectedRows().size());
+        assertEquals(4L, result.getRejectedRows().get(0).getRow());
+    }
+}
@@ -0,0 +1,119 @@
+package com.inventorymrp.service;
+
+import com.inventorymrp.dao.BOMItemDAO;
+import com.inventorymrp.dao.InventoryTransactionDAO;
+import com.inventorymrp.dao.ProductDAO;
+import com.inventorymrp.dao.PurchaseOrderDAO;
+import com.inventorymrp.dao.StockLedgerDAO;
+import com.inventorymrp.dao.memory.InMemoryBOMItemRepository;
+import com.inventorymrp.dao.memory.InMemoryInventoryTransactionRepository;
+import com.inventorymrp.dao.memory.InMemoryProductRepository;
+import com.inventorymrp.dao.memory.InMemoryPurchaseOrderRepository;
+import com.inventorymrp.dao.memory.InMemoryStore;
+import com.inventorymrp.model.BOMItem;
+import com.inventorymrp.model.Product;
+import com.inventorymrp.util.DatabaseUtil;
+import org.junit.jupiter.api.*;
+import org.sql2o.Sql2o;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for DatasetGenerator.
+ */
+class DatasetGeneratorTest {
+    private static final String DB_URL = "jdbc:h2:mem:testdb_dataset;DB_CLOSE_DELAY=-1";
+    private static Sql2o sql2o;
+
+    private final DatasetGenerator.Settings settings = new DatasetGenerator.Settings()
+            .seed(7).products(300).depth(3).fanOut(4).historyDays(60).transactionsPerDay(25)
+            .openPurchaseOrders(40).endDate(LocalDate.of(2025, 1, 1)).batchSize(100);
+
+    @BeforeAll
+    static void setupDatabase() {
+        sql2o = DatabaseUtil.getSql2o(DB_URL, "sa", "");
+        DatabaseUtil.initializeDatabase(DB_URL, "sa", "");
+    }
+
+    @BeforeEach
+    void setUp() {
+        try (org.sql2o.Connection con = sql2o.open()) {
+            con.createQuery("DELETE FROM daily_stock_movements").executeUpdate();
+            con.createQuery("DELETE FROM bom_items").executeUpdate();
+            con.createQuery("DELETE FROM inventory_transactions").executeUpdate();
+            con.createQuery("DELETE FROM purchase_orders").executeUpdate();
+            con.createQuery("DELETE FROM products").executeUpdate();
+        }
+    }
+
+    @Test
+    void testGeneratesConsistentDatasetInDatabase() {
+        ProductDAO productDAO = new ProductDAO(sql2o);
+        BOMItemDAO bomItemDAO = new BOMItemDAO(sql2o);
+        InventoryTransactionDAO transactionDAO = new InventoryTransactionDAO(sql2o);
+        DatasetGenerator generator = new DatasetGenerator(productDAO, bomItemDAO, transactionDAO,
+                                                          new PurchaseOrderDAO(sql2o));
+
+        DatasetGenerator.Summary summary = generator.generate(settings);
+
+        assertEquals(300, productDAO.count());
+        assertEquals(summary.getAssemblies(), productDAO.findAssemblies().size());
+        assertEquals(60 * 25, summary.getTransactions());
+        assertEquals(60 * 25, transactionDAO.count());
+        assertEquals(40, new PurchaseOrderDAO(sql2o).findByStatus("PENDING").size()
+                         + new PurchaseOrderDAO(sql2o).findByStatus("ORDERED").size());
+        assertEquals(summary.getBomItems(), bomItemDAO.count());
+
+        // Stock equals the ledger and never went negative
+        new StockLedgerService(new StockLedgerDAO(sql2o), null).rebuildStockQuantities(1).forEach(id -> fail("Stock out of step: " + id));
+        for (Product product : productDAO.findAll()) {
+            assertTrue(product.getStockQuantity() >= 0);
+        }
+
+        // Components always sit on a deeper level, so the BOM is acyclic and explodes
+        MRPService mrpService = new MRPService(productDAO, bomItemDAO, new PurchaseOrderDAO(sql2o));
+        Map<Long, Integer> requirements = mrpService.calculateMaterialRequirements(
+                summary.getTopAssemblyIds().get(0), 1);
+        assertTrue(requirements.size() > 4);
+    }
+
+    @Test
+    void testSameSeedGivesSameData() {
+        List<String> first = generateInMemory(settings);
+        assertEquals(first, generateInMemory(settings));
+        assertNotEquals(first, generateInMemory(settings.seed(8)));
+    }
+
+    private static List<String> generateInMemory(DatasetGenerator.Settings settings) {
+        InMemoryStore store = new InMemoryStore();
+        InMemoryProductRepository products = new InMemoryProductRepository(store);
+        InMemoryBOMItemRepository bomItems = new InMemoryBOMItemRepository(store);
+        new DatasetGenerator(products, bomItems, new InMemoryInventoryTransactionRepository(store),
+                             new InMemoryPurchaseOrderRepository(store)).generate(settings);
+        List<String> rows = products.findAll().stream()
+                .map(p -> p.getCode() + ":" + p.getStockQuantity() + ":" + p.getUnitCost())
+                .collect(Collectors.toList());
+        for (BOMItem line : bomItems.findAll()) {
+            rows.add(line.getParentProductId() + ">" + line.getChildProductId() + ":" + line.getQuantity());
+        }
+        return rows;
+    }
+
+    @Test
+    void testLevelSizesGrowTowardsParts() {
+        int[] sizes = DatasetGenerator.levelSizes(new DatasetGenerator.Settings().products(1000).depth(4).fanOut(5));
+        assertEquals(5, sizes.length);
+        assertEquals(1000, Arrays.stream(sizes).sum());
+        for (int level = 1; level < sizes.length; level++) {
+            assertTrue(sizes[level] >= sizes[level - 1]);
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> DatasetGenerator.levelSizes(new DatasetGenerator.Settings().products(3).depth(4)));
+    }
+}
@@ -0,0 +1,97 @@
+package com.inventorymrp.service;
+
+import com.inventorymrp.dao.memory.InMemoryBOMItemRepository;
+import com.inventorymrp.dao.memory.InMemoryInventoryTransactionRepository;
+import com.inventorymrp.dao.memory.InMemoryProductRepository;
+import com.inventorymrp.dao.memory.InMemoryPurchaseOrderRepository;
+import com.inventorymrp.dao.memory.InMemoryStore;
+import com.inventorymrp.model.BOMItem;
+import com.inventorymrp.model.Product;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the Flight Recorder events emitted by MRPService and InventoryService.
+ */
+class FlightRecorderEventsTest {
+    private InMemoryProductRepository productDAO;
+    private MRPService mrpService;
+    private InventoryService inventoryService;
+
+    @BeforeEach
+    void setUp() {
+        InMemoryStore store = new InMemoryStore();
+        productDAO = new InMemoryProductRepository(store);
+        InMemoryBOMItemRepository bomItemDAO = new InMemoryBOMItemRepository(store);
+        mrpService = new MRPService(productDAO, bomItemDAO, new InMemoryPurchaseOrderRepository(store));
+        inventoryService = new InventoryService(productDAO, new InMemoryInventoryTransactionRepository(store));
+
+        Product assembly = new Product("ASSY", "Assembly");
+        assembly.setIsAssembly(true);
+        productDAO.create(assembly);
+        Product comp = productDAO.create(new Product("COMP", "Component"));
+        bomItemDAO.create(new BOMItem(assembly.getId(), comp.getId(), new BigDecimal("2")));
+    }
+
+    private static List<RecordedEvent> record(Path dir, Runnable work) throws Exception {
+        Path file = dir.resolve("events.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("com.inventorymrp.MRPRun");
+            recording.enable("com.inventorymrp.StockMovement");
+            recording.start();
+            work.run();
+            recording.stop();
+            recording.dump(file);
+        }
+        return RecordingFile.readAllEvents(file).stream()
+                .filter(e -> e.getEventType().getName().startsWith("com.inventorymrp."))
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    void testMRPRunEvent(@TempDir Path dir) throws Exception {
+        Long assemblyId = productDAO.findByCode("ASSY").getId();
+
+        List<RecordedEvent> events = record(dir, () -> mrpService.calculateMaterialRequirements(assemblyId, 5));
+
+        assertEquals(1, events.size());
+        RecordedEvent run = events.get(0);
+        assertEquals("calculateMaterialRequirements", run.getString("operation"));
+        assertEquals(assemblyId.longValue(), run.getLong("productId"));
+        assertEquals("ASSY", run.getString("productCode"));
+        assertEquals(5, run.getInt("demandQuantity"));
+        assertEquals(1, run.getInt("bomLines"));
+        assertEquals(2, run.getLong("nodesVisited"));
+        assertTrue(run.getBoolean("succeeded"));
+    }
+
+    @Test
+    void testStockMovementEvents(@TempDir Path dir) throws Exception {
+        Long compId = productDAO.findByCode("COMP").getId();
+
+        List<RecordedEvent> events = record(dir, () -> {
+            inventoryService.addStock(compId, 10, "in");
+            assertThrows(IllegalStateException.class, () -> inventoryService.removeStock(compId, 50, "out"));
+            inventoryService.adjustStock(compId, 3, "count");
+        });
+
+        assertEquals(3, events.size());
+        assertEquals("IN", events.get(0).getString("type"));
+        assertEquals(10, events.get(0).getInt("quantity"));
+        assertTrue(events.get(0).getBoolean("succeeded"));
+        assertEquals("OUT", events.get(1).getString("type"));
+        assertFalse(events.get(1).getBoolean("succeeded"));
+        assertEquals("ADJUSTMENT", events.get(2).getString("type"));
+        assertEquals(compId.longValue(), events.get(2).getLong("productId"));
+    }
+}
@@ -0,0 +1,187 @@
+package com.inventorymrp.service;
+
+import com.inventorymrp.dao.InventoryTransactionDAO;
+import com.inventorymrp.dao.ProductDAO;
+import com.inventorymrp.model.Product;
+import com.inventorymrp.util.DatabaseUtil;
+import com.inventorymrp.util.StripedLock;
+import org.junit.jupiter.api.*;
+import org.sql2o.Sql2o;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Multi-threaded stress tests for InventoryService stock movements. Their throughput
+ * is measured by StockMovementBenchmark.
+ */
+class InventoryServiceConcurrencyTest {
+    private static final String DB_URL = "jdbc:h2:mem:testdb_stress;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000";
+    private static final int THREADS = 8;
+    private static final int OPS_PER_THREAD = 250;
+
+    private static Sql2o sql2o;
+    private InventoryService inventoryService;
+    private ProductDAO productDAO;
+
+    @BeforeAll
+    static void setupDatabase() {
+        sql2o = DatabaseUtil.getSql2o(DB_URL, "sa", "");
+        DatabaseUtil.initializeDatabase(DB_URL, "sa", "");
+    }
+
+    @BeforeEach
+    void setUp() {
+        productDAO = new ProductDAO(sql2o);
+        inventoryService = new InventoryService(productDAO, new InventoryTransactionDAO(sql2o));
+
+        // Clean up before each test
+        try (org.sql2o.Connection con = sql2o.open()) {
+            con.createQuery("DELETE FROM bom_items").executeUpdate();
+            con.createQuery("DELETE FROM inventory_transactions").executeUpdate();
+            con.createQuery("DELETE FROM purchase_orders").executeUpdate();
+            con.createQuery("DELETE FROM products").executeUpdate();
+        }
+    }
+
+    @Test
+    void testConcurrentAddStockLosesNoUpdates() throws Exception {
+        Product product = productDAO.create(new Product("HOT1", "Hot SKU"));
+        Long productId = product.getId();
+
+        runConcurrently(i -> inventoryService.addStock(productId, 1, "scan-" + i));
+
+        assertEquals(THREADS * OPS_PER_THREAD, productDAO.findById(productId).getStockQuantity());
+        assertEquals(THREADS * OPS_PER_THREAD, ledgerBalance(productId));
+    }
+
+    @Test
+    void testConcurrentRemoveStockNeverGoesNegative() throws Exception {
+        int initialStock = THREADS * OPS_PER_THREAD / 2;
+        Product product = productDAO.create(new Product("HOT2", "Hot SKU 2"));
+        Long productId = product.getId();
+        inventoryService.addStock(productId, initialStock, "opening");
+        AtomicInteger refused = new AtomicInteger();
+
+        runConcurrently(i -> {
+            try {
+                inventoryService.removeStock(productId, 1, "pick-" + i);
+            } catch (IllegalStateException e) {
+                refused.incrementAndGet();
+            }
+        });
+
+        assertEquals(0, productDAO.findById(productId).getStockQuantity());
+        assertEquals(THREADS * OPS_PER_THREAD - initialStock, refused.get());
+        assertEquals(0, ledgerBalance(productId));
+    }
+
+    @Test
+    void testMixedMovementsMatchLedger() throws Exception {
+        List<Long> ids = new ArrayList<>();
+        for (int p = 0; p < 4; p++) {
+            ids.add(productDAO.create(new Product("MIX" + p, "Mixed " + p)).getId());
+        }
+
+        runConcurrently(i -> {
+            Long id = ids.get(i % ids.size());
+            if (i % 3 == 0) {
+                try {
+                    inventoryService.removeStock(id, 2, "out");
+                } catch (IllegalStateException e) {
+                    // refused, nothing recorded
+                }
+            } else {
+                inventoryService.addStock(id, 1, "in");
+            }
+        });
+
+        for (Long id : ids) {
+            int stock = productDAO.findById(id).getStockQuantity();
+            assertTrue(stock >= 0);
+            assertEquals(stock, ledgerBalance(id));
+        }
+    }
+
+    @Test
+    void testZipfianWorkloadWithAndWithoutStripedLocks() throws Exception {
+        List<Long> ids = new ArrayList<>();
+        for (int p = 0; p < 200; p++) {
+            ids.add(productDAO.create(new Product("ZIPF" + p, "Zipf " + p)).getId());
+        }
+        InventoryTransactionDAO transactionDAO = new InventoryTransactionDAO(sql2o);
+        StripedLock locks = new StripedLock(64);
+
+        runZipfian(new InventoryService(productDAO, transactionDAO, null), ids);
+        runZipfian(new InventoryService(productDAO, transactionDAO, locks), ids);
+
+        assertEquals(THREADS * OPS_PER_THREAD, locks.getAcquisitionCount());
+        for (Long id : ids) {
+            assertEquals(productDAO.findById(id).getStockQuantity(), ledgerBalance(id));
+        }
+    }
+
+    private void runZipfian(InventoryService service, List<Long> ids) throws Exception {
+        int[] keys = zipfianKeys(ids.size(), 1.1, THREADS * OPS_PER_THREAD, 42L);
+        runConcurrently(i -> service.addStock(ids.get(keys[i]), 1, "zipf"));
+    }
+
+    /**
+     * Keys in [0, n) drawn from a Zipf distribution with exponent s; key 0 is the hottest.
+     */
+    private static int[] zipfianKeys(int n, double s, int count, long seed) {
+        double[] cdf = new double[n];
+        double sum = 0;
+        for (int k = 0; k < n; k++) {
+            sum += 1.0 / Math.pow(k + 1, s);
+            cdf[k] = sum;
+        }
+        Random random = new Random(seed);
+        int[] keys = new int[count];
+        for (int i = 0; i < count; i++) {
+            int idx = Arrays.binarySearch(cdf, random.nextDouble() * sum);
+            keys[i] = idx >= 0 ? idx : Math.min(n - 1, -idx - 1);
+        }
+        return keys;
+    }
+
+    private interface Operation {
+        void run(int index);
+    }
+
+    private void runConcurrently(Operation operation) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            final int thread = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < OPS_PER_THREAD; i++) {
+                    operation.run(thread * OPS_PER_THREAD + i);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> f : futures) {
+            f.get(120, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+    }
+
+    private int ledgerBalance(Long productId) {
+        try (org.sql2o.Connection con = sql2o.open()) {
+            return con.createQuery("SELECT COALESCE(SUM(CASE WHEN transaction_type = 'OUT' THEN -quantity " +
+                                   "ELSE quantity END), 0) FROM inventory_transactions WHERE product_id = :id")
+                .addParameter("id", productId)
+                .executeScalar(Integer.class);
+        }
+    }
+}
@@ -8,18 +8,34 @@ import com.inventorymrp.model.Product;
 import com.inventorymrp.model.PurchaseOrder;
 import com.inventorymrp.service.MRPService.MaterialAvailability;
 import com.inventorymrp.util.DatabaseUtil;
+import com.inventorymrp.util.QueryCounter;
+import com.inventorymrp.util.QueryBudgetExtension;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.sql2o.Sql2o;
 
 import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
+import static com.inventorymrp.util.QueryBudgetExtension.assertQueries;
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
  * Unit tests for MRPService - testing Material Requirements Planning logic.
+ * Planning runs are held to query budgets: one query per BOM level plus one for
+ * the products, whatever the number of BOM lines.
  */
+@ExtendWith(QueryBudgetExtension.class)
 class MRPServiceTest {
     private static Sql2o sql2o;
     private MRPService mrpService;
@@ -109,7 +125,8 @@ class MRPServiceTest {
         bomItemDAO.create(new BOMItem(subAssembly.getId(), component.getId(), new BigDecimal("3")));
 
         // Calculate requirements to build 4 TopAssemblies
-        Map<Long, Integer> requirements = mrpService.calculateMaterialRequirements(topAssembly.getId(), 4);
+        Long topId = topAssembly.getId();
+        Map<Long, Integer> requirements = assertQueries(3, () -> mrpService.calculateMaterialRequirements(topId, 4));
 
         // Should need 4 * 2 * 3 = 24 components
         assertEquals(24, requirements.get(component.getId()));
@@ -151,7 +168,9 @@ class MRPServiceTest {
         bomItemDAO.create(new BOMItem(assembly.getId(), comp.getId(), new BigDecimal("5")));
 
         // Try to build 10 assemblies (requires 50 components, but only 20 available)
-        Map<Long, MaterialAvailability> availability = mrpService.checkMaterialAvailability(assembly.getId(), 10);
+        Long assemblyId = assembly.getId();
+        Map<Long, MaterialAvailability> availability =
+            assertQueries(2, () -> mrpService.checkMaterialAvailability(assemblyId, 10));
 
         MaterialAvailability compAvail = availability.get(comp.getId());
         assertNotNull(compAvail);
@@ -197,7 +216,8 @@ class MRPServiceTest {
         bomItemDAO.create(new BOMItem(assembly.getId(), comp.getId(), new BigDecimal("5")));
 
         // Build 10 assemblies (requires 50 components, have only 10)
-        List<PurchaseOrder> purchaseOrders = mrpService.generatePurchaseOrders(assembly.getId(), 10);
+        Long assemblyId = assembly.getId();
+        List<PurchaseOrder> purchaseOrders = assertQueries(2, () -> mrpService.generatePurchaseOrders(assemblyId, 10));
 
         // Should generate a purchase order for 40 components (50 - 10)
         assertEquals(1, purchaseOrders.size());
@@ -236,16 +256,118 @@ class MRPServiceTest {
         assertEquals(15, purchaseOrders.get(0).getQuantity());
     }
 
+    @Test
+    void testExplosionOfLargeBOMWithinQueryBudget() {
+        // TOP -> 10 sub-assemblies -> 49 components each: 501 products, 500 BOM lines
+        Product top = new Product("TOP", "Top Assembly");
+        top.setIsAssembly(true);
+        List<Product> subs = new ArrayList<>();
+        List<Product> components = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Product sub = new Product("SUB" + i, "Sub Assembly " + i);
+            sub.setIsAssembly(true);
+            subs.add(sub);
+            for (int j = 0; j < 49; j++) {
+                components.add(new Product("COMP" + i + "-" + j, "Component " + i + "-" + j));
+            }
+        }
+        List<Product> all = new ArrayList<>();
+        all.add(top);
+        all.addAll(subs);
+        all.addAll(components);
+        productDAO.createAll(all);
+        List<BOMItem> lines = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            lines.add(new BOMItem(top.getId(), subs.get(i).getId(), new BigDecimal("2")));
+            for (int j = 0; j < 49; j++) {
+                lines.add(new BOMItem(subs.get(i).getId(), components.get(i * 49 + j).getId(), new BigDecimal("3")));
+            }
+        }
+        bomItemDAO.createAll(lines);
+
+        Map<Long, Integer> requirements = assertQueries(3, () -> mrpService.calculateMaterialRequirements(top.getId(), 1));
+
+        assertEquals(501, requirements.size());
+        assertEquals(6, requirements.get(components.get(0).getId()));
+        assertQueries(3, () -> mrpService.checkMaterialAvailability(top.getId(), 1));
+        assertQueries(3, () -> mrpService.generatePurchaseOrders(top.getId(), 1));
+    }
+
+    @Test
+    void testCancelledCalculationStops() {
+        // TOP -> SUB -> 20 components
+        Product top = new Product("TOP", "Top Assembly");
+        top.setIsAssembly(true);
+        top = productDAO.create(top);
+        Product sub = new Product("SUB", "Sub Assembly");
+        sub.setIsAssembly(true);
+        sub = productDAO.create(sub);
+        bomItemDAO.create(new BOMItem(top.getId(), sub.getId(), new BigDecimal("2")));
+        for (int i = 0; i < 20; i++) {
+            Product comp = productDAO.create(new Product("COMP" + i, "Component " + i));
+            bomItemDAO.create(new BOMItem(sub.getId(), comp.getId(), new BigDecimal("1")));
+        }
+        Long topId = top.getId();
+
+        // Cancelled before starting: no BOM queries
+        assertQueries(0, () -> assertThrows(CancellationException.class,
+                () -> mrpService.calculateMaterialRequirements(topId, 1, () -> true)));
+
+        // Cancelled during the calculation: stops at the next BOM node
+        AtomicInteger checks = new AtomicInteger();
+        assertThrows(CancellationException.class,
+                () -> mrpService.calculateLeadTimeRecursive(topId, 1, false, () -> checks.incrementAndGet() > 5));
+        assertEquals(6, checks.get());
+
+        assertEquals(22, mrpService.calculateMaterialRequirements(topId, 1, () -> false).size());
+    }
+
+    @Test
+    void testMRPRunEventCountsStatementsExecuted(@TempDir Path dir) throws Exception {
+        // Two BOM levels below the top, with products read uncached: three statements
+        ProductDAO uncached = new ProductDAO(sql2o, null);
+        MRPService service = new MRPService(uncached, bomItemDAO, purchaseOrderDAO);
+        Product top = new Product("TOP", "Top");
+        top.setIsAssembly(true);
+        top = uncached.create(top);
+        Product sub = new Product("SUB", "Sub-assembly");
+        sub.setIsAssembly(true);
+        sub = uncached.create(sub);
+        Product leaf = uncached.create(new Product("LEAF", "Leaf"));
+        bomItemDAO.create(new BOMItem(top.getId(), sub.getId(), new BigDecimal("2")));
+        bomItemDAO.create(new BOMItem(sub.getId(), leaf.getId(), new BigDecimal("3")));
+        Long topId = top.getId();
+
+        Path file = dir.resolve("run.jfr");
+        long before = QueryCounter.count();
+        try (Recording recording = new Recording()) {
+            recording.enable("com.inventorymrp.MRPRun");
+            recording.start();
+            service.calculateMaterialRequirements(topId, 1);
+            recording.stop();
+            recording.dump(file);
+        }
+        long executed = QueryCounter.count() - before;
+        List<RecordedEvent> runs = RecordingFile.readAllEvents(file).stream()
+                .filter(e -> e.getEventType().getName().equals("com.inventorymrp.MRPRun"))
+                .collect(Collectors.toList());
+
+        assertEquals(1, runs.size());
+        assertEquals(3, runs.get(0).getInt("queries"));
+        assertEquals(executed, runs.get(0).getInt("queries"));
+    }
+
     @Test
     void testCalculateLeadTime() {
         Product product = new Product("PROD1", "Product 1");
         product.setOrderLeadTime(5.0);
         product.setItemLeadTime(0.5);
         product = productDAO.create(product);
+        Long productId = product.getId();
 
         // Lead time = orderLeadTime + (quantity * itemLeadTime)
         // = 5.0 + (10 * 0.5) = 10.0
-        double leadTime = mrpService.calculateLeadTime(product.getId(), 10, false);
+        double leadTime = assertQueries(1, () -> mrpService.calculateLeadTime(productId, 10, false));
         assertEquals(10.0, leadTime, 0.001);
     }
 
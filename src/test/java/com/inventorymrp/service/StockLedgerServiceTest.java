@@ -0,0 +1,237 @@
+package com.inventorymrp.service;
+
+import com.inventorymrp.dao.InventoryTransactionDAO;
+import com.inventorymrp.dao.ProductCache;
+import com.inventorymrp.dao.ProductDAO;
+import com.inventorymrp.dao.StockLedgerDAO;
+import com.inventorymrp.model.InventoryTransaction;
+import com.inventorymrp.model.Product;
+import com.inventorymrp.model.StockSnapshot;
+import com.inventorymrp.util.DatabaseUtil;
+import org.junit.jupiter.api.*;
+import org.sql2o.Sql2o;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for StockLedgerService.
+ */
+class StockLedgerServiceTest {
+    private static final String DB_URL = "jdbc:h2:mem:testdb_ledger;DB_CLOSE_DELAY=-1";
+
+    private static Sql2o sql2o;
+    private ProductDAO productDAO;
+    private InventoryTransactionDAO transactionDAO;
+    private StockLedgerDAO ledgerDAO;
+    private StockLedgerService ledgerService;
+
+    @BeforeAll
+    static void setupDatabase() {
+        sql2o = DatabaseUtil.getSql2o(DB_URL, "sa", "");
+        DatabaseUtil.initializeDatabase(DB_URL, "sa", "");
+    }
+
+    @BeforeEach
+    void setUp() {
+        ProductCache cache = new ProductCache(100, 60_000);
+        productDAO = new ProductDAO(sql2o, cache);
+        transactionDAO = new InventoryTransactionDAO(sql2o, cache);
+        ledgerDAO = new StockLedgerDAO(sql2o);
+        ledgerService = new StockLedgerService(ledgerDAO, cache);
+
+        // Clean up before each test
+        try (org.sql2o.Connection con = sql2o.open()) {
+            con.createQuery("DELETE FROM stock_checkpoints").executeUpdate();
+            con.createQuery("DELETE FROM stock_snapshots").executeUpdate();
+            con.createQuery("DELETE FROM bom_items").executeUpdate();
+            con.createQuery("DELETE FROM inventory_transactions").executeUpdate();
+            con.createQuery("DELETE FROM purchase_orders").executeUpdate();
+            con.createQuery("DELETE FROM products").executeUpdate();
+        }
+    }
+
+    private Product createProduct(String code, int stock) {
+        Product product = new Product(code, "Ledger " + code);
+        product.setStockQuantity(stock);
+        return productDAO.create(product);
+    }
+
+    private Product createProduct(String code, int stock, LocalDateTime createdAt) {
+        Product product = new Product(code, "Ledger " + code);
+        product.setStockQuantity(stock);
+        product.setCreatedAt(createdAt);
+        return productDAO.create(product);
+    }
+
+    private void record(Long productId, String type, int quantity, LocalDateTime date) {
+        InventoryTransaction t = new InventoryTransaction(productId, type, quantity);
+        t.setTransactionDate(date);
+        assertTrue(transactionDAO.recordMovement(t, true));
+    }
+
+    @Test
+    void testOpeningBalanceAndEditsAreLedgered() {
+        Product product = createProduct("L001", 40);
+        assertEquals(40, ledgerService.getBalance(product.getId()));
+
+        product.setStockQuantity(25);
+        productDAO.update(product);
+        assertEquals(25, ledgerService.getBalance(product.getId()));
+        assertEquals(2, transactionDAO.findByType("ADJUSTMENT").size());
+    }
+
+    @Test
+    void testBalanceAsOfUsesSnapshotPlusReplay() {
+        Product product = createProduct("L002", 0);
+        LocalDateTime base = LocalDateTime.now().minusDays(10).truncatedTo(ChronoUnit.SECONDS);
+        record(product.getId(), "IN", 100, base.plusDays(1));
+        record(product.getId(), "OUT", 30, base.plusDays(2));
+
+        assertEquals(1, ledgerService.takeSnapshots(base.plusDays(3)));
+        assertEquals(70, ledgerDAO.findLatestSnapshot(product.getId(), base.plusDays(3)).getBalance());
+        // Taking the same snapshot again is a no-op
+        assertEquals(0, ledgerService.takeSnapshots(base.plusDays(3)));
+
+        record(product.getId(), "IN", 5, base.plusDays(4));
+        record(product.getId(), "OUT", 20, base.plusDays(6));
+
+        assertEquals(100, ledgerService.getBalanceAsOf(product.getId(), base.plusDays(1)));
+        assertEquals(70, ledgerService.getBalanceAsOf(product.getId(), base.plusDays(3)));
+        assertEquals(75, ledgerService.getBalanceAsOf(product.getId(), base.plusDays(5)));
+        assertEquals(55, ledgerService.getBalance(product.getId()));
+
+        // A later snapshot chains from the earlier one
+        ledgerService.takeSnapshots(base.plusDays(5));
+        assertEquals(75, ledgerDAO.findLatestSnapshot(product.getId(), base.plusDays(5)).getBalance());
+        assertEquals(55, ledgerService.getBalance(product.getId()));
+    }
+
+    @Test
+    void testBalancesAsOfForAllProducts() {
+        LocalDateTime base = LocalDateTime.now().minusDays(10).truncatedTo(ChronoUnit.SECONDS);
+        Product a = createProduct("L010", 0, base.minusDays(1));
+        Product b = createProduct("L011", 0, base.minusDays(1));
+        Product c = createProduct("L012", 0, base.minusDays(1));
+        record(a.getId(), "IN", 10, base.plusDays(1));
+        record(b.getId(), "IN", 20, base.plusDays(1));
+        ledgerService.takeSnapshots(base.plusDays(2));
+        record(a.getId(), "OUT", 3, base.plusDays(3));
+        record(c.getId(), "IN", 8, base.plusDays(3));
+
+        Map<Long, Integer> before = ledgerService.getBalancesAsOf(base);
+        assertEquals(List.of(a.getId(), b.getId(), c.getId()), List.copyOf(before.keySet()));
+        assertEquals(List.of(0, 0, 0), List.copyOf(before.values()));
+
+        Map<Long, Integer> atSnapshot = ledgerService.getBalancesAsOf(base.plusDays(2));
+        assertEquals(List.of(10, 20, 0), List.copyOf(atSnapshot.values()));
+
+        // Products created later are not listed before they existed
+        Product d = createProduct("L015", 4, base.plusDays(4));
+        assertFalse(ledgerService.getBalancesAsOf(base.plusDays(3)).containsKey(d.getId()));
+        assertEquals(4, ledgerService.getBalancesAsOf(LocalDateTime.now()).get(d.getId()));
+        productDAO.delete(d.getId());
+
+        Map<Long, Integer> now = ledgerService.getBalancesAsOf(LocalDateTime.now());
+        assertEquals(List.of(7, 20, 8), List.copyOf(now.values()));
+        for (Product product : List.of(a, b, c)) {
+            assertEquals(productDAO.findById(product.getId()).getStockQuantity(), now.get(product.getId()));
+        }
+    }
+
+    @Test
+    void testDailySnapshotsCheckpointEachDay() {
+        Product product = createProduct("L013", 0);
+        LocalDate today = LocalDate.now();
+        record(product.getId(), "IN", 10, today.minusDays(3).atTime(12, 0));
+        record(product.getId(), "OUT", 4, today.minusDays(2).atTime(12, 0));
+
+        // Four past day starts plus today; tomorrow has not started yet
+        assertEquals(5, ledgerService.takeDailySnapshots(today.minusDays(4), today.plusDays(1)));
+        assertEquals(0, ledgerService.takeDailySnapshots(today.minusDays(4), today));
+        assertEquals(5, ledgerDAO.findCheckpoints().size());
+        assertEquals(List.of(0, 0, 10, 6, 6), ledgerDAO.findSnapshotsByProductId(product.getId()).stream()
+            .map(StockSnapshot::getBalance).collect(Collectors.toList()));
+        assertEquals(10, ledgerService.getBalanceAsOf(product.getId(), today.minusDays(2).atTime(11, 0)));
+    }
+
+    @Test
+    void testMissingDailySnapshotsCatchUpFromLatestCheckpoint() {
+        Product product = createProduct("L014", 0);
+        LocalDate today = LocalDate.now();
+        record(product.getId(), "IN", 5, today.minusDays(5).atTime(12, 0));
+
+        // No checkpoint yet: only today's
+        assertEquals(1, ledgerService.takeMissingDailySnapshots());
+        assertEquals(0, ledgerService.takeMissingDailySnapshots());
+
+        ledgerService.discardSnapshotsFrom(today.minusDays(10).atStartOfDay());
+        ledgerService.takeSnapshots(today.minusDays(3).atTime(8, 0));
+        assertEquals(3, ledgerService.takeMissingDailySnapshots());
+        assertEquals(List.of(today.minusDays(3).atTime(8, 0), today.minusDays(2).atStartOfDay(),
+                             today.minusDays(1).atStartOfDay(), today.atStartOfDay()),
+                     ledgerDAO.findCheckpoints());
+        assertEquals(5, ledgerDAO.findLatestSnapshot(product.getId(), LocalDateTime.now()).getBalance());
+    }
+
+    @Test
+    void testSnapshotInFutureIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+            () -> ledgerService.takeSnapshots(LocalDateTime.now().plusHours(1)));
+    }
+
+    @Test
+    void testBackdatedMovementRequiresDiscardingSnapshots() {
+        Product product = createProduct("L003", 0);
+        LocalDateTime base = LocalDateTime.now().minusDays(10).truncatedTo(ChronoUnit.SECONDS);
+        record(product.getId(), "IN", 10, base.plusDays(1));
+        ledgerService.takeSnapshots(base.plusDays(2));
+
+        record(product.getId(), "IN", 7, base);
+        assertEquals(10, ledgerService.getBalanceAsOf(product.getId(), base.plusDays(2)));
+
+        assertEquals(1, ledgerService.discardSnapshotsFrom(base.plusDays(1)));
+        assertEquals(17, ledgerService.getBalanceAsOf(product.getId(), base.plusDays(2)));
+    }
+
+    @Test
+    void testRebuildCorrectsDriftedQuantities() {
+        Product a = createProduct("L004", 10);
+        Product b = createProduct("L005", 20);
+        record(a.getId(), "OUT", 4, LocalDateTime.now());
+        ledgerService.takeSnapshots(LocalDateTime.now());
+        record(b.getId(), "IN", 5, LocalDateTime.now());
+
+        productDAO.updateStockQuantity(a.getId(), 999);
+        assertEquals(999, productDAO.findById(a.getId()).getStockQuantity());
+
+        List<Long> corrected = ledgerService.rebuildStockQuantities(4);
+        assertEquals(List.of(a.getId()), corrected);
+        assertEquals(6, productDAO.findById(a.getId()).getStockQuantity());
+        assertEquals(25, productDAO.findById(b.getId()).getStockQuantity());
+        assertTrue(ledgerService.rebuildStockQuantities(2).isEmpty());
+    }
+
+    @Test
+    void testMovementIsDatedWhenRecordedNotWhenCreated() {
+        Product product = createProduct("L006", 10);
+        InventoryTransaction queued = new InventoryTransaction(product.getId(), "IN", 5);
+        assertNull(queued.getTransactionDate());
+
+        // A movement built before the snapshot but committed after it is replayed after it
+        LocalDateTime asOf = LocalDateTime.now();
+        ledgerService.takeSnapshots(asOf);
+        assertTrue(transactionDAO.recordMovement(queued, false));
+
+        assertFalse(queued.getTransactionDate().isBefore(asOf));
+        assertEquals(10, ledgerService.getBalanceAsOf(product.getId(), asOf));
+        assertEquals(15, ledgerService.getBalance(product.getId()));
+        assertTrue(ledgerService.rebuildStockQuantities(1).isEmpty());
+    }
+}
@@ -0,0 +1,136 @@
+package com.inventorymrp.service;
+
+import com.inventorymrp.dao.InventoryTransactionDAO;
+import com.inventorymrp.dao.ProductDAO;
+import com.inventorymrp.model.InventoryTransaction;
+import com.inventorymrp.model.Product;
+import com.inventorymrp.util.DatabaseUtil;
+import org.junit.jupiter.api.*;
+import org.sql2o.Sql2o;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for StockMovementJournal group commit.
+ */
+class StockMovementJournalTest {
+    private static final String DB_URL = "jdbc:h2:mem:testdb_journal;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000";
+    private static final int THREADS = 16;
+    private static final int SCANS_PER_THREAD = 100;
+
+    private static Sql2o sql2o;
+    private ProductDAO productDAO;
+    private InventoryTransactionDAO transactionDAO;
+
+    @BeforeAll
+    static void setupDatabase() {
+        sql2o = DatabaseUtil.getSql2o(DB_URL, "sa", "");
+        DatabaseUtil.initializeDatabase(DB_URL, "sa", "");
+    }
+
+    @BeforeEach
+    void setUp() {
+        productDAO = new ProductDAO(sql2o);
+        transactionDAO = new InventoryTransactionDAO(sql2o);
+
+        // Clean up before each test
+        try (org.sql2o.Connection con = sql2o.open()) {
+            con.createQuery("DELETE FROM bom_items").executeUpdate();
+            con.createQuery("DELETE FROM inventory_transactions").executeUpdate();
+            con.createQuery("DELETE FROM purchase_orders").executeUpdate();
+            con.createQuery("DELETE FROM products").executeUpdate();
+        }
+    }
+
+    @Test
+    void testSubmitCommitsAndAssignsIds() {
+        Product product = productDAO.create(new Product("J001", "Journal"));
+        try (StockMovementJournal journal = new StockMovementJournal(transactionDAO, 100, 10, 5)) {
+            InventoryTransaction t = new InventoryTransaction(product.getId(), "IN", 5);
+            assertTrue(journal.submit(t, true).join());
+            assertNotNull(t.getId());
+        }
+        assertEquals(5, productDAO.findById(product.getId()).getStockQuantity());
+        assertEquals(1, transactionDAO.count());
+    }
+
+    @Test
+    void testGuardRefusesWithinSameBatch() {
+        Product product = new Product("J002", "Journal guard");
+        product.setStockQuantity(3);
+        product = productDAO.create(product);
+        List<CompletableFuture<Boolean>> results = new ArrayList<>();
+        try (StockMovementJournal journal = new StockMovementJournal(transactionDAO, 100, 100, 50)) {
+            for (int i = 0; i < 5; i++) {
+                results.add(journal.submit(new InventoryTransaction(product.getId(), "OUT", 1), false));
+            }
+        }
+
+        long accepted = results.stream().filter(CompletableFuture::join).count();
+        assertEquals(3, accepted);
+        assertEquals(0, productDAO.findById(product.getId()).getStockQuantity());
+        assertEquals(3, transactionDAO.findByType("OUT").size());
+    }
+
+    @Test
+    void testUnknownProductIsRefused() {
+        try (StockMovementJournal journal = new StockMovementJournal(transactionDAO, 10, 10, 5)) {
+            assertFalse(journal.submit(new InventoryTransaction(999999L, "IN", 1), true).join());
+        }
+        assertEquals(0, transactionDAO.count());
+    }
+
+    @Test
+    void testServiceThroughJournalGroupsCommits() throws Exception {
+        Product product = productDAO.create(new Product("J003", "Dock scans"));
+        Long productId = product.getId();
+
+        scan(new InventoryService(productDAO, transactionDAO, null), productId);
+        StockMovementJournal journal = new StockMovementJournal(transactionDAO, 1000, 256, 2);
+        try {
+            scan(new InventoryService(productDAO, transactionDAO, null, journal), productId);
+        } finally {
+            journal.close();
+        }
+
+        int scans = THREADS * SCANS_PER_THREAD;
+        assertEquals(2 * scans, productDAO.findById(productId).getStockQuantity());
+        assertEquals(2 * scans, transactionDAO.count());
+        assertTrue(journal.getBatchCount() < scans);
+    }
+
+    @Test
+    void testRemoveStockThroughJournalKeepsExceptions() {
+        Product product = new Product("J004", "Journal remove");
+        product.setStockQuantity(1);
+        Long productId = productDAO.create(product).getId();
+        try (StockMovementJournal journal = new StockMovementJournal(transactionDAO, 10, 10, 1)) {
+            InventoryService service = new InventoryService(productDAO, transactionDAO, null, journal);
+            assertThrows(IllegalStateException.class, () -> service.removeStock(productId, 2, "too much"));
+            assertThrows(IllegalArgumentException.class, () -> service.addStock(999999L, 1, "missing"));
+            service.removeStock(productId, 1, "ok");
+        }
+        assertEquals(0, productDAO.findById(productId).getStockQuantity());
+    }
+
+    private void scan(InventoryService service, Long productId) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < SCANS_PER_THREAD; i++) {
+                    service.addStock(productId, 1, "scan");
+                }
+                return null;
+            }));
+        }
+        for (Future<?> f : futures) {
+            f.get(120, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+    }
+}
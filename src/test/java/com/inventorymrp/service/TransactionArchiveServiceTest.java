@@ -0,0 +1,178 @@
+package com.inventorymrp.service;
+
+import com.inventorymrp.dao.InventoryTransactionDAO;
+import com.inventorymrp.dao.PageRequest;
+import com.inventorymrp.dao.ProductDAO;
+import com.inventorymrp.dao.StockLedgerDAO;
+import com.inventorymrp.dao.TransactionArchiveDAO;
+import com.inventorymrp.model.InventoryTransaction;
+import com.inventorymrp.model.InventoryTransactionView;
+import com.inventorymrp.model.PeriodSummary;
+import com.inventorymrp.model.Product;
+import com.inventorymrp.util.DatabaseUtil;
+import org.junit.jupiter.api.*;
+import org.sql2o.Sql2o;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for TransactionArchiveService and archive-spanning queries.
+ */
+class TransactionArchiveServiceTest {
+    private static final String DB_URL = "jdbc:h2:mem:testdb_archive;DB_CLOSE_DELAY=-1";
+
+    private static Sql2o sql2o;
+    private ProductDAO productDAO;
+    private InventoryTransactionDAO transactionDAO;
+    private TransactionArchiveDAO archiveDAO;
+    private StockLedgerService ledgerService;
+    private TransactionArchiveService archiveService;
+
+    private final YearMonth thisMonth = YearMonth.now();
+
+    @BeforeAll
+    static void setupDatabase() {
+        sql2o = DatabaseUtil.getSql2o(DB_URL, "sa", "");
+        DatabaseUtil.initializeDatabase(DB_URL, "sa", "");
+    }
+
+    @BeforeEach
+    void setUp() {
+        productDAO = new ProductDAO(sql2o);
+        transactionDAO = new InventoryTransactionDAO(sql2o);
+        archiveDAO = new TransactionArchiveDAO(sql2o);
+        StockLedgerDAO ledgerDAO = new StockLedgerDAO(sql2o);
+        ledgerService = new StockLedgerService(ledgerDAO, null);
+        archiveService = new TransactionArchiveService(archiveDAO, ledgerDAO);
+
+        // Clean up before each test
+        try (org.sql2o.Connection con = sql2o.open()) {
+            con.createQuery("DELETE FROM inventory_period_summaries").executeUpdate();
+            con.createQuery("DELETE FROM inventory_archive_periods").executeUpdate();
+            con.createQuery("DELETE FROM inventory_transactions_archive").executeUpdate();
+            con.createQuery("DELETE FROM stock_checkpoints").executeUpdate();
+            con.createQuery("DELETE FROM stock_snapshots").executeUpdate();
+            con.createQuery("DELETE FROM bom_items").executeUpdate();
+            con.createQuery("DELETE FROM inventory_transactions").executeUpdate();
+            con.createQuery("DELETE FROM purchase_orders").executeUpdate();
+            con.createQuery("DELETE FROM products").executeUpdate();
+        }
+    }
+
+    private InventoryTransaction record(Long productId, String type, int quantity, LocalDateTime date) {
+        InventoryTransaction t = new InventoryTransaction(productId, type, quantity);
+        t.setTransactionDate(date);
+        assertTrue(transactionDAO.recordMovement(t, true));
+        return t;
+    }
+
+    private LocalDateTime day(YearMonth month, int day) {
+        return month.atDay(day).atTime(10, 0);
+    }
+
+    @Test
+    void testArchiveMovesClosedMonthsAndSummarizes() {
+        Product product = productDAO.create(new Product("A001", "Archived"));
+        YearMonth m3 = thisMonth.minusMonths(3);
+        YearMonth m2 = thisMonth.minusMonths(2);
+        InventoryTransaction old = record(product.getId(), "IN", 50, day(m3, 5));
+        record(product.getId(), "OUT", 20, day(m3, 20));
+        record(product.getId(), "IN", 10, day(m2, 3));
+        record(product.getId(), "OUT", 5, day(thisMonth, 1));
+        ledgerService.takeSnapshots(LocalDateTime.now());
+
+        assertEquals(3, archiveService.archiveMonthsThrough(thisMonth.minusMonths(1)));
+        assertEquals(3, archiveDAO.countArchived());
+        assertEquals(List.of(m3.plusMonths(1).atDay(1).atStartOfDay(), m2.plusMonths(1).atDay(1).atStartOfDay(),
+                             thisMonth.atDay(1).atStartOfDay()),
+                     archiveDAO.findPeriodEnds());
+
+        List<PeriodSummary> summaries = archiveDAO.findSummariesByProductId(product.getId());
+        assertEquals(2, summaries.size());
+        assertEquals(50, summaries.get(0).getInQuantity());
+        assertEquals(20, summaries.get(0).getOutQuantity());
+        assertEquals(30, summaries.get(0).getNetQuantity());
+        assertEquals(2, summaries.get(0).getTransactionCount());
+        assertEquals(10, summaries.get(1).getNetQuantity());
+
+        // Unranged finders, counts and pages read the archive too
+        assertEquals(4, transactionDAO.findByProductId(product.getId()).size());
+        assertEquals(2, transactionDAO.findByType("OUT").size());
+        assertEquals(4, transactionDAO.findAll().size());
+        assertEquals(4, transactionDAO.count(PageRequest.ALL));
+        assertEquals(4, transactionDAO.findPage(PageRequest.ALL, 0, 10).size());
+        List<InventoryTransactionView> page = transactionDAO.findViewPage(PageRequest.ALL, 2, 10);
+        assertEquals(2, page.size());
+        assertEquals("A001", page.get(1).getProductCode());
+        assertEquals(50, page.get(1).getQuantity());
+        // Ranged finders reach into the archive when needed
+        assertEquals(4, transactionDAO.findByProductId(product.getId(), m3.atDay(1).atStartOfDay(), null).size());
+        assertEquals(1, transactionDAO.findByType("OUT", m3.atDay(1).atStartOfDay(), m2.atDay(1).atStartOfDay()).size());
+        assertEquals(1, transactionDAO.findByDateRange(thisMonth.atDay(1).atStartOfDay(), null).size());
+        assertEquals(50, transactionDAO.findById(old.getId()).getQuantity());
+
+        // Balances stay correct whether or not the replay reaches the archive
+        assertEquals(35, ledgerService.getBalance(product.getId()));
+        assertEquals(30, ledgerService.getBalanceAsOf(product.getId(), m2.atDay(1).atStartOfDay()));
+        assertEquals(35, productDAO.findById(product.getId()).getStockQuantity());
+        assertTrue(ledgerService.rebuildStockQuantities(2).isEmpty());
+    }
+
+    @Test
+    void testArchiveIsIncremental() {
+        Product product = productDAO.create(new Product("A002", "Incremental"));
+        record(product.getId(), "IN", 5, day(thisMonth.minusMonths(2), 10));
+        record(product.getId(), "IN", 7, day(thisMonth.minusMonths(1), 10));
+        ledgerService.takeSnapshots(LocalDateTime.now());
+
+        assertEquals(1, archiveService.archiveMonthsThrough(thisMonth.minusMonths(2)));
+        assertEquals(0, archiveService.archiveMonthsThrough(thisMonth.minusMonths(2)));
+        assertEquals(1, archiveService.archiveMonthsThrough(thisMonth.minusMonths(1)));
+        assertEquals(2, archiveDAO.findPeriodEnds().size());
+    }
+
+    @Test
+    void testBackdatedTransactionIsArchivedUnderItsOwnPeriod() {
+        Product product = productDAO.create(new Product("A004", "Back-dated"));
+        YearMonth m3 = thisMonth.minusMonths(3);
+        YearMonth m1 = thisMonth.minusMonths(1);
+        record(product.getId(), "IN", 5, day(m3, 10));
+        ledgerService.takeSnapshots(LocalDateTime.now());
+        assertEquals(1, archiveService.archiveMonthsThrough(m3));
+
+        // Recorded after m3 was closed, dated inside it
+        record(product.getId(), "OUT", 2, day(m3, 20));
+        record(product.getId(), "IN", 7, day(m1, 10));
+        ledgerService.discardSnapshotsFrom(m3.atDay(20).atStartOfDay());
+        ledgerService.takeSnapshots(LocalDateTime.now());
+        assertEquals(2, archiveService.archiveMonthsThrough(m1));
+
+        LocalDateTime m3End = m3.plusMonths(1).atDay(1).atStartOfDay();
+        List<PeriodSummary> m3Summaries = archiveDAO.findSummariesByPeriodEnd(m3End);
+        assertEquals(1, m3Summaries.size());
+        assertEquals(3, m3Summaries.get(0).getNetQuantity());
+        assertEquals(2, m3Summaries.get(0).getTransactionCount());
+        List<PeriodSummary> m1Summaries = archiveDAO.findSummariesByPeriodEnd(thisMonth.atDay(1).atStartOfDay());
+        assertEquals(7, m1Summaries.get(0).getNetQuantity());
+        assertEquals(1, m1Summaries.get(0).getTransactionCount());
+        assertEquals(0, transactionDAO.count());
+        assertEquals(10, ledgerService.getBalance(product.getId()));
+    }
+
+    @Test
+    void testArchiveRequiresClosedMonth() {
+        Product product = productDAO.create(new Product("A003", "Open"));
+        record(product.getId(), "IN", 5, day(thisMonth.minusMonths(1), 10));
+
+        // No checkpoint covers the month yet
+        assertThrows(IllegalStateException.class, () -> archiveService.archiveMonthsThrough(thisMonth.minusMonths(1)));
+        ledgerService.takeSnapshots(LocalDateTime.now());
+        // The current month has not ended
+        assertThrows(IllegalStateException.class, () -> archiveService.archiveMonthsThrough(thisMonth));
+        assertEquals(0, archiveDAO.countArchived());
+    }
+}
@@ -0,0 +1,152 @@
+package com.inventorymrp.ui;
+
+import com.inventorymrp.dao.PageRequest;
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for PagedTableModel, with background loads run by hand.
+ */
+class PagedTableModelTest {
+    private final Queue<Runnable> background = new ArrayDeque<>();
+    private final List<Integer> fetchedOffsets = new ArrayList<>();
+    private final List<RuntimeException> errors = new ArrayList<>();
+    private boolean failing;
+    private PagedTableModel<Integer> model;
+
+    @BeforeEach
+    void setUp() {
+        // The numbers 0..999; the filter matches their digits, "value" sorts them
+        List<Integer> numbers = IntStream.range(0, 1000).boxed().collect(Collectors.toList());
+        model = new PagedTableModel<>(new String[] {"Value", "Text"}, new String[] {"value", null},
+                request -> select(numbers, request).size(),
+                (request, offset, limit) -> {
+                    fetchedOffsets.add(offset);
+                    if (failing) {
+                        throw new IllegalStateException("Database unavailable");
+                    }
+                    List<Integer> selected = select(numbers, request);
+                    return selected.subList(Math.min(offset, selected.size()), Math.min(offset + limit, selected.size()));
+                },
+                items -> items.stream().map(i -> new Object[] {i, "#" + i}).collect(Collectors.toList()),
+                background::add, Runnable::run, errors::add, 10, 3);
+    }
+
+    private static List<Integer> select(List<Integer> numbers, PageRequest request) {
+        Comparator<Integer> order = Comparator.naturalOrder();
+        return numbers.stream()
+                .filter(i -> request.matches(String.valueOf(i)))
+                .sorted(request.isDescending() ? order.reversed() : order)
+                .collect(Collectors.toList());
+    }
+
+    private void runBackground() {
+        while (!background.isEmpty()) {
+            background.poll().run();
+        }
+    }
+
+    @Test
+    void testPagesLoadOnDemandAndAreBounded() {
+        model.refresh();
+        assertEquals(0, model.getRowCount());
+        runBackground();
+        assertEquals(1000, model.getRowCount());
+
+        // Blank until the page arrives, fetched once however often it is painted
+        assertNull(model.getValueAt(55, 0));
+        assertNull(model.getValueAt(57, 1));
+        runBackground();
+        assertEquals(List.of(50), fetchedOffsets);
+        assertEquals(55, model.getValueAt(55, 0));
+        assertEquals("#57", model.getValueAt(57, 1));
+        assertEquals(59, model.getItem(59));
+
+        // Holds three pages, dropping the least recently used
+        for (int row : new int[] {0, 100, 55, 200}) {
+            model.getValueAt(row, 0);
+            runBackground();
+        }
+        assertEquals(List.of(50, 0, 100, 200), fetchedOffsets);
+        assertEquals(55, model.getValueAt(55, 0));
+        assertNull(model.getValueAt(5, 0));
+        runBackground();
+        assertEquals(List.of(50, 0, 100, 200, 0), fetchedOffsets);
+    }
+
+    @Test
+    void testFilterAndSortStartOver() {
+        model.refresh();
+        runBackground();
+        model.getValueAt(0, 0);
+
+        // The page requested before filtering is dropped when it arrives
+        model.setFilter("99");
+        runBackground();
+        assertEquals(List.of(0), fetchedOffsets);
+        assertEquals(19, model.getRowCount());
+        assertNull(model.getValueAt(0, 0));
+        runBackground();
+        assertEquals(99, model.getValueAt(0, 0));
+
+        model.sortBy(0);
+        model.sortBy(0);
+        runBackground();
+        assertEquals("Value ▼", model.getColumnName(0));
+        model.getValueAt(0, 0);
+        runBackground();
+        assertEquals(999, model.getValueAt(0, 0));
+
+        // Columns without a sort key are left alone
+        PageRequest request = model.getRequest();
+        model.sortBy(1);
+        assertSame(request, model.getRequest());
+
+        model.showRows(List.of(7, 8));
+        assertEquals(2, model.getRowCount());
+        assertEquals("#8", model.getValueAt(1, 1));
+        assertEquals("Value", model.getColumnName(0));
+    }
+
+    @Test
+    void testFailuresAreReportedOncePerListing() {
+        model.refresh();
+        runBackground();
+
+        failing = true;
+        for (int row : new int[] {0, 15, 25}) {
+            assertNull(model.getValueAt(row, 0));
+        }
+        runBackground();
+        assertEquals(List.of(0, 10, 20), fetchedOffsets);
+        assertEquals(1, errors.size());
+        assertEquals("Database unavailable", errors.get(0).getMessage());
+        // Failed pages stay blank rather than being fetched again
+        assertNull(model.getValueAt(5, 0));
+        runBackground();
+        assertEquals(3, fetchedOffsets.size());
+
+        model.refresh();
+        runBackground();
+        model.getValueAt(0, 0);
+        runBackground();
+        assertEquals(2, errors.size());
+
+        failing = false;
+        model.refresh();
+        runBackground();
+        model.getValueAt(0, 0);
+        runBackground();
+        assertEquals(0, model.getValueAt(0, 0));
+        assertEquals(2, errors.size());
+    }
+}
@@ -0,0 +1,98 @@
+package com.inventorymrp.util;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import org.sql2o.Sql2o;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for DatabaseUtil's migration fingerprint and Flyway skip.
+ */
+class DatabaseUtilTest {
+    private static final String URL = "jdbc:h2:mem:schemadb;DB_CLOSE_DELAY=-1";
+
+    @Test
+    void testMigrationFingerprint() {
+        String fingerprint = DatabaseUtil.migrationFingerprint();
+        assertNotNull(fingerprint);
+        assertTrue(fingerprint.matches("\\d+:[0-9a-f]+"), fingerprint);
+        assertEquals(fingerprint, DatabaseUtil.migrationFingerprint());
+    }
+
+    @Test
+    void testFlywaySkippedOnlyWhenMarkerAndDatabaseMatch(@TempDir Path dir) throws Exception {
+        Path marker = dir.resolve("inventorydb.schema");
+
+        assertTrue(DatabaseUtil.initializeDatabase(URL, "sa", "", marker));
+        assertEquals(DatabaseUtil.migrationFingerprint(),
+                     new String(Files.readAllBytes(marker), StandardCharsets.UTF_8));
+        assertFalse(DatabaseUtil.initializeDatabase(URL, "sa", "", marker));
+
+        // A stale marker
+        Files.write(marker, "0:0".getBytes(StandardCharsets.UTF_8));
+        assertTrue(DatabaseUtil.initializeDatabase(URL, "sa", "", marker));
+
+        // A matching marker beside a database missing a migration
+        Sql2o sql2o = new Sql2o(URL, "sa", "");
+        try (org.sql2o.Connection con = sql2o.open()) {
+            con.createQuery("DELETE FROM \"flyway_schema_history\" WHERE \"version\" = '11'").executeUpdate();
+        }
+        assertTrue(DatabaseUtil.initializeDatabase(URL, "sa", "", marker));
+        try (org.sql2o.Connection con = sql2o.open()) {
+            assertEquals(1, (int) con.createQuery("SELECT COUNT(*) FROM \"flyway_schema_history\" " +
+                                                  "WHERE \"version\" = '11'").executeScalar(Integer.class));
+        }
+
+        // A matching marker beside a new, empty database
+        String emptyUrl = "jdbc:h2:mem:schemadb2;DB_CLOSE_DELAY=-1";
+        assertTrue(DatabaseUtil.initializeDatabase(emptyUrl, "sa", "", marker));
+        assertFalse(DatabaseUtil.initializeDatabase(emptyUrl, "sa", "", marker));
+    }
+
+    @Test
+    void testOpeningBalancesForStockPredatingTheLedger() {
+        String url = "jdbc:h2:mem:schemadb3;DB_CLOSE_DELAY=-1";
+        Flyway.configure()
+            .dataSource(url, "sa", "")
+            .locations("classpath:db/migration")
+            .target("10")
+            .load()
+            .migrate();
+        Sql2o sql2o = new Sql2o(url, "sa", "");
+        try (org.sql2o.Connection con = sql2o.open()) {
+            con.createQuery("INSERT INTO products (id, code, name, stock_quantity, created_at) VALUES " +
+                            "(1, 'LEGACY', 'No ledger', 7, TIMESTAMP '2024-01-01 00:00:00'), " +
+                            "(2, 'PARTIAL', 'Some ledger', 5, TIMESTAMP '2024-01-01 00:00:00'), " +
+                            "(3, 'MATCHED', 'Ledger matches', 2, TIMESTAMP '2024-01-01 00:00:00')").executeUpdate();
+            con.createQuery("INSERT INTO inventory_transactions (product_id, transaction_type, quantity, " +
+                            "transaction_date) VALUES " +
+                            "(2, 'IN', 3, TIMESTAMP '2024-02-01 10:00:00'), " +
+                            "(3, 'IN', 2, TIMESTAMP '2024-02-01 10:00:00')").executeUpdate();
+            con.createQuery("INSERT INTO stock_snapshots (product_id, as_of, balance) VALUES " +
+                            "(2, TIMESTAMP '2024-03-01 00:00:00', 3)").executeUpdate();
+        }
+
+        DatabaseUtil.initializeDatabase(url, "sa", "");
+
+        try (org.sql2o.Connection con = sql2o.open()) {
+            List<Integer> openings = con.createQuery("SELECT quantity FROM inventory_transactions " +
+                                                     "WHERE reference = 'Opening balance' ORDER BY product_id")
+                .executeScalarList(Integer.class);
+            assertEquals(List.of(7, 2), openings);
+            assertEquals("2023-12-31 23:59:59", con.createQuery(
+                    "SELECT CAST(transaction_date AS VARCHAR) FROM inventory_transactions " +
+                    "WHERE product_id = 2 AND reference = 'Opening balance'").executeScalar(String.class));
+            assertEquals(5, (int) con.createQuery("SELECT balance FROM stock_snapshots WHERE product_id = 2")
+                .executeScalar(Integer.class));
+            assertEquals(7, (int) con.createQuery("SELECT adjustment_quantity FROM daily_stock_movements " +
+                                                  "WHERE product_id = 1").executeScalar(Integer.class));
+        }
+    }
+}
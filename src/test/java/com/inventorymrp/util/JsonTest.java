@@ -0,0 +1,65 @@
+package com.inventorymrp.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for Json.
+ */
+class JsonTest {
+
+    @Test
+    void testWrite() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("name", "Bolt \"M8\"\n");
+        map.put("cost", new BigDecimal("1.50"));
+        map.put("stock", 12);
+        map.put("assembly", true);
+        map.put("date", LocalDate.of(2024, 3, 1));
+        map.put("parts", Arrays.asList(1L, null));
+        map.put("nan", Double.NaN);
+
+        assertEquals("{\"name\":\"Bolt \\\"M8\\\"\\n\",\"cost\":1.50,\"stock\":12,\"assembly\":true,"
+                     + "\"date\":\"2024-03-01\",\"parts\":[1,null],\"nan\":null}", Json.write(map));
+    }
+
+    @Test
+    void testParse() {
+        Map<?, ?> map = (Map<?, ?>) Json.parse(" {\"a\": [1, -2.5e1, \"x\\u0041\\n\"], \"b\": {}, \"c\": null, \"d\": false} ");
+
+        List<?> a = (List<?>) map.get("a");
+        assertEquals(new BigDecimal("1"), a.get(0));
+        assertEquals(0, new BigDecimal("-25").compareTo((BigDecimal) a.get(1)));
+        assertEquals("xA\n", a.get(2));
+        assertTrue(((Map<?, ?>) map.get("b")).isEmpty());
+        assertTrue(map.containsKey("c"));
+        assertNull(map.get("c"));
+        assertEquals(Boolean.FALSE, map.get("d"));
+    }
+
+    @Test
+    void testParseRoundTrip() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("text", "tab\t\"quote\" \\ \u0001");
+        map.put("list", Arrays.asList(new BigDecimal("3"), Boolean.TRUE));
+
+        assertEquals(map, Json.parse(Json.write(map)));
+    }
+
+    @Test
+    void testParseInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> Json.parse("{\"a\": }"));
+        assertThrows(IllegalArgumentException.class, () -> Json.parse("[1, 2"));
+        assertThrows(IllegalArgumentException.class, () -> Json.parse("\"open"));
+        assertThrows(IllegalArgumentException.class, () -> Json.parse("{} x"));
+        assertThrows(IllegalArgumentException.class, () -> Json.parse(""));
+    }
+}
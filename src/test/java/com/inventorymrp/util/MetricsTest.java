@@ -0,0 +1,91 @@
+package com.inventorymrp.util;
+
+import com.inventorymrp.dao.ProductRepository;
+import com.inventorymrp.dao.memory.InMemoryInventoryTransactionRepository;
+import com.inventorymrp.dao.memory.InMemoryProductRepository;
+import com.inventorymrp.dao.memory.InMemoryStore;
+import com.inventorymrp.model.Product;
+import com.inventorymrp.service.InventoryService;
+import org.junit.jupiter.api.*;
+
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for Metrics.
+ */
+class MetricsTest {
+    @BeforeEach
+    void setUp() {
+        Metrics.reset();
+    }
+
+    @AfterEach
+    void tearDown() {
+        Metrics.setEnabled(false);
+        Metrics.reset();
+    }
+
+    private static Map<String, Metrics.OperationSnapshot> byName() {
+        return Metrics.snapshot().stream()
+                .collect(Collectors.toMap(Metrics.OperationSnapshot::getName, Function.identity()));
+    }
+
+    @Test
+    void testDisabledMetricsAddNothing() {
+        InMemoryProductRepository target = new InMemoryProductRepository(new InMemoryStore());
+        assertSame(target, Metrics.instrument(ProductRepository.class, target));
+        assertEquals(3, (int) Metrics.time("op", () -> 3));
+        assertTrue(Metrics.snapshot().isEmpty());
+    }
+
+    @Test
+    void testRepositoryAndServiceCallsAreCounted() {
+        Metrics.setEnabled(true);
+        InMemoryStore store = new InMemoryStore();
+        ProductRepository products = Metrics.instrument(ProductRepository.class, new InMemoryProductRepository(store));
+        assertNotNull(products.toString());
+        InventoryService service = new InventoryService(products, new InMemoryInventoryTransactionRepository(store));
+
+        Product product = products.create(new Product("M1", "Measured"));
+        service.addStock(product.getId(), 5, "in");
+        assertThrows(IllegalStateException.class, () -> service.removeStock(product.getId(), 10, "out"));
+        assertThrows(IllegalArgumentException.class, () -> products.create(new Product("M1", "Duplicate")));
+
+        Map<String, Metrics.OperationSnapshot> stats = byName();
+        assertEquals(2, stats.get("ProductRepository.create").getCount());
+        assertEquals(1, stats.get("ProductRepository.create").getErrors());
+        assertEquals(1, stats.get("InventoryService.addStock").getCount());
+        assertEquals(1, stats.get("InventoryService.removeStock").getErrors());
+        // removeStock reads the product to tell a missing product from too little stock
+        assertEquals(1, stats.get("ProductRepository.findById").getCount());
+        assertEquals(0, stats.get("InventoryService.addStock").getInFlight());
+        assertFalse(stats.containsKey("ProductRepository.toString"));
+        assertTrue(Metrics.report().contains("InventoryService.removeStock"));
+    }
+
+    @Test
+    void testHistogramPercentiles() {
+        Metrics.setEnabled(true);
+        for (int i = 0; i < 99; i++) {
+            Metrics.run("fast", () -> { });
+        }
+        Metrics.run("fast", () -> {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        Metrics.OperationSnapshot fast = byName().get("fast");
+        assertEquals(100, fast.getCount());
+        assertTrue(fast.getMaxNanos() >= 20_000_000L);
+        assertTrue(fast.getPercentileNanos(50) < 1_000_000L);
+        assertTrue(fast.getPercentileNanos(100) >= 20_000_000L);
+        assertTrue(fast.getPercentileNanos(100) <= fast.getMaxNanos());
+    }
+}
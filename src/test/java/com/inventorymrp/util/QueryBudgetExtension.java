@@ -0,0 +1,68 @@
+package com.inventorymrp.util;
+
+import org.junit.jupiter.api.extension.AfterAllCallback;
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Holds tests to query budgets. Turns on {@link QueryCounter} before the class's
+ * {@literal @}BeforeAll methods run, so the Sql2o they get from DatabaseUtil counts
+ * its statements, and fails a test method that executes more statements than its
+ * {@link QueryBudget}. {@link #assertQueries} budgets a single operation.
+ * Failures list the statements executed more than once, the usual N+1 suspects.
+ */
+public class QueryBudgetExtension implements BeforeAllCallback, AfterAllCallback,
+        BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    @Override
+    public void beforeAll(ExtensionContext context) {
+        QueryCounter.setEnabled(true);
+    }
+
+    @Override
+    public void afterAll(ExtensionContext context) {
+        QueryCounter.setEnabled(false);
+    }
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        QueryCounter.reset();
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        QueryBudget budget = context.getRequiredTestMethod().getAnnotation(QueryBudget.class);
+        if (budget != null && QueryCounter.count() > budget.value()) {
+            fail("Query budget of " + budget.value() + " exceeded: "
+                 + QueryCounter.describe(Collections.emptyMap(), QueryCounter.statements()));
+        }
+    }
+
+    /**
+     * Run operation and fail if it executes more than max statements.
+     */
+    public static <T> T assertQueries(int max, Supplier<T> operation) {
+        Map<String, Long> before = QueryCounter.statements();
+        long start = QueryCounter.count();
+        T result = operation.get();
+        if (QueryCounter.count() - start > max) {
+            fail("Query budget of " + max + " exceeded: " + QueryCounter.describe(before, QueryCounter.statements()));
+        }
+        return result;
+    }
+
+    public static void assertQueries(int max, Runnable operation) {
+        assertQueries(max, () -> {
+            operation.run();
+            return null;
+        });
+    }
+}
@@ -0,0 +1,98 @@
+package com.inventorymrp.util;
+
+import com.inventorymrp.dao.ProductDAO;
+import com.inventorymrp.model.Product;
+import org.junit.jupiter.api.*;
+import org.sql2o.Sql2o;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for StatementTracer.
+ */
+class StatementTracerTest {
+    private static Sql2o sql2o;
+
+    @BeforeAll
+    static void setupDatabase() {
+        StatementTracer.setEnabled(true);
+        try {
+            sql2o = DatabaseUtil.getSql2o("jdbc:h2:mem:tracedb;DB_CLOSE_DELAY=-1", "sa", "");
+        } finally {
+            StatementTracer.setEnabled(false);
+        }
+        DatabaseUtil.initializeDatabase("jdbc:h2:mem:tracedb;DB_CLOSE_DELAY=-1", "sa", "");
+    }
+
+    @BeforeEach
+    void setUp() {
+        try (org.sql2o.Connection con = sql2o.open()) {
+            con.createQuery("DELETE FROM inventory_transactions").executeUpdate();
+            con.createQuery("DELETE FROM products").executeUpdate();
+        }
+        StatementTracer.reset();
+    }
+
+    private static StatementTracer.StatementSnapshot find(String prefix) {
+        return StatementTracer.snapshot().stream()
+                .filter(s -> s.getName().startsWith(prefix))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No statement starting with " + prefix));
+    }
+
+    @Test
+    void testStatementsAreAggregatedWithRows() {
+        ProductDAO productDAO = new ProductDAO(sql2o);
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            products.add(new Product("T" + i, "Traced " + i));
+        }
+        productDAO.createAll(products);
+        productDAO.findAll();
+        productDAO.findAll();
+        productDAO.findById(products.get(0).getId());
+
+        StatementTracer.StatementSnapshot insert = find("[batch] INSERT INTO products");
+        assertEquals(1, insert.getCount());
+        assertEquals(5, insert.getRows());
+
+        StatementTracer.StatementSnapshot findAll = StatementTracer.snapshot().stream()
+                .filter(s -> s.getName().endsWith("ORDER BY code"))
+                .findFirst().orElseThrow(AssertionError::new);
+        assertEquals(2, findAll.getCount());
+        assertEquals(10, findAll.getRows());
+        assertTrue(findAll.getPercentileNanos(99) >= findAll.getPercentileNanos(50));
+        assertTrue(StatementTracer.report().contains("ORDER BY code"));
+    }
+
+    @Test
+    void testFailedStatementsAreCounted() {
+        assertThrows(Exception.class, () -> {
+            try (org.sql2o.Connection con = sql2o.open()) {
+                con.createQuery("SELECT no_such_column FROM products").executeAndFetchTable();
+            }
+        });
+        assertEquals(1, find("SELECT no_such_column").getErrors());
+    }
+
+    @Test
+    void testRedactsStringsAndBytes() {
+        Map<Integer, Object> parameters = new TreeMap<>();
+        parameters.put(1, 42L);
+        parameters.put(2, "secret code");
+        parameters.put(3, null);
+        parameters.put(4, LocalDate.of(2024, 1, 31));
+        parameters.put(5, new byte[3]);
+
+        String redacted = StatementTracer.redact(parameters);
+
+        assertEquals("[1=42, 2=<string 11>, 3=null, 4=2024-01-31, 5=<bytes 3>]", redacted);
+        assertFalse(redacted.contains("secret"));
+    }
+}